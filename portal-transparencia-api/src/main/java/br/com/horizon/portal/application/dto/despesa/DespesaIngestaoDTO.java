@@ -0,0 +1,38 @@
+package br.com.horizon.portal.application.dto.despesa;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Registro de despesa recebido pela ingestão NDJSON (uma linha do corpo).
+ * Mesmos campos do CSV PNTP; datas no formato ISO (yyyy-MM-dd).
+ */
+@Data
+public class DespesaIngestaoDTO {
+
+    private Integer exercicio;
+    private String numeroEmpenho;
+    private String numeroProcessoPagamento;
+    private LocalDate dataEmpenho;
+    private String orgaoCodigo;
+    private String orgaoNome;
+    private String unidadeCodigo;
+    private String unidadeNome;
+    private String funcao;
+    private String subfuncao;
+    private String programa;
+    private String acaoGoverno;
+    private String elementoDespesa;
+    private String fonteRecursos;
+    private String credorCpfCnpj;   // Só os dígitos são considerados
+    private String credorNome;
+    private BigDecimal valorEmpenhado;
+    private BigDecimal valorLiquidado;
+    private LocalDate dataLiquidacao;
+    private BigDecimal valorPago;
+    private LocalDate dataPagamento;
+    private String historicoObjetivo;
+    private String modalidadeLicitacao;
+}
@@ -0,0 +1,39 @@
+package br.com.horizon.portal.application.dto.importacao;
+
+import br.com.horizon.portal.infrastructure.persistence.enums.ModoImportacao;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModuloImportacao;
+import br.com.horizon.portal.infrastructure.persistence.enums.StatusImportacao;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class ImportacaoJobDTO {
+
+    private Long id;
+    private ModuloImportacao modulo;
+    private StatusImportacao status;
+    private ModoImportacao modo;
+    private String nomeArquivo;
+    private String sha256;
+    private String idImportacao;      // Mesmo lote usado no rollback e na auditoria
+    private long linhasProcessadas;
+    private long registrosGravados;
+    private long registrosPorSegundo;
+    private Long duracaoMs;
+    private Integer limiteErros;      // Preenchido no modo tolerante
+    private Long registrosRejeitados; // Linhas no CSV de /rejeitos
+    private Long linhaCheckpoint;     // Preenchido em job falho que pode ser retomado
+    private Long registrosInseridos;   // Só na importação incremental
+    private Long registrosAlterados;
+    private Long registrosRemovidos;
+    private Long registrosInalterados;
+    private String resumo;
+    private String mensagemErro;
+    private String usuario;
+    private LocalDateTime criadoEm;
+    private LocalDateTime iniciadoEm;
+    private LocalDateTime finalizadoEm;
+}
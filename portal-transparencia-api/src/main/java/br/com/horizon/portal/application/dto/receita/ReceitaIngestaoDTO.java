@@ -0,0 +1,29 @@
+package br.com.horizon.portal.application.dto.receita;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Registro de receita recebido pela ingestão NDJSON (uma linha do corpo).
+ * Mesmos campos e regras do CSV de receitas; datas no formato ISO (yyyy-MM-dd).
+ */
+@Data
+public class ReceitaIngestaoDTO {
+
+    private Integer exercicio;
+    private Integer mes;
+    private LocalDate dataLancamento;
+    private String codigoNatureza;
+    private String categoriaEconomica;
+    private String origem;
+    private String especie;
+    private String rubrica;
+    private String alinea;
+    private String fonteRecursos;
+    private BigDecimal valorPrevistoInicial;
+    private BigDecimal valorPrevistoAtualizado;
+    private BigDecimal valorArrecadado;
+    private String historico;
+}
@@ -0,0 +1,14 @@
+package br.com.horizon.portal.application.dto.servidor;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ImportacaoServidorResultadoDTO {
+
+    private String idImportacao;
+    private long inseridos;
+    private long atualizados;  // CPF já existia e cargo/lotação/etc. mudaram
+    private long inalterados;  // CPF já existia com os mesmos dados
+}
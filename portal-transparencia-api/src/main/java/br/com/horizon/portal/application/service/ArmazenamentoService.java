@@ -13,6 +13,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.Set;
 import java.util.UUID;
 
 @Slf4j
@@ -22,6 +23,9 @@ public class ArmazenamentoService {
     // BLINDAGEM: Garante que o caminho base seja absoluto. Alterado de "Anexos" para "Arquivos"
     private final Path rootLocation = Paths.get(System.getProperty("user.dir"), "Arquivos").toAbsolutePath().normalize();
 
+    // Subpastas de uso interno: não são servidas nem aceitam upload pela rota pública de arquivos
+    private static final Set<String> SUBPASTAS_RESTRITAS = Set.of("auditoria", "rejeitos");
+
     public ArmazenamentoService() {
         try {
             // Cria a pasta principal e as subpastas estruturais padrão de imediato
@@ -31,6 +35,8 @@ public class ArmazenamentoService {
             Files.createDirectories(rootLocation.resolve("sic"));
             Files.createDirectories(rootLocation.resolve("geral"));
             Files.createDirectories(rootLocation.resolve("prestacao-contas"));
+            Files.createDirectories(rootLocation.resolve("auditoria"));
+            Files.createDirectories(rootLocation.resolve("rejeitos"));
             log.info("📁 Estrutura de armazenamento inicializada em: {}", rootLocation);
         } catch (IOException e) {
             throw new RuntimeException("Não foi possível inicializar a estrutura de pastas de arquivos.", e);
@@ -83,6 +89,36 @@ public class ArmazenamentoService {
         }
     }
 
+    /**
+     * Se o caminho (subpasta, ou subpasta/arquivo) cai numa área servida pela rota pública.
+     * A decisão é sobre o caminho já normalizado: "geral/../auditoria" conta como "auditoria".
+     */
+    public boolean isPublica(String caminho) {
+        Path destino = this.rootLocation.resolve(caminho).normalize();
+        if (!destino.startsWith(this.rootLocation)) {
+            return false;
+        }
+        Path relativo = this.rootLocation.relativize(destino);
+        return !SUBPASTAS_RESTRITAS.contains(relativo.getName(0).toString());
+    }
+
+    /**
+     * Reserva um nome novo (UUID + extensão) na subpasta para quem vai gravar em fluxo,
+     * sem passar por MultipartFile. O arquivo é lido depois com {@link #carregar}.
+     */
+    public Path reservar(String subPasta, String extensao) {
+        try {
+            Path pastaDestino = this.rootLocation.resolve(subPasta).normalize().toAbsolutePath();
+            if (!pastaDestino.startsWith(this.rootLocation)) {
+                throw new RuntimeException("Tentativa de violação de diretório identificada (Path Traversal).");
+            }
+            Files.createDirectories(pastaDestino);
+            return pastaDestino.resolve(UUID.randomUUID() + extensao);
+        } catch (IOException e) {
+            throw new RuntimeException("Falha ao preparar arquivo em " + subPasta + ".", e);
+        }
+    }
+
     public Resource carregar(String subPasta, String nomeArquivo) {
         try {
             Path file = rootLocation.resolve(subPasta).resolve(nomeArquivo).normalize();
@@ -0,0 +1,172 @@
+package br.com.horizon.portal.application.service;
+
+import br.com.horizon.portal.infrastructure.persistence.entity.LogAuditoriaEntity;
+import br.com.horizon.portal.infrastructure.persistence.repository.LogAuditoriaRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cargas grandes de auditoria (ex.: linhas removidas no desfazer de um lote)
+ * fora do jsonb de tb_log_auditoria.
+ * <p>
+ * Até o limite configurado as linhas seguem inline no log, como sempre. Acima
+ * dele são gravadas em fluxo num arquivo NDJSON compactado (gzip) na subpasta
+ * restrita "auditoria" do {@link ArmazenamentoService}, e o log guarda só a
+ * referência, a quantidade de registros e o SHA-256 do arquivo.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ArquivoAuditoriaService {
+
+    private static final String SUBPASTA = "auditoria";
+    private static final String EXTENSAO = ".ndjson.gz";
+
+    private final ArmazenamentoService armazenamentoService;
+    private final LogAuditoriaRepository logAuditoriaRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${portal.auditoria.limite-inline:1000}")
+    private int limiteInline;
+
+    /** Coletor para os blocos removidos; use em try-with-resources e publique {@link Coletor#concluir()}. */
+    public Coletor coletor() {
+        return new Coletor();
+    }
+
+    /** Arquivo referenciado pelo log de auditoria informado. */
+    public Resource carregarDoLog(Long logId) {
+        LogAuditoriaEntity registro = logAuditoriaRepository.findById(logId)
+                .orElseThrow(() -> new IllegalArgumentException("Log de auditoria não encontrado: " + logId));
+        String arquivo = null;
+        try {
+            if (registro.getDadosAnteriores() != null) {
+                JsonNode referencia = objectMapper.readTree(registro.getDadosAnteriores());
+                arquivo = referencia.path("arquivo").asText(null);
+            }
+        } catch (IOException e) {
+            log.warn("Dados do log {} não são uma referência de arquivo: {}", logId, e.getMessage());
+        }
+        if (arquivo == null || !arquivo.startsWith(SUBPASTA + "/")) {
+            throw new IllegalArgumentException("O log " + logId + " não possui arquivo de auditoria.");
+        }
+        return armazenamentoService.carregar(SUBPASTA, arquivo.substring(SUBPASTA.length() + 1));
+    }
+
+    public final class Coletor implements Consumer<List<Map<String, Object>>>, AutoCloseable {
+
+        private final List<Map<String, Object>> inline = new ArrayList<>();
+        private Path caminho;
+        private DigestOutputStream digest;
+        private SequenceWriter escritor;
+        private long registros;
+        private boolean concluido;
+
+        @Override
+        public void accept(List<Map<String, Object>> bloco) {
+            registros += bloco.size();
+            try {
+                if (escritor == null && inline.size() + bloco.size() <= limiteInline) {
+                    inline.addAll(bloco);
+                    return;
+                }
+                if (escritor == null) {
+                    abrir();
+                    escritor.writeAll(inline);
+                    inline.clear();
+                }
+                escritor.writeAll(bloco);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao gravar o arquivo de auditoria.", e);
+            }
+        }
+
+        public long getRegistros() {
+            return registros;
+        }
+
+        /**
+         * Dados a publicar no log: as próprias linhas (abaixo do limite) ou a
+         * referência ao arquivo. Se a transação for desfeita, o arquivo é apagado.
+         */
+        public Object concluir() {
+            concluido = true;
+            if (escritor == null) {
+                return inline;
+            }
+            try {
+                escritor.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao finalizar o arquivo de auditoria.", e);
+            }
+            String rota = SUBPASTA + "/" + caminho.getFileName();
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status == STATUS_ROLLED_BACK) {
+                            armazenamentoService.apagar(rota);
+                        }
+                    }
+                });
+            }
+
+            Map<String, Object> referencia = new LinkedHashMap<>();
+            referencia.put("arquivo", rota);
+            referencia.put("formato", "application/x-ndjson+gzip");
+            referencia.put("registros", registros);
+            referencia.put("sha256", HexFormat.of().formatHex(digest.getMessageDigest().digest()));
+            return referencia;
+        }
+
+        // Sem concluir (falha no meio do desfazer): o arquivo parcial não tem log que aponte para ele
+        @Override
+        public void close() {
+            if (concluido || escritor == null) return;
+            try {
+                escritor.close();
+            } catch (IOException e) {
+                log.warn("Falha ao fechar arquivo de auditoria parcial: {}", e.getMessage());
+            }
+            armazenamentoService.apagar(SUBPASTA + "/" + caminho.getFileName());
+        }
+
+        private void abrir() throws IOException {
+            caminho = armazenamentoService.reservar(SUBPASTA, EXTENSAO);
+            try {
+                digest = new DigestOutputStream(Files.newOutputStream(caminho), MessageDigest.getInstance("SHA-256"));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 indisponível na JVM", e);
+            }
+            // Checksum do arquivo como está em disco (compactado): confere o download byte a byte
+            escritor = objectMapper.writer()
+                    .withRootValueSeparator("\n")
+                    .writeValues(new BufferedOutputStream(new GZIPOutputStream(digest, 64 * 1024), 64 * 1024));
+            log.info("Carga de auditoria acima de {} registros: gravando em {}", limiteInline, caminho);
+        }
+    }
+}
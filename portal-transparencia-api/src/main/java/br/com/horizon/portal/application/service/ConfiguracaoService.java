@@ -1,6 +1,7 @@
 package br.com.horizon.portal.application.service;
 
 import br.com.horizon.portal.application.dto.config.ConfiguracaoDTO;
+import br.com.horizon.portal.application.service.exportacao.RelatorioPdf;
 import br.com.horizon.portal.infrastructure.audit.LogAuditoriaEvent;
 import br.com.horizon.portal.infrastructure.persistence.entity.ConfiguracaoEntity;
 import br.com.horizon.portal.infrastructure.persistence.repository.ConfiguracaoRepository;
@@ -18,6 +19,7 @@ public class ConfiguracaoService {
     
     // Injetando o nosso serviço centralizado de arquivos
     private final ArmazenamentoService armazenamentoService;
+    private final RelatorioPdf relatorioPdf;
 
     public ConfiguracaoDTO.Response obterConfiguracao() {
         return repository.findById(1L)
@@ -75,6 +77,9 @@ public class ConfiguracaoService {
         ConfiguracaoEntity saved = repository.save(entity);
         ConfiguracaoDTO.Response estadoNovo = ConfiguracaoDTO.Response.fromEntity(saved);
 
+        // Nome, CNPJ, endereço e brasão do timbre dos PDFs ficam em cache
+        relatorioPdf.invalidarTimbre();
+
         // Dispara Auditoria Independente
         eventPublisher.publishEvent(new LogAuditoriaEvent(
                 "ATUALIZACAO",
@@ -1,25 +1,37 @@
 package br.com.horizon.portal.application.service;
 
+import br.com.horizon.portal.application.dto.despesa.DespesaIngestaoDTO;
+import br.com.horizon.portal.application.service.importacao.ContextoImportacao;
+import br.com.horizon.portal.application.service.importacao.Digitos;
+import br.com.horizon.portal.application.service.importacao.HashConteudo;
+import br.com.horizon.portal.application.service.importacao.ImportacaoEmEtapas;
+import br.com.horizon.portal.application.service.importacao.LayoutImportacao;
+import br.com.horizon.portal.application.service.importacao.LayoutsImportacao;
+import br.com.horizon.portal.application.service.importacao.LeitorCsvParalelo;
+import br.com.horizon.portal.application.service.importacao.LeitorNdjson;
+import br.com.horizon.portal.application.service.importacao.TokenizadorCsv;
 import br.com.horizon.portal.infrastructure.audit.LogAuditoriaEvent;
+import br.com.horizon.portal.infrastructure.persistence.bulk.CredorBulkRepository;
+import br.com.horizon.portal.infrastructure.persistence.bulk.ExclusaoLoteRepository;
+import br.com.horizon.portal.infrastructure.persistence.bulk.ImportacaoIncrementalRepository;
+import br.com.horizon.portal.infrastructure.persistence.bulk.ImportacaoIncrementalRepository.Diferencas;
+import br.com.horizon.portal.infrastructure.persistence.bulk.MapeamentoCopy;
+import br.com.horizon.portal.infrastructure.persistence.bulk.StagingImportacaoRepository;
+import br.com.horizon.portal.infrastructure.persistence.bulk.StagingImportacaoRepository.Trechos;
+import br.com.horizon.portal.infrastructure.persistence.bulk.StagingImportacaoRepository.Validacao;
 import br.com.horizon.portal.infrastructure.persistence.entity.CredorEntity;
 import br.com.horizon.portal.infrastructure.persistence.entity.DespesaEntity;
-import br.com.horizon.portal.infrastructure.persistence.repository.CredorRepository;
-import br.com.horizon.portal.infrastructure.persistence.repository.DespesaRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.math.BigDecimal;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.sql.SQLException;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,150 +41,275 @@ import java.util.Map;
 @Slf4j
 public class DespesaService {
 
-    private final DespesaRepository despesaRepository;
-    private final CredorRepository credorRepository;
+    private final CredorBulkRepository credorBulkRepository;
     private final ApplicationEventPublisher eventPublisher;
-    private final ObjectMapper objectMapper;
 
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private final LeitorCsvParalelo leitorCsv;
+    private final LayoutsImportacao layouts;
+    private final LeitorNdjson leitorNdjson;
+    private final ImportacaoIncrementalRepository importacaoIncremental;
+    private final StagingImportacaoRepository stagingImportacao;
+    private final ImportacaoEmEtapas importacaoEmEtapas;
+    private final ExclusaoLoteRepository exclusaoLote;
+    private final ArquivoAuditoriaService arquivoAuditoria;
 
-    @Transactional
-    public void importarArquivoCsv(MultipartFile file) {
-        String loteId = "LOTE-DESPESA-" + System.currentTimeMillis();
-        List<DespesaEntity> despesasParaSalvar = new ArrayList<>();
-        Map<String, CredorEntity> credorCache = new HashMap<>();
-        
-        int linhaAtual = 0;
-
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-            String linha;
-            br.readLine(); // Pula o cabeçalho
-
-            while ((linha = br.readLine()) != null) {
-                linhaAtual++;
-                if (linha.trim().isEmpty()) continue;
-                
-                String[] dados = linha.split(";", -1);
-
-                // ATUALIZADO: Agora validamos 23 colunas devido ao Processo de Pagamento
-                if (dados.length < 23) {
-                    throw new IllegalArgumentException("Linha " + linhaAtual + ": O CSV deve conter 23 colunas padrão PNTP.");
-                }
-
-                // 1. Tratamento do Credor (Índices movidos para 14 e 15)
-                String cpfCnpj = dados[14].trim().replaceAll("\\D", ""); 
-                String razaoSocial = dados[15].trim();
-                CredorEntity credor = null;
-
-                if (!cpfCnpj.isEmpty()) {
-                    credor = credorCache.computeIfAbsent(cpfCnpj, key -> 
-                        credorRepository.findByCpfCnpj(key).orElseGet(() -> {
-                            CredorEntity novoCredor = CredorEntity.builder()
-                                .cpfCnpj(key)
-                                .razaoSocial(razaoSocial.isEmpty() ? "NÃO INFORMADO" : razaoSocial)
-                                .tipoPessoa(key.length() == 11 ? "FISICA" : "JURIDICA")
-                                .build();
-                            return credorRepository.save(novoCredor);
-                        })
-                    );
-                }
-
-                // 2. Montagem da Entidade (Índices ajustados a partir do índice 2)
-                DespesaEntity despesa = new DespesaEntity();
+    // Chave natural do empenho na importação incremental; o escopo substituído é o exercício
+    private static final List<String> CHAVE_NATURAL = List.of("exercicio", "numero_empenho");
+
+    // Conferidas na staging, sobre o lote inteiro, antes da publicação
+    private static final List<Validacao> VALIDACOES = List.of(
+            new Validacao("exercício fora do intervalo 1900 até o ano seguinte",
+                    "exercicio NOT BETWEEN 1900 AND extract(YEAR FROM current_date) + 1"),
+            new Validacao("número do empenho vazio", "numero_empenho = ''"));
+
+    // Campos auditados no desfazer do lote (os mesmos de antes: exercício, empenho, valor e credor)
+    private static final String RETORNO_AUDITORIA = "t.exercicio, t.numero_empenho, t.valor_empenhado, "
+            + "COALESCE((SELECT c.razao_social FROM tb_credor c WHERE c.id = t.credor_id), 'NÃO INFORMADO') AS razao_social";
+
+    // Layout PNTP do arquivo de despesas (23 colunas, nesta ordem quando o cabeçalho não traz os nomes).
+    // O credor entra só pelo documento e pela razão social: o id vem em resolverCredores
+    private static final LayoutImportacao<DespesaEntity> LAYOUT = LayoutImportacao.<DespesaEntity>para("despesa", DespesaEntity::new)
+            .coluna("exercicio", 0, "Exercício", LayoutImportacao.INTEIRO, DespesaEntity::setExercicio)
+            .coluna("numero_empenho", 1, "Número Empenho", LayoutImportacao.TEXTO, DespesaEntity::setNumeroEmpenho)
+            .coluna("numero_processo_pagamento", 2, "Processo Pagamento", LayoutImportacao.TEXTO, DespesaEntity::setNumeroProcessoPagamento)
+            .coluna("data_empenho", 3, "Data Empenho", DespesaService::dataOpcional, DespesaEntity::setDataEmpenho)
+            .coluna("orgao_codigo", 4, "Código Órgão", LayoutImportacao.TEXTO, DespesaEntity::setOrgaoCodigo)
+            .coluna("orgao_nome", 5, "Órgão", LayoutImportacao.TEXTO, DespesaEntity::setOrgaoNome)
+            .coluna("unidade_codigo", 6, "Código Unidade", LayoutImportacao.TEXTO, DespesaEntity::setUnidadeCodigo)
+            .coluna("unidade_nome", 7, "Unidade", LayoutImportacao.TEXTO, DespesaEntity::setUnidadeNome)
+            .coluna("funcao", 8, "Função", LayoutImportacao.TEXTO, DespesaEntity::setFuncao)
+            .coluna("subfuncao", 9, "Subfunção", LayoutImportacao.TEXTO, DespesaEntity::setSubfuncao)
+            .coluna("programa", 10, "Programa", LayoutImportacao.TEXTO, DespesaEntity::setPrograma)
+            .coluna("acao_governo", 11, "Ação", LayoutImportacao.TEXTO, DespesaEntity::setAcaoGoverno)
+            .coluna("elemento_despesa", 12, "Elemento Despesa", LayoutImportacao.TEXTO, DespesaEntity::setElementoDespesa)
+            .coluna("fonte_recursos", 13, "Fonte de Recursos", LayoutImportacao.TEXTO, DespesaEntity::setFonteRecursos)
+            .coluna("credor_cpf_cnpj", 14, "CPF/CNPJ Credor", LayoutImportacao.DIGITOS, (d, doc) ->
+                    d.setCredor(doc.isEmpty() ? null : CredorEntity.builder().cpfCnpj(doc).build()))
+            .coluna("credor_nome", 15, "Credor", LayoutImportacao.TEXTO, (d, nome) -> {
+                if (d.getCredor() != null) d.getCredor().setRazaoSocial(nome);
+            })
+            .apelidos("credor_razao_social") // nome no modelo baixado pela tela de importação
+            .coluna("valor_empenhado", 16, "Valor Empenhado", LayoutImportacao.MOEDA, DespesaEntity::setValorEmpenhado)
+            .coluna("valor_liquidado", 17, "Valor Liquidado", LayoutImportacao.MOEDA, DespesaEntity::setValorLiquidado)
+            .coluna("data_liquidacao", 18, "Data Liquidação", DespesaService::dataOpcional, DespesaEntity::setDataLiquidacao)
+            .coluna("valor_pago", 19, "Valor Pago", LayoutImportacao.MOEDA, DespesaEntity::setValorPago)
+            .coluna("data_pagamento", 20, "Data Pagamento", DespesaService::dataOpcional, DespesaEntity::setDataPagamento)
+            .coluna("historico_objetivo", 21, "Histórico", LayoutImportacao.TEXTO, DespesaEntity::setHistoricoObjetivo)
+            .coluna("modalidade_licitacao", 22, "Modalidade Licitação", LayoutImportacao.TEXTO, DespesaEntity::setModalidadeLicitacao);
+
+    // Colunas gravadas via COPY (o credor já foi persistido antes, então só vai o id)
+    private static final MapeamentoCopy<DespesaEntity> MAPEAMENTO_COPY = MapeamentoCopy.<DespesaEntity>para("tb_despesa")
+            .coluna("exercicio", DespesaEntity::getExercicio)
+            .coluna("numero_empenho", DespesaEntity::getNumeroEmpenho)
+            .coluna("numero_processo_pagamento", DespesaEntity::getNumeroProcessoPagamento)
+            .coluna("data_empenho", DespesaEntity::getDataEmpenho)
+            .coluna("orgao_codigo", DespesaEntity::getOrgaoCodigo)
+            .coluna("orgao_nome", DespesaEntity::getOrgaoNome)
+            .coluna("unidade_codigo", DespesaEntity::getUnidadeCodigo)
+            .coluna("unidade_nome", DespesaEntity::getUnidadeNome)
+            .coluna("funcao", DespesaEntity::getFuncao)
+            .coluna("subfuncao", DespesaEntity::getSubfuncao)
+            .coluna("programa", DespesaEntity::getPrograma)
+            .coluna("acao_governo", DespesaEntity::getAcaoGoverno)
+            .coluna("elemento_despesa", DespesaEntity::getElementoDespesa)
+            .coluna("fonte_recursos", DespesaEntity::getFonteRecursos)
+            .coluna("credor_id", d -> d.getCredor() != null ? d.getCredor().getId() : null)
+            .coluna("valor_empenhado", DespesaEntity::getValorEmpenhado)
+            .coluna("valor_liquidado", DespesaEntity::getValorLiquidado)
+            .coluna("data_liquidacao", DespesaEntity::getDataLiquidacao)
+            .coluna("valor_pago", DespesaEntity::getValorPago)
+            .coluna("data_pagamento", DespesaEntity::getDataPagamento)
+            .coluna("historico_objetivo", DespesaEntity::getHistoricoObjetivo)
+            .coluna("modalidade_licitacao", DespesaEntity::getModalidadeLicitacao)
+            .coluna("data_importacao", DespesaEntity::getDataImportacao)
+            .coluna("id_importacao", DespesaEntity::getIdImportacao)
+            .coluna(ImportacaoIncrementalRepository.COLUNA_HASH, DespesaEntity::getHashConteudo);
+
+    public void importarArquivoCsv(InputStreamSource file, ContextoImportacao contexto) {
+        long inicio = System.currentTimeMillis();
+        String loteId = contexto.getLoteId();
+        LocalDateTime dataImportacao = LocalDateTime.now();
+
+        // CPF/CNPJ -> credor com id, preenchido bloco a bloco durante a leitura
+        Map<String, CredorEntity> credores = new HashMap<>();
+
+        try {
+            // O arquivo é carregado em trechos numa staging do lote; tb_despesa só é tocada na publicação
+            long registros = importacaoEmEtapas.executar(MAPEAMENTO_COPY, contexto, VALIDACOES,
+                    trechos -> carregar(file, contexto, trechos, credores, dataImportacao),
+                    (staging, lidos) -> publicar(staging, lidos, contexto));
+
+            long duracao = Math.max(1, System.currentTimeMillis() - inicio);
+            log.info("Lote {} concluído. {} despesas gravadas em {} ms ({} registros/s).",
+                    loteId, registros, duracao, registros * 1000 / duracao);
+
+        } catch (Exception e) {
+            log.error("Erro na importação de Despesa Pública do lote {}", loteId, e);
+            throw new RuntimeException("Falha ao processar CSV: " + e.getMessage());
+        }
+    }
+
+    /** Ingestão NDJSON (um {@link DespesaIngestaoDTO} por linha): mesma staging, credores e publicação do CSV. */
+    public void importarNdjson(InputStreamSource corpo, ContextoImportacao contexto) {
+        String loteId = contexto.getLoteId();
+        LocalDateTime dataImportacao = LocalDateTime.now();
+        Map<String, CredorEntity> credores = new HashMap<>();
+        try {
+            long registros = importacaoEmEtapas.executar(MAPEAMENTO_COPY, contexto, VALIDACOES,
+                    trechos -> leitorNdjson.processar(corpo, DespesaIngestaoDTO.class,
+                            registro -> deRegistro(registro, loteId, dataImportacao),
+                            bloco -> resolverCredores(bloco, credores),
+                            trechos::gravar, trechos::blocoGravado, contexto),
+                    (staging, lidos) -> publicar(staging, lidos, contexto));
+            log.info("Lote {} recebido via NDJSON. {} despesas publicadas.", loteId, registros);
+        } catch (Exception e) {
+            log.error("Erro na ingestão NDJSON de despesas do lote {}", loteId, e);
+            throw new RuntimeException("Falha ao processar NDJSON: " + e.getMessage());
+        }
+    }
+
+    private long carregar(InputStreamSource file, ContextoImportacao contexto, Trechos<DespesaEntity> trechos,
+                          Map<String, CredorEntity> credores, LocalDateTime dataImportacao) throws IOException, SQLException {
+        String loteId = contexto.getLoteId();
+
+        // Conversão das linhas em paralelo; o COPY recebe as despesas na ordem do arquivo
+        return leitorCsv.processar(file, cabecalho -> {
+            LayoutImportacao.Compilado<DespesaEntity> colunas = layouts.compilar(LAYOUT, cabecalho);
+            return linha -> {
+                DespesaEntity despesa = colunas.mapear(TokenizadorCsv.daThread().analisar(linha));
                 despesa.setIdImportacao(loteId);
-                despesa.setExercicio(Integer.parseInt(dados[0].trim()));
-                despesa.setNumeroEmpenho(dados[1].trim());
-                despesa.setNumeroProcessoPagamento(dados[2].trim()); // NOVO CAMPO
-                despesa.setDataEmpenho(parseData(dados[3].trim()));
-                
-                despesa.setOrgaoCodigo(dados[4].trim());
-                despesa.setOrgaoNome(dados[5].trim());
-                despesa.setUnidadeCodigo(dados[6].trim());
-                despesa.setUnidadeNome(dados[7].trim());
-                
-                despesa.setFuncao(dados[8].trim());
-                despesa.setSubfuncao(dados[9].trim());
-                despesa.setPrograma(dados[10].trim());
-                despesa.setAcaoGoverno(dados[11].trim());
-                despesa.setElementoDespesa(dados[12].trim());
-                despesa.setFonteRecursos(dados[13].trim());
-                
-                despesa.setCredor(credor);
-                
-                despesa.setValorEmpenhado(parseMoeda(dados[16].trim()));
-                despesa.setValorLiquidado(parseMoeda(dados[17].trim()));
-                despesa.setDataLiquidacao(parseData(dados[18].trim()));
-                despesa.setValorPago(parseMoeda(dados[19].trim()));
-                despesa.setDataPagamento(parseData(dados[20].trim()));
-                
-                despesa.setHistoricoObjetivo(dados[21].trim());
-                despesa.setModalidadeLicitacao(dados[22].trim());
-
-                despesasParaSalvar.add(despesa);
-            }
+                despesa.setDataImportacao(dataImportacao);
+                despesa.setHashConteudo(hashConteudo(despesa));
+                return despesa;
+            };
+        }, bloco -> resolverCredores(bloco, credores), trechos::gravar, trechos::blocoGravado, contexto);
+    }
 
-            despesaRepository.saveAll(despesasParaSalvar);
+    // Transação curta: só aqui tb_despesa recebe o lote, que fica visível inteiro no commit
+    private long publicar(MapeamentoCopy<DespesaEntity> staging, long lidos, ContextoImportacao contexto) {
+        // Delta: linhas removidas e versões anteriores das alteradas vão para a auditoria (arquivo se forem muitas)
+        try (ArquivoAuditoriaService.Coletor anteriores = arquivoAuditoria.coletor()) {
+            long registros;
+            String resumo;
+            if (contexto.isIncremental()) {
+                Diferencas diferencas = importacaoIncremental.aplicar(MAPEAMENTO_COPY, staging, CHAVE_NATURAL, "exercicio",
+                        lidos, anteriores);
+                contexto.setDiferencas(diferencas);
+                registros = diferencas.gravados();
+                resumo = "Importação incremental via CSV. " + diferencas.resumo();
+            } else {
+                registros = stagingImportacao.publicar(MAPEAMENTO_COPY, staging);
+                resumo = "Importação de " + registros + " registros via CSV.";
+            }
+            contexto.setRegistrosGravados(registros);
+            contexto.setResumo(resumo);
 
             eventPublisher.publishEvent(new LogAuditoriaEvent(
-                "IMPORTACAO_LOTE_CSV", 
-                "DESPESA", 
-                loteId, 
-                null,
-                "Importação de " + despesasParaSalvar.size() + " registros via CSV."
+                contexto.isIncremental() ? "IMPORTACAO_INCREMENTAL_CSV" : "IMPORTACAO_LOTE_CSV",
+                "DESPESA",
+                contexto.getLoteId(),
+                anteriores.getRegistros() > 0 ? anteriores.concluir() : null,
+                resumo
             ));
+            return registros;
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("Erro na importação de Despesa Pública na linha {}", linhaAtual, e);
-            throw new RuntimeException("Falha ao processar CSV na linha " + linhaAtual + ": " + e.getMessage());
+    // Uma leitura só do arquivo: os credores de cada bloco que ainda não estão no mapa são resolvidos
+    // de uma vez (busca + INSERT ... ON CONFLICT DO NOTHING RETURNING) em vez de 2 round trips por credor
+    private void resolverCredores(List<DespesaEntity> bloco, Map<String, CredorEntity> credores) {
+        Map<String, String> novos = new HashMap<>();
+        for (DespesaEntity d : bloco) {
+            CredorEntity credor = d.getCredor();
+            if (credor != null && !credores.containsKey(credor.getCpfCnpj())) {
+                novos.putIfAbsent(credor.getCpfCnpj(), credor.getRazaoSocial());
+            }
+        }
+
+        if (!novos.isEmpty()) {
+            // Transação e conexão próprias: o COPY do trecho segue aberto e nada fica travado até o commit dele
+            credorBulkRepository.resolverIds(novos)
+                    .forEach((doc, id) -> credores.put(doc, CredorEntity.builder().id(id).cpfCnpj(doc).build()));
+        }
+
+        for (DespesaEntity d : bloco) {
+            if (d.getCredor() != null) {
+                d.setCredor(credores.get(d.getCredor().getCpfCnpj()));
+            }
         }
     }
 
     @Transactional
     public void excluirLote(String loteId) {
-        List<DespesaEntity> paraExcluir = despesaRepository.findAll().stream()
-                .filter(d -> loteId.equals(d.getIdImportacao())).toList();
+        // DELETE em blocos no banco; lotes grandes vão para o arquivo de auditoria em vez do jsonb
+        try (ArquivoAuditoriaService.Coletor removidos = arquivoAuditoria.coletor()) {
+            exclusaoLote.excluir("tb_despesa", RETORNO_AUDITORIA, loteId, removidos);
 
-        if (paraExcluir.isEmpty()) throw new IllegalArgumentException("Lote não encontrado: " + loteId);
+            if (removidos.getRegistros() == 0) throw new IllegalArgumentException("Lote não encontrado: " + loteId);
 
-        try {
-            List<Map<String, Object>> dadosSimplificados = paraExcluir.stream().map(d -> {
-                Map<String, Object> map = new HashMap<>();
-                map.put("exercicio", d.getExercicio());
-                map.put("numeroEmpenho", d.getNumeroEmpenho());
-                map.put("valorEmpenhado", d.getValorEmpenhado());
-                map.put("razaoSocial", d.getCredor() != null ? d.getCredor().getRazaoSocial() : "NÃO INFORMADO");
-                return map;
-            }).toList();
-
-            String jsonExcluidos = objectMapper.writeValueAsString(dadosSimplificados);
-            
             eventPublisher.publishEvent(new LogAuditoriaEvent(
-                    "EXCLUSAO_LOTE", 
-                    "DESPESA", 
-                    loteId, 
-                    jsonExcluidos,
-                    "Revogação total do lote. Itens removidos: " + paraExcluir.size()
+                    "EXCLUSAO_LOTE",
+                    "DESPESA",
+                    loteId,
+                    removidos.concluir(),
+                    "Revogação total do lote. Itens removidos: " + removidos.getRegistros()
             ));
-            
-            despesaRepository.deleteAllInBatch(paraExcluir);
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("Erro ao processar reversão do lote {}", loteId, e);
-            throw new RuntimeException("Falha ao auditar exclusão de lote: " + e.getMessage());
+    private static DespesaEntity deRegistro(DespesaIngestaoDTO registro, String loteId, LocalDateTime dataImportacao) {
+        DespesaEntity despesa = new DespesaEntity();
+        despesa.setExercicio(LeitorNdjson.obrigatorio(registro.getExercicio(), "Exercício"));
+        despesa.setNumeroEmpenho(LeitorNdjson.texto(registro.getNumeroEmpenho()));
+        despesa.setNumeroProcessoPagamento(LeitorNdjson.texto(registro.getNumeroProcessoPagamento()));
+        despesa.setDataEmpenho(registro.getDataEmpenho());
+        despesa.setOrgaoCodigo(LeitorNdjson.texto(registro.getOrgaoCodigo()));
+        despesa.setOrgaoNome(LeitorNdjson.texto(registro.getOrgaoNome()));
+        despesa.setUnidadeCodigo(LeitorNdjson.texto(registro.getUnidadeCodigo()));
+        despesa.setUnidadeNome(LeitorNdjson.texto(registro.getUnidadeNome()));
+        despesa.setFuncao(LeitorNdjson.texto(registro.getFuncao()));
+        despesa.setSubfuncao(LeitorNdjson.texto(registro.getSubfuncao()));
+        despesa.setPrograma(LeitorNdjson.texto(registro.getPrograma()));
+        despesa.setAcaoGoverno(LeitorNdjson.texto(registro.getAcaoGoverno()));
+        despesa.setElementoDespesa(LeitorNdjson.texto(registro.getElementoDespesa()));
+        despesa.setFonteRecursos(LeitorNdjson.texto(registro.getFonteRecursos()));
+        String cpfCnpj = Digitos.de(registro.getCredorCpfCnpj());
+        if (!cpfCnpj.isEmpty()) {
+            despesa.setCredor(CredorEntity.builder().cpfCnpj(cpfCnpj)
+                    .razaoSocial(LeitorNdjson.texto(registro.getCredorNome())).build());
         }
+        despesa.setValorEmpenhado(LeitorNdjson.valor(registro.getValorEmpenhado()));
+        despesa.setValorLiquidado(LeitorNdjson.valor(registro.getValorLiquidado()));
+        despesa.setDataLiquidacao(registro.getDataLiquidacao());
+        despesa.setValorPago(LeitorNdjson.valor(registro.getValorPago()));
+        despesa.setDataPagamento(registro.getDataPagamento());
+        despesa.setHistoricoObjetivo(LeitorNdjson.texto(registro.getHistoricoObjetivo()));
+        despesa.setModalidadeLicitacao(LeitorNdjson.texto(registro.getModalidadeLicitacao()));
+        despesa.setIdImportacao(loteId);
+        despesa.setDataImportacao(dataImportacao);
+        despesa.setHashConteudo(hashConteudo(despesa));
+        return despesa;
     }
 
-    private BigDecimal parseMoeda(String valor) {
-        if (valor == null || valor.isBlank()) return BigDecimal.ZERO;
-        return new BigDecimal(valor.replace(".", "").replace(",", "."));
+    // Credor entra pelo documento: o id só é conhecido depois de resolverCredores
+    private static String hashConteudo(DespesaEntity despesa) {
+        String cpfCnpj = despesa.getCredor() != null ? despesa.getCredor().getCpfCnpj() : "";
+        return HashConteudo.de(despesa.getExercicio(), despesa.getNumeroEmpenho(),
+                despesa.getNumeroProcessoPagamento(), despesa.getDataEmpenho(), despesa.getOrgaoCodigo(),
+                despesa.getOrgaoNome(), despesa.getUnidadeCodigo(), despesa.getUnidadeNome(),
+                despesa.getFuncao(), despesa.getSubfuncao(), despesa.getPrograma(), despesa.getAcaoGoverno(),
+                despesa.getElementoDespesa(), despesa.getFonteRecursos(), cpfCnpj,
+                despesa.getValorEmpenhado(), despesa.getValorLiquidado(), despesa.getDataLiquidacao(),
+                despesa.getValorPago(), despesa.getDataPagamento(), despesa.getHistoricoObjetivo(),
+                despesa.getModalidadeLicitacao());
     }
 
-    private LocalDate parseData(String dataStr) {
-        if (dataStr == null || dataStr.isBlank()) return null;
+    // Datas de empenho/liquidação/pagamento são opcionais: vazia ou inválida fica nula
+    private static LocalDate dataOpcional(TokenizadorCsv dados, int campo) {
         try {
-            return LocalDate.parse(dataStr, DATE_FORMATTER);
-        } catch (Exception e) {
+            return dados.data(campo);
+        } catch (IllegalArgumentException e) {
             return null;
         }
     }
-}
\ No newline at end of file
+}
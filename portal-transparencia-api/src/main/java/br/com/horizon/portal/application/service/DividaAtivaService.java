@@ -1,21 +1,26 @@
 package br.com.horizon.portal.application.service;
 
+import br.com.horizon.portal.application.service.importacao.ContextoImportacao;
+import br.com.horizon.portal.application.service.importacao.LayoutImportacao;
+import br.com.horizon.portal.application.service.importacao.LayoutsImportacao;
+import br.com.horizon.portal.application.service.importacao.TokenizadorCsv;
 import br.com.horizon.portal.infrastructure.audit.LogAuditoriaEvent;
+import br.com.horizon.portal.infrastructure.persistence.bulk.ExclusaoLoteRepository;
+import br.com.horizon.portal.infrastructure.persistence.bulk.MapeamentoCopy;
+import br.com.horizon.portal.infrastructure.persistence.bulk.PostgresCopyWriter;
 import br.com.horizon.portal.infrastructure.persistence.entity.DividaAtivaEntity;
 import br.com.horizon.portal.infrastructure.persistence.repository.DividaAtivaRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
-import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -26,6 +31,31 @@ public class DividaAtivaService {
     private final DividaAtivaRepository repository;
     private final ApplicationEventPublisher eventPublisher;
     private final ObjectMapper objectMapper;
+    private final PostgresCopyWriter copyWriter;
+    private final ExclusaoLoteRepository exclusaoLote;
+    private final ArquivoAuditoriaService arquivoAuditoria;
+    private final LayoutsImportacao layouts;
+
+    // Layout do arquivo da dívida ativa (5 colunas, nesta ordem quando o cabeçalho não traz os nomes)
+    private static final LayoutImportacao<DividaAtivaEntity> LAYOUT = LayoutImportacao.para("divida-ativa", DividaAtivaEntity::new)
+            .coluna("nome_devedor", 0, "Devedor", LayoutImportacao.TEXTO, DividaAtivaEntity::setNomeDevedor)
+            .coluna("cpf_cnpj", 1, "CPF/CNPJ", LayoutImportacao.TEXTO, DividaAtivaEntity::setCpfCnpj)
+            .coluna("valor_total_divida", 2, "Valor", (dados, campo) -> {
+                if (dados.vazio(campo)) throw new IllegalArgumentException("Valor da dívida ausente.");
+                return dados.moeda(campo);
+            }, DividaAtivaEntity::setValorTotalDivida)
+            .coluna("ano_inscricao", 3, "Ano Inscrição", LayoutImportacao.INTEIRO, DividaAtivaEntity::setAnoInscricao)
+            .coluna("tipo_divida", 4, "Tipo", LayoutImportacao.TEXTO, DividaAtivaEntity::setTipoDivida);
+
+    // Colunas gravadas via COPY na importação em lote
+    private static final MapeamentoCopy<DividaAtivaEntity> MAPEAMENTO_COPY = MapeamentoCopy.<DividaAtivaEntity>para("tb_divida_ativa")
+            .coluna("nome_devedor", DividaAtivaEntity::getNomeDevedor)
+            .coluna("cpf_cnpj", DividaAtivaEntity::getCpfCnpj)
+            .coluna("valor_total_divida", DividaAtivaEntity::getValorTotalDivida)
+            .coluna("ano_inscricao", DividaAtivaEntity::getAnoInscricao)
+            .coluna("tipo_divida", DividaAtivaEntity::getTipoDivida)
+            .coluna("data_importacao", DividaAtivaEntity::getDataImportacao)
+            .coluna("id_importacao", DividaAtivaEntity::getIdImportacao);
 
     // --- CRUD INDIVIDUAL COM AUDITORIA ---
 
@@ -50,34 +80,38 @@ public class DividaAtivaService {
     // --- INGESTÃO MASSIVA COM AUDITORIA ---
 
     @Transactional
-    public void importarArquivoCsv(MultipartFile file) {
-        String loteId = "LOTE-DIVIDA-" + System.currentTimeMillis();
-        List<DividaAtivaEntity> registros = new ArrayList<>();
+    public void importarArquivoCsv(InputStreamSource file, ContextoImportacao contexto) {
+        long inicio = System.currentTimeMillis();
+        String loteId = contexto.getLoteId();
         int linhaAtual = 0;
 
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8));
+             PostgresCopyWriter.Sessao<DividaAtivaEntity> copia = copyWriter.abrir(MAPEAMENTO_COPY)) {
             String linha;
-            br.readLine(); // Pula cabeçalho
+            LayoutImportacao.Compilado<DividaAtivaEntity> colunas = layouts.compilar(LAYOUT, br.readLine());
+            TokenizadorCsv dados = new TokenizadorCsv();
 
             while ((linha = br.readLine()) != null) {
                 linhaAtual++;
+                contexto.linhaProcessada();
                 if (linha.trim().isEmpty()) continue;
-                String[] dados = linha.split(";", -1);
 
-                if (dados.length < 5) throw new IllegalArgumentException("Linha " + linhaAtual + ": Colunas insuficientes.");
-
-                DividaAtivaEntity entity = new DividaAtivaEntity();
-                entity.setIdImportacao(loteId);
-                entity.setNomeDevedor(dados[0].trim());
-                entity.setCpfCnpj(dados[1].trim());
-                entity.setValorTotalDivida(new BigDecimal(dados[2].trim().replace(".", "").replace(",", ".")));
-                entity.setAnoInscricao(Integer.parseInt(dados[3].trim()));
-                entity.setTipoDivida(dados[4].trim());
-
-                registros.add(entity);
+                DividaAtivaEntity entity;
+                try {
+                    entity = colunas.mapear(dados.analisar(linha));
+                    entity.setIdImportacao(loteId);
+                } catch (IllegalArgumentException e) {
+                    // Modo tolerante: a linha vai para os rejeitos; senão interrompe como antes
+                    contexto.rejeitar(linhaAtual, linha, e.getMessage());
+                    continue;
+                }
+
+                copia.escrever(entity);
             }
 
-            repository.saveAll(registros);
+            long registros = copia.concluir();
+            contexto.setRegistrosGravados(registros);
+            contexto.setResumo("Importação de " + registros + " registros via CSV. Lote: " + loteId);
 
             // LOG DE IMPORTAÇÃO
             eventPublisher.publishEvent(new LogAuditoriaEvent(
@@ -85,9 +119,13 @@ public class DividaAtivaService {
                     "DIVIDA_ATIVA", 
                     loteId, 
                     null,
-                    "Importação de " + registros.size() + " registros via CSV. Lote: " + loteId
+                    "Importação de " + registros + " registros via CSV. Lote: " + loteId
             ));
 
+            long duracao = Math.max(1, System.currentTimeMillis() - inicio);
+            log.info("Lote {} concluído. {} registros de dívida ativa em {} ms ({} registros/s).",
+                    loteId, registros, duracao, registros * 1000 / duracao);
+
         } catch (Exception e) {
             log.error("Erro na importação de Dívida Ativa", e);
             throw new RuntimeException("Falha ao processar CSV: " + e.getMessage());
@@ -96,26 +134,19 @@ public class DividaAtivaService {
 
     @Transactional
     public void excluirLote(String loteId) {
-        List<DividaAtivaEntity> paraExcluir = repository.findAll().stream()
-                .filter(d -> loteId.equals(d.getIdImportacao())).toList();
+        // DELETE em blocos no banco; lotes grandes vão para o arquivo de auditoria em vez do jsonb
+        try (ArquivoAuditoriaService.Coletor removidos = arquivoAuditoria.coletor()) {
+            exclusaoLote.excluir("tb_divida_ativa", "t.*", loteId, removidos);
 
-        if (paraExcluir.isEmpty()) throw new IllegalArgumentException("Lote não encontrado: " + loteId);
+            if (removidos.getRegistros() == 0) throw new IllegalArgumentException("Lote não encontrado: " + loteId);
 
-        try {
-            String jsonExcluidos = objectMapper.writeValueAsString(paraExcluir);
-            
-            // LOG DE ROLLBACK
             eventPublisher.publishEvent(new LogAuditoriaEvent(
-                    "EXCLUSAO_LOTE", 
-                    "DIVIDA_ATIVA", 
-                    loteId, 
-                    jsonExcluidos,
-                    "Revogação total do lote. Itens removidos: " + paraExcluir.size()
+                    "EXCLUSAO_LOTE",
+                    "DIVIDA_ATIVA",
+                    loteId,
+                    removidos.concluir(),
+                    "Revogação total do lote. Itens removidos: " + removidos.getRegistros()
             ));
-            
-            repository.deleteAll(paraExcluir);
-        } catch (Exception e) {
-            throw new RuntimeException("Falha ao auditar exclusão de lote.");
         }
     }
 
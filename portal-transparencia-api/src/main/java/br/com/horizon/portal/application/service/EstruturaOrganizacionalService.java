@@ -1,26 +1,24 @@
 package br.com.horizon.portal.application.service;
 
 import br.com.horizon.portal.application.dto.estrutura.EstruturaOrganizacionalDTO;
+import br.com.horizon.portal.application.service.exportacao.EscritorCsv;
+import br.com.horizon.portal.application.service.exportacao.LayoutExportacao;
+import br.com.horizon.portal.application.service.exportacao.RelatorioPdf;
 import br.com.horizon.portal.infrastructure.audit.LogAuditoriaEvent;
-import br.com.horizon.portal.infrastructure.persistence.entity.ConfiguracaoEntity;
 import br.com.horizon.portal.infrastructure.persistence.entity.EstruturaOrganizacionalEntity;
-import br.com.horizon.portal.infrastructure.persistence.repository.ConfiguracaoRepository;
 import br.com.horizon.portal.infrastructure.persistence.repository.EstruturaOrganizacionalRepository;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lowagie.text.*;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
-import com.lowagie.text.pdf.PdfWriter;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.awt.Color;
 import java.io.PrintWriter;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -34,9 +32,18 @@ import java.util.stream.Collectors;
 public class EstruturaOrganizacionalService {
 
     private final EstruturaOrganizacionalRepository repository;
-    private final ConfiguracaoRepository configuracaoRepository;
+    private final RelatorioPdf relatorioPdf;
     private final ApplicationEventPublisher eventPublisher;
     private final ObjectMapper objectMapper;
+
+    private static final LayoutExportacao<EstruturaOrganizacionalDTO> CSV = LayoutExportacao.<EstruturaOrganizacionalDTO>csv()
+            .texto("orgao", EstruturaOrganizacionalDTO::getNomeOrgao)
+            .texto("sigla", EstruturaOrganizacionalDTO::getSigla)
+            .texto("dirigente", EstruturaOrganizacionalDTO::getNomeDirigente)
+            .texto("cargo", EstruturaOrganizacionalDTO::getCargoDirigente)
+            .texto("telefone", EstruturaOrganizacionalDTO::getTelefoneContato)
+            .texto("email", EstruturaOrganizacionalDTO::getEmailInstitucional)
+            .texto("link_curriculo", EstruturaOrganizacionalDTO::getLinkCurriculo);
     
     // Serviço de armazenamento injetado. Lida automaticamente com as subpastas.
     private final ArmazenamentoService armazenamentoService;
@@ -118,16 +125,12 @@ public class EstruturaOrganizacionalService {
     public void gerarCsvEstrutura(String nomeOrgao, String sigla, String nomeDirigente, String cargoDirigente,
             PrintWriter writer) {
         List<EstruturaOrganizacionalDTO> estruturas = listarComFiltros(nomeOrgao, sigla, nomeDirigente, cargoDirigente);
-        writer.write('\ufeff');
-        writer.println("orgao;sigla;dirigente;cargo;telefone;email;link_curriculo");
-
+        EscritorCsv csv = new EscritorCsv(writer).bom();
+        CSV.cabecalho(csv);
         for (EstruturaOrganizacionalDTO entity : estruturas) {
-            writer.printf("%s;%s;%s;%s;%s;%s;%s%n",
-                    safeCsvField(entity.getNomeOrgao()), safeCsvField(entity.getSigla()),
-                    safeCsvField(entity.getNomeDirigente()), safeCsvField(entity.getCargoDirigente()),
-                    safeCsvField(entity.getTelefoneContato()), safeCsvField(entity.getEmailInstitucional()),
-                    safeCsvField(entity.getLinkCurriculo()));
+            CSV.linha(entity, csv);
         }
+        csv.flush();
     }
 
     @Transactional(readOnly = true)
@@ -135,87 +138,13 @@ public class EstruturaOrganizacionalService {
             HttpServletResponse response) throws Exception {
         List<EstruturaOrganizacionalDTO> estruturas = listarComFiltros(nomeOrgao, sigla, nomeDirigente, cargoDirigente);
 
-        Document document = new Document(PageSize.A4.rotate());
-        PdfWriter.getInstance(document, response.getOutputStream());
-        document.open();
-
-        ConfiguracaoEntity config = configuracaoRepository.findAll().stream().findFirst().orElse(null);
-        String nomeEntidade = (config != null && config.getNomeEntidade() != null) ? config.getNomeEntidade()
-                : "Portal da Transparência";
-        String cnpjOrgao = (config != null && config.getCnpj() != null) ? "CNPJ: " + config.getCnpj() : "";
-
-        PdfPTable headerTable = new PdfPTable(2);
-        headerTable.setWidthPercentage(100f);
-        headerTable.setWidths(new float[] { 1f, 6f });
-
-        PdfPCell logoCell = new PdfPCell();
-        logoCell.setBorder(Rectangle.NO_BORDER);
-        logoCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-
-        // NOVA LÓGICA DO BRASÃO: Dinâmica, baseada no Banco de Dados e isolada no ArmazenamentoService
-        if (config != null && config.getUrlBrasao() != null && config.getUrlBrasao().contains("/api/v1/portal/arquivos/")) {
-            try {
-                // Extrai apenas o miolo relativo (ex: "config/uuid.png")
-                String urlRelativa = config.getUrlBrasao().replace("/api/v1/portal/arquivos/", "");
-                String[] partes = urlRelativa.split("/");
-                
-                Resource resource = null;
-                if (partes.length == 2) {
-                    resource = armazenamentoService.carregar(partes[0], partes[1]);
-                } else if (partes.length == 1) {
-                    resource = armazenamentoService.carregar("geral", partes[0]); // fallback de segurança
-                }
-
-                if (resource != null && resource.exists()) {
-                    Image brasao = Image.getInstance(resource.getFile().getAbsolutePath());
-                    brasao.scaleToFit(50, 50);
-                    logoCell.addElement(brasao);
-                }
-            } catch (Exception e) {
-                log.warn("Falha ao carregar a imagem do brasão dinamicamente para o PDF a partir do Storage.", e);
-            }
-        }
+        Document document = relatorioPdf.abrir(response.getOutputStream(), PageSize.A4.rotate());
+        RelatorioPdf.titulo(document, "ESTRUTURA ORGANIZACIONAL E DIRIGENTES", "Total de Órgãos: " + estruturas.size());
 
-        headerTable.addCell(logoCell);
+        PdfPTable table = RelatorioPdf.tabela(new float[] { 3.5f, 2.5f, 2f, 2f },
+                "Órgão / Secretaria", "Dirigente", "Cargo", "Contatos");
 
-        PdfPCell textCell = new PdfPCell();
-        textCell.setBorder(Rectangle.NO_BORDER);
-        textCell.setVerticalAlignment(Element.ALIGN_MIDDLE);
-        textCell.addElement(
-                new Paragraph(nomeEntidade, FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14, Color.DARK_GRAY)));
-        if (!cnpjOrgao.isEmpty())
-            textCell.addElement(new Paragraph(cnpjOrgao, FontFactory.getFont(FontFactory.HELVETICA, 10, Color.GRAY)));
-
-        headerTable.addCell(textCell);
-        document.add(headerTable);
-        document.add(new Paragraph("\n"));
-
-        Paragraph titulo = new Paragraph("ESTRUTURA ORGANIZACIONAL E DIRIGENTES",
-                FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12, Color.BLACK));
-        titulo.setAlignment(Element.ALIGN_CENTER);
-        document.add(titulo);
-
-        Paragraph subtitulo = new Paragraph("Total de Órgãos: " + estruturas.size() + "\n\n",
-                FontFactory.getFont(FontFactory.HELVETICA, 10, Color.DARK_GRAY));
-        subtitulo.setAlignment(Element.ALIGN_CENTER);
-        document.add(subtitulo);
-
-        PdfPTable table = new PdfPTable(4);
-        table.setWidthPercentage(100f);
-        table.setWidths(new float[] { 3.5f, 2.5f, 2f, 2f });
-        table.setSpacingBefore(10);
-
-        String[] cabecalhos = { "Órgão / Secretaria", "Dirigente", "Cargo", "Contatos" };
-        for (String cab : cabecalhos) {
-            PdfPCell cell = new PdfPCell(
-                    new Phrase(cab, FontFactory.getFont(FontFactory.HELVETICA_BOLD, 9, Color.WHITE)));
-            cell.setBackgroundColor(new Color(15, 23, 42));
-            cell.setPadding(5);
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(cell);
-        }
-
-        Font fontDados = FontFactory.getFont(FontFactory.HELVETICA, 8);
+        Font fontDados = RelatorioPdf.FONTE_DADOS;
         for (EstruturaOrganizacionalDTO entity : estruturas) {
             String orgaoFormatado = entity.getNomeOrgao();
             if (entity.getSigla() != null && !entity.getSigla().isEmpty()) {
@@ -250,12 +179,6 @@ public class EstruturaOrganizacionalService {
         document.close();
     }
 
-    private String safeCsvField(String value) {
-        if (value == null)
-            return "";
-        return value.replace("\n", " ").replace("\r", " ").replace(";", ",");
-    }
-
     private void dispararAuditoria(String acao, String entidadeId, Object dadosAnteriores, Object dadosNovos) {
         try {
             eventPublisher
@@ -1,47 +1,59 @@
 package br.com.horizon.portal.application.service;
 
-import br.com.horizon.portal.application.dto.config.ConfiguracaoDTO;
 import br.com.horizon.portal.application.dto.folhapagamento.FolhaEstatisticaDTO;
 import br.com.horizon.portal.application.dto.folhapagamento.FolhaPagamentoAdminDTO;
 import br.com.horizon.portal.application.dto.folhapagamento.FolhaPagamentoPublicoDTO;
+import br.com.horizon.portal.application.service.exportacao.RelatorioPdf;
+import br.com.horizon.portal.application.service.exportacao.TabelaPdfEmFluxo;
+import br.com.horizon.portal.application.service.importacao.ContextoImportacao;
+import br.com.horizon.portal.application.service.importacao.Digitos;
+import br.com.horizon.portal.application.service.importacao.LayoutImportacao;
+import br.com.horizon.portal.application.service.importacao.LayoutsImportacao;
+import br.com.horizon.portal.application.service.importacao.LongHashSet;
+import br.com.horizon.portal.application.service.importacao.TokenizadorCsv;
 import br.com.horizon.portal.infrastructure.audit.LogAuditoriaEvent;
+import br.com.horizon.portal.infrastructure.persistence.bulk.ConsultaEmCursor;
+import br.com.horizon.portal.infrastructure.persistence.bulk.ExclusaoLoteRepository;
+import br.com.horizon.portal.infrastructure.persistence.bulk.GravadorEmLotes;
 import br.com.horizon.portal.infrastructure.persistence.entity.FolhaPagamentoEntity;
 import br.com.horizon.portal.infrastructure.persistence.entity.ServidorEntity;
 import br.com.horizon.portal.infrastructure.persistence.repository.FolhaPagamentoRepository;
 import br.com.horizon.portal.infrastructure.persistence.repository.ServidorRepository;
 import com.lowagie.text.*;
-import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
-import com.lowagie.text.pdf.PdfWriter;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.nio.charset.StandardCharsets;
 import java.text.NumberFormat;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -52,12 +64,41 @@ public class FolhaPagamentoService {
     private final FolhaPagamentoRepository folhaPagamentoRepository;
     private final ServidorRepository servidorRepository;
     private final ApplicationEventPublisher eventPublisher;
-    private final ConfiguracaoService configuracaoService;
-    private final ArmazenamentoService armazenamentoService;
-
-    private static final NumberFormat CURRENCY_FORMAT = NumberFormat
-            .getCurrencyInstance(Locale.forLanguageTag("pt-BR"));
-    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+    private final RelatorioPdf relatorioPdf;
+    private final GravadorEmLotes gravadorEmLotes;
+    private final ExclusaoLoteRepository exclusaoLote;
+    private final ArquivoAuditoriaService arquivoAuditoria;
+    private final LayoutsImportacao layouts;
+    private final ConsultaEmCursor consultaEmCursor;
+
+    // Campos auditados no desfazer do lote (sem carregar entidade nem proxy do servidor)
+    private static final String RETORNO_AUDITORIA = "t.exercicio, t.mes, "
+            + "COALESCE((SELECT s.nome FROM servidor s WHERE s.id = t.servidor_id), 'Desconhecido') AS nome_servidor, "
+            + "t.salario_liquido";
+
+    // NumberFormat não é thread-safe: uma instância por thread (os PDFs são gerados em paralelo pelas requisições)
+    private static final ThreadLocal<NumberFormat> CURRENCY_FORMAT = ThreadLocal.withInitial(
+            () -> NumberFormat.getCurrencyInstance(Locale.forLanguageTag("pt-BR")));
+    // Layout do arquivo da folha (7 colunas, nesta ordem quando o cabeçalho não traz os nomes)
+    private static final LayoutImportacao<LinhaFolha> LAYOUT = LayoutImportacao.para("folha", LinhaFolha::new)
+            .coluna("cpf", 0, "CPF", LayoutImportacao.DIGITOS, (l, v) -> l.cpf = v)
+            .coluna("exercicio", 1, "Exercício", LayoutImportacao.INTEIRO, (l, v) -> l.exercicio = v)
+            .coluna("mes", 2, "Mês", LayoutImportacao.INTEIRO, (l, v) -> l.mes = v)
+            .coluna("remuneracao_bruta", 3, "Remuneração Bruta", LayoutImportacao.MOEDA, (l, v) -> l.bruta = v)
+            .coluna("verbas_indenizatorias", 4, "Verbas Indenizatórias", LayoutImportacao.MOEDA, (l, v) -> l.indenizatorias = v)
+            .coluna("descontos_legais", 5, "Descontos Legais", LayoutImportacao.MOEDA, (l, v) -> l.descontos = v)
+            .coluna("salario_liquido", 6, "Salário Líquido", LayoutImportacao.MOEDA, (l, v) -> l.liquido = v);
+
+    // Linha do arquivo já convertida; o servidor é resolvido pelo CPF depois
+    private static final class LinhaFolha {
+        String cpf;
+        int exercicio;
+        int mes;
+        BigDecimal bruta;
+        BigDecimal indenizatorias;
+        BigDecimal descontos;
+        BigDecimal liquido;
+    }
 
     // --- DASHBOARD E ESTATÍSTICAS ---
 
@@ -109,14 +150,16 @@ public class FolhaPagamentoService {
         return folhaPagamentoRepository.findAll(spec, pageable).map(this::mapToPublicoDTO);
     }
 
+    // CSV escrito direto na resposta, lido por cursor com o servidor na mesma consulta
     @Transactional
-    public byte[] exportarPublicoCsv(String nomeServidor, Integer exercicio, Integer mes) {
-        List<FolhaPagamentoEntity> lista = folhaPagamentoRepository
-                .findAll(construirFiltros(nomeServidor, exercicio, mes));
-        StringBuilder csv = new StringBuilder(
-                "\ufeffServidor;Cargo;Exercício;Mês;Bruto;Indenizações;Descontos;Líquido\n");
-
-        for (FolhaPagamentoEntity f : lista) {
+    public void exportarPublicoCsv(String nomeServidor, Integer exercicio, Integer mes, OutputStream saida)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        writer.write("\ufeffServidor;Cargo;Exercício;Mês;Bruto;Indenizações;Descontos;Líquido\n");
+        StringBuilder csv = new StringBuilder();
+
+        consultaEmCursor.percorrer(FolhaPagamentoEntity.class, construirFiltros(nomeServidor, exercicio, mes), f -> {
+            csv.setLength(0);
             csv.append(f.getServidor().getNome()).append(";")
                     .append(f.getServidor().getCargo()).append(";")
                     .append(f.getExercicio()).append(";")
@@ -125,17 +168,16 @@ public class FolhaPagamentoService {
                     .append(f.getVerbasIndenizatorias()).append(";")
                     .append(f.getDescontosLegais()).append(";")
                     .append(f.getSalarioLiquido()).append("\n");
-        }
+            escreverLinha(writer, csv);
+        }, "servidor");
+        writer.flush();
         dispararAuditoria("EXPORTACAO_CSV_PUBLICO", "SISTEMA", null, "Exportação de folha via portal");
-        return csv.toString().getBytes(StandardCharsets.UTF_8);
     }
 
     @Transactional
-    public byte[] exportarPublicoPdf(String nomeServidor, Integer exercicio, Integer mes) {
-        List<FolhaPagamentoEntity> lista = folhaPagamentoRepository
-                .findAll(construirFiltros(nomeServidor, exercicio, mes));
+    public void exportarPublicoPdf(String nomeServidor, Integer exercicio, Integer mes, OutputStream saida) {
         dispararAuditoria("EXPORTACAO_PDF_PUBLICO", "SISTEMA", null, "Exportação de PDF via portal");
-        return gerarPdfFolha(lista, true);
+        gerarPdfFolha(construirFiltros(nomeServidor, exercicio, mes), true, saida);
     }
 
     // --- ENDPOINTS PRIVADOS (ADMIN) ---
@@ -148,12 +190,14 @@ public class FolhaPagamentoService {
     }
 
     @Transactional
-    public byte[] exportarAdminCsv(String nomeServidor, Integer exercicio, Integer mes) {
-        List<FolhaPagamentoEntity> lista = folhaPagamentoRepository
-                .findAll(construirFiltros(nomeServidor, exercicio, mes));
-        StringBuilder csv = new StringBuilder("\ufeffServidor;CPF;Matrícula;Exercício;Mês;Bruto;Líquido;Importação\n");
-
-        for (FolhaPagamentoEntity f : lista) {
+    public void exportarAdminCsv(String nomeServidor, Integer exercicio, Integer mes, OutputStream saida)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        writer.write("\ufeffServidor;CPF;Matrícula;Exercício;Mês;Bruto;Líquido;Importação\n");
+        StringBuilder csv = new StringBuilder();
+
+        consultaEmCursor.percorrer(FolhaPagamentoEntity.class, construirFiltros(nomeServidor, exercicio, mes), f -> {
+            csv.setLength(0);
             csv.append(f.getServidor().getNome()).append(";")
                     .append(f.getServidor().getCpf()).append(";")
                     .append(f.getServidor().getMatricula() != null ? f.getServidor().getMatricula() : "").append(";")
@@ -162,60 +206,90 @@ public class FolhaPagamentoService {
                     .append(f.getRemuneracaoBruta()).append(";")
                     .append(f.getSalarioLiquido()).append(";")
                     .append(f.getIdImportacao()).append("\n");
-        }
+            escreverLinha(writer, csv);
+        }, "servidor");
+        writer.flush();
         dispararAuditoria("EXPORTACAO_CSV_ADMIN", "ADMIN", null, "Exportação administrativa de folha");
-        return csv.toString().getBytes(StandardCharsets.UTF_8);
     }
 
     @Transactional
-    public byte[] exportarAdminPdf(String nomeServidor, Integer exercicio, Integer mes) {
-        List<FolhaPagamentoEntity> lista = folhaPagamentoRepository
-                .findAll(construirFiltros(nomeServidor, exercicio, mes));
+    public void exportarAdminPdf(String nomeServidor, Integer exercicio, Integer mes, OutputStream saida) {
         dispararAuditoria("EXPORTACAO_PDF_ADMIN", "ADMIN", null, "Exportação administrativa de PDF");
-        return gerarPdfFolha(lista, false);
+        gerarPdfFolha(construirFiltros(nomeServidor, exercicio, mes), false, saida);
     }
 
     @Transactional
-    public String importarFolhaCsv(MultipartFile file) {
-        String idImportacao = "LOTE-FOLHA-" + System.currentTimeMillis();
+    public String importarFolhaCsv(InputStreamSource file, ContextoImportacao contexto) {
+        String idImportacao = contexto.getLoteId();
         String usuarioAtual = getUsuarioLogado();
         int registros = 0;
 
         try (BufferedReader br = new BufferedReader(
                 new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
             String linha;
-            boolean head = true;
-            List<FolhaPagamentoEntity> lote = new ArrayList<>();
-            List<ServidorEntity> todosServidores = servidorRepository.findAll();
+            LayoutImportacao.Compilado<LinhaFolha> colunas = layouts.compilar(LAYOUT, br.readLine());
+            GravadorEmLotes.Sessao lote = gravadorEmLotes.abrir();
+            TokenizadorCsv c = new TokenizadorCsv();
+
+            // Índice CPF -> id montado uma única vez (antes: busca linear na lista inteira por linha)
+            Map<String, Long> servidorPorCpf = new HashMap<>();
+            for (ServidorRepository.ServidorCpf s : servidorRepository.findAllCpfs()) {
+                servidorPorCpf.put(Digitos.de(s.getCpf()), s.getId());
+            }
+
+            // Chaves (servidor, exercício, mês) já gravadas, carregadas uma vez por competência do arquivo
+            LongHashSet chavesExistentes = new LongHashSet(servidorPorCpf.size());
+            Set<Integer> competenciasCarregadas = new HashSet<>();
+            long numeroLinha = 0;
 
             while ((linha = br.readLine()) != null) {
-                if (head) {
-                    head = false;
+                numeroLinha++;
+                contexto.linhaProcessada();
+
+                LinhaFolha folha;
+                try {
+                    c.analisar(linha);
+                    if (c.quantidade() < colunas.getMinimoColunas()) {
+                        ignorar(contexto, numeroLinha, linha, "Colunas insuficientes.");
+                        continue;
+                    }
+                    folha = colunas.mapear(c);
+                } catch (IllegalArgumentException e) {
+                    contexto.rejeitar(numeroLinha, linha, e.getMessage());
                     continue;
                 }
-                String[] c = linha.split(";");
-                if (c.length < 7)
+
+                Long servidorId = servidorPorCpf.get(folha.cpf);
+                if (servidorId == null) {
+                    ignorar(contexto, numeroLinha, linha, "Servidor não cadastrado para o CPF " + folha.cpf + ".");
                     continue;
+                }
+                int exercicio = folha.exercicio;
+                int mes = folha.mes;
 
-                String cpf = c[0].replaceAll("\\D", "");
-                ServidorEntity servidor = todosServidores.stream().filter(s -> s.getCpf().equals(cpf)).findFirst()
-                        .orElse(null);
+                if (competenciasCarregadas.add(exercicio * 100 + mes)) {
+                    for (Long id : folhaPagamentoRepository.findServidorIdsByCompetencia(exercicio, mes)) {
+                        chavesExistentes.add(chaveCompetencia(id, exercicio, mes));
+                    }
+                }
 
-                if (servidor == null || folhaPagamentoRepository.existsByServidorIdAndExercicioAndMes(servidor.getId(),
-                        Integer.parseInt(c[1].trim()), Integer.parseInt(c[2].trim())))
+                // add() devolve false se a chave já existia no banco ou apareceu antes no próprio arquivo
+                if (!chavesExistentes.add(chaveCompetencia(servidorId, exercicio, mes)))
                     continue;
 
-                lote.add(FolhaPagamentoEntity.builder()
-                        .servidor(servidor).exercicio(Integer.parseInt(c[1].trim())).mes(Integer.parseInt(c[2].trim()))
-                        .remuneracaoBruta(converterParaBigDecimal(c[3]))
-                        .verbasIndenizatorias(converterParaBigDecimal(c[4]))
-                        .descontosLegais(converterParaBigDecimal(c[5]))
-                        .salarioLiquido(converterParaBigDecimal(c[6]))
+                lote.persistir(FolhaPagamentoEntity.builder()
+                        .servidor(servidorRepository.getReferenceById(servidorId)).exercicio(exercicio).mes(mes)
+                        .remuneracaoBruta(folha.bruta)
+                        .verbasIndenizatorias(folha.indenizatorias)
+                        .descontosLegais(folha.descontos)
+                        .salarioLiquido(folha.liquido)
                         .idImportacao(idImportacao).criadoPor(usuarioAtual).atualizadoPor(usuarioAtual)
                         .build());
                 registros++;
             }
-            folhaPagamentoRepository.saveAll(lote);
+            lote.concluir();
+            contexto.setRegistrosGravados(registros);
+            contexto.setResumo("Importados " + registros + " registros de folha. Lote: " + idImportacao);
             dispararAuditoria("IMPORTACAO", idImportacao, null, Map.of("registros", registros));
             return idImportacao;
         } catch (Exception e) {
@@ -223,111 +297,63 @@ public class FolhaPagamentoService {
         }
     }
 
+    // Linha que a folha sempre ignorou (curta, CPF sem servidor): só aparece nos rejeitos do modo tolerante
+    private void ignorar(ContextoImportacao contexto, long linha, String conteudo, String motivo) {
+        if (contexto.isTolerante()) {
+            contexto.rejeitar(linha, conteudo, motivo);
+        }
+    }
+
     @Transactional
     public void desfazerImportacao(String idImportacao) {
-        List<FolhaPagamentoEntity> excluidos = folhaPagamentoRepository.findAllByIdImportacao(idImportacao);
-        
-        // Extrai apenas os dados limpos (Evita erro de Proxy do Hibernate/Jackson)
-        List<Map<String, Object>> dadosLimposAuditoria = excluidos.stream().map(f -> {
-            Map<String, Object> map = new HashMap<>();
-            map.put("exercicio", f.getExercicio());
-            map.put("mes", f.getMes());
-            map.put("nomeServidor", f.getServidor() != null ? f.getServidor().getNome() : "Desconhecido");
-            map.put("salarioLiquido", f.getSalarioLiquido());
-            return map;
-        }).collect(Collectors.toList());
-
-        folhaPagamentoRepository.deleteByIdImportacao(idImportacao);
-        dispararAuditoria("EXCLUSAO_LOTE", idImportacao, dadosLimposAuditoria, null);
+        // DELETE em blocos no banco; lotes grandes vão para o arquivo de auditoria em vez do jsonb
+        try (ArquivoAuditoriaService.Coletor removidos = arquivoAuditoria.coletor()) {
+            exclusaoLote.excluir("folha_pagamento", RETORNO_AUDITORIA, idImportacao, removidos);
+            dispararAuditoria("EXCLUSAO_LOTE", idImportacao, removidos.concluir(),
+                    "Itens removidos: " + removidos.getRegistros());
+            log.info("Lote de folha {} desfeito. {} registros removidos.", idImportacao, removidos.getRegistros());
+        }
     }
     
     // --- GERAÇÃO DE PDF INSTITUCIONAL ---
 
-    private byte[] gerarPdfFolha(List<FolhaPagamentoEntity> lista, boolean publico) {
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            ConfiguracaoDTO.Response config = configuracaoService.obterConfiguracao();
-            Document document = new Document(PageSize.A4.rotate());
-            PdfWriter.getInstance(document, out);
-            document.open();
-
-            PdfPTable headerTable = new PdfPTable(2);
-            headerTable.setWidthPercentage(100);
-            headerTable.setWidths(new float[] { 1.5f, 8.5f });
-            headerTable.getDefaultCell().setBorder(Rectangle.NO_BORDER);
-
-            if (config.urlBrasao() != null && !config.urlBrasao().isEmpty()) {
-                try {
-                    String nomeArquivo = config.urlBrasao().substring(config.urlBrasao().lastIndexOf("/") + 1);
-                    Resource res = armazenamentoService.carregar("config", nomeArquivo);
-                    Image logo = Image.getInstance(res.getURL());
-                    logo.scaleToFit(70, 70);
-                    PdfPCell logoCell = new PdfPCell(logo);
-                    logoCell.setBorder(Rectangle.NO_BORDER);
-                    headerTable.addCell(logoCell);
-                } catch (Exception e) {
-                    headerTable.addCell("");
-                }
-            } else {
-                headerTable.addCell("");
-            }
-
-            PdfPCell infoCell = new PdfPCell();
-            infoCell.setBorder(Rectangle.NO_BORDER);
-            infoCell.addElement(new Paragraph(config.nomeEntidade().toUpperCase(),
-                    FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12)));
-            infoCell.addElement(
-                    new Paragraph("CNPJ: " + config.cnpj(), FontFactory.getFont(FontFactory.HELVETICA, 10)));
-            headerTable.addCell(infoCell);
-            document.add(headerTable);
-            document.add(new Paragraph(
-                    "__________________________________________________________________________________________________________________________________"));
-            document.add(new Paragraph(" "));
-
-            Font fontTitle = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12);
-            Paragraph title = new Paragraph(publico ? "PORTAL DA TRANSPARÊNCIA - FOLHA DE PAGAMENTO"
-                    : "RELATÓRIO ADMINISTRATIVO - FOLHA DE PAGAMENTO", fontTitle);
-            title.setAlignment(Element.ALIGN_CENTER);
-            document.add(title);
-            document.add(new Paragraph(" "));
-
-            PdfPTable table = new PdfPTable(7);
-            table.setWidthPercentage(100);
-            table.setWidths(new float[] { 3, 1, 1, 1.5f, 1.5f, 1.5f, 1.5f });
-
-            String[] headers = { "Servidor", "Ano", "Mês", "Bruto", "Indeniz.", "Descontos", "Líquido" };
-            for (String h : headers) {
-                PdfPCell cell = new PdfPCell(new Paragraph(h, FontFactory.getFont(FontFactory.HELVETICA_BOLD, 9)));
-                cell.setBackgroundColor(java.awt.Color.LIGHT_GRAY);
-                table.addCell(cell);
-            }
-
-            for (FolhaPagamentoEntity f : lista) {
-                table.addCell(new Phrase(f.getServidor().getNome(), FontFactory.getFont(FontFactory.HELVETICA, 8)));
-                table.addCell(new Phrase(f.getExercicio().toString(), FontFactory.getFont(FontFactory.HELVETICA, 8)));
-                table.addCell(new Phrase(f.getMes().toString(), FontFactory.getFont(FontFactory.HELVETICA, 8)));
-                table.addCell(new Phrase(CURRENCY_FORMAT.format(f.getRemuneracaoBruta()),
-                        FontFactory.getFont(FontFactory.HELVETICA, 8)));
-                table.addCell(new Phrase(CURRENCY_FORMAT.format(f.getVerbasIndenizatorias()),
-                        FontFactory.getFont(FontFactory.HELVETICA, 8)));
-                table.addCell(new Phrase(CURRENCY_FORMAT.format(f.getDescontosLegais()),
-                        FontFactory.getFont(FontFactory.HELVETICA, 8)));
-                table.addCell(new Phrase(CURRENCY_FORMAT.format(f.getSalarioLiquido()),
-                        FontFactory.getFont(FontFactory.HELVETICA, 8)));
-            }
-            document.add(table);
-
-            Paragraph footer = new Paragraph(
-                    "\nDocumento extraído do Portal da Transparência em: "
-                            + LocalDateTime.now().format(TIMESTAMP_FORMATTER),
-                    FontFactory.getFont(FontFactory.HELVETICA_OBLIQUE, 8));
-            footer.setAlignment(Element.ALIGN_RIGHT);
-            document.add(footer);
+    private void gerarPdfFolha(Specification<FolhaPagamentoEntity> spec, boolean publico, OutputStream saida) {
+        try {
+            Document document = relatorioPdf.abrir(saida, PageSize.A4.rotate());
+            RelatorioPdf.titulo(document, publico ? "PORTAL DA TRANSPARÊNCIA - FOLHA DE PAGAMENTO"
+                    : "RELATÓRIO ADMINISTRATIVO - FOLHA DE PAGAMENTO", null);
+
+            PdfPTable table = RelatorioPdf.tabela(new float[] { 3, 1, 1, 1.5f, 1.5f, 1.5f, 1.5f },
+                    "Servidor", "Ano", "Mês", "Bruto", "Indeniz.", "Descontos", "Líquido");
+
+            // Por cursor com o servidor na mesma consulta, em levas: a memória não cresce com o volume
+            TabelaPdfEmFluxo tabela = new TabelaPdfEmFluxo(document, table);
+            NumberFormat moeda = CURRENCY_FORMAT.get();
+            consultaEmCursor.percorrer(FolhaPagamentoEntity.class, spec, f -> tabela
+                    .celula(new Phrase(f.getServidor().getNome(), RelatorioPdf.FONTE_DADOS))
+                    .celula(new Phrase(f.getExercicio().toString(), RelatorioPdf.FONTE_DADOS))
+                    .celula(new Phrase(f.getMes().toString(), RelatorioPdf.FONTE_DADOS))
+                    .celula(new Phrase(moeda.format(f.getRemuneracaoBruta()), RelatorioPdf.FONTE_DADOS))
+                    .celula(new Phrase(moeda.format(f.getVerbasIndenizatorias()), RelatorioPdf.FONTE_DADOS))
+                    .celula(new Phrase(moeda.format(f.getDescontosLegais()), RelatorioPdf.FONTE_DADOS))
+                    .celula(new Phrase(moeda.format(f.getSalarioLiquido()), RelatorioPdf.FONTE_DADOS))
+                    .fimLinha(), "servidor");
+            tabela.concluir();
+            RelatorioPdf.rodape(document);
 
             document.close();
-            return out.toByteArray();
         } catch (Exception e) {
+            // A resposta já pode ter começado: sem byte[] para devolver vazio, o erro interrompe o download
             log.error("Erro ao gerar PDF de Folha", e);
-            return new byte[0];
+            throw new IllegalStateException("Erro ao gerar PDF de Folha", e);
+        }
+    }
+
+    private static void escreverLinha(Writer writer, CharSequence linha) {
+        try {
+            writer.append(linha);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
@@ -372,10 +398,9 @@ public class FolhaPagamentoService {
         };
     }
 
-    private BigDecimal converterParaBigDecimal(String v) {
-        if (v == null || v.isBlank())
-            return BigDecimal.ZERO;
-        return new BigDecimal(v.replace(".", "").replace(",", ".").trim());
+    // Empacota (servidor, exercício, mês) em um long: 4 bits de mês, 16 de exercício e o id no restante
+    private static long chaveCompetencia(long servidorId, int exercicio, int mes) {
+        return (servidorId << 20) | ((long) exercicio << 4) | mes;
     }
 
     private BigDecimal nullSafe(BigDecimal value) {
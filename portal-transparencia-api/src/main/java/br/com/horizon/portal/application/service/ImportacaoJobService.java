@@ -0,0 +1,614 @@
+package br.com.horizon.portal.application.service;
+
+import br.com.horizon.portal.application.dto.importacao.ImportacaoJobDTO;
+import br.com.horizon.portal.application.service.importacao.ChecksumImportacao;
+import br.com.horizon.portal.application.service.importacao.ContextoImportacao;
+import br.com.horizon.portal.application.service.importacao.FonteImportacao;
+import br.com.horizon.portal.application.service.importacao.ImportacaoCanceladaException;
+import br.com.horizon.portal.application.service.importacao.ImportacaoZip;
+import br.com.horizon.portal.application.service.importacao.RejeitosImportacao;
+import br.com.horizon.portal.infrastructure.audit.LogAuditoriaEvent;
+import br.com.horizon.portal.infrastructure.persistence.bulk.ImportacaoIncrementalRepository.Diferencas;
+import br.com.horizon.portal.infrastructure.persistence.entity.ImportacaoJobEntity;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModoImportacao;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModuloImportacao;
+import br.com.horizon.portal.infrastructure.persistence.enums.StatusImportacao;
+import br.com.horizon.portal.infrastructure.persistence.repository.ImportacaoJobRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Executa as importações CSV fora da requisição HTTP.
+ * <p>
+ * O upload é copiado para um arquivo temporário e a requisição termina com o
+ * id do job; a leitura e a gravação rodam num pool próprio (não no executor do
+ * {@code @Async}, usado pelos e-mails). O estado fica em tb_importacao_job e o
+ * progresso de quem está rodando é lido direto do {@link ContextoImportacao}.
+ * <p>
+ * Cada job guarda o SHA-256 do arquivo enviado. Um arquivo idêntico a outro
+ * que está na fila, rodando ou já importado no mesmo módulo é recusado logo
+ * depois do hash, antes de qualquer leitura do CSV.
+ * <p>
+ * Com {@code limiteErros} informado o job roda no modo tolerante: linhas
+ * inválidas vão para um CSV de rejeitos (subpasta restrita "rejeitos") e a
+ * importação só é abortada quando elas passam do limite.
+ * <p>
+ * Um ZIP enviado aos mesmos endpoints importa todos os CSVs dele num único
+ * lote (ver {@link ImportacaoZip}).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImportacaoJobService {
+
+    /** Método de importação de um módulo, ex.: {@code receitaService::importarArquivoCsv}. */
+    @FunctionalInterface
+    public interface Importador {
+        void importar(InputStreamSource arquivo, ContextoImportacao contexto);
+    }
+
+    @FunctionalInterface
+    private interface Tarefa {
+        void executar() throws Exception;
+    }
+
+    private static final String SUBPASTA_REJEITOS = "rejeitos";
+
+    private final ImportacaoJobRepository jobRepository;
+    private final ArmazenamentoService armazenamentoService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ImportacaoZip importacaoZip;
+
+    private final ReceitaService receitaService;
+    private final DespesaService despesaService;
+    private final DividaAtivaService dividaAtivaService;
+    private final FolhaPagamentoService folhaPagamentoService;
+    private final ServidorService servidorService;
+
+    @Value("${portal.importacao.threads:2}")
+    private int threads;
+
+    @Value("${portal.importacao.fila:20}")
+    private int capacidadeFila;
+
+    // Status que "ocupam" o arquivo; falha, cancelamento e desfazer liberam o reenvio
+    private static final Set<StatusImportacao> STATUS_VIGENTES =
+            EnumSet.of(StatusImportacao.PENDENTE, StatusImportacao.EM_EXECUCAO, StatusImportacao.CONCLUIDA);
+
+    private final Map<Long, ContextoImportacao> ativos = new ConcurrentHashMap<>();
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    void iniciarExecutor() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(capacidadeFila);
+        executor.setThreadNamePrefix("importacao-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    void encerrarExecutor() {
+        // Jobs interrompidos fazem rollback e ficam registrados como cancelados
+        ativos.values().forEach(ContextoImportacao::cancelar);
+        executor.setAwaitTerminationSeconds(30);
+        executor.shutdown();
+    }
+
+    // Nenhum job sobrevive a uma reinicialização: o que ficou aberto é marcado como falho
+    @EventListener(ApplicationReadyEvent.class)
+    public void marcarJobsInterrompidos() {
+        List<ImportacaoJobEntity> orfaos = jobRepository.findByStatusIn(
+                EnumSet.of(StatusImportacao.PENDENTE, StatusImportacao.EM_EXECUCAO));
+        for (ImportacaoJobEntity job : orfaos) {
+            job.setStatus(StatusImportacao.FALHOU);
+            job.setMensagemErro("Execução interrompida pela reinicialização da aplicação.");
+            job.setFinalizadoEm(LocalDateTime.now());
+        }
+        if (!orfaos.isEmpty()) {
+            jobRepository.saveAll(orfaos);
+            log.warn("{} job(s) de importação interrompidos marcados como FALHOU.", orfaos.size());
+        }
+    }
+
+    public ImportacaoJobDTO submeter(ModuloImportacao modulo, MultipartFile arquivo) {
+        return submeter(modulo, arquivo, ModoImportacao.COMPLETA);
+    }
+
+    public ImportacaoJobDTO submeter(ModuloImportacao modulo, MultipartFile arquivo, ModoImportacao modo) {
+        return submeter(modulo, arquivo, modo, null);
+    }
+
+    /** @param limiteErros linhas recusadas aceitas no modo tolerante; null importa no modo estrito */
+    public ImportacaoJobDTO submeter(ModuloImportacao modulo, MultipartFile arquivo, ModoImportacao modo,
+                                     Integer limiteErros) {
+        validarModo(modulo, modo);
+        validarLimiteErros(limiteErros);
+        MessageDigest digest = ChecksumImportacao.novoDigest();
+        Path temporario = copiarParaTemporario(arquivo, digest);
+        return submeter(modulo, arquivo.getOriginalFilename(), temporario, ChecksumImportacao.hex(digest), modo,
+                limiteErros);
+    }
+
+    /** Enfileira a importação de um arquivo já em disco (CSV ou CSV.gz). O arquivo é apagado ao fim do job. */
+    public ImportacaoJobDTO submeter(ModuloImportacao modulo, String nomeArquivo, Path arquivo, ModoImportacao modo,
+                                     Integer limiteErros) {
+        validarModo(modulo, modo);
+        validarLimiteErros(limiteErros);
+        return submeter(modulo, nomeArquivo, arquivo, ChecksumImportacao.deArquivo(arquivo), modo, limiteErros);
+    }
+
+    private ImportacaoJobDTO submeter(ModuloImportacao modulo, String nomeArquivo, Path arquivo, String sha256,
+                                      ModoImportacao modo, Integer limiteErros) {
+        ImportacaoJobEntity job;
+        try {
+            if (modo == ModoImportacao.INCREMENTAL && FonteImportacao.zip(arquivo)) {
+                // Cada arquivo substituiria o exercício inteiro, apagando o que os outros do ZIP gravaram
+                throw new IllegalArgumentException("ZIP só pode ser importado no modo COMPLETA.");
+            }
+            rejeitarDuplicado(modulo, sha256, null);
+            job = registrar(modulo, nomeArquivo, sha256, modo, limiteErros);
+        } catch (RuntimeException e) {
+            apagar(arquivo);
+            throw e;
+        }
+        return enfileirar(job, contextoDe(job, 0), arquivo);
+    }
+
+    /**
+     * Retoma um job que falhou depois de confirmar parte da carga: o mesmo lote
+     * continua a partir de linha_checkpoint, pulando as linhas já gravadas.
+     * O arquivo enviado deve ser o mesmo (ou ter as mesmas linhas até o
+     * checkpoint, ex.: corrigido só na linha que falhou).
+     */
+    public ImportacaoJobDTO retomar(Long id, MultipartFile arquivo) {
+        ImportacaoJobEntity job = jobRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Job de importação não encontrado: " + id));
+        if (job.getStatus() != StatusImportacao.FALHOU || job.getLinhaCheckpoint() == null) {
+            throw new IllegalStateException("O job " + id + " não tem carga parcial para retomar.");
+        }
+
+        MessageDigest digest = ChecksumImportacao.novoDigest();
+        Path temporario = copiarParaTemporario(arquivo, digest);
+        String sha256 = ChecksumImportacao.hex(digest);
+        try {
+            if (FonteImportacao.zip(temporario)) {
+                throw new IllegalArgumentException("Importação de ZIP não é retomável: importe o ZIP de novo.");
+            }
+            rejeitarDuplicado(job.getModulo(), sha256, id);
+            if (!sha256.equals(job.getSha256())) {
+                log.warn("Job {} retomado com arquivo diferente do original (linhas até {} mantidas).",
+                        id, job.getLinhaCheckpoint());
+            }
+            job.setSha256(sha256);
+            job.setStatus(StatusImportacao.PENDENTE);
+            job.setMensagemErro(null);
+            job.setFinalizadoEm(null);
+            jobRepository.save(job);
+        } catch (DataIntegrityViolationException e) {
+            apagar(temporario);
+            throw new IllegalStateException("Este arquivo já está sendo importado no módulo " + job.getModulo() + ".");
+        } catch (RuntimeException e) {
+            apagar(temporario);
+            throw e;
+        }
+
+        log.info("Job de importação {} retomado a partir da linha {}.", id, job.getLinhaCheckpoint());
+        return enfileirar(job, contextoDe(job, job.getLinhaCheckpoint()), temporario);
+    }
+
+    private ImportacaoJobDTO enfileirar(ImportacaoJobEntity job, ContextoImportacao contexto, Path arquivo) {
+        ModuloImportacao modulo = job.getModulo();
+        Importador importador = importadorDe(modulo);
+        Tarefa tarefa = FonteImportacao.zip(arquivo)
+                ? () -> importacaoZip.importar(arquivo, contexto, importador, desfazedorDe(modulo))
+                : () -> importador.importar(FonteImportacao.deArquivo(arquivo), contexto);
+        ativos.put(job.getId(), contexto);
+
+        try {
+            // O contexto de segurança segue para a thread do job: a auditoria continua com o usuário certo
+            executor.execute(new DelegatingSecurityContextRunnable(() -> {
+                try {
+                    executar(job.getId(), contexto, tarefa);
+                } finally {
+                    apagar(arquivo);
+                }
+            }));
+        } catch (TaskRejectedException e) {
+            ativos.remove(job.getId());
+            apagar(arquivo);
+            finalizar(job.getId(), contexto, StatusImportacao.FALHOU, "Fila de importação cheia.");
+            throw new IllegalStateException("Há importações demais na fila. Tente novamente em alguns minutos.");
+        }
+
+        log.info("Job de importação {} ({}) enfileirado. Lote: {}", job.getId(), modulo, job.getIdImportacao());
+        return toDTO(job, contexto);
+    }
+
+    /**
+     * Importa o corpo da requisição à medida que ele chega, na própria thread da
+     * requisição e sem cópia em disco. O job é registrado do mesmo jeito, então
+     * progresso e cancelamento funcionam pelos endpoints de sempre.
+     * <p>
+     * Aqui o hash só fica pronto no fim do corpo: a verificação de duplicidade
+     * roda nesse momento, ainda dentro da leitura, e um arquivo repetido
+     * interrompe a importação antes de gravar o lote.
+     */
+    public ImportacaoJobDTO importarEmFluxo(ModuloImportacao modulo, String nomeArquivo, InputStream corpo,
+                                            ModoImportacao modo, Integer limiteErros) {
+        validarModo(modulo, modo);
+        validarLimiteErros(limiteErros);
+        Importador importador = importadorDe(modulo);
+        ImportacaoJobEntity job = registrar(modulo, nomeArquivo, null, modo, limiteErros);
+        ContextoImportacao contexto = contextoDe(job, 0);
+        ativos.put(job.getId(), contexto);
+
+        InputStream comHash = ChecksumImportacao.aoTerminar(corpo, sha256 -> {
+            rejeitarDuplicado(modulo, sha256, job.getId());
+            atualizar(job.getId(), j -> j.setSha256(sha256));
+        });
+        log.info("Importação em fluxo {} ({}) iniciada. Lote: {}", job.getId(), modulo, job.getIdImportacao());
+        executar(job.getId(), contexto, () -> importador.importar(FonteImportacao.deFluxo(comHash), contexto));
+        return consultar(job.getId());
+    }
+
+    /**
+     * Ingestão NDJSON (receita e despesa): um registro JSON por linha do
+     * corpo, lido e gravado enquanto chega, como em {@link #importarEmFluxo}.
+     * {@code confirmados} recebe o número do último registro commitado a cada
+     * trecho confirmado ({@code portal.importacao.linhas-por-commit}), para o
+     * cliente saber até onde pode descartar o que enviou.
+     */
+    public ImportacaoJobDTO importarNdjson(ModuloImportacao modulo, String nomeArquivo, InputStream corpo,
+                                           ModoImportacao modo, Integer limiteErros, LongConsumer confirmados) {
+        Importador importador = ndjsonDe(modulo);
+        validarModo(modulo, modo);
+        validarLimiteErros(limiteErros);
+        ImportacaoJobEntity job = registrar(modulo, nomeArquivo, null, modo, limiteErros);
+        ContextoImportacao contexto = contextoDe(job, 0);
+        contexto.setOuvinteConfirmacao(confirmados);
+        ativos.put(job.getId(), contexto);
+
+        InputStream comHash = ChecksumImportacao.aoTerminar(corpo, sha256 -> {
+            rejeitarDuplicado(modulo, sha256, job.getId());
+            atualizar(job.getId(), j -> j.setSha256(sha256));
+        });
+        log.info("Ingestão NDJSON {} ({}) iniciada. Lote: {}", job.getId(), modulo, job.getIdImportacao());
+        executar(job.getId(), contexto, () -> importador.importar(FonteImportacao.deFluxo(comHash), contexto));
+        return consultar(job.getId());
+    }
+
+    /**
+     * Continua uma ingestão NDJSON que falhou. O corpo traz só os registros
+     * depois do último confirmado; a numeração segue do checkpoint.
+     */
+    public ImportacaoJobDTO retomarNdjson(Long id, InputStream corpo, LongConsumer confirmados) {
+        ImportacaoJobEntity job = jobRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Job de importação não encontrado: " + id));
+        Importador importador = ndjsonDe(job.getModulo());
+        if (job.getStatus() != StatusImportacao.FALHOU || job.getLinhaCheckpoint() == null) {
+            throw new IllegalStateException("O job " + id + " não tem carga parcial para retomar.");
+        }
+        job.setStatus(StatusImportacao.PENDENTE);
+        job.setMensagemErro(null);
+        job.setFinalizadoEm(null);
+        jobRepository.save(job);
+
+        ContextoImportacao contexto = contextoDe(job, job.getLinhaCheckpoint());
+        contexto.setOuvinteConfirmacao(confirmados);
+        ativos.put(id, contexto);
+        log.info("Ingestão NDJSON {} retomada após o registro {}.", id, job.getLinhaCheckpoint());
+        executar(id, contexto, () -> importador.importar(FonteImportacao.deFluxo(corpo), contexto));
+        return consultar(id);
+    }
+
+    /** CSV com as linhas recusadas no modo tolerante (linha;motivo;conteudo). */
+    public Resource rejeitos(Long id) {
+        ImportacaoJobEntity job = jobRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Job de importação não encontrado: " + id));
+        if (job.getArquivoRejeitos() == null) {
+            throw new IllegalArgumentException("O job " + id + " não tem linhas recusadas.");
+        }
+        return armazenamentoService.carregar(SUBPASTA_REJEITOS, job.getArquivoRejeitos());
+    }
+
+    public ImportacaoJobDTO consultar(Long id) {
+        ImportacaoJobEntity job = jobRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Job de importação não encontrado: " + id));
+        return toDTO(job, ativos.get(id));
+    }
+
+    public Page<ImportacaoJobDTO> listar(ModuloImportacao modulo, Pageable pageable) {
+        Page<ImportacaoJobEntity> pagina = modulo == null
+                ? jobRepository.findAllByOrderByCriadoEmDesc(pageable)
+                : jobRepository.findByModuloOrderByCriadoEmDesc(modulo, pageable);
+        return pagina.map(job -> toDTO(job, ativos.get(job.getId())));
+    }
+
+    public ImportacaoJobDTO cancelar(Long id) {
+        ContextoImportacao contexto = ativos.get(id);
+        if (contexto == null) {
+            throw new IllegalStateException("O job " + id + " não está em execução.");
+        }
+        contexto.cancelar();
+
+        eventPublisher.publishEvent(new LogAuditoriaEvent(
+                "CANCELAMENTO_IMPORTACAO",
+                contexto.getModulo().name(),
+                contexto.getLoteId(),
+                null,
+                "Cancelamento solicitado para o job " + id + " após " + contexto.getLinhasProcessadas() + " linhas."
+        ));
+        return consultar(id);
+    }
+
+    private void executar(Long jobId, ContextoImportacao contexto, Tarefa tarefa) {
+        atualizar(jobId, job -> {
+            job.setStatus(StatusImportacao.EM_EXECUCAO);
+            job.setIniciadoEm(LocalDateTime.now());
+        });
+
+        try {
+            if (contexto.isCancelado()) {
+                throw new ImportacaoCanceladaException(contexto.getLoteId());
+            }
+            tarefa.executar();
+            finalizar(jobId, contexto, StatusImportacao.CONCLUIDA, null);
+            log.info("Job de importação {} concluído. {}", jobId, contexto.getResumo());
+        } catch (Exception e) {
+            // Os importadores embrulham as exceções; o cancelamento é reconhecido pela flag do contexto
+            if (contexto.isCancelado()) {
+                finalizar(jobId, contexto, StatusImportacao.CANCELADA, "Cancelada pelo usuário.");
+                log.info("Job de importação {} cancelado após {} linhas.", jobId, contexto.getLinhasProcessadas());
+            } else {
+                finalizar(jobId, contexto, StatusImportacao.FALHOU, e.getMessage());
+                log.error("Job de importação {} falhou.", jobId, e);
+            }
+        } finally {
+            ativos.remove(jobId);
+        }
+    }
+
+    private ImportacaoJobEntity registrar(ModuloImportacao modulo, String nomeArquivo, String sha256,
+                                          ModoImportacao modo, Integer limiteErros) {
+        try {
+            return jobRepository.save(ImportacaoJobEntity.builder()
+                    .modulo(modulo)
+                    .modo(modo)
+                    .status(StatusImportacao.PENDENTE)
+                    .nomeArquivo(nomeArquivo)
+                    .sha256(sha256)
+                    .limiteErros(limiteErros)
+                    .idImportacao(modulo.novoLoteId())
+                    .usuario(getUsuarioLogado())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // Dois envios simultâneos do mesmo arquivo: o índice único decide quem fica
+            throw new IllegalStateException("Este arquivo já está sendo importado no módulo " + modulo + ".");
+        }
+    }
+
+    // Um contexto por execução; na retomada parte do checkpoint e mantém o modo, o limite e as recusas do job
+    private ContextoImportacao contextoDe(ImportacaoJobEntity job, long linhaInicial) {
+        ModoImportacao modo = job.getModo() != null ? job.getModo() : ModoImportacao.COMPLETA;
+        ContextoImportacao contexto = new ContextoImportacao(job.getModulo(), job.getIdImportacao(), modo, linhaInicial);
+        if (job.getLimiteErros() != null) {
+            Supplier<Path> destino = () -> armazenamentoService.reservar(SUBPASTA_REJEITOS, ".csv");
+            contexto.setRejeitos(linhaInicial > 0
+                    ? RejeitosImportacao.retomar(job.getLimiteErros(), arquivoRejeitos(job), linhaInicial, destino)
+                    : new RejeitosImportacao(job.getLimiteErros(), destino));
+        }
+        return contexto;
+    }
+
+    private Path arquivoRejeitos(ImportacaoJobEntity job) {
+        if (job.getArquivoRejeitos() == null) {
+            return null;
+        }
+        try {
+            return armazenamentoService.carregar(SUBPASTA_REJEITOS, job.getArquivoRejeitos()).getFile().toPath();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Rejeitos anteriores do job {} indisponíveis; a contagem recomeça do zero: {}", job.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void validarLimiteErros(Integer limiteErros) {
+        if (limiteErros != null && limiteErros < 0) {
+            throw new IllegalArgumentException("O limite de erros não pode ser negativo.");
+        }
+    }
+
+    private void rejeitarDuplicado(ModuloImportacao modulo, String sha256, Long jobAtual) {
+        jobRepository.findFirstByModuloAndSha256AndStatusIn(modulo, sha256, STATUS_VIGENTES)
+                .filter(anterior -> !anterior.getId().equals(jobAtual))
+                .ifPresent(anterior -> {
+                    throw new IllegalStateException("Arquivo idêntico já enviado no job " + anterior.getId()
+                            + " (lote " + anterior.getIdImportacao() + ", " + anterior.getStatus()
+                            + "). Desfaça aquele lote para importar de novo.");
+                });
+    }
+
+    private void validarModo(ModuloImportacao modulo, ModoImportacao modo) {
+        if (!modulo.aceita(modo)) {
+            throw new IllegalArgumentException("O módulo " + modulo + " não suporta importação " + modo + ".");
+        }
+    }
+
+    private Importador importadorDe(ModuloImportacao modulo) {
+        return switch (modulo) {
+            case RECEITA -> receitaService::importarArquivoCsv;
+            case DESPESA -> despesaService::importarArquivoCsv;
+            case DIVIDA_ATIVA -> dividaAtivaService::importarArquivoCsv;
+            case FOLHA_PAGAMENTO -> folhaPagamentoService::importarFolhaCsv;
+            case SERVIDOR -> servidorService::importarServidoresCsv;
+        };
+    }
+
+    private Importador ndjsonDe(ModuloImportacao modulo) {
+        return switch (modulo) {
+            case RECEITA -> receitaService::importarNdjson;
+            case DESPESA -> despesaService::importarNdjson;
+            default -> throw new IllegalArgumentException("O módulo " + modulo + " não aceita ingestão NDJSON.");
+        };
+    }
+
+    // Remove o lote inteiro do módulo: o mesmo caminho do desfazer pelo painel
+    private Consumer<String> desfazedorDe(ModuloImportacao modulo) {
+        return switch (modulo) {
+            case RECEITA -> receitaService::excluirLote;
+            case DESPESA -> despesaService::excluirLote;
+            case DIVIDA_ATIVA -> dividaAtivaService::excluirLote;
+            case FOLHA_PAGAMENTO -> folhaPagamentoService::desfazerImportacao;
+            case SERVIDOR -> servidorService::desfazerImportacao;
+        };
+    }
+
+    private void finalizar(Long jobId, ContextoImportacao contexto, StatusImportacao status, String erro) {
+        atualizar(jobId, job -> {
+            LocalDateTime agora = LocalDateTime.now();
+            job.setStatus(status);
+            job.setMensagemErro(erro);
+            job.setFinalizadoEm(agora);
+            job.setLinhasProcessadas(contexto.getLinhasProcessadas());
+            // Rollback do cancelamento/falha: nada do lote ficou gravado
+            long gravados = status == StatusImportacao.CONCLUIDA ? contexto.getRegistrosGravados() : 0;
+            job.setRegistrosGravados(gravados);
+            Diferencas diferencas = contexto.getDiferencas();
+            if (status == StatusImportacao.CONCLUIDA && diferencas != null) {
+                job.setRegistrosInseridos(diferencas.inseridos());
+                job.setRegistrosAlterados(diferencas.alterados());
+                job.setRegistrosRemovidos(diferencas.removidos());
+                job.setRegistrosInalterados(diferencas.inalterados());
+            }
+            job.setResumo(contexto.getResumo());
+            RejeitosImportacao rejeitos = contexto.getRejeitos();
+            if (rejeitos != null) {
+                rejeitos.fechar();
+                job.setRegistrosRejeitados(rejeitos.getQuantidade());
+                if (rejeitos.getArquivo() != null) {
+                    job.setArquivoRejeitos(rejeitos.getArquivo().getFileName().toString());
+                    if (status == StatusImportacao.CONCLUIDA) {
+                        job.setResumo(contexto.getResumo() + " Linhas recusadas: " + rejeitos.getQuantidade() + ".");
+                    }
+                }
+            }
+            if (job.getIniciadoEm() != null) {
+                long duracao = Math.max(1, Duration.between(job.getIniciadoEm(), agora).toMillis());
+                job.setDuracaoMs(duracao);
+                job.setRegistrosPorSegundo((contexto.getLinhasProcessadas() - contexto.getLinhaInicial()) * 1000 / duracao);
+            }
+        });
+    }
+
+    private void atualizar(Long jobId, Consumer<ImportacaoJobEntity> alteracao) {
+        jobRepository.findById(jobId).ifPresent(job -> {
+            alteracao.accept(job);
+            jobRepository.save(job);
+        });
+    }
+
+    // O hash é calculado na mesma passada da cópia
+    private Path copiarParaTemporario(MultipartFile arquivo, MessageDigest digest) {
+        try {
+            Path temporario = Files.createTempFile("importacao-", ".csv");
+            try (InputStream in = new DigestInputStream(arquivo.getInputStream(), digest)) {
+                Files.copy(in, temporario, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                apagar(temporario);
+                throw e;
+            }
+            return temporario;
+        } catch (IOException e) {
+            throw new RuntimeException("Falha ao receber o arquivo de importação: " + e.getMessage());
+        }
+    }
+
+    private void apagar(Path arquivo) {
+        try {
+            Files.deleteIfExists(arquivo);
+        } catch (IOException e) {
+            log.warn("Não foi possível apagar o temporário {}: {}", arquivo, e.getMessage());
+        }
+    }
+
+    private ImportacaoJobDTO toDTO(ImportacaoJobEntity job, ContextoImportacao emExecucao) {
+        ImportacaoJobDTO dto = ImportacaoJobDTO.builder()
+                .id(job.getId())
+                .modulo(job.getModulo())
+                .status(job.getStatus())
+                .modo(job.getModo() != null ? job.getModo() : ModoImportacao.COMPLETA)
+                .nomeArquivo(job.getNomeArquivo())
+                .sha256(job.getSha256())
+                .idImportacao(job.getIdImportacao())
+                .linhasProcessadas(job.getLinhasProcessadas() != null ? job.getLinhasProcessadas() : 0)
+                .registrosGravados(job.getRegistrosGravados() != null ? job.getRegistrosGravados() : 0)
+                .registrosPorSegundo(job.getRegistrosPorSegundo() != null ? job.getRegistrosPorSegundo() : 0)
+                .registrosInseridos(job.getRegistrosInseridos())
+                .registrosAlterados(job.getRegistrosAlterados())
+                .registrosRemovidos(job.getRegistrosRemovidos())
+                .registrosInalterados(job.getRegistrosInalterados())
+                .duracaoMs(job.getDuracaoMs())
+                .linhaCheckpoint(job.getLinhaCheckpoint())
+                .limiteErros(job.getLimiteErros())
+                .registrosRejeitados(job.getRegistrosRejeitados())
+                .resumo(job.getResumo())
+                .mensagemErro(job.getMensagemErro())
+                .usuario(job.getUsuario())
+                .criadoEm(job.getCriadoEm())
+                .iniciadoEm(job.getIniciadoEm())
+                .finalizadoEm(job.getFinalizadoEm())
+                .build();
+
+        // Progresso ao vivo só existe em memória enquanto o job roda
+        if (emExecucao != null) {
+            dto.setLinhasProcessadas(emExecucao.getLinhasProcessadas());
+            dto.setRegistrosPorSegundo(emExecucao.getLinhasPorSegundo());
+        }
+        return dto;
+    }
+
+    private String getUsuarioLogado() {
+        try {
+            return SecurityContextHolder.getContext().getAuthentication().getName();
+        } catch (Exception e) {
+            return "SISTEMA";
+        }
+    }
+}
@@ -1,26 +1,26 @@
 package br.com.horizon.portal.application.service;
 
-import br.com.horizon.portal.infrastructure.persistence.entity.ConfiguracaoEntity;
+import br.com.horizon.portal.application.service.exportacao.EscritorCsv;
+import br.com.horizon.portal.application.service.exportacao.EscritorCsv.FormatoData;
+import br.com.horizon.portal.application.service.exportacao.LayoutExportacao;
+import br.com.horizon.portal.application.service.exportacao.RelatorioPdf;
+import br.com.horizon.portal.application.service.exportacao.TabelaPdfEmFluxo;
+import br.com.horizon.portal.infrastructure.persistence.bulk.ConsultaEmCursor;
 import br.com.horizon.portal.infrastructure.persistence.entity.CredorEntity;
 import br.com.horizon.portal.infrastructure.persistence.entity.DespesaEntity;
-import br.com.horizon.portal.infrastructure.persistence.repository.ConfiguracaoRepository;
-import br.com.horizon.portal.infrastructure.persistence.repository.DespesaRepository;
 import com.lowagie.text.*;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
-import com.lowagie.text.pdf.PdfWriter;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.awt.Color;
 import java.io.PrintWriter;
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -31,9 +31,32 @@ import java.util.List;
 @Slf4j
 public class PortalDespesaService {
 
-    private final DespesaRepository despesaRepository;
-    private final ConfiguracaoRepository configuracaoRepository;
-    private final ArmazenamentoService armazenamentoService;
+    private final RelatorioPdf relatorioPdf;
+    private final ConsultaEmCursor consultaEmCursor;
+
+    // Dados abertos: 21 colunas, montadas uma vez e usadas por todas as exportações
+    private static final LayoutExportacao<DespesaEntity> CSV = LayoutExportacao.<DespesaEntity>csv()
+            .inteiro("exercicio", DespesaEntity::getExercicio)
+            .texto("empenho", DespesaEntity::getNumeroEmpenho)
+            .texto("processo", DespesaEntity::getNumeroProcessoPagamento)
+            .data("data_empenho", DespesaEntity::getDataEmpenho, FormatoData.ISO)
+            .texto("orgao", DespesaEntity::getOrgaoNome)
+            .texto("unidade", DespesaEntity::getUnidadeNome)
+            .texto("funcao", DespesaEntity::getFuncao)
+            .texto("subfuncao", DespesaEntity::getSubfuncao)
+            .texto("programa", DespesaEntity::getPrograma)
+            .texto("acao", DespesaEntity::getAcaoGoverno)
+            .texto("elemento", DespesaEntity::getElementoDespesa)
+            .texto("fonte", DespesaEntity::getFonteRecursos)
+            .texto("credor", d -> d.getCredor() != null ? d.getCredor().getRazaoSocial() : "NÃO INFORMADO")
+            .texto("cpf_cnpj", d -> d.getCredor() != null ? mascararCpfCnpj(d.getCredor().getCpfCnpj()) : "")
+            .moeda("vlr_empenhado", d -> zeroSeNulo(d.getValorEmpenhado()))
+            .moeda("vlr_liquidado", d -> zeroSeNulo(d.getValorLiquidado()))
+            .data("dt_liquidacao", DespesaEntity::getDataLiquidacao, FormatoData.ISO)
+            .moeda("vlr_pago", d -> zeroSeNulo(d.getValorPago()))
+            .data("dt_pagamento", DespesaEntity::getDataPagamento, FormatoData.ISO)
+            .texto("modalidade", DespesaEntity::getModalidadeLicitacao)
+            .texto("historico", DespesaEntity::getHistoricoObjetivo);
 
     // --- 1. FÁBRICA DE BUSCAS DINÂMICAS (ATUALIZADA COM NOVOS CAMPOS) ---
     public Specification<DespesaEntity> criarSpecificationDespesa(
@@ -94,135 +117,66 @@ public class PortalDespesaService {
     }
 
     // --- 2. GERAÇÃO DE CSV (EXPORTAÇÃO COMPLETA - 21 COLUNAS) ---
+    // Lida por cursor com o credor na mesma consulta: o download começa na hora e a memória não cresce com o volume
     @Transactional(readOnly = true)
     public void gerarCsvDespesa(Specification<DespesaEntity> spec, PrintWriter writer) {
-        List<DespesaEntity> despesas = despesaRepository.findAll(spec);
-        writer.write('\ufeff');
-        // Cabeçalho expandido
-        writer.println("exercicio;empenho;processo;data_empenho;orgao;unidade;funcao;subfuncao;programa;acao;elemento;fonte;credor;cpf_cnpj;vlr_empenhado;vlr_liquidado;dt_liquidacao;vlr_pago;dt_pagamento;modalidade;historico");
-        
-        for (DespesaEntity d : despesas) {
-            String credorNome = d.getCredor() != null ? d.getCredor().getRazaoSocial() : "NÃO INFORMADO";
-            String credorDoc = d.getCredor() != null ? mascararCpfCnpj(d.getCredor().getCpfCnpj()) : "";
-
-            writer.printf("%s;%s;%s;%s;%s;%s;%s;%s;%s;%s;%s;%s;%s;%s;%s;%s;%s;%s;%s;%s;%s%n",
-                    d.getExercicio(),
-                    safeCsvField(d.getNumeroEmpenho()),
-                    safeCsvField(d.getNumeroProcessoPagamento()),
-                    d.getDataEmpenho(),
-                    safeCsvField(d.getOrgaoNome()),
-                    safeCsvField(d.getUnidadeNome()),
-                    safeCsvField(d.getFuncao()),
-                    safeCsvField(d.getSubfuncao()),
-                    safeCsvField(d.getPrograma()),
-                    safeCsvField(d.getAcaoGoverno()),
-                    safeCsvField(d.getElementoDespesa()),
-                    safeCsvField(d.getFonteRecursos()),
-                    safeCsvField(credorNome),
-                    credorDoc,
-                    formatarMoeda(d.getValorEmpenhado()),
-                    formatarMoeda(d.getValorLiquidado()),
-                    d.getDataLiquidacao() != null ? d.getDataLiquidacao() : "",
-                    formatarMoeda(d.getValorPago()),
-                    d.getDataPagamento() != null ? d.getDataPagamento() : "",
-                    safeCsvField(d.getModalidadeLicitacao()),
-                    safeCsvField(d.getHistoricoObjetivo())
-            );
-        }
+        EscritorCsv csv = new EscritorCsv(writer).bom();
+        CSV.cabecalho(csv);
+        csv.flush();
+
+        long linhas = consultaEmCursor.percorrer(DespesaEntity.class, spec, d -> CSV.linha(d, csv), "credor");
+        csv.flush();
+        log.info("CSV de despesas exportado: {} linhas.", linhas);
     }
 
     // --- 3. GERAÇÃO DE PDF (FORMATO RELATÓRIO COM PROCESSOS) ---
     @Transactional(readOnly = true)
     public void gerarPdfDespesa(Specification<DespesaEntity> spec, HttpServletResponse response) throws Exception {
-        List<DespesaEntity> despesas = despesaRepository.findAll(spec);
-        Document document = new Document(PageSize.A4.rotate()); 
-        PdfWriter.getInstance(document, response.getOutputStream());
-        document.open();
-
-        ConfiguracaoEntity config = configuracaoRepository.findAll().stream().findFirst().orElse(null);
-        adicionarCabecalhoPdf(document, config);
-
-        Paragraph titulo = new Paragraph("RELATÓRIO DE DESPESAS PÚBLICAS DETALHADO", FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14));
-        titulo.setAlignment(Element.ALIGN_CENTER);
-        document.add(titulo);
-        document.add(new Paragraph("\n"));
-
-        // Aumentei para 9 colunas para incluir Processo e Unidade
-        PdfPTable table = new PdfPTable(9);
-        table.setWidthPercentage(100f);
-        table.setWidths(new float[]{0.8f, 1.2f, 1.2f, 2.5f, 1.5f, 1.5f, 1.2f, 1.2f, 1.2f});
-
-        String[] headers = {"Exerc.", "Empenho", "Processo", "Favorecido", "Ação", "Elemento", "Empenhado", "Liquidado", "Pago"};
-        for (String h : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(h, FontFactory.getFont(FontFactory.HELVETICA_BOLD, 8, Color.WHITE)));
-            cell.setBackgroundColor(new Color(15, 23, 42));
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(cell);
-        }
-
-        Font fontDados = FontFactory.getFont(FontFactory.HELVETICA, 7);
-        for (DespesaEntity d : despesas) {
-            table.addCell(new PdfPCell(new Phrase(d.getExercicio().toString(), fontDados)));
-            table.addCell(new PdfPCell(new Phrase(d.getNumeroEmpenho(), fontDados)));
-            table.addCell(new PdfPCell(new Phrase(d.getNumeroProcessoPagamento() != null ? d.getNumeroProcessoPagamento() : "---", fontDados)));
-            table.addCell(new PdfPCell(new Phrase(d.getCredor() != null ? d.getCredor().getRazaoSocial() : "---", fontDados)));
-            table.addCell(new PdfPCell(new Phrase(d.getAcaoGoverno(), fontDados)));
-            table.addCell(new PdfPCell(new Phrase(d.getElementoDespesa(), fontDados)));
-            table.addCell(createRightAlignedCell(formatarMoeda(d.getValorEmpenhado()), fontDados));
-            table.addCell(createRightAlignedCell(formatarMoeda(d.getValorLiquidado()), fontDados));
-            table.addCell(createRightAlignedCell(formatarMoeda(d.getValorPago()), fontDados));
-        }
-
-        document.add(table);
+        Document document = relatorioPdf.abrir(response.getOutputStream(), PageSize.A4.rotate());
+        RelatorioPdf.titulo(document, "RELATÓRIO DE DESPESAS PÚBLICAS DETALHADO", null);
+
+        // 9 colunas, incluindo Processo e Ação
+        PdfPTable table = RelatorioPdf.tabela(new float[]{0.8f, 1.2f, 1.2f, 2.5f, 1.5f, 1.5f, 1.2f, 1.2f, 1.2f},
+                "Exerc.", "Empenho", "Processo", "Favorecido", "Ação", "Elemento", "Empenhado", "Liquidado", "Pago");
+
+        Font fontDados = RelatorioPdf.FONTE_DADOS_COMPACTA;
+        // Por cursor com o credor na mesma consulta, em levas: a memória não cresce com o volume
+        TabelaPdfEmFluxo tabela = new TabelaPdfEmFluxo(document, table);
+        long linhas = consultaEmCursor.percorrer(DespesaEntity.class, spec, d -> tabela
+                .celula(new PdfPCell(new Phrase(d.getExercicio().toString(), fontDados)))
+                .celula(new PdfPCell(new Phrase(d.getNumeroEmpenho(), fontDados)))
+                .celula(new PdfPCell(new Phrase(d.getNumeroProcessoPagamento() != null ? d.getNumeroProcessoPagamento() : "---", fontDados)))
+                .celula(new PdfPCell(new Phrase(d.getCredor() != null ? d.getCredor().getRazaoSocial() : "---", fontDados)))
+                .celula(new PdfPCell(new Phrase(d.getAcaoGoverno(), fontDados)))
+                .celula(new PdfPCell(new Phrase(d.getElementoDespesa(), fontDados)))
+                .celula(createRightAlignedCell(formatarMoeda(d.getValorEmpenhado()), fontDados))
+                .celula(createRightAlignedCell(formatarMoeda(d.getValorLiquidado()), fontDados))
+                .celula(createRightAlignedCell(formatarMoeda(d.getValorPago()), fontDados))
+                .fimLinha(), "credor");
+
+        tabela.concluir();
         document.close();
+        log.info("PDF de despesas exportado: {} linhas.", linhas);
     }
 
     // --- MÉTODOS AUXILIARES ---
-    private void adicionarCabecalhoPdf(Document doc, ConfiguracaoEntity config) throws Exception {
-        PdfPTable header = new PdfPTable(2);
-        header.setWidthPercentage(100f);
-        header.setWidths(new float[]{1f, 5f});
-        PdfPCell logoCell = new PdfPCell();
-        logoCell.setBorder(Rectangle.NO_BORDER);
-
-        if (config != null && config.getUrlBrasao() != null) {
-            try {
-                String path = config.getUrlBrasao().replace("/api/v1/portal/arquivos/", "");
-                Resource res = armazenamentoService.carregar("geral", path);
-                if (res.exists()) {
-                    Image img = Image.getInstance(res.getFile().getAbsolutePath());
-                    img.scaleToFit(50, 50);
-                    logoCell.addElement(img);
-                }
-            } catch (Exception e) { log.warn("Brasão não encontrado para o PDF"); }
-        }
-        header.addCell(logoCell);
-
-        PdfPCell textCell = new PdfPCell();
-        textCell.setBorder(Rectangle.NO_BORDER);
-        textCell.addElement(new Paragraph(config != null ? config.getNomeEntidade() : "Portal da Transparência", FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12)));
-        header.addCell(textCell);
-        doc.add(header);
-    }
-
     private PdfPCell createRightAlignedCell(String text, Font font) {
         PdfPCell cell = new PdfPCell(new Phrase(text, font));
         cell.setHorizontalAlignment(Element.ALIGN_RIGHT);
         return cell;
     }
 
-    private String safeCsvField(String value) { 
-        if (value == null) return "";
-        return value.replace(";", ",").replace("\n", " ").replace("\r", ""); 
-    }
-
-    private String mascararCpfCnpj(String doc) {
+    private static String mascararCpfCnpj(String doc) {
         if (doc == null || doc.isBlank()) return "---";
         if (doc.length() == 11) return "***." + doc.substring(3, 6) + ".***-**";
         if (doc.length() == 14) return doc.substring(0, 2) + "." + doc.substring(2, 5) + "." + doc.substring(5, 8) + "/****-" + doc.substring(12);
         return doc;
     }
 
+    private static java.math.BigDecimal zeroSeNulo(java.math.BigDecimal valor) {
+        return valor != null ? valor : java.math.BigDecimal.ZERO;
+    }
+
     private String formatarMoeda(java.math.BigDecimal valor) {
         return (valor == null) ? "0,00" : String.format("%.2f", valor).replace(".", ",");
     }
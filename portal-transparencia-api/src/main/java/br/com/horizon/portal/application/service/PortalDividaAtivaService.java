@@ -1,23 +1,23 @@
 package br.com.horizon.portal.application.service;
 
-import br.com.horizon.portal.infrastructure.persistence.entity.ConfiguracaoEntity;
+import br.com.horizon.portal.application.service.exportacao.EscritorCsv;
+import br.com.horizon.portal.application.service.exportacao.LayoutExportacao;
+import br.com.horizon.portal.application.service.exportacao.RelatorioPdf;
+import br.com.horizon.portal.application.service.exportacao.TabelaPdfEmFluxo;
+import br.com.horizon.portal.infrastructure.persistence.bulk.ConsultaEmCursor;
 import br.com.horizon.portal.infrastructure.persistence.entity.DividaAtivaEntity;
-import br.com.horizon.portal.infrastructure.persistence.repository.ConfiguracaoRepository;
 import br.com.horizon.portal.infrastructure.persistence.repository.DividaAtivaRepository;
 import com.lowagie.text.*;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
-import com.lowagie.text.pdf.PdfWriter;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.awt.Color;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
@@ -28,10 +28,15 @@ import java.util.List;
 public class PortalDividaAtivaService {
 
     private final DividaAtivaRepository dividaAtivaRepository;
-    private final ConfiguracaoRepository configuracaoRepository;
-    
-    // INJEÇÃO DA NOSSA NOVA ESTRUTURA DE ARQUIVOS
-    private final ArmazenamentoService armazenamentoService;
+    private final RelatorioPdf relatorioPdf;
+    private final ConsultaEmCursor consultaEmCursor;
+
+    private static final LayoutExportacao<DividaAtivaEntity> CSV = LayoutExportacao.<DividaAtivaEntity>csv()
+            .inteiro("ano_inscricao", DividaAtivaEntity::getAnoInscricao)
+            .texto("nome_devedor", DividaAtivaEntity::getNomeDevedor)
+            .texto("cpf_cnpj", d -> mascararCpfCnpj(d.getCpfCnpj())) // Aplica máscara LGPD na exportação pública
+            .texto("tipo_divida", DividaAtivaEntity::getTipoDivida)
+            .moeda("valor_total_divida", DividaAtivaEntity::getValorTotalDivida);
 
     public Specification<DividaAtivaEntity> criarSpecificationDivida(String nome, Integer ano, String tipoDivida) {
         return (root, query, cb) -> {
@@ -50,116 +55,37 @@ public class PortalDividaAtivaService {
 
     @Transactional(readOnly = true)
     public void gerarCsvDivida(Specification<DividaAtivaEntity> spec, PrintWriter writer) {
-        List<DividaAtivaEntity> dividas = dividaAtivaRepository.findAll(spec);
-        
         // BOM para corrigir acentuação no Excel
-        writer.write('\ufeff');
-        writer.println("ano_inscricao;nome_devedor;cpf_cnpj;tipo_divida;valor_total_divida");
+        EscritorCsv csv = new EscritorCsv(writer).bom();
+        CSV.cabecalho(csv);
+        csv.flush();
 
-        for (DividaAtivaEntity entity : dividas) {
-            writer.printf("%s;%s;%s;%s;%s%n",
-                    entity.getAnoInscricao(),
-                    safeCsvField(entity.getNomeDevedor()),
-                    mascararCpfCnpj(entity.getCpfCnpj()), // Aplica máscara LGPD na exportação pública
-                    safeCsvField(entity.getTipoDivida()),
-                    entity.getValorTotalDivida().toString().replace(".", ",")
-            );
-        }
+        // Por cursor: o download começa antes do fim da consulta e a memória não cresce com o volume
+        consultaEmCursor.percorrer(DividaAtivaEntity.class, spec, entity -> CSV.linha(entity, csv));
+        csv.flush();
     }
 
     @Transactional(readOnly = true)
     public void gerarPdfDivida(Specification<DividaAtivaEntity> spec, HttpServletResponse response) throws Exception {
-        List<DividaAtivaEntity> dividas = dividaAtivaRepository.findAll(spec);
-        Document document = new Document(PageSize.A4);
-        PdfWriter.getInstance(document, response.getOutputStream());
-        document.open();
-
-        // --- 1. BUSCAR CONFIGURAÇÕES DO PORTAL ---
-        ConfiguracaoEntity config = configuracaoRepository.findAll().stream().findFirst().orElse(null);
-        String nomeOrgao = (config != null && config.getNomeEntidade() != null) ? config.getNomeEntidade() : "Portal da Transparência";
-        String cnpjOrgao = (config != null && config.getCnpj() != null) ? "CNPJ: " + config.getCnpj() : "";
-
-        // --- 2. MONTAR CABEÇALHO PADRÃO OURO ---
-        PdfPTable headerTable = new PdfPTable(2);
-        headerTable.setWidthPercentage(100f);
-        headerTable.setWidths(new float[] { 1f, 5f });
-
-        PdfPCell logoCell = new PdfPCell();
-        logoCell.setBorder(Rectangle.NO_BORDER);
-        logoCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-
-        // NOVA LÓGICA DO BRASÃO
-        if (config != null && config.getUrlBrasao() != null && config.getUrlBrasao().contains("/api/v1/portal/arquivos/")) {
-            try {
-                String urlRelativa = config.getUrlBrasao().replace("/api/v1/portal/arquivos/", "");
-                String[] partes = urlRelativa.split("/");
-                
-                Resource resource = null;
-                if (partes.length == 2) {
-                    resource = armazenamentoService.carregar(partes[0], partes[1]);
-                } else if (partes.length == 1) {
-                    resource = armazenamentoService.carregar("geral", partes[0]); 
-                }
-
-                if (resource != null && resource.exists()) {
-                    Image brasao = Image.getInstance(resource.getFile().getAbsolutePath());
-                    brasao.scaleToFit(50, 50);
-                    logoCell.addElement(brasao);
-                }
-            } catch (Exception e) {
-                log.warn("Falha ao carregar a imagem do brasão dinamicamente para o PDF de Dívida Ativa.", e);
-            }
-        }
-
-        headerTable.addCell(logoCell);
-
-        PdfPCell textCell = new PdfPCell();
-        textCell.setBorder(Rectangle.NO_BORDER);
-        textCell.setVerticalAlignment(Element.ALIGN_MIDDLE);
-        textCell.addElement(new Paragraph(nomeOrgao, FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14, Color.DARK_GRAY)));
-        
-        if (!cnpjOrgao.isEmpty()) {
-            textCell.addElement(new Paragraph(cnpjOrgao, FontFactory.getFont(FontFactory.HELVETICA, 10, Color.GRAY)));
-        }
-
-        headerTable.addCell(textCell);
-        document.add(headerTable);
-        document.add(new Paragraph("\n"));
-
-        // --- 3. TÍTULOS ---
-        Paragraph titulo = new Paragraph("RELAÇÃO DE INSCRITOS NA DÍVIDA ATIVA", FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12, Color.BLACK));
-        titulo.setAlignment(Element.ALIGN_CENTER);
-        document.add(titulo);
-
-        Paragraph subtitulo = new Paragraph("Total de Registros: " + dividas.size() + "\n\n", FontFactory.getFont(FontFactory.HELVETICA, 10, Color.DARK_GRAY));
-        subtitulo.setAlignment(Element.ALIGN_CENTER);
-        document.add(subtitulo);
-
-        // --- 4. TABELA DE DADOS ---
-        PdfPTable table = new PdfPTable(5);
-        table.setWidthPercentage(100f);
-        table.setWidths(new float[]{1f, 3f, 2f, 2f, 1.5f});
-        table.setSpacingBefore(10);
-
-        String[] cabecalhos = {"Ano", "Nome do Devedor", "CPF/CNPJ", "Tipo de Dívida", "Valor (R$)"};
-        for (String cabecalho : cabecalhos) {
-            PdfPCell cell = new PdfPCell(new Phrase(cabecalho, FontFactory.getFont(FontFactory.HELVETICA_BOLD, 8, Color.WHITE)));
-            cell.setBackgroundColor(new Color(15, 23, 42)); // Padrão UI (slate-900)
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            cell.setPadding(5);
-            table.addCell(cell);
-        }
-
-        Font fontDados = FontFactory.getFont(FontFactory.HELVETICA, 8);
-        for (DividaAtivaEntity entity : dividas) {
-            table.addCell(createPdfCell(String.valueOf(entity.getAnoInscricao()), fontDados));
-            table.addCell(createPdfCell(entity.getNomeDevedor(), fontDados));
-            table.addCell(createPdfCell(mascararCpfCnpj(entity.getCpfCnpj()), fontDados));
-            table.addCell(createPdfCell(entity.getTipoDivida() != null ? entity.getTipoDivida() : "", fontDados));
-            table.addCell(createPdfCell(entity.getValorTotalDivida().toString().replace(".", ","), fontDados));
-        }
-
-        document.add(table);
+        long total = dividaAtivaRepository.count(spec);
+        Document document = relatorioPdf.abrir(response.getOutputStream(), PageSize.A4);
+        RelatorioPdf.titulo(document, "RELAÇÃO DE INSCRITOS NA DÍVIDA ATIVA", "Total de Registros: " + total);
+
+        PdfPTable table = RelatorioPdf.tabela(new float[]{1f, 3f, 2f, 2f, 1.5f},
+                "Ano", "Nome do Devedor", "CPF/CNPJ", "Tipo de Dívida", "Valor (R$)");
+
+        Font fontDados = RelatorioPdf.FONTE_DADOS;
+        // Por cursor, em levas: só as linhas ainda não diagramadas ficam em memória
+        TabelaPdfEmFluxo tabela = new TabelaPdfEmFluxo(document, table);
+        consultaEmCursor.percorrer(DividaAtivaEntity.class, spec, entity -> tabela
+                .celula(createPdfCell(String.valueOf(entity.getAnoInscricao()), fontDados))
+                .celula(createPdfCell(entity.getNomeDevedor(), fontDados))
+                .celula(createPdfCell(mascararCpfCnpj(entity.getCpfCnpj()), fontDados))
+                .celula(createPdfCell(entity.getTipoDivida() != null ? entity.getTipoDivida() : "", fontDados))
+                .celula(createPdfCell(entity.getValorTotalDivida().toString().replace(".", ","), fontDados))
+                .fimLinha());
+
+        tabela.concluir();
         document.close();
     }
 
@@ -171,11 +97,7 @@ public class PortalDividaAtivaService {
         return cell;
     }
 
-    private String safeCsvField(String value) {
-        return value == null ? "" : value.replace(";", ",");
-    }
-
-    private String mascararCpfCnpj(String doc) {
+    private static String mascararCpfCnpj(String doc) {
         if (doc == null || doc.isBlank()) return "Não Informado";
         if (doc.length() > 11) return doc.substring(0, 3) + ".***.***/****-" + doc.substring(doc.length() - 2); // CNPJ
         return "***." + doc.substring(3, 6) + ".***-**"; // CPF
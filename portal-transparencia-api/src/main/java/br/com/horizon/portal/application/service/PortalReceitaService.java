@@ -1,30 +1,26 @@
 package br.com.horizon.portal.application.service;
 
-import br.com.horizon.portal.infrastructure.persistence.entity.ConfiguracaoEntity;
+import br.com.horizon.portal.application.service.exportacao.EscritorCsv;
+import br.com.horizon.portal.application.service.exportacao.EscritorCsv.FormatoData;
+import br.com.horizon.portal.application.service.exportacao.LayoutExportacao;
+import br.com.horizon.portal.application.service.exportacao.RelatorioPdf;
+import br.com.horizon.portal.application.service.exportacao.TabelaPdfEmFluxo;
+import br.com.horizon.portal.infrastructure.persistence.bulk.ConsultaEmCursor;
 import br.com.horizon.portal.infrastructure.persistence.entity.ReceitaEntity;
-import br.com.horizon.portal.infrastructure.persistence.repository.ConfiguracaoRepository;
 import br.com.horizon.portal.infrastructure.persistence.repository.ReceitaRepository;
 import com.lowagie.text.Document;
-import com.lowagie.text.Element;
 import com.lowagie.text.Font;
-import com.lowagie.text.FontFactory;
-import com.lowagie.text.Image;
 import com.lowagie.text.PageSize;
-import com.lowagie.text.Paragraph;
 import com.lowagie.text.Phrase;
-import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
-import com.lowagie.text.pdf.PdfWriter;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.awt.Color;
 import java.io.PrintWriter;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -38,13 +34,27 @@ import java.util.List;
 public class PortalReceitaService {
 
     private final ReceitaRepository receitaRepository;
-    private final ConfiguracaoRepository configuracaoRepository;
-    
-    // NOVO: Serviço de Armazenamento para buscar a imagem na pasta segura
-    private final ArmazenamentoService armazenamentoService;
+    private final RelatorioPdf relatorioPdf;
+    private final ConsultaEmCursor consultaEmCursor;
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
+    private static final LayoutExportacao<ReceitaEntity> CSV = LayoutExportacao.<ReceitaEntity>csv()
+            .inteiro("exercicio", ReceitaEntity::getExercicio)
+            .inteiro("mes", ReceitaEntity::getMes)
+            .data("data_lancamento", ReceitaEntity::getDataLancamento, FormatoData.BR)
+            .texto("codigo_natureza", ReceitaEntity::getCodigoNatureza)
+            .texto("categoria_economica", ReceitaEntity::getCategoriaEconomica)
+            .texto("origem", ReceitaEntity::getOrigem)
+            .texto("especie", ReceitaEntity::getEspecie)
+            .texto("rubrica", ReceitaEntity::getRubrica)
+            .texto("alinea", ReceitaEntity::getAlinea)
+            .texto("fonte_recursos", ReceitaEntity::getFonteRecursos)
+            .moeda("valor_previsto_inicial", ReceitaEntity::getValorPrevistoInicial)
+            .moeda("valor_previsto_atualizado", ReceitaEntity::getValorPrevistoAtualizado)
+            .moeda("valor_arrecadado", ReceitaEntity::getValorArrecadado)
+            .texto("historico", ReceitaEntity::getHistorico);
+
     public Specification<ReceitaEntity> criarSpecificationReceita(
             Integer exercicio,
             Integer mes,
@@ -82,157 +92,53 @@ public class PortalReceitaService {
     @Transactional(readOnly = true)
     public void gerarCsvReceitas(Specification<ReceitaEntity> spec, PrintWriter writer) {
         log.info("Iniciando geração de CSV de Receitas (Dados Abertos)...");
-        List<ReceitaEntity> receitas = receitaRepository.findAll(spec);
-
-        writer.write('\ufeff');
-        writer.println(
-                "exercicio;mes;data_lancamento;codigo_natureza;categoria_economica;origem;especie;rubrica;alinea;fonte_recursos;valor_previsto_inicial;valor_previsto_atualizado;valor_arrecadado;historico");
-
-        for (ReceitaEntity entity : receitas) {
-            writer.printf("%s;%s;%s;%s;%s;%s;%s;%s;%s;%s;%s;%s;%s;%s%n",
-                    safeString(entity.getExercicio()),
-                    safeString(entity.getMes()),
-                    entity.getDataLancamento() != null ? entity.getDataLancamento().format(DATE_FORMATTER) : "",
-                    safeCsvField(entity.getCodigoNatureza()),
-                    safeCsvField(entity.getCategoriaEconomica()),
-                    safeCsvField(entity.getOrigem()),
-                    safeCsvField(entity.getEspecie()),
-                    safeCsvField(entity.getRubrica()),
-                    safeCsvField(entity.getAlinea()),
-                    safeCsvField(entity.getFonteRecursos()),
-                    safeNumber(entity.getValorPrevistoInicial()),
-                    safeNumber(entity.getValorPrevistoAtualizado()),
-                    safeNumber(entity.getValorArrecadado()),
-                    safeCsvField(entity.getHistorico()));
-        }
+
+        EscritorCsv csv = new EscritorCsv(writer).bom();
+        CSV.cabecalho(csv);
+        csv.flush();
+
+        // Por cursor: cada linha é escrita e descartada, sem carregar o resultado inteiro
+        long linhas = consultaEmCursor.percorrer(ReceitaEntity.class, spec, entity -> CSV.linha(entity, csv));
+        csv.flush();
+        log.info("Geração de CSV concluída. {} registros exportados.", linhas);
     }
 
     @Transactional(readOnly = true)
     public void gerarPdfReceitas(Specification<ReceitaEntity> spec, HttpServletResponse response) throws Exception {
         log.info("Iniciando geração de PDF de Receitas...");
 
-        List<ReceitaEntity> receitas = receitaRepository.findAll(spec);
-
-        Document document = new Document(PageSize.A4.rotate());
-        PdfWriter.getInstance(document, response.getOutputStream());
-        document.open();
-
-        // --- 1. BUSCAR CONFIGURAÇÕES DO PORTAL ---
-        ConfiguracaoEntity config = configuracaoRepository.findAll().stream().findFirst().orElse(null);
-        String nomeOrgao = (config != null && config.getNomeEntidade() != null) ? config.getNomeEntidade()
-                : "Órgão Público - Portal da Transparência";
-        String cnpjOrgao = (config != null && config.getCnpj() != null) ? "CNPJ: " + config.getCnpj() : "";
-        String enderecoOrgao = (config != null && config.getEndereco() != null) ? config.getEndereco() : "";
-
-        // --- 2. MONTAR CABEÇALHO OFICIAL (Logo + Textos) ---
-        PdfPTable headerTable = new PdfPTable(2);
-        headerTable.setWidthPercentage(100f);
-        headerTable.setWidths(new float[] { 1f, 6f });
-
-        PdfPCell logoCell = new PdfPCell();
-        logoCell.setBorder(com.lowagie.text.Rectangle.NO_BORDER);
-        logoCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-
-        // NOVA LÓGICA DO BRASÃO: Dinâmica, baseada no Banco de Dados e isolada no ArmazenamentoService
-        if (config != null && config.getUrlBrasao() != null && config.getUrlBrasao().contains("/api/v1/portal/arquivos/")) {
-            try {
-                String urlRelativa = config.getUrlBrasao().replace("/api/v1/portal/arquivos/", "");
-                String[] partes = urlRelativa.split("/");
-                
-                Resource resource = null;
-                if (partes.length == 2) {
-                    resource = armazenamentoService.carregar(partes[0], partes[1]);
-                } else if (partes.length == 1) {
-                    resource = armazenamentoService.carregar("geral", partes[0]); // fallback de segurança
-                }
-
-                if (resource != null && resource.exists()) {
-                    Image brasao = Image.getInstance(resource.getFile().getAbsolutePath());
-                    brasao.scaleToFit(50, 50);
-                    logoCell.addElement(brasao);
-                }
-            } catch (Exception e) {
-                log.warn("Falha ao carregar a imagem do brasão dinamicamente para o PDF de Receitas.", e);
-            }
-        }
-
-        headerTable.addCell(logoCell);
-
-        PdfPCell textCell = new PdfPCell();
-        textCell.setBorder(com.lowagie.text.Rectangle.NO_BORDER);
-        textCell.setVerticalAlignment(Element.ALIGN_MIDDLE);
-
-        textCell.addElement(
-                new Paragraph(nomeOrgao, FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14, Color.DARK_GRAY)));
-        if (!cnpjOrgao.isEmpty())
-            textCell.addElement(new Paragraph(cnpjOrgao, FontFactory.getFont(FontFactory.HELVETICA, 10, Color.GRAY)));
-        if (!enderecoOrgao.isEmpty())
-            textCell.addElement(
-                    new Paragraph(enderecoOrgao, FontFactory.getFont(FontFactory.HELVETICA, 10, Color.GRAY)));
-
-        headerTable.addCell(textCell);
-        document.add(headerTable);
-        document.add(new Paragraph("\n"));
-
-        // --- 3. TÍTULO DO RELATÓRIO ---
-        Paragraph titulo = new Paragraph("RELATÓRIO DE RECEITAS ARRECADADAS",
-                FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12, Color.BLACK));
-        titulo.setAlignment(Element.ALIGN_CENTER);
-        document.add(titulo);
-
-        Paragraph subtitulo = new Paragraph("Total de Registros Encontrados: " + receitas.size() + "\n\n",
-                FontFactory.getFont(FontFactory.HELVETICA, 10, Color.DARK_GRAY));
-        subtitulo.setAlignment(Element.ALIGN_CENTER);
-        document.add(subtitulo);
-
-        // --- 4. TABELA DE DADOS (9 Colunas Detalhadas) ---
-        PdfPTable table = new PdfPTable(9);
-        table.setWidthPercentage(100f);
-        table.setWidths(new float[] { 0.8f, 0.7f, 1.2f, 2.0f, 1.8f, 1.8f, 1.3f, 1.3f, 1.3f });
-        table.setSpacingBefore(10);
-
-        escreverCabecalhoTabelaPdf(table);
-
-        Font fontDados = FontFactory.getFont(FontFactory.HELVETICA);
-        fontDados.setSize(7);
-
-        for (ReceitaEntity entity : receitas) {
-            table.addCell(new Phrase(safeString(entity.getExercicio()), fontDados));
-            table.addCell(new Phrase(safeString(entity.getMes()), fontDados));
-            table.addCell(new Phrase(
-                    entity.getDataLancamento() != null ? entity.getDataLancamento().format(DATE_FORMATTER) : "",
-                    fontDados));
-            table.addCell(new Phrase(safeString(entity.getCategoriaEconomica()), fontDados));
-            table.addCell(new Phrase(safeString(entity.getOrigem()), fontDados));
-            table.addCell(new Phrase(safeString(entity.getFonteRecursos()), fontDados));
-            table.addCell(new Phrase(safeNumber(entity.getValorPrevistoInicial()), fontDados));
-            table.addCell(new Phrase(safeNumber(entity.getValorPrevistoAtualizado()), fontDados));
-            table.addCell(new Phrase(safeNumber(entity.getValorArrecadado()), fontDados));
-        }
-
-        document.add(table);
+        long total = receitaRepository.count(spec);
+
+        Document document = relatorioPdf.abrir(response.getOutputStream(), PageSize.A4.rotate());
+        RelatorioPdf.titulo(document, "RELATÓRIO DE RECEITAS ARRECADADAS",
+                "Total de Registros Encontrados: " + total);
+
+        PdfPTable table = RelatorioPdf.tabela(new float[] { 0.8f, 0.7f, 1.2f, 2.0f, 1.8f, 1.8f, 1.3f, 1.3f, 1.3f },
+                "Exercício", "Mês", "Data Lanç.", "Categoria Econômica", "Origem", "Fonte Recursos",
+                "Prev. Inicial", "Prev. Atual", "Arrecadado");
+
+        Font fontDados = RelatorioPdf.FONTE_DADOS_COMPACTA;
+
+        // Por cursor, em levas: só as linhas ainda não diagramadas ficam em memória
+        TabelaPdfEmFluxo tabela = new TabelaPdfEmFluxo(document, table);
+        consultaEmCursor.percorrer(ReceitaEntity.class, spec, entity -> {
+            tabela.celula(new Phrase(safeString(entity.getExercicio()), fontDados))
+                    .celula(new Phrase(safeString(entity.getMes()), fontDados))
+                    .celula(new Phrase(
+                            entity.getDataLancamento() != null ? entity.getDataLancamento().format(DATE_FORMATTER) : "",
+                            fontDados))
+                    .celula(new Phrase(safeString(entity.getCategoriaEconomica()), fontDados))
+                    .celula(new Phrase(safeString(entity.getOrigem()), fontDados))
+                    .celula(new Phrase(safeString(entity.getFonteRecursos()), fontDados))
+                    .celula(new Phrase(safeNumber(entity.getValorPrevistoInicial()), fontDados))
+                    .celula(new Phrase(safeNumber(entity.getValorPrevistoAtualizado()), fontDados))
+                    .celula(new Phrase(safeNumber(entity.getValorArrecadado()), fontDados))
+                    .fimLinha();
+        });
+        long linhas = tabela.concluir();
         document.close();
 
-        log.info("Geração de PDF concluída. {} registros exportados.", receitas.size());
-    }
-
-    private void escreverCabecalhoTabelaPdf(PdfPTable table) {
-        PdfPCell cell = new PdfPCell();
-        cell.setBackgroundColor(new Color(15, 23, 42)); // Padrão UI (slate-900)
-        cell.setPadding(5);
-        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-
-        Font font = FontFactory.getFont(FontFactory.HELVETICA_BOLD);
-        font.setColor(Color.WHITE);
-        font.setSize(8);
-
-        String[] cabecalhos = { "Exercício", "Mês", "Data Lanç.", "Categoria Econômica", "Origem", "Fonte Recursos",
-                "Prev. Inicial", "Prev. Atual", "Arrecadado" };
-
-        for (String cabecalho : cabecalhos) {
-            cell.setPhrase(new Phrase(cabecalho, font));
-            table.addCell(cell);
-        }
+        log.info("Geração de PDF concluída. {} registros exportados.", linhas);
     }
 
     // --- MÉTODOS UTILITÁRIOS PARA O CSV / PDF ---
@@ -243,10 +149,4 @@ public class PortalReceitaService {
     private String safeNumber(BigDecimal value) {
         return value == null ? "" : value.toString().replace(".", ",");
     }
-
-    private String safeCsvField(String value) {
-        if (value == null)
-            return "";
-        return value.replace("\n", " ").replace("\r", " ").replace(";", ",");
-    }
 }
\ No newline at end of file
@@ -1,25 +1,35 @@
 package br.com.horizon.portal.application.service;
 
+import br.com.horizon.portal.application.dto.receita.ReceitaIngestaoDTO;
+import br.com.horizon.portal.application.service.importacao.ContextoImportacao;
+import br.com.horizon.portal.application.service.importacao.HashConteudo;
+import br.com.horizon.portal.application.service.importacao.ImportacaoEmEtapas;
+import br.com.horizon.portal.application.service.importacao.LayoutImportacao;
+import br.com.horizon.portal.application.service.importacao.LayoutImportacao.Leitor;
+import br.com.horizon.portal.application.service.importacao.LayoutsImportacao;
+import br.com.horizon.portal.application.service.importacao.LeitorCsvParalelo;
+import br.com.horizon.portal.application.service.importacao.LeitorNdjson;
+import br.com.horizon.portal.application.service.importacao.TokenizadorCsv;
 import br.com.horizon.portal.infrastructure.audit.LogAuditoriaEvent;
+import br.com.horizon.portal.infrastructure.persistence.bulk.ExclusaoLoteRepository;
+import br.com.horizon.portal.infrastructure.persistence.bulk.ImportacaoIncrementalRepository;
+import br.com.horizon.portal.infrastructure.persistence.bulk.ImportacaoIncrementalRepository.Diferencas;
+import br.com.horizon.portal.infrastructure.persistence.bulk.MapeamentoCopy;
+import br.com.horizon.portal.infrastructure.persistence.bulk.StagingImportacaoRepository;
+import br.com.horizon.portal.infrastructure.persistence.bulk.StagingImportacaoRepository.Trechos;
+import br.com.horizon.portal.infrastructure.persistence.bulk.StagingImportacaoRepository.Validacao;
 import br.com.horizon.portal.infrastructure.persistence.entity.ReceitaEntity;
-import br.com.horizon.portal.infrastructure.persistence.repository.ReceitaRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.math.BigDecimal;
-import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.ArrayList;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
@@ -27,63 +37,147 @@ import java.util.List;
 @Slf4j
 public class ReceitaService {
 
-    private final ReceitaRepository repository;
     private final ApplicationEventPublisher eventPublisher;
-    private final ObjectMapper objectMapper;
 
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-
-    @Transactional
-    public void importarArquivoCsv(MultipartFile file) {
+    private final LeitorCsvParalelo leitorCsv;
+    private final LayoutsImportacao layouts;
+    private final LeitorNdjson leitorNdjson;
+    private final ImportacaoIncrementalRepository importacaoIncremental;
+    private final StagingImportacaoRepository stagingImportacao;
+    private final ImportacaoEmEtapas importacaoEmEtapas;
+    private final ExclusaoLoteRepository exclusaoLote;
+    private final ArquivoAuditoriaService arquivoAuditoria;
+
+    // Chave natural da receita na importação incremental; o escopo substituído é o exercício
+    private static final List<String> CHAVE_NATURAL = List.of("exercicio", "mes", "codigo_natureza", "data_lancamento");
+
+    // Conferidas na staging, sobre o lote inteiro, antes da publicação
+    private static final List<Validacao> VALIDACOES = List.of(
+            new Validacao("exercício fora do intervalo 1900 até o ano seguinte",
+                    "exercicio NOT BETWEEN 1900 AND extract(YEAR FROM current_date) + 1"),
+            new Validacao("mês fora de 1 a 12", "mes NOT BETWEEN 1 AND 12"));
+
+    // Layout do arquivo de receitas (14 colunas, nesta ordem quando o cabeçalho não traz os nomes)
+    private static final LayoutImportacao<ReceitaEntity> LAYOUT = LayoutImportacao.<ReceitaEntity>para("receita", ReceitaEntity::new)
+            .coluna("exercicio", 0, "Exercício", LayoutImportacao.INTEIRO, ReceitaEntity::setExercicio)
+            .coluna("mes", 1, "Mês", LayoutImportacao.INTEIRO, ReceitaEntity::setMes)
+            .coluna("data_lancamento", 2, "Data Lançamento", ReceitaService::dataObrigatoria, ReceitaEntity::setDataLancamento)
+            .coluna("codigo_natureza", 3, "Código Natureza", LayoutImportacao.TEXTO, ReceitaEntity::setCodigoNatureza)
+            .coluna("categoria_economica", 4, "Categoria Econômica", obrigatorio("Categoria Econômica"), ReceitaEntity::setCategoriaEconomica)
+            .coluna("origem", 5, "Origem", obrigatorio("Origem"), ReceitaEntity::setOrigem)
+            .coluna("especie", 6, "Espécie", LayoutImportacao.TEXTO, ReceitaEntity::setEspecie)
+            .coluna("rubrica", 7, "Rubrica", LayoutImportacao.TEXTO, ReceitaEntity::setRubrica)
+            .coluna("alinea", 8, "Alínea", LayoutImportacao.TEXTO, ReceitaEntity::setAlinea)
+            .coluna("fonte_recursos", 9, "Fonte de Recursos", obrigatorio("Fonte de Recursos"), ReceitaEntity::setFonteRecursos)
+            .coluna("valor_previsto_inicial", 10, "Valor Previsto Inicial", LayoutImportacao.MOEDA, ReceitaEntity::setValorPrevistoInicial)
+            .coluna("valor_previsto_atualizado", 11, "Valor Previsto Atualizado", LayoutImportacao.MOEDA, ReceitaEntity::setValorPrevistoAtualizado)
+            .coluna("valor_arrecadado", 12, "Valor Arrecadado", LayoutImportacao.MOEDA, ReceitaEntity::setValorArrecadado)
+            .coluna("historico", 13, "Histórico", LayoutImportacao.TEXTO, ReceitaEntity::setHistorico);
+
+    // Colunas gravadas via COPY (id e demais defaults ficam a cargo do banco)
+    private static final MapeamentoCopy<ReceitaEntity> MAPEAMENTO_COPY = MapeamentoCopy.<ReceitaEntity>para("tb_receita")
+            .coluna("exercicio", ReceitaEntity::getExercicio)
+            .coluna("mes", ReceitaEntity::getMes)
+            .coluna("data_lancamento", ReceitaEntity::getDataLancamento)
+            .coluna("codigo_natureza", ReceitaEntity::getCodigoNatureza)
+            .coluna("categoria_economica", ReceitaEntity::getCategoriaEconomica)
+            .coluna("origem", ReceitaEntity::getOrigem)
+            .coluna("especie", ReceitaEntity::getEspecie)
+            .coluna("rubrica", ReceitaEntity::getRubrica)
+            .coluna("alinea", ReceitaEntity::getAlinea)
+            .coluna("fonte_recursos", ReceitaEntity::getFonteRecursos)
+            .coluna("valor_previsto_inicial", ReceitaEntity::getValorPrevistoInicial)
+            .coluna("valor_previsto_atualizado", ReceitaEntity::getValorPrevistoAtualizado)
+            .coluna("valor_arrecadado", ReceitaEntity::getValorArrecadado)
+            .coluna("historico", ReceitaEntity::getHistorico)
+            .coluna("data_importacao", ReceitaEntity::getDataImportacao)
+            .coluna("id_importacao", ReceitaEntity::getIdImportacao)
+            .coluna(ImportacaoIncrementalRepository.COLUNA_HASH, ReceitaEntity::getHashConteudo);
+
+    public void importarArquivoCsv(InputStreamSource file, ContextoImportacao contexto) {
         long startTime = System.currentTimeMillis();
-        String loteId = "LOTE-" + startTime;
+        String loteId = contexto.getLoteId();
+        LocalDateTime dataImportacao = LocalDateTime.now();
 
         log.info("Iniciando importação robusta de receitas. ID do Lote: {}...", loteId);
 
-        List<ReceitaEntity> receitasParaSalvar = new ArrayList<>();
-        int linhaAtual = 0;
+        try {
+            // O arquivo é carregado em trechos numa staging do lote; tb_receita só é tocada na publicação
+            long registros = importacaoEmEtapas.executar(MAPEAMENTO_COPY, contexto, VALIDACOES,
+                    trechos -> carregar(file, contexto, trechos, dataImportacao),
+                    (staging, lidos) -> publicar(staging, lidos, contexto));
 
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-            
-            String linha;
-            br.readLine(); // Pula cabeçalho
+            long duracao = Math.max(1, System.currentTimeMillis() - startTime);
+            log.info("Lote {} concluído. {} registros processados em {} ms ({} registros/s).",
+                    loteId, registros, duracao, registros * 1000 / duracao);
 
-            while ((linha = br.readLine()) != null) {
-                linhaAtual++;
-                if (linha.trim().isEmpty()) continue;
+        } catch (IOException | SQLException e) {
+            log.error("Erro ao ler arquivo", e);
+            throw new RuntimeException("Falha ao processar arquivo CSV: " + e.getMessage());
+        }
+    }
 
-                String[] dados = linha.split(";", -1);
+    /** Ingestão NDJSON (um {@link ReceitaIngestaoDTO} por linha): mesma staging, validação e publicação do CSV. */
+    public void importarNdjson(InputStreamSource corpo, ContextoImportacao contexto) {
+        String loteId = contexto.getLoteId();
+        LocalDateTime dataImportacao = LocalDateTime.now();
+        try {
+            long registros = importacaoEmEtapas.executar(MAPEAMENTO_COPY, contexto, VALIDACOES,
+                    trechos -> leitorNdjson.processar(corpo, ReceitaIngestaoDTO.class,
+                            registro -> deRegistro(registro, loteId, dataImportacao),
+                            itens -> { }, trechos::gravar, trechos::blocoGravado, contexto),
+                    (staging, lidos) -> publicar(staging, lidos, contexto));
+            log.info("Lote {} recebido via NDJSON. {} registros publicados.", loteId, registros);
+        } catch (IOException | SQLException e) {
+            log.error("Erro na ingestão NDJSON de receitas", e);
+            throw new RuntimeException("Falha ao processar NDJSON: " + e.getMessage());
+        }
+    }
 
-                // ATUALIZADO: Agora exige 14 colunas devido ao codigo_natureza
-                if (dados.length < 14) {
-                    throw new IllegalArgumentException("Erro na linha " + linhaAtual + ": Número de colunas insuficiente. Esperado 14.");
-                }
+    private long carregar(InputStreamSource file, ContextoImportacao contexto, Trechos<ReceitaEntity> trechos,
+                          LocalDateTime dataImportacao) throws IOException, SQLException {
+        String loteId = contexto.getLoteId();
+
+        // Conversão das linhas em paralelo; o COPY recebe as receitas na ordem do arquivo
+        return leitorCsv.processar(file, cabecalho -> {
+            LayoutImportacao.Compilado<ReceitaEntity> colunas = layouts.compilar(LAYOUT, cabecalho);
+            return linha -> {
+                ReceitaEntity receita = colunas.mapear(TokenizadorCsv.daThread().analisar(linha));
+                receita.setIdImportacao(loteId);
+                receita.setDataImportacao(dataImportacao);
+                receita.setHashConteudo(hashConteudo(receita));
+                return receita;
+            };
+        }, itens -> { }, trechos::gravar, trechos::blocoGravado, contexto);
+    }
 
-                try {
-                    ReceitaEntity receita = montarReceita(dados, loteId);
-                    receitasParaSalvar.add(receita);
-                } catch (Exception e) {
-                    throw new IllegalArgumentException("Erro de validação na linha " + linhaAtual + ": " + e.getMessage());
-                }
+    // Transação curta: só aqui tb_receita recebe o lote, que fica visível inteiro no commit
+    private long publicar(MapeamentoCopy<ReceitaEntity> staging, long lidos, ContextoImportacao contexto) {
+        String loteId = contexto.getLoteId();
+        // Delta: linhas removidas e versões anteriores das alteradas vão para a auditoria (arquivo se forem muitas)
+        try (ArquivoAuditoriaService.Coletor anteriores = arquivoAuditoria.coletor()) {
+            long registros;
+            String resumoImportacao;
+            if (contexto.isIncremental()) {
+                Diferencas diferencas = importacaoIncremental.aplicar(MAPEAMENTO_COPY, staging, CHAVE_NATURAL, "exercicio",
+                        lidos, anteriores);
+                contexto.setDiferencas(diferencas);
+                registros = diferencas.gravados();
+                resumoImportacao = "Importação incremental do lote " + loteId + ". " + diferencas.resumo();
+            } else {
+                registros = stagingImportacao.publicar(MAPEAMENTO_COPY, staging);
+                resumoImportacao = "Foram importados " + registros + " registros vinculados ao lote: " + loteId;
             }
-
-            repository.saveAll(receitasParaSalvar);
-            
-            String resumoImportacao = "Foram importados " + receitasParaSalvar.size() + " registros vinculados ao lote: " + loteId;
+            contexto.setRegistrosGravados(registros);
+            contexto.setResumo(resumoImportacao);
             eventPublisher.publishEvent(new LogAuditoriaEvent(
-                    "IMPORTACAO_LOTE_CSV",
+                    contexto.isIncremental() ? "IMPORTACAO_INCREMENTAL_CSV" : "IMPORTACAO_LOTE_CSV",
                     "RECEITA",
-                    loteId, 
-                    null,
+                    loteId,
+                    anteriores.getRegistros() > 0 ? anteriores.concluir() : null,
                     resumoImportacao
             ));
-
-            long endTime = System.currentTimeMillis();
-            log.info("Lote {} concluído. {} registros processados em {} ms.", loteId, receitasParaSalvar.size(), (endTime - startTime));
-
-        } catch (IOException e) {
-            log.error("Erro ao ler arquivo", e);
-            throw new RuntimeException("Falha ao processar arquivo CSV: " + e.getMessage());
+            return registros;
         }
     }
 
@@ -91,91 +185,69 @@ public class ReceitaService {
     public void excluirLote(String loteId) {
         log.info("Iniciando processo de revogação para o lote: {}", loteId);
 
-        List<ReceitaEntity> receitasParaExcluir = repository.findByIdImportacao(loteId);
-        
-        if (receitasParaExcluir.isEmpty()) {
-            log.error("Falha ao desfazer: Lote {} não possui registros no banco.", loteId);
-            throw new IllegalArgumentException("Lote não encontrado ou já excluído: " + loteId);
-        }
+        // DELETE em blocos no banco; lotes grandes vão para o arquivo de auditoria em vez do jsonb
+        try (ArquivoAuditoriaService.Coletor removidos = arquivoAuditoria.coletor()) {
+            exclusaoLote.excluir("tb_receita", "t.*", loteId, removidos);
 
-        try {
-            String jsonDadosExcluidos = objectMapper.writeValueAsString(receitasParaExcluir);
+            if (removidos.getRegistros() == 0) {
+                log.error("Falha ao desfazer: Lote {} não possui registros no banco.", loteId);
+                throw new IllegalArgumentException("Lote não encontrado ou já excluído: " + loteId);
+            }
 
             eventPublisher.publishEvent(new LogAuditoriaEvent(
                     "EXCLUSAO_LOTE_RECEITA",
                     "RECEITA",
                     loteId,
-                    jsonDadosExcluidos,
-                    "Revogação total do lote executada. Itens removidos: " + receitasParaExcluir.size()
+                    removidos.concluir(),
+                    "Revogação total do lote executada. Itens removidos: " + removidos.getRegistros()
             ));
-
-            repository.deleteByIdImportacao(loteId);
-            log.info("Lote {} removido com sucesso. {} registros apagados.", loteId, receitasParaExcluir.size());
-
-        } catch (Exception e) {
-            log.error("Erro técnico ao gerar log de exclusão para o lote {}", loteId, e);
-            throw new RuntimeException("Falha ao processar auditoria de exclusão.");
+            log.info("Lote {} removido com sucesso. {} registros apagados.", loteId, removidos.getRegistros());
         }
     }
 
-    private ReceitaEntity montarReceita(String[] dados, String loteId) {
+    private static ReceitaEntity deRegistro(ReceitaIngestaoDTO registro, String loteId, LocalDateTime dataImportacao) {
         ReceitaEntity entity = new ReceitaEntity();
+        entity.setExercicio(LeitorNdjson.obrigatorio(registro.getExercicio(), "Exercício"));
+        entity.setMes(LeitorNdjson.obrigatorio(registro.getMes(), "Mês"));
+        entity.setDataLancamento(LeitorNdjson.obrigatorio(registro.getDataLancamento(), "Data Lançamento"));
+        entity.setCodigoNatureza(LeitorNdjson.texto(registro.getCodigoNatureza()));
+        entity.setCategoriaEconomica(LeitorNdjson.obrigatorio(registro.getCategoriaEconomica(), "Categoria Econômica"));
+        entity.setOrigem(LeitorNdjson.obrigatorio(registro.getOrigem(), "Origem"));
+        entity.setEspecie(LeitorNdjson.texto(registro.getEspecie()));
+        entity.setRubrica(LeitorNdjson.texto(registro.getRubrica()));
+        entity.setAlinea(LeitorNdjson.texto(registro.getAlinea()));
+        entity.setFonteRecursos(LeitorNdjson.obrigatorio(registro.getFonteRecursos(), "Fonte de Recursos"));
+        entity.setValorPrevistoInicial(LeitorNdjson.valor(registro.getValorPrevistoInicial()));
+        entity.setValorPrevistoAtualizado(LeitorNdjson.valor(registro.getValorPrevistoAtualizado()));
+        entity.setValorArrecadado(LeitorNdjson.valor(registro.getValorArrecadado()));
+        entity.setHistorico(LeitorNdjson.texto(registro.getHistorico()));
         entity.setIdImportacao(loteId);
-
-        entity.setExercicio(Integer.parseInt(limparTexto(dados[0])));
-        entity.setMes(Integer.parseInt(limparTexto(dados[1])));
-        entity.setDataLancamento(parseData(dados[2]));
-        
-        // NOVO CAMPO ADICIONADO AQUI NO ÍNDICE 3
-        entity.setCodigoNatureza(limparTexto(dados[3])); 
-        
-        // DEMAIS ÍNDICES DESLOCADOS EM +1
-        entity.setCategoriaEconomica(validarObrigatorio(dados[4], "Categoria Econômica"));
-        entity.setOrigem(validarObrigatorio(dados[5], "Origem"));
-        entity.setEspecie(limparTexto(dados[6]));
-        entity.setRubrica(limparTexto(dados[7]));
-        entity.setAlinea(limparTexto(dados[8]));
-        entity.setFonteRecursos(validarObrigatorio(dados[9], "Fonte de Recursos"));
-        entity.setValorPrevistoInicial(parseMoeda(dados[10]));
-        entity.setValorPrevistoAtualizado(parseMoeda(dados[11]));
-        
-        BigDecimal arrecadado = parseMoeda(dados[12]);
-        if (arrecadado == null) throw new IllegalArgumentException("Valor Arrecadado não pode ser nulo");
-        entity.setValorArrecadado(arrecadado);
-        
-        entity.setHistorico(limparTexto(dados[13]));
-
+        entity.setDataImportacao(dataImportacao);
+        entity.setHashConteudo(hashConteudo(entity));
         return entity;
     }
 
-    private String limparTexto(String valor) {
-        return valor != null ? valor.trim() : "";
+    private static String hashConteudo(ReceitaEntity entity) {
+        return HashConteudo.de(entity.getExercicio(), entity.getMes(), entity.getDataLancamento(),
+                entity.getCodigoNatureza(), entity.getCategoriaEconomica(), entity.getOrigem(), entity.getEspecie(),
+                entity.getRubrica(), entity.getAlinea(), entity.getFonteRecursos(), entity.getValorPrevistoInicial(),
+                entity.getValorPrevistoAtualizado(), entity.getValorArrecadado(), entity.getHistorico());
     }
 
-    private String validarObrigatorio(String valor, String nomeCampo) {
-        if (valor == null || valor.trim().isEmpty()) {
-            throw new IllegalArgumentException("Campo obrigatório ausente: " + nomeCampo);
-        }
-        return valor.trim();
-    }
-
-    private LocalDate parseData(String dataStr) {
-        try {
-            return LocalDate.parse(dataStr.trim(), DATE_FORMATTER);
-        } catch (DateTimeParseException e) {
-            throw new IllegalArgumentException("Data inválida: " + dataStr + ". Formato esperado: dd/MM/yyyy");
-        }
+    private static Leitor<String> obrigatorio(String nomeCampo) {
+        return (dados, campo) -> {
+            if (dados.vazio(campo)) {
+                throw new IllegalArgumentException("Campo obrigatório ausente: " + nomeCampo);
+            }
+            return dados.texto(campo);
+        };
     }
 
-    private BigDecimal parseMoeda(String valorStr) {
-        if (valorStr == null || valorStr.trim().isEmpty()) {
-            return BigDecimal.ZERO;
-        }
-        try {
-            String limpo = valorStr.trim().replace(".", "").replace(",", ".");
-            return new BigDecimal(limpo);
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Valor monetário inválido: " + valorStr);
+    private static LocalDate dataObrigatoria(TokenizadorCsv dados, int campo) {
+        LocalDate data = dados.data(campo);
+        if (data == null) {
+            throw new IllegalArgumentException("Data inválida: " + dados.texto(campo) + ". Formato esperado: dd/MM/yyyy");
         }
+        return data;
     }
-}
\ No newline at end of file
+}
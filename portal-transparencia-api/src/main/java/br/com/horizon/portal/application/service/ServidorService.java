@@ -1,38 +1,49 @@
 package br.com.horizon.portal.application.service;
 
-import br.com.horizon.portal.application.dto.config.ConfiguracaoDTO;
+import br.com.horizon.portal.application.dto.servidor.ImportacaoServidorResultadoDTO;
 import br.com.horizon.portal.application.dto.servidor.ServidorAdminDTO;
 import br.com.horizon.portal.application.dto.servidor.ServidorPublicoDTO;
+import br.com.horizon.portal.application.service.exportacao.RelatorioPdf;
+import br.com.horizon.portal.application.service.importacao.ContextoImportacao;
+import br.com.horizon.portal.application.service.importacao.LayoutImportacao;
+import br.com.horizon.portal.application.service.importacao.LayoutsImportacao;
+import br.com.horizon.portal.application.service.importacao.TokenizadorCsv;
 import br.com.horizon.portal.infrastructure.audit.LogAuditoriaEvent;
+import br.com.horizon.portal.infrastructure.persistence.bulk.ConsultaEmCursor;
+import br.com.horizon.portal.infrastructure.persistence.bulk.ExclusaoLoteRepository;
+import br.com.horizon.portal.infrastructure.persistence.bulk.ImportacaoIncrementalRepository.Diferencas;
+import br.com.horizon.portal.infrastructure.persistence.bulk.ServidorUpsertRepository;
 import br.com.horizon.portal.infrastructure.persistence.entity.ServidorEntity;
 import br.com.horizon.portal.infrastructure.persistence.repository.ServidorRepository;
 import com.lowagie.text.*;
-import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
-import com.lowagie.text.pdf.PdfWriter;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @Slf4j
 @Service
@@ -41,11 +52,27 @@ public class ServidorService {
 
     private final ServidorRepository servidorRepository;
     private final ApplicationEventPublisher eventPublisher;
-    private final ConfiguracaoService configuracaoService;
-    private final ArmazenamentoService armazenamentoService;
+    private final RelatorioPdf relatorioPdf;
+    private final ServidorUpsertRepository servidorUpsertRepository;
+    private final ExclusaoLoteRepository exclusaoLote;
+    private final ArquivoAuditoriaService arquivoAuditoria;
+    private final LayoutsImportacao layouts;
+    private final ConsultaEmCursor consultaEmCursor;
+
+    // Layout do arquivo de servidores (7 colunas, nesta ordem quando o cabeçalho não traz os nomes)
+    private static final LayoutImportacao<ServidorEntity> LAYOUT = LayoutImportacao.<ServidorEntity>para("servidor", ServidorEntity::new)
+            .coluna("nome", 0, "Nome", LayoutImportacao.TEXTO, ServidorEntity::setNome)
+            .coluna("cpf", 1, "CPF", LayoutImportacao.DIGITOS, ServidorEntity::setCpf)
+            .coluna("matricula", 2, "Matrícula", LayoutImportacao.TEXTO, ServidorEntity::setMatricula)
+            .coluna("cargo", 3, "Cargo", LayoutImportacao.TEXTO, ServidorEntity::setCargo)
+            .coluna("lotacao", 4, "Lotação", LayoutImportacao.TEXTO, ServidorEntity::setLotacao)
+            .coluna("tipo_vinculo", 5, "Vínculo", LayoutImportacao.TEXTO, ServidorEntity::setTipoVinculo)
+            .coluna("data_admissao", 6, "Data Admissão", LayoutImportacao.DATA, ServidorEntity::setDataAdmissao);
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+    // CPFs por consulta IN / batch de upsert na importação
+    private static final int TAMANHO_BLOCO_UPSERT = 1000;
 
     // --- ENDPOINTS PÚBLICOS ---
 
@@ -55,12 +82,15 @@ public class ServidorService {
         return servidorRepository.findAll(spec, pageable).map(this::mapToPublicoDTO);
     }
 
+    // CSV escrito direto na resposta, lido por cursor: a memória não depende do número de servidores
     @Transactional // CORREÇÃO: Removido readOnly = true para permitir gravação de auditoria
-    public byte[] exportarPublicoCsv(String nome, String cargo, String lotacao) {
-        List<ServidorEntity> lista = servidorRepository.findAll(construirFiltros(nome, cargo, lotacao));
-        StringBuilder csv = new StringBuilder("\ufeffNome;CPF;Matrícula;Cargo;Lotação;Vínculo;Admissão\n");
+    public void exportarPublicoCsv(String nome, String cargo, String lotacao, OutputStream saida) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        writer.write("\ufeffNome;CPF;Matrícula;Cargo;Lotação;Vínculo;Admissão\n");
+        StringBuilder csv = new StringBuilder();
 
-        for (ServidorEntity s : lista) {
+        consultaEmCursor.percorrer(ServidorEntity.class, construirFiltros(nome, cargo, lotacao), s -> {
+            csv.setLength(0);
             csv.append(s.getNome()).append(";")
                     .append(mascararCpf(s.getCpf())).append(";")
                     .append(s.getMatricula() != null ? s.getMatricula() : "").append(";")
@@ -68,16 +98,17 @@ public class ServidorService {
                     .append(s.getLotacao()).append(";")
                     .append(s.getTipoVinculo()).append(";")
                     .append(s.getDataAdmissao().format(DATE_FORMATTER)).append("\n");
-        }
+            escreverLinha(writer, csv);
+        });
+        writer.flush();
         dispararAuditoria("EXPORTACAO_CSV_PUBLICO", "SISTEMA", null, "Exportação de servidores via portal");
-        return csv.toString().getBytes(StandardCharsets.UTF_8);
     }
 
     @Transactional // CORREÇÃO: Removido readOnly = true
-    public byte[] exportarPublicoPdf(String nome, String cargo, String lotacao) {
+    public void exportarPublicoPdf(String nome, String cargo, String lotacao, OutputStream saida) {
         List<ServidorEntity> lista = servidorRepository.findAll(construirFiltros(nome, cargo, lotacao));
         dispararAuditoria("EXPORTACAO_PDF_PUBLICO", "SISTEMA", null, "Exportação de PDF de servidores via portal");
-        return gerarPdf(lista, true);
+        gerarPdf(lista, true, saida);
     }
 
     // --- ENDPOINTS PRIVADOS (ADMIN) ---
@@ -89,11 +120,13 @@ public class ServidorService {
     }
 
     @Transactional // CORREÇÃO: Removido readOnly = true
-    public byte[] exportarAdminCsv(String nome, String cargo, String lotacao) {
-        List<ServidorEntity> lista = servidorRepository.findAll(construirFiltros(nome, cargo, lotacao));
-        StringBuilder csv = new StringBuilder("\ufeffNome;CPF;Matrícula;Cargo;Lotação;Vínculo;Importação\n");
+    public void exportarAdminCsv(String nome, String cargo, String lotacao, OutputStream saida) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        writer.write("\ufeffNome;CPF;Matrícula;Cargo;Lotação;Vínculo;Importação\n");
+        StringBuilder csv = new StringBuilder();
 
-        for (ServidorEntity s : lista) {
+        consultaEmCursor.percorrer(ServidorEntity.class, construirFiltros(nome, cargo, lotacao), s -> {
+            csv.setLength(0);
             csv.append(s.getNome()).append(";")
                     .append(s.getCpf()).append(";")
                     .append(s.getMatricula() != null ? s.getMatricula() : "").append(";")
@@ -101,157 +134,192 @@ public class ServidorService {
                     .append(s.getLotacao()).append(";")
                     .append(s.getTipoVinculo()).append(";")
                     .append(s.getIdImportacao()).append("\n");
-        }
+            escreverLinha(writer, csv);
+        });
+        writer.flush();
         dispararAuditoria("EXPORTACAO_CSV_ADMIN", "ADMIN", null, "Exportação completa de servidores");
-        return csv.toString().getBytes(StandardCharsets.UTF_8);
     }
 
     @Transactional // CORREÇÃO: Removido readOnly = true
-    public byte[] exportarAdminPdf(String nome, String cargo, String lotacao) {
+    public void exportarAdminPdf(String nome, String cargo, String lotacao, OutputStream saida) {
         List<ServidorEntity> lista = servidorRepository.findAll(construirFiltros(nome, cargo, lotacao));
         dispararAuditoria("EXPORTACAO_PDF_ADMIN", "ADMIN", null, "Exportação administrativa de PDF de servidores");
-        return gerarPdf(lista, false);
+        gerarPdf(lista, false, saida);
     }
 
     // --- MOTOR DE IMPORTAÇÃO CSV ---
 
     @Transactional
-    public String importarServidoresCsv(MultipartFile file) {
-        String idImportacao = "LOTE-" + System.currentTimeMillis();
+    public ImportacaoServidorResultadoDTO importarServidoresCsv(InputStreamSource file, ContextoImportacao contexto) {
+        String idImportacao = contexto.getLoteId();
         String usuarioAtual = getUsuarioLogado();
-        int registros = 0;
+        ResultadoUpsert resultado = new ResultadoUpsert();
 
-        try (BufferedReader br = new BufferedReader(
+        // Versões anteriores saem bloco a bloco para o coletor (inline ou arquivo), não ficam em memória
+        try (ArquivoAuditoriaService.Coletor anteriores = arquivoAuditoria.coletor();
+             BufferedReader br = new BufferedReader(
                 new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
             String linha;
-            boolean head = true;
-            List<ServidorEntity> lote = new ArrayList<>();
+            LayoutImportacao.Compilado<ServidorEntity> colunas = layouts.compilar(LAYOUT, br.readLine());
+            // Último registro do CPF no bloco prevalece (arquivo pode repetir o servidor)
+            Map<String, ServidorEntity> bloco = new LinkedHashMap<>();
+            TokenizadorCsv c = new TokenizadorCsv();
+            long numeroLinha = 0;
 
             while ((linha = br.readLine()) != null) {
-                if (head) {
-                    head = false;
-                    continue;
-                }
-                String[] c = linha.split(";");
-                if (c.length < 7)
-                    continue;
+                numeroLinha++;
+                contexto.linhaProcessada();
 
-                String cpf = c[1].replaceAll("\\D", "");
-                if (servidorRepository.existsByCpf(cpf))
+                ServidorEntity servidor;
+                try {
+                    c.analisar(linha);
+                    if (c.quantidade() < colunas.getMinimoColunas()) {
+                        // Linha curta sempre foi ignorada; no modo tolerante ela aparece nos rejeitos
+                        if (contexto.isTolerante()) contexto.rejeitar(numeroLinha, linha, "Colunas insuficientes.");
+                        continue;
+                    }
+
+                    servidor = colunas.mapear(c);
+                    if (servidor.getDataAdmissao() == null)
+                        throw new IllegalArgumentException("Data de admissão ausente para o CPF " + servidor.getCpf());
+                } catch (IllegalArgumentException e) {
+                    contexto.rejeitar(numeroLinha, linha, e.getMessage());
                     continue;
+                }
+                servidor.setIdImportacao(idImportacao);
+                bloco.put(servidor.getCpf(), servidor);
 
-                lote.add(ServidorEntity.builder()
-                        .nome(c[0].trim()).cpf(cpf).matricula(c[2].trim())
-                        .cargo(c[3].trim()).lotacao(c[4].trim()).tipoVinculo(c[5].trim())
-                        .dataAdmissao(LocalDate.parse(c[6].trim(), DATE_FORMATTER))
-                        .idImportacao(idImportacao).criadoPor(usuarioAtual).atualizadoPor(usuarioAtual)
-                        .build());
-                registros++;
+                if (bloco.size() >= TAMANHO_BLOCO_UPSERT) {
+                    upsertBloco(bloco, usuarioAtual, resultado, anteriores);
+                }
             }
-            servidorRepository.saveAll(lote);
-            dispararAuditoria("IMPORTACAO", idImportacao, null, Map.of("registros", registros));
-            return idImportacao;
+            upsertBloco(bloco, usuarioAtual, resultado, anteriores);
+
+            dispararAuditoria("IMPORTACAO", idImportacao, anteriores.getRegistros() > 0 ? anteriores.concluir() : null,
+                    Map.of("inseridos", resultado.inseridos, "atualizados", resultado.atualizados,
+                            "inalterados", resultado.inalterados));
+
+            contexto.setRegistrosGravados(resultado.inseridos + resultado.atualizados);
+            contexto.setDiferencas(new Diferencas(resultado.inseridos, resultado.atualizados, 0, resultado.inalterados));
+            contexto.setResumo("Inseridos: " + resultado.inseridos + ", atualizados: " + resultado.atualizados
+                    + ", inalterados: " + resultado.inalterados);
+
+            return ImportacaoServidorResultadoDTO.builder()
+                    .idImportacao(idImportacao)
+                    .inseridos(resultado.inseridos)
+                    .atualizados(resultado.atualizados)
+                    .inalterados(resultado.inalterados)
+                    .build();
         } catch (Exception e) {
             throw new RuntimeException("Erro ao processar CSV: " + e.getMessage());
         }
     }
 
+    // Uma consulta IN por bloco para classificar, depois um único batch de INSERT ... ON CONFLICT
+    private void upsertBloco(Map<String, ServidorEntity> bloco, String usuario, ResultadoUpsert resultado,
+                             ArquivoAuditoriaService.Coletor anteriores) {
+        if (bloco.isEmpty()) return;
+
+        Map<String, ServidorEntity> existentes = servidorUpsertRepository.buscarPorCpfs(bloco.keySet());
+        List<ServidorEntity> paraGravar = new ArrayList<>();
+        List<Map<String, Object>> alterados = new ArrayList<>();
+
+        for (ServidorEntity novo : bloco.values()) {
+            ServidorEntity atual = existentes.get(novo.getCpf());
+            if (atual == null) {
+                resultado.inseridos++;
+                paraGravar.add(novo);
+            } else if (mesmosDadosFuncionais(atual, novo)) {
+                resultado.inalterados++;
+            } else {
+                resultado.atualizados++;
+                alterados.add(versaoAnterior(atual));
+                paraGravar.add(novo);
+            }
+        }
+
+        servidorUpsertRepository.upsert(paraGravar, usuario);
+        if (!alterados.isEmpty()) anteriores.accept(alterados);
+        bloco.clear();
+    }
+
+    // Todos os campos comparados em mesmosDadosFuncionais; LinkedHashMap porque matrícula e admissão podem ser nulas
+    private static Map<String, Object> versaoAnterior(ServidorEntity atual) {
+        Map<String, Object> anterior = new LinkedHashMap<>();
+        anterior.put("id", atual.getId());
+        anterior.put("cpf", atual.getCpf());
+        anterior.put("nome", atual.getNome());
+        anterior.put("matricula", atual.getMatricula());
+        anterior.put("cargo", atual.getCargo());
+        anterior.put("lotacao", atual.getLotacao());
+        anterior.put("tipoVinculo", atual.getTipoVinculo());
+        anterior.put("dataAdmissao", atual.getDataAdmissao());
+        return anterior;
+    }
+
+    private boolean mesmosDadosFuncionais(ServidorEntity a, ServidorEntity b) {
+        return Objects.equals(a.getNome(), b.getNome())
+                && Objects.equals(a.getMatricula(), b.getMatricula())
+                && Objects.equals(a.getCargo(), b.getCargo())
+                && Objects.equals(a.getLotacao(), b.getLotacao())
+                && Objects.equals(a.getTipoVinculo(), b.getTipoVinculo())
+                && Objects.equals(a.getDataAdmissao(), b.getDataAdmissao());
+    }
+
+    private static class ResultadoUpsert {
+        long inseridos;
+        long atualizados;
+        long inalterados;
+    }
+
     @Transactional
     public void desfazerImportacao(String idImportacao) {
-        List<ServidorEntity> excluidos = servidorRepository.findAllByIdImportacao(idImportacao);
-        servidorRepository.deleteByIdImportacao(idImportacao);
-        dispararAuditoria("EXCLUSAO_LOTE", idImportacao, excluidos, null);
+        // DELETE em blocos no banco; lotes grandes vão para o arquivo de auditoria em vez do jsonb
+        try (ArquivoAuditoriaService.Coletor removidos = arquivoAuditoria.coletor()) {
+            exclusaoLote.excluir("servidor", "t.*", idImportacao, removidos);
+            dispararAuditoria("EXCLUSAO_LOTE", idImportacao, removidos.concluir(),
+                    "Itens removidos: " + removidos.getRegistros());
+            log.info("Lote de servidores {} desfeito. {} registros removidos.", idImportacao, removidos.getRegistros());
+        }
     }
 
     // --- GERAÇÃO DE PDF PROFISSIONAL ---
 
-    private byte[] gerarPdf(List<ServidorEntity> lista, boolean publico) {
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            ConfiguracaoDTO.Response config = configuracaoService.obterConfiguracao();
-            Document document = new Document(PageSize.A4.rotate());
-            PdfWriter.getInstance(document, out);
-            document.open();
-
-            PdfPTable headerTable = new PdfPTable(2);
-            headerTable.setWidthPercentage(100);
-            headerTable.setWidths(new float[] { 1.5f, 8.5f });
-            headerTable.getDefaultCell().setBorder(Rectangle.NO_BORDER);
-
-            if (config.urlBrasao() != null && !config.urlBrasao().isEmpty()) {
-                try {
-                    String subPasta = "config";
-                    String nomeArquivo = config.urlBrasao().substring(config.urlBrasao().lastIndexOf("/") + 1);
-                    Resource res = armazenamentoService.carregar(subPasta, nomeArquivo);
-                    Image logo = Image.getInstance(res.getURL());
-                    logo.scaleToFit(80, 80);
-                    PdfPCell logoCell = new PdfPCell(logo);
-                    logoCell.setBorder(Rectangle.NO_BORDER);
-                    headerTable.addCell(logoCell);
-                } catch (Exception e) {
-                    headerTable.addCell("");
-                }
-            } else {
-                headerTable.addCell("");
-            }
+    private void gerarPdf(List<ServidorEntity> lista, boolean publico, OutputStream saida) {
+        try {
+            Document document = relatorioPdf.abrir(saida, PageSize.A4.rotate());
+            RelatorioPdf.titulo(document, publico ? "PORTAL DA TRANSPARÊNCIA - RELAÇÃO DE SERVIDORES"
+                    : "RELATÓRIO ADMINISTRATIVO - SERVIDORES", null);
 
-            PdfPCell infoCell = new PdfPCell();
-            infoCell.setBorder(Rectangle.NO_BORDER);
-            infoCell.addElement(new Paragraph(config.nomeEntidade().toUpperCase(),
-                    FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14)));
-            infoCell.addElement(
-                    new Paragraph("CNPJ: " + config.cnpj(), FontFactory.getFont(FontFactory.HELVETICA, 10)));
-            infoCell.addElement(new Paragraph(config.endereco(), FontFactory.getFont(FontFactory.HELVETICA, 9)));
-            headerTable.addCell(infoCell);
-
-            document.add(headerTable);
-            document.add(new Paragraph(
-                    "__________________________________________________________________________________________________________________________________"));
-            document.add(new Paragraph(" "));
-
-            Font fontTitle = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12);
-            Paragraph title = new Paragraph(publico ? "PORTAL DA TRANSPARÊNCIA - RELAÇÃO DE SERVIDORES"
-                    : "RELATÓRIO ADMINISTRATIVO - SERVIDORES", fontTitle);
-            title.setAlignment(Element.ALIGN_CENTER);
-            document.add(title);
-            document.add(new Paragraph(" "));
-
-            PdfPTable table = new PdfPTable(6);
-            table.setWidthPercentage(100);
-            table.setWidths(new float[] { 3, 1.5f, 2, 1.5f, 1.5f, 1 });
-
-            String[] headers = { "Nome", "CPF", "Cargo", "Lotação", "Vínculo", "Admissão" };
-            for (String h : headers) {
-                PdfPCell cell = new PdfPCell(new Paragraph(h, FontFactory.getFont(FontFactory.HELVETICA_BOLD, 9)));
-                cell.setBackgroundColor(java.awt.Color.LIGHT_GRAY);
-                cell.setPadding(5);
-                table.addCell(cell);
-            }
+            PdfPTable table = RelatorioPdf.tabela(new float[] { 3, 1.5f, 2, 1.5f, 1.5f, 1 },
+                    "Nome", "CPF", "Cargo", "Lotação", "Vínculo", "Admissão");
 
+            Font fontDados = RelatorioPdf.FONTE_DADOS;
             for (ServidorEntity s : lista) {
-                table.addCell(new Phrase(s.getNome(), FontFactory.getFont(FontFactory.HELVETICA, 8)));
-                table.addCell(new Phrase(publico ? mascararCpf(s.getCpf()) : s.getCpf(),
-                        FontFactory.getFont(FontFactory.HELVETICA, 8)));
-                table.addCell(new Phrase(s.getCargo(), FontFactory.getFont(FontFactory.HELVETICA, 8)));
-                table.addCell(new Phrase(s.getLotacao(), FontFactory.getFont(FontFactory.HELVETICA, 8)));
-                table.addCell(new Phrase(s.getTipoVinculo(), FontFactory.getFont(FontFactory.HELVETICA, 8)));
-                table.addCell(new Phrase(s.getDataAdmissao().format(DATE_FORMATTER),
-                        FontFactory.getFont(FontFactory.HELVETICA, 8)));
+                table.addCell(new Phrase(s.getNome(), fontDados));
+                table.addCell(new Phrase(publico ? mascararCpf(s.getCpf()) : s.getCpf(), fontDados));
+                table.addCell(new Phrase(s.getCargo(), fontDados));
+                table.addCell(new Phrase(s.getLotacao(), fontDados));
+                table.addCell(new Phrase(s.getTipoVinculo(), fontDados));
+                table.addCell(new Phrase(s.getDataAdmissao().format(DATE_FORMATTER), fontDados));
             }
 
             document.add(table);
-            document.add(new Paragraph(" "));
-            Paragraph footer = new Paragraph(
-                    "Documento extraído do Portal da Transparência em: "
-                            + LocalDateTime.now().format(TIMESTAMP_FORMATTER),
-                    FontFactory.getFont(FontFactory.HELVETICA_OBLIQUE, 8));
-            footer.setAlignment(Element.ALIGN_RIGHT);
-            document.add(footer);
+            RelatorioPdf.rodape(document);
 
             document.close();
-            return out.toByteArray();
         } catch (Exception e) {
+            // A resposta já pode ter começado: o erro interrompe o download em vez de entregar um PDF vazio
             log.error("Erro ao gerar PDF institucional", e);
-            return new byte[0];
+            throw new IllegalStateException("Erro ao gerar PDF institucional", e);
+        }
+    }
+
+    private static void escreverLinha(Writer writer, CharSequence linha) {
+        try {
+            writer.append(linha);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
@@ -3,6 +3,7 @@ package br.com.horizon.portal.application.service;
 import br.com.horizon.portal.application.dto.sic.SicEstatisticasDTO;
 import br.com.horizon.portal.application.dto.sic.SicSolicitacaoRequestDTO;
 import br.com.horizon.portal.application.dto.sic.SicSolicitacaoResponseDTO;
+import br.com.horizon.portal.application.service.exportacao.RelatorioPdf;
 import br.com.horizon.portal.infrastructure.persistence.entity.SicSolicitacaoEntity;
 import br.com.horizon.portal.infrastructure.persistence.entity.SicTramiteEntity;
 import br.com.horizon.portal.infrastructure.persistence.enums.ModuloAvaliado;
@@ -10,10 +11,10 @@ import br.com.horizon.portal.infrastructure.persistence.enums.SicStatus;
 import br.com.horizon.portal.infrastructure.persistence.repository.PesquisaSatisfacaoRepository;
 import br.com.horizon.portal.infrastructure.persistence.repository.SicSolicitacaoRepository;
 import br.com.horizon.portal.infrastructure.audit.LogAuditoriaEvent;
-import br.com.horizon.portal.infrastructure.persistence.entity.ConfiguracaoEntity;
-import br.com.horizon.portal.infrastructure.persistence.repository.ConfiguracaoRepository;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
@@ -24,6 +25,7 @@ import org.springframework.web.server.ResponseStatusException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -32,25 +34,22 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import java.util.stream.Collectors;
-import java.io.ByteArrayOutputStream;
-import java.io.File;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeFormatter;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.Year;
-import java.awt.Color;
 
 import com.lowagie.text.Document;
-import com.lowagie.text.Element;
 import com.lowagie.text.Font;
-import com.lowagie.text.FontFactory;
 import com.lowagie.text.PageSize;
-import com.lowagie.text.Paragraph;
 import com.lowagie.text.Phrase;
-import com.lowagie.text.Image;
-import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
-import com.lowagie.text.pdf.PdfWriter;
 
 @Slf4j
 @Service
@@ -62,7 +61,12 @@ public class SicSolicitacaoService {
     private final ApplicationEventPublisher eventPublisher;
     private final ObjectMapper objectMapper;
     private final EmailService emailService;
-    private final ConfiguracaoRepository configuracaoRepository;
+    private final RelatorioPdf relatorioPdf;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private static final int PAGINA_EXPORTACAO = 500;
 
     @Transactional
     public SicSolicitacaoResponseDTO criarSolicitacao(SicSolicitacaoRequestDTO dto) {
@@ -239,87 +243,59 @@ public class SicSolicitacaoService {
                 pageable).map(this::mapearParaResponse);
     }
 
+    // Página a página direto na resposta: cada página é escrita e sai do contexto de persistência antes da próxima
     @Transactional(readOnly = true)
-    public byte[] exportarCsvAdmin(String busca, String statusFiltro, LocalDate dataInicio, LocalDate dataFim) {
-        Page<SicSolicitacaoResponseDTO> dados = listarParaAdmin(busca, statusFiltro, dataInicio, dataFim, PageRequest.of(0, 10000));
-        StringBuilder csv = new StringBuilder("Protocolo;Cidadão;Documento;Status;Data\n");
-        for (SicSolicitacaoResponseDTO r : dados.getContent()) {
-            csv.append(r.getProtocolo()).append(";").append(r.getNome()).append(";").append(r.getDocumento()).append(";").append(r.getStatus()).append(";").append(r.getDataSolicitacao()).append("\n");
-        }
-        return csv.toString().getBytes();
+    public void exportarCsvAdmin(String busca, String statusFiltro, LocalDate dataInicio, LocalDate dataFim,
+                                 OutputStream saida) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        writer.write("Protocolo;Cidadão;Documento;Status;Data\n");
+        StringBuilder csv = new StringBuilder();
+        Pageable pagina = PageRequest.of(0, PAGINA_EXPORTACAO, Sort.by("id"));
+        Page<SicSolicitacaoResponseDTO> dados;
+        do {
+            dados = listarParaAdmin(busca, statusFiltro, dataInicio, dataFim, pagina);
+            for (SicSolicitacaoResponseDTO r : dados.getContent()) {
+                csv.setLength(0);
+                csv.append(r.getProtocolo()).append(";").append(r.getNome()).append(";").append(r.getDocumento()).append(";").append(r.getStatus()).append(";").append(r.getDataSolicitacao()).append("\n");
+                writer.append(csv);
+            }
+            writer.flush();
+            entityManager.clear();
+            pagina = pagina.next();
+        } while (dados.hasNext());
     }
 
     @Transactional(readOnly = true)
-    public byte[] exportarPdfAdmin(String busca, String statusFiltro, LocalDate dataInicio, LocalDate dataFim) {
+    public void exportarPdfAdmin(String busca, String statusFiltro, LocalDate dataInicio, LocalDate dataFim,
+                                 OutputStream saida) {
         Page<SicSolicitacaoResponseDTO> dados = listarParaAdmin(busca, statusFiltro, dataInicio, dataFim, PageRequest.of(0, 10000));
-        ConfiguracaoEntity config = configuracaoRepository.findById(1L).orElseThrow(() -> new RuntimeException("Configurações não encontradas."));
-        
-        Document document = new Document(PageSize.A4.rotate()); 
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
 
         try {
-            PdfWriter.getInstance(document, out);
-            document.open();
-
-            // AJUSTE DE BLINDAGEM: Caminho do brasão agora é dinâmico para Windows e Linux (Hetzner)
-            String caminhoFisicoBrasao = System.getProperty("user.dir") + File.separator + "Imagens" + File.separator + "brasao.png";
-            File file = new File(caminhoFisicoBrasao);
-
-            if (file.exists()) {
-                try {
-                    Image brasao = Image.getInstance(file.getAbsolutePath());
-                    brasao.scaleToFit(80, 80);
-                    brasao.setAlignment(Element.ALIGN_CENTER);
-                    document.add(brasao);
-                } catch (Exception e) {
-                    log.error("Erro ao carregar imagem no PDF: {}", e.getMessage());
-                }
-            }
+            Document document = relatorioPdf.abrir(saida, PageSize.A4.rotate());
+            RelatorioPdf.titulo(document, "RELATÓRIO DE SOLICITAÇÕES - e-SIC", null);
 
-            Font fontTitulo = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 16, Color.BLACK);
-            Font fontSub = FontFactory.getFont(FontFactory.HELVETICA, 10, Color.DARK_GRAY);
-            
-            Paragraph pTitulo = new Paragraph(config.getNomeEntidade() != null ? config.getNomeEntidade().toUpperCase() : "ENTIDADE", fontTitulo);
-            pTitulo.setAlignment(Element.ALIGN_CENTER);
-            document.add(pTitulo);
-
-            Paragraph pSub = new Paragraph("RELATÓRIO DE SOLICITAÇÕES - e-SIC\n" + (config.getEndereco() != null ? config.getEndereco() : ""), fontSub);
-            pSub.setAlignment(Element.ALIGN_CENTER);
-            pSub.setSpacingAfter(20f);
-            document.add(pSub);
-
-            PdfPTable table = new PdfPTable(6);
-            table.setWidthPercentage(100);
-            table.setWidths(new float[]{2f, 4f, 2.5f, 2f, 2.5f, 2.5f});
-
-            Font fCab = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10, Color.WHITE);
-            String[] headers = {"Protocolo", "Cidadão", "Documento", "Status", "Abertura", "Resposta"};
-            for (String h : headers) {
-                PdfPCell cell = new PdfPCell(new Phrase(h, fCab));
-                cell.setBackgroundColor(new Color(31, 41, 55));
-                cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-                cell.setPadding(6f);
-                table.addCell(cell);
-            }
+            PdfPTable table = RelatorioPdf.tabela(new float[]{2f, 4f, 2.5f, 2f, 2.5f, 2.5f},
+                    "Protocolo", "Cidadão", "Documento", "Status", "Abertura", "Resposta");
 
+            Font fontDados = RelatorioPdf.FONTE_DADOS;
             DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM/yyyy");
             for (SicSolicitacaoResponseDTO d : dados.getContent()) {
-                table.addCell(new Phrase(d.getProtocolo(), fontSub));
-                table.addCell(new Phrase(d.getNome(), fontSub));
-                table.addCell(new Phrase(d.getDocumento(), fontSub));
-                table.addCell(new Phrase(d.getStatus().toString(), fontSub));
-                table.addCell(new Phrase(d.getDataSolicitacao().format(fmt), fontSub));
-                table.addCell(new Phrase(d.getDataResposta() != null ? d.getDataResposta().format(fmt) : "Pendente", fontSub));
+                table.addCell(new Phrase(d.getProtocolo(), fontDados));
+                table.addCell(new Phrase(d.getNome(), fontDados));
+                table.addCell(new Phrase(d.getDocumento(), fontDados));
+                table.addCell(new Phrase(d.getStatus().toString(), fontDados));
+                table.addCell(new Phrase(d.getDataSolicitacao().format(fmt), fontDados));
+                table.addCell(new Phrase(d.getDataResposta() != null ? d.getDataResposta().format(fmt) : "Pendente", fontDados));
             }
 
             document.add(table);
             document.close();
 
         } catch (Exception e) {
+            // A resposta já pode ter começado: o erro interrompe o download em vez de entregar um PDF vazio
             log.error("Erro fatal ao gerar PDF do e-SIC", e);
+            throw new IllegalStateException("Erro ao gerar PDF do e-SIC", e);
         }
-
-        return out.toByteArray();
     }
 
     private String gerarProtocoloUnico() {
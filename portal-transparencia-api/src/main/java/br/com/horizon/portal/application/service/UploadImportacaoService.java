@@ -0,0 +1,153 @@
+package br.com.horizon.portal.application.service;
+
+import br.com.horizon.portal.application.dto.importacao.ImportacaoJobDTO;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModoImportacao;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModuloImportacao;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Upload retomável para arquivos de importação grandes (acima do limite do multipart).
+ * <p>
+ * O cliente abre uma sessão, envia o arquivo em trechos informando o offset
+ * de cada um e, se a conexão cair, consulta quantos bytes chegaram e continua
+ * dali. Os trechos são anexados num arquivo da sessão, que ao final vira um
+ * job de importação comum (CSV ou CSV.gz).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UploadImportacaoService {
+
+    private static final String EXTENSAO = ".parcial";
+
+    private final ImportacaoJobService importacaoJobService;
+
+    @Value("${portal.importacao.uploads-dir:${java.io.tmpdir}/portal-uploads}")
+    private String diretorioUploads;
+
+    @Value("${portal.importacao.uploads-validade-horas:24}")
+    private long validadeHoras;
+
+    private Path diretorio;
+
+    // Um trecho por vez em cada sessão
+    private final Map<String, Object> travas = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void iniciar() throws IOException {
+        diretorio = Paths.get(diretorioUploads).toAbsolutePath().normalize();
+        Files.createDirectories(diretorio);
+        limparExpirados();
+    }
+
+    public String iniciarSessao() {
+        limparExpirados();
+        String id = UUID.randomUUID().toString();
+        try {
+            Files.createFile(caminho(id));
+        } catch (IOException e) {
+            throw new RuntimeException("Não foi possível iniciar o upload: " + e.getMessage());
+        }
+        return id;
+    }
+
+    /** Bytes já recebidos: é o offset do próximo trecho. */
+    public long recebido(String id) {
+        try {
+            return Files.size(existente(id));
+        } catch (IOException e) {
+            throw new RuntimeException("Falha ao consultar o upload " + id + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Anexa um trecho que começa em {@code offset}. Se a conexão cair no meio,
+     * o que chegou fica gravado e o cliente retoma a partir de {@link #recebido}.
+     *
+     * @return total de bytes recebidos após o trecho
+     */
+    public long anexar(String id, long offset, InputStream trecho) {
+        Path arquivo = existente(id);
+        synchronized (travas.computeIfAbsent(id, k -> new Object())) {
+            try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                long atual = canal.size();
+                if (offset != atual) {
+                    throw new IllegalStateException("Offset " + offset + " não confere com o recebido (" + atual + " bytes).");
+                }
+                OutputStream saida = Channels.newOutputStream(canal);
+                trecho.transferTo(saida);
+                saida.flush();
+                return canal.size();
+            } catch (IOException e) {
+                log.warn("Trecho do upload {} interrompido: {}", id, e.getMessage());
+                return recebido(id);
+            }
+        }
+    }
+
+    /** Fecha a sessão e enfileira a importação do arquivo montado. */
+    public ImportacaoJobDTO concluir(String id, ModuloImportacao modulo, String nomeArquivo, ModoImportacao modo,
+                                     Integer limiteErros) {
+        Path arquivo = existente(id);
+        synchronized (travas.computeIfAbsent(id, k -> new Object())) {
+            travas.remove(id);
+            return importacaoJobService.submeter(modulo, nomeArquivo, arquivo, modo, limiteErros);
+        }
+    }
+
+    public void descartar(String id) {
+        try {
+            Files.deleteIfExists(existente(id));
+        } catch (IOException e) {
+            log.warn("Não foi possível apagar o upload {}: {}", id, e.getMessage());
+        }
+        travas.remove(id);
+    }
+
+    private void limparExpirados() {
+        Instant limite = Instant.now().minus(Duration.ofHours(validadeHoras));
+        try (DirectoryStream<Path> parciais = Files.newDirectoryStream(diretorio, "*" + EXTENSAO)) {
+            for (Path parcial : parciais) {
+                if (Files.getLastModifiedTime(parcial).toInstant().isBefore(limite)) {
+                    Files.deleteIfExists(parcial);
+                    log.info("Upload abandonado removido: {}", parcial.getFileName());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Falha ao limpar uploads expirados: {}", e.getMessage());
+        }
+    }
+
+    private Path existente(String id) {
+        Path arquivo = caminho(id);
+        if (!Files.exists(arquivo)) {
+            throw new IllegalArgumentException("Upload não encontrado ou expirado: " + id);
+        }
+        return arquivo;
+    }
+
+    private Path caminho(String id) {
+        // O id vem da URL: só UUIDs, para não escapar do diretório de uploads
+        return diretorio.resolve(UUID.fromString(id) + EXTENSAO);
+    }
+}
@@ -0,0 +1,247 @@
+package br.com.horizon.portal.application.service.exportacao;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Escrita de CSV para as exportações (separador ";", padrão dos arquivos do
+ * portal), com os campos renderizados direto num buffer de caracteres
+ * reaproveitado: sem format string por linha nem String intermediária para
+ * números, valores e datas.
+ * <p>
+ * Texto com separador, aspas ou quebra de linha sai entre aspas, com as aspas
+ * internas dobradas (RFC 4180). Valores monetários saem no formato pt-BR sem
+ * milhar ("1234,56") e nulos viram campo vazio.
+ * <p>
+ * Uma instância por exportação: não é thread-safe. Os erros de escrita
+ * (cliente que desistiu do download) sobem como {@link UncheckedIOException}.
+ */
+public final class EscritorCsv implements Flushable {
+
+    public enum FormatoData {
+        /** 2024-03-31 */
+        ISO,
+        /** 31/03/2024 */
+        BR
+    }
+
+    private static final int TAMANHO_BUFFER = 16 * 1024;
+    // Maior campo numérico renderizado sem passar pelo buffer: sinal + 19 dígitos + vírgula
+    private static final int MAIOR_NUMERO = 21;
+
+    private final Writer destino;
+    private final char separador;
+    private final char[] buffer = new char[TAMANHO_BUFFER];
+    private int posicao;
+    private boolean inicioLinha = true;
+
+    public EscritorCsv(Writer destino) {
+        this(destino, ';');
+    }
+
+    public EscritorCsv(Writer destino, char separador) {
+        this.destino = destino;
+        this.separador = separador;
+    }
+
+    /** BOM do UTF-8, para o Excel reconhecer a acentuação. Antes de qualquer campo. */
+    public EscritorCsv bom() {
+        garantir(1);
+        buffer[posicao++] = '\uFEFF';
+        return this;
+    }
+
+    public EscritorCsv texto(CharSequence valor) {
+        separar();
+        if (valor == null) {
+            return this;
+        }
+        int tamanho = valor.length();
+        if (!precisaAspas(valor, tamanho)) {
+            escrever(valor, tamanho);
+            return this;
+        }
+        caractere('"');
+        for (int i = 0; i < tamanho; i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                caractere('"');
+            }
+            caractere(c);
+        }
+        caractere('"');
+        return this;
+    }
+
+    public EscritorCsv inteiro(Number valor) {
+        separar();
+        if (valor != null) {
+            long numero = valor.longValue();
+            if (numero == Long.MIN_VALUE) {
+                escrever(Long.toString(numero), 20);
+            } else {
+                garantir(MAIOR_NUMERO);
+                digitos(numero);
+            }
+        }
+        return this;
+    }
+
+    /** Duas casas, arredondamento comercial, vírgula decimal e sem separador de milhar. */
+    public EscritorCsv moeda(BigDecimal valor) {
+        separar();
+        if (valor == null) {
+            return this;
+        }
+        BigDecimal centavos = valor.scale() == 2 ? valor : valor.setScale(2, RoundingMode.HALF_UP);
+        if (centavos.unscaledValue().bitLength() >= 63) {
+            String texto = centavos.toPlainString().replace('.', ',');
+            escrever(texto, texto.length());
+            return this;
+        }
+        long total = centavos.unscaledValue().longValue();
+        garantir(MAIOR_NUMERO + 1);
+        if (total < 0) {
+            buffer[posicao++] = '-';
+            total = -total;
+        }
+        digitos(total / 100);
+        int resto = (int) (total % 100);
+        buffer[posicao++] = ',';
+        buffer[posicao++] = (char) ('0' + resto / 10);
+        buffer[posicao++] = (char) ('0' + resto % 10);
+        return this;
+    }
+
+    public EscritorCsv data(LocalDate valor, FormatoData formato) {
+        separar();
+        if (valor == null) {
+            return this;
+        }
+        garantir(10);
+        if (formato == FormatoData.BR) {
+            doisDigitos(valor.getDayOfMonth());
+            buffer[posicao++] = '/';
+            doisDigitos(valor.getMonthValue());
+            buffer[posicao++] = '/';
+            quatroDigitos(valor.getYear());
+        } else {
+            quatroDigitos(valor.getYear());
+            buffer[posicao++] = '-';
+            doisDigitos(valor.getMonthValue());
+            buffer[posicao++] = '-';
+            doisDigitos(valor.getDayOfMonth());
+        }
+        return this;
+    }
+
+    public void fimLinha() {
+        caractere('\n');
+        inicioLinha = true;
+    }
+
+    /** Descarrega o buffer e o destino; o destino não é fechado (a resposta é do container). */
+    @Override
+    public void flush() {
+        descarregar();
+        try {
+            destino.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void separar() {
+        if (inicioLinha) {
+            inicioLinha = false;
+        } else {
+            caractere(separador);
+        }
+    }
+
+    private boolean precisaAspas(CharSequence valor, int tamanho) {
+        for (int i = 0; i < tamanho; i++) {
+            char c = valor.charAt(i);
+            if (c == separador || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void caractere(char c) {
+        if (posicao == buffer.length) {
+            descarregar();
+        }
+        buffer[posicao++] = c;
+    }
+
+    private void escrever(CharSequence valor, int tamanho) {
+        for (int i = 0; i < tamanho; ) {
+            if (posicao == buffer.length) {
+                descarregar();
+            }
+            int trecho = Math.min(tamanho - i, buffer.length - posicao);
+            if (valor instanceof String texto) {
+                texto.getChars(i, i + trecho, buffer, posicao);
+                posicao += trecho;
+                i += trecho;
+            } else {
+                for (int fim = i + trecho; i < fim; i++) {
+                    buffer[posicao++] = valor.charAt(i);
+                }
+            }
+        }
+    }
+
+    // Dígitos de trás para frente direto no buffer (espaço já garantido)
+    private void digitos(long numero) {
+        if (numero < 0) {
+            buffer[posicao++] = '-';
+            numero = -numero;
+        }
+        int inicio = posicao;
+        do {
+            buffer[posicao++] = (char) ('0' + numero % 10);
+            numero /= 10;
+        } while (numero > 0);
+        for (int i = inicio, j = posicao - 1; i < j; i++, j--) {
+            char c = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = c;
+        }
+    }
+
+    private void doisDigitos(int valor) {
+        buffer[posicao++] = (char) ('0' + valor / 10);
+        buffer[posicao++] = (char) ('0' + valor % 10);
+    }
+
+    private void quatroDigitos(int valor) {
+        doisDigitos(valor / 100);
+        doisDigitos(valor % 100);
+    }
+
+    private void garantir(int espaco) {
+        if (buffer.length - posicao < espaco) {
+            descarregar();
+        }
+    }
+
+    private void descarregar() {
+        if (posicao == 0) {
+            return;
+        }
+        try {
+            destino.write(buffer, 0, posicao);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        posicao = 0;
+    }
+}
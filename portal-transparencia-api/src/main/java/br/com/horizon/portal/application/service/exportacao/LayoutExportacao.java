@@ -0,0 +1,67 @@
+package br.com.horizon.portal.application.service.exportacao;
+
+import br.com.horizon.portal.application.service.exportacao.EscritorCsv.FormatoData;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Colunas de um CSV de exportação: nome no cabeçalho e como o campo é lido e
+ * escrito. Declarado uma vez por serviço (constante estática) e usado por
+ * todas as requisições; cada linha só percorre os codificadores já prontos
+ * e escreve no {@link EscritorCsv} da exportação.
+ * <p>
+ * Imutável depois de montado, portanto seguro entre threads.
+ */
+public final class LayoutExportacao<T> {
+
+    private final List<String> nomes = new ArrayList<>();
+    private final List<BiConsumer<T, EscritorCsv>> colunas = new ArrayList<>();
+
+    private LayoutExportacao() {
+    }
+
+    public static <T> LayoutExportacao<T> csv() {
+        return new LayoutExportacao<>();
+    }
+
+    public LayoutExportacao<T> texto(String nome, Function<T, ? extends CharSequence> valor) {
+        return coluna(nome, (item, csv) -> csv.texto(valor.apply(item)));
+    }
+
+    public LayoutExportacao<T> inteiro(String nome, Function<T, ? extends Number> valor) {
+        return coluna(nome, (item, csv) -> csv.inteiro(valor.apply(item)));
+    }
+
+    public LayoutExportacao<T> moeda(String nome, Function<T, BigDecimal> valor) {
+        return coluna(nome, (item, csv) -> csv.moeda(valor.apply(item)));
+    }
+
+    public LayoutExportacao<T> data(String nome, Function<T, LocalDate> valor, FormatoData formato) {
+        return coluna(nome, (item, csv) -> csv.data(valor.apply(item), formato));
+    }
+
+    private LayoutExportacao<T> coluna(String nome, BiConsumer<T, EscritorCsv> codificador) {
+        nomes.add(nome);
+        colunas.add(codificador);
+        return this;
+    }
+
+    public void cabecalho(EscritorCsv csv) {
+        for (String nome : nomes) {
+            csv.texto(nome);
+        }
+        csv.fimLinha();
+    }
+
+    public void linha(T item, EscritorCsv csv) {
+        for (int i = 0; i < colunas.size(); i++) {
+            colunas.get(i).accept(item, csv);
+        }
+        csv.fimLinha();
+    }
+}
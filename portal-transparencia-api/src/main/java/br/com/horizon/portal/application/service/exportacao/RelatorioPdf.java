@@ -0,0 +1,213 @@
+package br.com.horizon.portal.application.service.exportacao;
+
+import br.com.horizon.portal.application.service.ArmazenamentoService;
+import br.com.horizon.portal.infrastructure.persistence.entity.ConfiguracaoEntity;
+import br.com.horizon.portal.infrastructure.persistence.repository.ConfiguracaoRepository;
+import com.lowagie.text.Document;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.Image;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.awt.Color;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Base comum dos relatórios PDF do portal: timbre institucional (brasão,
+ * nome, CNPJ e endereço), título e tabela no padrão visual da UI.
+ * <p>
+ * O timbre é montado uma vez a partir da configuração da entidade, com o
+ * brasão já lido do armazenamento, decodificado e redimensionado, e reaproveitado
+ * por todas as exportações até {@link #invalidarTimbre()} (chamado quando a
+ * configuração muda). As fontes são instâncias fixas: nenhuma célula passa
+ * pelo {@link FontFactory}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RelatorioPdf {
+
+    private static final String ROTA_ARQUIVOS = "/api/v1/portal/arquivos/";
+    private static final Color COR_CABECALHO = new Color(15, 23, 42); // Padrão UI (slate-900)
+    private static final DateTimeFormatter FORMATO_EMISSAO = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+    // Compartilhadas entre as requisições: só são lidas na diagramação, nunca alteradas
+    public static final Font FONTE_ENTIDADE = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14, Color.DARK_GRAY);
+    public static final Font FONTE_INSTITUCIONAL = FontFactory.getFont(FontFactory.HELVETICA, 10, Color.GRAY);
+    public static final Font FONTE_TITULO = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12, Color.BLACK);
+    public static final Font FONTE_SUBTITULO = FontFactory.getFont(FontFactory.HELVETICA, 10, Color.DARK_GRAY);
+    public static final Font FONTE_CABECALHO_TABELA = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 8, Color.WHITE);
+    public static final Font FONTE_DADOS = FontFactory.getFont(FontFactory.HELVETICA, 8);
+    public static final Font FONTE_DADOS_COMPACTA = FontFactory.getFont(FontFactory.HELVETICA, 7);
+    public static final Font FONTE_RODAPE = FontFactory.getFont(FontFactory.HELVETICA_OBLIQUE, 8);
+
+    private final ConfiguracaoRepository configuracaoRepository;
+    private final ArmazenamentoService armazenamentoService;
+
+    private volatile Timbre timbre;
+
+    /** Dados do cabeçalho institucional; o brasão (opcional) já vem na escala final. */
+    private record Timbre(String nomeEntidade, String cnpj, String endereco, Image brasao) {
+    }
+
+    /** Abre o documento sobre {@code saida} com o timbre já escrito. */
+    public Document abrir(OutputStream saida, Rectangle tamanhoPagina) {
+        Document document = new Document(tamanhoPagina);
+        PdfWriter.getInstance(document, saida);
+        document.open();
+        escreverTimbre(document, timbre());
+        return document;
+    }
+
+    /** Título centralizado; {@code subtitulo} é opcional. */
+    public static void titulo(Document document, String titulo, String subtitulo) {
+        Paragraph paragrafo = new Paragraph(titulo, FONTE_TITULO);
+        paragrafo.setAlignment(Element.ALIGN_CENTER);
+        document.add(paragrafo);
+        if (subtitulo != null) {
+            Paragraph complemento = new Paragraph(subtitulo, FONTE_SUBTITULO);
+            complemento.setAlignment(Element.ALIGN_CENTER);
+            document.add(complemento);
+        }
+        document.add(new Paragraph("\n"));
+    }
+
+    /** Tabela de largura total com a linha de cabeçalho no padrão da UI. */
+    public static PdfPTable tabela(float[] larguras, String... cabecalhos) {
+        PdfPTable table = new PdfPTable(larguras.length);
+        table.setWidthPercentage(100f);
+        table.setWidths(larguras);
+
+        for (String cabecalho : cabecalhos) {
+            PdfPCell cell = new PdfPCell(new Phrase(cabecalho, FONTE_CABECALHO_TABELA));
+            cell.setBackgroundColor(COR_CABECALHO);
+            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+            cell.setPadding(5);
+            table.addCell(cell);
+        }
+        return table;
+    }
+
+    public static void rodape(Document document) {
+        Paragraph footer = new Paragraph(
+                "\nDocumento extraído do Portal da Transparência em: " + LocalDateTime.now().format(FORMATO_EMISSAO),
+                FONTE_RODAPE);
+        footer.setAlignment(Element.ALIGN_RIGHT);
+        document.add(footer);
+    }
+
+    /**
+     * Descarta o timbre em cache. Dentro de transação, descarta de novo ao
+     * final dela: um relatório gerado antes do commit não deixa a versão
+     * antiga em cache.
+     */
+    public void invalidarTimbre() {
+        limparTimbre();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    limparTimbre();
+                }
+            });
+        }
+    }
+
+    private synchronized void limparTimbre() {
+        timbre = null;
+    }
+
+    private Timbre timbre() {
+        Timbre atual = timbre;
+        if (atual != null) {
+            return atual;
+        }
+        synchronized (this) {
+            if (timbre == null) {
+                timbre = carregarTimbre();
+            }
+            return timbre;
+        }
+    }
+
+    private Timbre carregarTimbre() {
+        ConfiguracaoEntity config = configuracaoRepository.findById(1L).orElse(null);
+        if (config == null) {
+            return new Timbre("Portal da Transparência", null, null, null);
+        }
+        return new Timbre(
+                config.getNomeEntidade() != null ? config.getNomeEntidade() : "Portal da Transparência",
+                config.getCnpj(),
+                config.getEndereco(),
+                carregarBrasao(config.getUrlBrasao()));
+    }
+
+    // Aceita a rota pública ("/api/v1/portal/arquivos/config/x.png") ou só o nome do arquivo na pasta "config"
+    private Image carregarBrasao(String urlBrasao) {
+        if (urlBrasao == null || urlBrasao.isBlank()) {
+            return null;
+        }
+        try {
+            Resource resource;
+            if (urlBrasao.contains(ROTA_ARQUIVOS)) {
+                String[] partes = urlBrasao.substring(urlBrasao.indexOf(ROTA_ARQUIVOS) + ROTA_ARQUIVOS.length()).split("/");
+                resource = partes.length == 2
+                        ? armazenamentoService.carregar(partes[0], partes[1])
+                        : armazenamentoService.carregar("geral", partes[partes.length - 1]);
+            } else {
+                resource = armazenamentoService.carregar("config", urlBrasao.substring(urlBrasao.lastIndexOf('/') + 1));
+            }
+            Image brasao = Image.getInstance(resource.getURL());
+            brasao.scaleToFit(50, 50);
+            return brasao;
+        } catch (Exception e) {
+            // Sem brasão o relatório sai só com o texto; a falha volta a ser tentada após a próxima atualização
+            log.warn("Falha ao carregar o brasão para os relatórios PDF.", e);
+            return null;
+        }
+    }
+
+    private static void escreverTimbre(Document document, Timbre timbre) {
+        PdfPTable headerTable = new PdfPTable(2);
+        headerTable.setWidthPercentage(100f);
+        headerTable.setWidths(new float[] { 1f, 6f });
+
+        PdfPCell logoCell = new PdfPCell();
+        logoCell.setBorder(Rectangle.NO_BORDER);
+        logoCell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        if (timbre.brasao() != null) {
+            // Cópia rasa por documento: compartilha a imagem decodificada, não a posição na página
+            logoCell.addElement(Image.getInstance(timbre.brasao()));
+        }
+        headerTable.addCell(logoCell);
+
+        PdfPCell textCell = new PdfPCell();
+        textCell.setBorder(Rectangle.NO_BORDER);
+        textCell.setVerticalAlignment(Element.ALIGN_MIDDLE);
+        textCell.addElement(new Paragraph(timbre.nomeEntidade(), FONTE_ENTIDADE));
+        if (timbre.cnpj() != null && !timbre.cnpj().isBlank()) {
+            textCell.addElement(new Paragraph("CNPJ: " + timbre.cnpj(), FONTE_INSTITUCIONAL));
+        }
+        if (timbre.endereco() != null && !timbre.endereco().isBlank()) {
+            textCell.addElement(new Paragraph(timbre.endereco(), FONTE_INSTITUCIONAL));
+        }
+        headerTable.addCell(textCell);
+
+        document.add(headerTable);
+        document.add(new Paragraph("\n"));
+    }
+}
@@ -0,0 +1,62 @@
+package br.com.horizon.portal.application.service.exportacao;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+
+/**
+ * Tabela de relatório PDF escrita em levas, para as exportações lidas por
+ * cursor: a tabela fica marcada como incompleta e, a cada
+ * {@value #LINHAS_POR_LEVA} linhas, as já montadas são diagramadas no
+ * documento e descartadas. Só a leva corrente fica em memória, e as páginas
+ * prontas seguem para a resposta enquanto a consulta ainda avança.
+ * <p>
+ * As linhas que já estiverem na tabela ao envolvê-la são o cabeçalho, repetido
+ * no topo de cada página. Uma instância por exportação: não é thread-safe.
+ */
+public final class TabelaPdfEmFluxo {
+
+    // ~ algumas páginas A4 por leva: memória fixa sem diagramar a cada linha
+    static final int LINHAS_POR_LEVA = 200;
+
+    private final Document documento;
+    private final PdfPTable tabela;
+    private int linhasNaLeva;
+    private long linhas;
+
+    /** {@code tabela} já com larguras e linhas de cabeçalho adicionadas. */
+    public TabelaPdfEmFluxo(Document documento, PdfPTable tabela) {
+        this.documento = documento;
+        this.tabela = tabela;
+        tabela.setHeaderRows(tabela.size());
+        tabela.setComplete(false);
+    }
+
+    public TabelaPdfEmFluxo celula(PdfPCell celula) {
+        tabela.addCell(celula);
+        return this;
+    }
+
+    public TabelaPdfEmFluxo celula(Phrase conteudo) {
+        tabela.addCell(conteudo);
+        return this;
+    }
+
+    /** Fecha a linha corrente; ao completar a leva, diagrama e libera as linhas pendentes. */
+    public void fimLinha() {
+        linhas++;
+        if (++linhasNaLeva == LINHAS_POR_LEVA) {
+            // Tabela incompleta: o add escreve as linhas prontas e as remove da tabela
+            documento.add(tabela);
+            linhasNaLeva = 0;
+        }
+    }
+
+    /** Diagrama o restante e fecha a tabela. @return linhas de dados escritas */
+    public long concluir() {
+        tabela.setComplete(true);
+        documento.add(tabela);
+        return linhas;
+    }
+}
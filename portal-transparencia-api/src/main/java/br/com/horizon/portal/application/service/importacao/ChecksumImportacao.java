@@ -0,0 +1,82 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Consumer;
+
+/**
+ * SHA-256 dos arquivos de importação, calculado sobre os bytes como foram
+ * enviados (um CSV.gz tem hash diferente do CSV descompactado). É a impressão
+ * digital usada para recusar o reenvio de um arquivo idêntico.
+ */
+public final class ChecksumImportacao {
+
+    private ChecksumImportacao() {
+    }
+
+    public static MessageDigest novoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível na JVM", e);
+        }
+    }
+
+    public static String hex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static String deArquivo(Path arquivo) {
+        MessageDigest digest = novoDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(arquivo), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao ler o arquivo de importação: " + e.getMessage(), e);
+        }
+        return hex(digest);
+    }
+
+    /**
+     * Calcula o hash enquanto o fluxo é lido e entrega o resultado ao chegar no
+     * fim, ainda dentro da leitura: uma exceção lançada por {@code aoTerminar}
+     * interrompe a importação antes do commit. Se o leitor fechar o fluxo antes
+     * do fim (falha ou cancelamento), o restante não é lido e {@code aoTerminar}
+     * não roda: o job já termina como falho e não há hash a registrar. Quem lê um
+     * formato que acaba antes do fim dos bytes (o trailer do gzip) consome o resto
+     * ao concluir a leitura, como faz {@link FonteImportacao#deFluxo}.
+     */
+    public static InputStream aoTerminar(InputStream entrada, Consumer<String> aoTerminar) {
+        MessageDigest digest = novoDigest();
+        return new DigestInputStream(entrada, digest) {
+            private boolean terminado;
+
+            @Override
+            public int read() throws IOException {
+                int lido = super.read();
+                if (lido < 0) terminar();
+                return lido;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int lidos = super.read(b, off, len);
+                if (lidos < 0) terminar();
+                return lidos;
+            }
+
+            private void terminar() {
+                if (terminado) return;
+                terminado = true;
+                aoTerminar.accept(hex(digest));
+            }
+        };
+    }
+}
@@ -0,0 +1,208 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import br.com.horizon.portal.infrastructure.persistence.bulk.ImportacaoIncrementalRepository.Diferencas;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModoImportacao;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModuloImportacao;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Estado compartilhado entre a thread que executa uma importação e as
+ * requisições que consultam ou cancelam o job.
+ * <p>
+ * O importador chama {@link #linhaProcessada()} a cada linha lida; é ali que o
+ * progresso é contado e que o pedido de cancelamento é percebido. Na retomada
+ * de um job a contagem parte do checkpoint ({@link #getLinhaInicial()}).
+ * <p>
+ * No modo tolerante ({@link #isTolerante()}) o importador não para na
+ * primeira linha inválida: chama {@link #rejeitar} e segue com a próxima.
+ * <p>
+ * Cada arquivo de um ZIP roda com um contexto filho ({@link #parte}): grava
+ * no mesmo lote, soma o progresso no job e obedece ao cancelamento dele, mas
+ * tem staging própria e não registra checkpoint.
+ */
+public class ContextoImportacao {
+
+    private final ModuloImportacao modulo;
+    private final String loteId;
+    private final ModoImportacao modo;
+    private final long inicio = System.currentTimeMillis();
+    private final long linhaInicial;
+    private final ContextoImportacao pai;
+    private final String nomeParte;
+    private final int numeroParte;
+
+    private final AtomicLong linhasProcessadas = new AtomicLong();
+    private volatile long registrosGravados;
+    private volatile String resumo;
+    private volatile boolean cancelado;
+    private volatile Diferencas diferencas;
+    private volatile RejeitosImportacao rejeitos;
+    private volatile LongConsumer ouvinteConfirmacao;
+
+    public ContextoImportacao(ModuloImportacao modulo, String loteId) {
+        this(modulo, loteId, ModoImportacao.COMPLETA);
+    }
+
+    public ContextoImportacao(ModuloImportacao modulo, String loteId, ModoImportacao modo) {
+        this(modulo, loteId, modo, 0);
+    }
+
+    /** Contexto da retomada de um job: as linhas até {@code linhaInicial} já estão gravadas. */
+    public ContextoImportacao(ModuloImportacao modulo, String loteId, ModoImportacao modo, long linhaInicial) {
+        this(modulo, loteId, modo, linhaInicial, null, null, 0);
+    }
+
+    private ContextoImportacao(ModuloImportacao modulo, String loteId, ModoImportacao modo, long linhaInicial,
+                               ContextoImportacao pai, String nomeParte, int numeroParte) {
+        this.modulo = modulo;
+        this.loteId = loteId;
+        this.modo = modo;
+        this.linhaInicial = linhaInicial;
+        this.pai = pai;
+        this.nomeParte = nomeParte;
+        this.numeroParte = numeroParte;
+        this.linhasProcessadas.set(linhaInicial);
+    }
+
+    /** Contexto de um dos arquivos de um ZIP importado por este job. */
+    public ContextoImportacao parte(String nome, int numero) {
+        ContextoImportacao parte = new ContextoImportacao(modulo, loteId, modo, 0, this, nome, numero);
+        parte.rejeitos = rejeitos;
+        return parte;
+    }
+
+    /** Contexto de uma importação fora do subsistema de jobs (sem acompanhamento). */
+    public static ContextoImportacao avulso(ModuloImportacao modulo) {
+        return new ContextoImportacao(modulo, modulo.novoLoteId());
+    }
+
+    public void linhaProcessada() {
+        linhasProcessadas.incrementAndGet();
+        if (pai != null) pai.linhasProcessadas.incrementAndGet();
+        if (isCancelado()) {
+            throw new ImportacaoCanceladaException(loteId);
+        }
+    }
+
+    /** Mesmo que {@link #linhaProcessada()}, para um bloco de linhas de uma vez. */
+    public void linhasProcessadas(long quantidade) {
+        linhasProcessadas.addAndGet(quantidade);
+        if (pai != null) pai.linhasProcessadas.addAndGet(quantidade);
+        if (isCancelado()) {
+            throw new ImportacaoCanceladaException(loteId);
+        }
+    }
+
+    public void cancelar() {
+        cancelado = true;
+    }
+
+    public boolean isCancelado() {
+        return cancelado || (pai != null && pai.cancelado);
+    }
+
+    public boolean isParte() {
+        return pai != null;
+    }
+
+    /** Nome do arquivo dentro do ZIP (null fora de uma parte). */
+    public String getNomeParte() {
+        return nomeParte;
+    }
+
+    /** Identifica a staging do contexto: o lote, mais o número da parte quando há várias no mesmo lote. */
+    public String getChaveStaging() {
+        return pai == null ? loteId : loteId + "_" + numeroParte;
+    }
+
+    public ModuloImportacao getModulo() {
+        return modulo;
+    }
+
+    public String getLoteId() {
+        return loteId;
+    }
+
+    public ModoImportacao getModo() {
+        return modo;
+    }
+
+    public boolean isIncremental() {
+        return modo == ModoImportacao.INCREMENTAL;
+    }
+
+    /** Linhas de dados do arquivo já gravadas antes desta execução (0 fora de uma retomada). */
+    public long getLinhaInicial() {
+        return linhaInicial;
+    }
+
+    public long getLinhasProcessadas() {
+        return linhasProcessadas.get();
+    }
+
+    public long getRegistrosGravados() {
+        return registrosGravados;
+    }
+
+    public void setRegistrosGravados(long registrosGravados) {
+        this.registrosGravados = registrosGravados;
+    }
+
+    public String getResumo() {
+        return resumo;
+    }
+
+    public void setResumo(String resumo) {
+        this.resumo = resumo;
+    }
+
+    public Diferencas getDiferencas() {
+        return diferencas;
+    }
+
+    public void setDiferencas(Diferencas diferencas) {
+        this.diferencas = diferencas;
+    }
+
+    public boolean isTolerante() {
+        return rejeitos != null;
+    }
+
+    public RejeitosImportacao getRejeitos() {
+        return rejeitos;
+    }
+
+    public void setRejeitos(RejeitosImportacao rejeitos) {
+        this.rejeitos = rejeitos;
+    }
+
+    /**
+     * Linha inválida no modo tolerante: vai para o arquivo de rejeitos. Fora
+     * dele (ou passando do limite de erros) a importação é interrompida.
+     */
+    public void rejeitar(long linha, String conteudo, String motivo) {
+        if (rejeitos == null) {
+            throw new IllegalArgumentException("Erro na linha " + linha + ": " + motivo);
+        }
+        rejeitos.rejeitar(linha, conteudo, pai == null ? motivo : "[" + nomeParte + "] " + motivo);
+    }
+
+    /** Quem acompanha os commits da carga (ex.: a resposta da ingestão NDJSON, que devolve o offset confirmado). */
+    public void setOuvinteConfirmacao(LongConsumer ouvinte) {
+        this.ouvinteConfirmacao = ouvinte;
+    }
+
+    /** Chamado depois de cada commit da carga: as linhas até {@code linhas} não se perdem mais. */
+    public void linhasConfirmadas(long linhas) {
+        LongConsumer ouvinte = ouvinteConfirmacao;
+        if (ouvinte != null) ouvinte.accept(linhas);
+    }
+
+    /** Linhas por segundo desde o início desta execução do job. */
+    public long getLinhasPorSegundo() {
+        long duracao = Math.max(1, System.currentTimeMillis() - inicio);
+        return (linhasProcessadas.get() - linhaInicial) * 1000 / duracao;
+    }
+}
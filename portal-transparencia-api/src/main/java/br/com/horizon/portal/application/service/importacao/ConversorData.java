@@ -0,0 +1,65 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Leitura de datas dd/MM/yyyy sem DateTimeFormatter, com um pequeno cache
+ * (mapeamento direto, 512 posições) das datas já vistas: num arquivo de
+ * importação as mesmas datas se repetem em milhares de linhas.
+ * <p>
+ * Validação estrita: exatamente 10 caracteres, barras nas posições 3 e 6 e
+ * uma data que exista no calendário (31/02 é rejeitado, em vez de virar 29/02
+ * como no resolver SMART). Não é thread-safe; cada {@link TokenizadorCsv} tem o seu.
+ */
+public final class ConversorData {
+
+    private static final int BITS_CACHE = 9;
+
+    private final int[] chaves = new int[1 << BITS_CACHE];
+    private final LocalDate[] datas = new LocalDate[1 << BITS_CACHE];
+
+    /** Converte {@code c[inicio, fim)}, já sem espaços nas pontas. */
+    public LocalDate converter(char[] c, int inicio, int fim) {
+        if (fim - inicio != 10 || c[inicio + 2] != '/' || c[inicio + 5] != '/') {
+            throw invalida(c, inicio, fim);
+        }
+        int dia = numero(c, inicio, 2);
+        int mes = numero(c, inicio + 3, 2);
+        int ano = numero(c, inicio + 6, 4);
+        if (dia < 0 || mes < 0 || ano < 0) {
+            throw invalida(c, inicio, fim);
+        }
+
+        int chave = ano * 10_000 + mes * 100 + dia;
+        int posicao = (chave * 0x9E3779B1) >>> (32 - BITS_CACHE);
+        LocalDate emCache = datas[posicao];
+        if (emCache != null && chaves[posicao] == chave) {
+            return emCache;
+        }
+
+        LocalDate data;
+        try {
+            data = LocalDate.of(ano, mes, dia);
+        } catch (DateTimeException e) {
+            throw invalida(c, inicio, fim);
+        }
+        chaves[posicao] = chave;
+        datas[posicao] = data;
+        return data;
+    }
+
+    private static int numero(char[] c, int inicio, int tamanho) {
+        int valor = 0;
+        for (int p = inicio; p < inicio + tamanho; p++) {
+            char ch = c[p];
+            if (ch < '0' || ch > '9') return -1;
+            valor = valor * 10 + (ch - '0');
+        }
+        return valor;
+    }
+
+    private static IllegalArgumentException invalida(char[] c, int inicio, int fim) {
+        return new IllegalArgumentException("Data inválida: " + new String(c, inicio, fim - inicio) + ". Formato esperado: dd/MM/yyyy");
+    }
+}
@@ -0,0 +1,76 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import java.math.BigDecimal;
+
+/**
+ * Leitura de valores no formato brasileiro ("1.234.567,89") sem
+ * {@code replace} e sem {@code new BigDecimal(String)}: os dígitos vão direto
+ * para um long (valor sem escala) e a escala é a quantidade de casas depois
+ * da vírgula.
+ * <p>
+ * A validação é estrita: ponto só como separador de milhar (grupos de
+ * exatamente 3 dígitos), no máximo uma vírgula, pelo menos um dígito antes e
+ * depois dela. "1234.56" é rejeitado, e não lido como 123456.
+ */
+public final class ConversorMoeda {
+
+    // Cabe em long sem estouro; as colunas NUMERIC(15,2) do banco usam no máximo 15
+    private static final int MAX_DIGITOS = 18;
+
+    private ConversorMoeda() {
+    }
+
+    public static BigDecimal converter(CharSequence valor) {
+        char[] c = valor.toString().toCharArray();
+        return converter(c, 0, c.length);
+    }
+
+    /** Converte {@code c[inicio, fim)}, já sem espaços nas pontas. */
+    public static BigDecimal converter(char[] c, int inicio, int fim) {
+        int p = inicio;
+        boolean negativo = false;
+        if (p < fim && (c[p] == '-' || c[p] == '+')) {
+            negativo = c[p] == '-';
+            p++;
+        }
+
+        long semEscala = 0;
+        int digitos = 0;
+        int inteiros = 0;
+        int escala = 0;
+        int grupo = -1; // dígitos desde o último ponto; -1 = nenhum ponto ainda
+        boolean decimal = false;
+
+        for (; p < fim; p++) {
+            char ch = c[p];
+            if (ch >= '0' && ch <= '9') {
+                if (++digitos > MAX_DIGITOS) throw invalido(c, inicio, fim);
+                semEscala = semEscala * 10 + (ch - '0');
+                if (decimal) {
+                    escala++;
+                } else {
+                    inteiros++;
+                    if (grupo >= 0) grupo++;
+                }
+            } else if (ch == '.' && !decimal) {
+                boolean grupoValido = grupo < 0 ? inteiros >= 1 && inteiros <= 3 : grupo == 3;
+                if (!grupoValido) throw invalido(c, inicio, fim);
+                grupo = 0;
+            } else if (ch == ',' && !decimal) {
+                if (inteiros == 0 || (grupo >= 0 && grupo != 3)) throw invalido(c, inicio, fim);
+                decimal = true;
+            } else {
+                throw invalido(c, inicio, fim);
+            }
+        }
+
+        if (inteiros == 0 || (decimal && escala == 0) || (!decimal && grupo >= 0 && grupo != 3)) {
+            throw invalido(c, inicio, fim);
+        }
+        return BigDecimal.valueOf(negativo ? -semEscala : semEscala, escala);
+    }
+
+    private static IllegalArgumentException invalido(char[] c, int inicio, int fim) {
+        return new IllegalArgumentException("Valor monetário inválido: " + new String(c, inicio, fim - inicio));
+    }
+}
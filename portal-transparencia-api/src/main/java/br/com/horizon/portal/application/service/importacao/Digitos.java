@@ -0,0 +1,34 @@
+package br.com.horizon.portal.application.service.importacao;
+
+/**
+ * Só os dígitos de um CPF/CNPJ ou código, sem regex: o equivalente a
+ * {@code replaceAll("\\D", "")} para os caminhos de importação que tratam um
+ * valor por registro. Valor que já vem só com dígitos é devolvido sem cópia.
+ */
+public final class Digitos {
+
+    private Digitos() {
+    }
+
+    /** @return os dígitos de {@code valor}, ou "" se for nulo */
+    public static String de(CharSequence valor) {
+        if (valor == null) {
+            return "";
+        }
+        int tamanho = valor.length();
+        char[] digitos = null;
+        int n = 0;
+        for (int i = 0; i < tamanho; i++) {
+            char c = valor.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (digitos != null) digitos[n] = c;
+                n++;
+            } else if (digitos == null) {
+                // Primeiro caractere a descartar: a partir daqui copia
+                digitos = new char[tamanho];
+                for (int j = 0; j < n; j++) digitos[j] = valor.charAt(j);
+            }
+        }
+        return digitos == null ? valor.toString() : new String(digitos, 0, n);
+    }
+}
@@ -0,0 +1,107 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Origens de dados aceitas pelos importadores. CSV compactado em gzip é
+ * reconhecido pelos bytes iniciais (1F 8B) e descompactado durante a leitura.
+ * ZIP com vários CSVs (bytes iniciais "PK") é tratado por {@link ImportacaoZip}.
+ */
+public final class FonteImportacao {
+
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    private FonteImportacao() {
+    }
+
+    /**
+     * Arquivo em disco. Sem compactação vira um FileSystemResource, que o
+     * {@link LeitorCsvParalelo} lê por mapeamento de memória.
+     */
+    public static InputStreamSource deArquivo(Path arquivo) {
+        if (!compactado(arquivo)) {
+            return new FileSystemResource(arquivo);
+        }
+        return () -> new GZIPInputStream(Files.newInputStream(arquivo), TAMANHO_BUFFER);
+    }
+
+    /**
+     * Corpo de uma requisição, consumido enquanto chega. Só pode ser lido uma
+     * vez: o importador precisa fazer uma única passada no arquivo.
+     * <p>
+     * Com gzip, o fim dos dados descompactados consome também o que vier
+     * depois do trailer, para o corpo inteiro passar pelo hash. Uma leitura
+     * interrompida (falha, cancelamento) não consome nada além do que já leu.
+     */
+    public static InputStreamSource deFluxo(InputStream corpo) {
+        AtomicBoolean lido = new AtomicBoolean();
+        return () -> {
+            if (!lido.compareAndSet(false, true)) {
+                throw new IllegalStateException("Arquivo enviado em fluxo só pode ser lido uma vez.");
+            }
+            BufferedInputStream in = new BufferedInputStream(corpo, TAMANHO_BUFFER);
+            if (!gzip(in)) {
+                return in;
+            }
+            return new GZIPInputStream(in, TAMANHO_BUFFER) {
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int lidos = super.read(b, off, len);
+                    if (lidos < 0) {
+                        in.transferTo(OutputStream.nullOutputStream());
+                    }
+                    return lidos;
+                }
+            };
+        };
+    }
+
+    /**
+     * Um arquivo dentro do ZIP, lido direto do ZIP em disco (sem extrair).
+     * Entradas de um mesmo {@link ZipFile} podem ser lidas em paralelo.
+     */
+    public static InputStreamSource daEntradaZip(ZipFile zip, ZipEntry entrada) {
+        return () -> descompactarSeGzip(zip.getInputStream(entrada));
+    }
+
+    public static boolean zip(Path arquivo) {
+        try (InputStream in = Files.newInputStream(arquivo)) {
+            return in.read() == 'P' && in.read() == 'K' && in.read() == 3 && in.read() == 4;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao abrir o arquivo de importação: " + e.getMessage(), e);
+        }
+    }
+
+    private static InputStream descompactarSeGzip(InputStream entrada) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(entrada, TAMANHO_BUFFER);
+        return gzip(in) ? new GZIPInputStream(in, TAMANHO_BUFFER) : in;
+    }
+
+    private static boolean gzip(BufferedInputStream in) throws IOException {
+        in.mark(2);
+        boolean gzip = in.read() == 0x1f && in.read() == 0x8b;
+        in.reset();
+        return gzip;
+    }
+
+    private static boolean compactado(Path arquivo) {
+        try (InputStream in = Files.newInputStream(arquivo)) {
+            return in.read() == 0x1f && in.read() == 0x8b;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao abrir o arquivo de importação: " + e.getMessage(), e);
+        }
+    }
+}
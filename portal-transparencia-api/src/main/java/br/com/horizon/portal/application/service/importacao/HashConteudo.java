@@ -0,0 +1,52 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Hash do conteúdo de uma linha importada, usado pela importação incremental
+ * para saber se um registro mudou sem comparar coluna a coluna.
+ * <p>
+ * MD5 basta aqui: não é uso criptográfico, só detecção de alteração. Os
+ * valores entram na ordem recebida, separados por um caractere que não
+ * aparece nos arquivos; valores monetários são normalizados (10,0 = 10,00).
+ */
+public final class HashConteudo {
+
+    private static final char SEPARADOR = '\u001F';
+    private static final char NULO = '\u0000';
+
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 indisponível na JVM", e);
+        }
+    });
+
+    private static final ThreadLocal<StringBuilder> TEXTO = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private HashConteudo() {
+    }
+
+    /** 32 caracteres hexadecimais. */
+    public static String de(Object... valores) {
+        StringBuilder texto = TEXTO.get();
+        texto.setLength(0);
+        for (Object valor : valores) {
+            if (valor == null) {
+                texto.append(NULO);
+            } else if (valor instanceof BigDecimal decimal) {
+                texto.append(decimal.signum() == 0 ? "0" : decimal.stripTrailingZeros().toPlainString());
+            } else {
+                texto.append(valor);
+            }
+            texto.append(SEPARADOR);
+        }
+        byte[] hash = MD5.get().digest(texto.toString().getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(hash);
+    }
+}
@@ -0,0 +1,14 @@
+package br.com.horizon.portal.application.service.importacao;
+
+/**
+ * Lançada pelo próprio laço de leitura quando o job foi cancelado. Por ser
+ * uma RuntimeException, faz a transação da importação sofrer rollback.
+ */
+public class ImportacaoCanceladaException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ImportacaoCanceladaException(String loteId) {
+        super("Importação " + loteId + " cancelada pelo usuário.");
+    }
+}
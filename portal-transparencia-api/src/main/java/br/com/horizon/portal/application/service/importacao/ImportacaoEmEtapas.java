@@ -0,0 +1,71 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import br.com.horizon.portal.infrastructure.persistence.bulk.MapeamentoCopy;
+import br.com.horizon.portal.infrastructure.persistence.bulk.StagingImportacaoRepository;
+import br.com.horizon.portal.infrastructure.persistence.bulk.StagingImportacaoRepository.Trechos;
+import br.com.horizon.portal.infrastructure.persistence.bulk.StagingImportacaoRepository.Validacao;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Roteiro comum das importações que passam pela staging (carga em trechos,
+ * validação, publicação) e a regra de quando a carga parcial é guardada.
+ * <p>
+ * Falha na carga ou na publicação mantém a staging e o checkpoint: o job pode
+ * ser retomado com o mesmo arquivo. Cancelamento, lote recusado na validação
+ * e sucesso descartam os dois. Arquivos de um ZIP ({@link ContextoImportacao#isParte()})
+ * não são retomáveis: cada um tem staging própria, sem checkpoint, sempre descartada.
+ */
+@Component
+@RequiredArgsConstructor
+public class ImportacaoEmEtapas {
+
+    /** Lê o arquivo gravando na staging pelos trechos; devolve as linhas lidas (as de {@link LeitorCsvParalelo#processar}). */
+    @FunctionalInterface
+    public interface Carga<T> {
+        long carregar(Trechos<T> trechos) throws IOException, SQLException;
+    }
+
+    /** Leva a staging para a tabela definitiva, já dentro da transação de publicação. */
+    @FunctionalInterface
+    public interface Publicacao<T> {
+        long publicar(MapeamentoCopy<T> staging, long lidos);
+    }
+
+    private final StagingImportacaoRepository stagingImportacao;
+
+    /** @return registros publicados */
+    public <T> long executar(MapeamentoCopy<T> definitivo, ContextoImportacao contexto, List<Validacao> validacoes,
+                             Carga<T> carga, Publicacao<T> publicacao) throws IOException, SQLException {
+        String loteId = contexto.getLoteId();
+        MapeamentoCopy<T> staging = stagingImportacao.preparar(definitivo, contexto.getChaveStaging(),
+                contexto.getLinhaInicial() > 0);
+
+        boolean retomavel = !contexto.isParte();
+        try {
+            long lidos;
+            try (Trechos<T> trechos = stagingImportacao.trechos(staging, loteId, contexto.getLinhaInicial(),
+                    !contexto.isParte())) {
+                trechos.aoConfirmar(contexto::linhasConfirmadas);
+                lidos = trechos.concluir(carga.carregar(trechos));
+            }
+
+            // Dado recusado não se resolve retomando: o arquivo precisa ser corrigido
+            retomavel = false;
+            stagingImportacao.validar(staging, validacoes);
+
+            retomavel = !contexto.isParte();
+            long publicados = stagingImportacao.emTransacao(() -> publicacao.publicar(staging, lidos));
+            retomavel = false;
+            return publicados;
+        } finally {
+            if (!retomavel || contexto.isCancelado()) {
+                stagingImportacao.descartar(staging, loteId);
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import br.com.horizon.portal.application.service.ImportacaoJobService.Importador;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Importação de um ZIP com vários CSVs do mesmo módulo (ex.: as doze receitas
+ * mensais, a folha separada por secretaria) como um único lote.
+ * <p>
+ * Cada CSV é lido direto do ZIP em disco, sem extrair, e importado pelo
+ * importador normal do módulo num pool limitado
+ * ({@code portal.importacao.zip-paralelismo}). Todos gravam com o id de lote
+ * do job. Se um arquivo falha, ou o job é cancelado, os demais são
+ * interrompidos e o que já foi gravado é removido pelo desfazer do módulo
+ * (excluirLote / desfazerImportacao): o ZIP entra inteiro ou não entra.
+ */
+@Slf4j
+@Component
+public class ImportacaoZip {
+
+    // Nomes em UTF-8 quando o ZIP marca assim; os gerados no Windows costumam vir em CP437
+    private static final Charset NOMES_LEGADOS = Charset.forName("IBM437");
+
+    @Value("${portal.importacao.zip-paralelismo:3}")
+    private int paralelismo;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    void iniciar() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(paralelismo);
+        executor.setMaxPoolSize(paralelismo);
+        executor.setThreadNamePrefix("importacao-zip-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    void encerrar() {
+        executor.shutdown();
+    }
+
+    /**
+     * Importa os CSVs do ZIP no lote de {@code contexto}.
+     *
+     * @param desfazer remove o lote inteiro do módulo, usado quando algum arquivo falha
+     */
+    public void importar(Path arquivo, ContextoImportacao contexto, Importador importador,
+                         Consumer<String> desfazer) throws IOException {
+        try (ZipFile zip = abrir(arquivo)) {
+            List<ZipEntry> entradas = zip.stream().filter(this::importavel).map(e -> (ZipEntry) e).toList();
+            if (entradas.isEmpty()) {
+                throw new IllegalArgumentException("O ZIP não contém arquivos CSV.");
+            }
+            log.info("Lote {}: importando {} arquivos do ZIP com até {} em paralelo.",
+                    contexto.getLoteId(), entradas.size(), paralelismo);
+
+            List<ContextoImportacao> partes = new ArrayList<>();
+            List<Future<?>> execucoes = new ArrayList<>();
+            for (ZipEntry entrada : entradas) {
+                ContextoImportacao parte = contexto.parte(nome(entrada), partes.size() + 1);
+                partes.add(parte);
+                // O contexto de segurança do job segue para cada arquivo (auditoria com o usuário certo)
+                execucoes.add(executor.submit(new DelegatingSecurityContextRunnable(
+                        () -> importador.importar(FonteImportacao.daEntradaZip(zip, entrada), parte))));
+            }
+
+            String erro = aguardar(execucoes, partes);
+            if (erro != null || contexto.isCancelado()) {
+                desfazerGravados(contexto.getLoteId(), partes, desfazer);
+                if (contexto.isCancelado()) {
+                    throw new ImportacaoCanceladaException(contexto.getLoteId());
+                }
+                throw new IllegalStateException(erro);
+            }
+
+            long registros = partes.stream().mapToLong(ContextoImportacao::getRegistrosGravados).sum();
+            contexto.setRegistrosGravados(registros);
+            contexto.setResumo("ZIP com " + partes.size() + " arquivos importado no lote " + contexto.getLoteId()
+                    + ": " + registros + " registros. " + String.join(" ", partes.stream()
+                    .map(p -> p.getNomeParte() + " (" + p.getRegistrosGravados() + ")").toList()));
+        }
+    }
+
+    // Espera todos os arquivos; a primeira falha interrompe os que ainda estão rodando
+    private String aguardar(List<Future<?>> execucoes, List<ContextoImportacao> partes) {
+        String erro = null;
+        for (int i = 0; i < execucoes.size(); i++) {
+            try {
+                execucoes.get(i).get();
+            } catch (CancellationException e) {
+                // Nem começou: cancelado pela falha de outro arquivo
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                partes.forEach(ContextoImportacao::cancelar);
+                execucoes.forEach(f -> f.cancel(false));
+                return "Importação do ZIP interrompida.";
+            } catch (ExecutionException e) {
+                if (erro == null && !partes.get(i).isCancelado()) {
+                    erro = "Arquivo " + partes.get(i).getNomeParte() + " do ZIP: " + e.getCause().getMessage();
+                    log.warn("Lote {}: {}. Interrompendo os demais arquivos.", partes.get(i).getLoteId(), erro);
+                    partes.forEach(ContextoImportacao::cancelar);
+                    execucoes.forEach(f -> f.cancel(false));
+                }
+            }
+        }
+        return erro;
+    }
+
+    private void desfazerGravados(String loteId, List<ContextoImportacao> partes, Consumer<String> desfazer) {
+        if (partes.stream().noneMatch(p -> p.getRegistrosGravados() > 0)) {
+            return;
+        }
+        try {
+            desfazer.accept(loteId);
+            log.info("Lote {}: arquivos já gravados do ZIP removidos.", loteId);
+        } catch (RuntimeException e) {
+            log.error("Lote {} ficou incompleto e não pôde ser desfeito: {}", loteId, e.getMessage(), e);
+        }
+    }
+
+    private ZipFile abrir(Path arquivo) throws IOException {
+        try {
+            return new ZipFile(arquivo.toFile(), StandardCharsets.UTF_8);
+        } catch (ZipException e) {
+            return new ZipFile(arquivo.toFile(), NOMES_LEGADOS);
+        }
+    }
+
+    // Só CSV (ou CSV.gz); ignora pastas e os metadados que o macOS põe no ZIP
+    private boolean importavel(ZipEntry entrada) {
+        String nome = entrada.getName().toLowerCase(Locale.ROOT);
+        return !entrada.isDirectory() && !nome.startsWith("__macosx/") && !nome(entrada).startsWith(".")
+                && (nome.endsWith(".csv") || nome.endsWith(".csv.gz"));
+    }
+
+    private String nome(ZipEntry entrada) {
+        String nome = entrada.getName();
+        return nome.substring(nome.lastIndexOf('/') + 1);
+    }
+}
@@ -0,0 +1,269 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Layout de um arquivo de importação: cada coluna com a posição padrão, os
+ * nomes aceitos no cabeçalho, o conversor do campo e onde o valor é gravado.
+ * <p>
+ * O layout é declarado uma vez no importador e compilado por arquivo
+ * ({@link #compilar}): os nomes do cabeçalho viram índices e o mapeador
+ * resultante só lê campos do {@link TokenizadorCsv} e chama os setters, sem
+ * reflexão nem busca por nome a cada linha. Os nomes são comparados sem
+ * acento, caixa ou pontuação ("Código Natureza" = "CODIGO_NATUREZA").
+ * <p>
+ * Se o cabeçalho não resolver todas as colunas pelo nome, vale o layout
+ * posicional de sempre (que é o dos arquivos atuais dos fornecedores), desde
+ * que a linha tenha as colunas que ele precisa; as que ficaram sem nome são
+ * informadas em {@link Compilado#getNaoReconhecidas()} para o log. Cabeçalho
+ * com parte dos nomes e colunas de menos é recusado.
+ */
+public final class LayoutImportacao<T> {
+
+    /** Lê o campo {@code campo} da linha já separada. */
+    @FunctionalInterface
+    public interface Leitor<V> {
+        V ler(TokenizadorCsv dados, int campo);
+    }
+
+    public static final Leitor<String> TEXTO = TokenizadorCsv::texto;
+    public static final Leitor<String> DIGITOS = TokenizadorCsv::digitos;
+    public static final Leitor<Integer> INTEIRO = TokenizadorCsv::inteiro;
+    public static final Leitor<BigDecimal> MOEDA = TokenizadorCsv::moeda;
+    public static final Leitor<LocalDate> DATA = TokenizadorCsv::data;
+
+    private record Coluna<T, V>(String chave, int posicao, List<String> nomes, Leitor<V> leitor,
+                                BiConsumer<T, V> destino) {
+
+        void aplicar(T item, TokenizadorCsv dados, int campo) {
+            destino.accept(item, leitor.ler(dados, campo));
+        }
+    }
+
+    private final String nome;
+    private final Supplier<T> fabrica;
+    private final List<Coluna<T, ?>> colunas = new ArrayList<>();
+
+    private LayoutImportacao(String nome, Supplier<T> fabrica) {
+        this.nome = nome;
+        this.fabrica = fabrica;
+    }
+
+    /**
+     * @param nome    identifica o layout na configuração (portal.importacao.layouts.{nome}.{coluna})
+     * @param fabrica instância vazia que recebe os campos de cada linha
+     */
+    public static <T> LayoutImportacao<T> para(String nome, Supplier<T> fabrica) {
+        return new LayoutImportacao<>(nome, fabrica);
+    }
+
+    /**
+     * Declara uma coluna. Os campos são gravados na ordem de declaração.
+     *
+     * @param chave   nome técnico, também aceito no cabeçalho
+     * @param posicao índice no layout posicional (arquivos sem cabeçalho reconhecível)
+     * @param titulo  nome usual da coluna no cabeçalho
+     */
+    public <V> LayoutImportacao<T> coluna(String chave, int posicao, String titulo, Leitor<V> leitor,
+                                          BiConsumer<T, V> destino) {
+        colunas.add(new Coluna<>(chave, posicao, List.of(chave, titulo), leitor, destino));
+        return this;
+    }
+
+    /** Outros nomes aceitos no cabeçalho para a última coluna declarada (ex.: o do modelo da tela de importação). */
+    public LayoutImportacao<T> apelidos(String... nomes) {
+        Coluna<T, ?> ultima = colunas.remove(colunas.size() - 1);
+        colunas.add(comNomes(ultima, nomes));
+        return this;
+    }
+
+    private static <T, V> Coluna<T, V> comNomes(Coluna<T, V> coluna, String... nomes) {
+        List<String> todos = new ArrayList<>(coluna.nomes());
+        todos.addAll(List.of(nomes));
+        return new Coluna<>(coluna.chave(), coluna.posicao(), List.copyOf(todos), coluna.leitor(), coluna.destino());
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public List<String> getChaves() {
+        return colunas.stream().map(Coluna::chave).toList();
+    }
+
+    /**
+     * Resolve as colunas contra o cabeçalho do arquivo.
+     *
+     * @param cabecalho    primeira linha do arquivo (null se vazio)
+     * @param nomesExtras  nomes adicionais aceitos por chave (ex.: vindos da configuração)
+     */
+    public Compilado<T> compilar(String cabecalho, Function<String, Collection<String>> nomesExtras) {
+        Map<String, Integer> indicePorNome = new HashMap<>();
+        int colunasCabecalho = 0;
+        if (cabecalho != null) {
+            TokenizadorCsv campos = new TokenizadorCsv().analisar(cabecalho.replace("\uFEFF", ""));
+            colunasCabecalho = campos.quantidade();
+            for (int i = colunasCabecalho - 1; i >= 0; i--) {
+                indicePorNome.put(normalizar(campos.texto(i)), i);
+            }
+        }
+
+        int[] indices = new int[colunas.size()];
+        List<String> ausentes = new ArrayList<>();
+        int reconhecidas = 0;
+        for (int i = 0; i < colunas.size(); i++) {
+            Coluna<T, ?> coluna = colunas.get(i);
+            Set<String> nomes = new LinkedHashSet<>(coluna.nomes());
+            nomes.addAll(nomesExtras.apply(coluna.chave()));
+            Integer indice = null;
+            for (String nomeAceito : nomes) {
+                indice = indicePorNome.get(normalizar(nomeAceito));
+                if (indice != null) break;
+            }
+            if (indice != null) {
+                indices[i] = indice;
+                reconhecidas++;
+            } else {
+                indices[i] = -1;
+                ausentes.add(coluna.nomes().get(1));
+            }
+        }
+
+        if (ausentes.isEmpty()) {
+            return new Compilado<>(this, indices, true, List.of());
+        }
+
+        int minimoPosicional = 0;
+        for (Coluna<T, ?> coluna : colunas) minimoPosicional = Math.max(minimoPosicional, coluna.posicao() + 1);
+        List<String> naoReconhecidas = List.of();
+        if (reconhecidas > 0) {
+            // Com parte dos nomes, as posições padrão só servem se o arquivo tem ao menos as colunas do layout
+            if (colunasCabecalho < minimoPosicional) {
+                throw new IllegalArgumentException("Cabeçalho do arquivo de " + nome + " com colunas não reconhecidas. Faltam: "
+                        + ausentes + ". Sem correspondência no layout: " + semCorrespondencia(cabecalho, indices)
+                        + ". O layout posicional exige " + minimoPosicional + " colunas.");
+            }
+            naoReconhecidas = List.copyOf(ausentes);
+        }
+        for (int i = 0; i < colunas.size(); i++) {
+            indices[i] = colunas.get(i).posicao();
+        }
+        return new Compilado<>(this, indices, false, naoReconhecidas);
+    }
+
+    // Colunas do cabeçalho que nenhuma coluna do layout reconheceu (as candidatas a renomeadas)
+    private static List<String> semCorrespondencia(String cabecalho, int[] indices) {
+        Set<Integer> usados = new HashSet<>();
+        for (int indice : indices) {
+            if (indice >= 0) usados.add(indice);
+        }
+        TokenizadorCsv campos = new TokenizadorCsv().analisar(cabecalho.replace("\uFEFF", ""));
+        List<String> sobras = new ArrayList<>();
+        for (int i = 0; i < campos.quantidade(); i++) {
+            if (!usados.contains(i)) sobras.add(campos.texto(i));
+        }
+        return sobras;
+    }
+
+    // "Código Natureza", "codigo_natureza" e "CODIGO NATUREZA" viram "codigonatureza"
+    static String normalizar(String nome) {
+        String semAcento = Normalizer.normalize(nome, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(semAcento.length());
+        for (int i = 0; i < semAcento.length(); i++) {
+            char c = semAcento.charAt(i);
+            if (Character.isLetterOrDigit(c) && c < 0x80) {
+                sb.append(c);
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /** Layout com os índices já resolvidos para um arquivo. Thread-safe: pode ser usado pelos workers do parser. */
+    public static final class Compilado<T> {
+
+        private final Supplier<T> fabrica;
+        private final Coluna<T, ?>[] colunas;
+        private final int[] indices;
+        private final int minimoColunas;
+        private final boolean porCabecalho;
+        private final List<String> naoReconhecidas;
+        private final List<String> ordem;
+
+        private Compilado(LayoutImportacao<T> layout, int[] indices, boolean porCabecalho, List<String> naoReconhecidas) {
+            this.fabrica = layout.fabrica;
+            this.colunas = comoArray(layout.colunas);
+            this.indices = indices;
+            this.porCabecalho = porCabecalho;
+            this.naoReconhecidas = naoReconhecidas;
+            int maior = -1;
+            for (int indice : indices) maior = Math.max(maior, indice);
+            this.minimoColunas = maior + 1;
+
+            // Duas colunas do layout na mesma coluna do arquivo (ex.: um nome configurado repetido): uma leria o campo da outra
+            String[] porIndice = new String[minimoColunas];
+            for (int i = 0; i < indices.length; i++) {
+                if (porIndice[indices[i]] != null) {
+                    throw new IllegalArgumentException("Layout de " + layout.nome + ": as colunas " + porIndice[indices[i]]
+                            + " e " + colunas[i].chave() + " apontam para a mesma coluna (" + (indices[i] + 1) + ") do arquivo.");
+                }
+                porIndice[indices[i]] = colunas[i].chave();
+            }
+            List<String> chaves = new ArrayList<>();
+            for (String chave : porIndice) chaves.add(chave != null ? chave : "-");
+            this.ordem = Collections.unmodifiableList(chaves);
+        }
+
+        // Array (e não List) no laço de cada linha; o cast é seguro porque só sai daqui com o tipo da lista
+        @SuppressWarnings("unchecked")
+        private static <T> Coluna<T, ?>[] comoArray(List<Coluna<T, ?>> colunas) {
+            return colunas.toArray((Coluna<T, ?>[]) new Coluna<?, ?>[colunas.size()]);
+        }
+
+        /** Monta o item a partir da linha já separada pelo tokenizador. */
+        public T mapear(TokenizadorCsv dados) {
+            if (dados.quantidade() < minimoColunas) {
+                throw new IllegalArgumentException("Número de colunas insuficiente. Esperado " + minimoColunas + ".");
+            }
+            T item = fabrica.get();
+            for (int i = 0; i < colunas.length; i++) {
+                colunas[i].aplicar(item, dados, indices[i]);
+            }
+            return item;
+        }
+
+        /** Colunas que a linha precisa ter, contando as que o layout não usa. */
+        public int getMinimoColunas() {
+            return minimoColunas;
+        }
+
+        /** true se as posições vieram dos nomes do cabeçalho; false no layout posicional. */
+        public boolean isPorCabecalho() {
+            return porCabecalho;
+        }
+
+        /** Colunas do layout sem nome no cabeçalho quando ele foi reconhecido só em parte (lidas pela posição). */
+        public List<String> getNaoReconhecidas() {
+            return naoReconhecidas;
+        }
+
+        /** Chaves na ordem do arquivo ("-" onde a coluna é ignorada), para o log. */
+        public List<String> getOrdem() {
+            return ordem;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Compila os layouts de importação com os nomes de coluna da configuração.
+ * <p>
+ * Cada coluna aceita, além dos nomes declarados no importador, os da
+ * propriedade {@code portal.importacao.layouts.{layout}.{coluna}} (lista
+ * separada por vírgula). Assim um fornecedor que renomeia colunas no
+ * cabeçalho é atendido sem mudar código.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LayoutsImportacao {
+
+    private static final String PREFIXO = "portal.importacao.layouts.";
+
+    private final Environment environment;
+
+    /** Resolve o layout para o cabeçalho do arquivo (uma vez por importação). */
+    public <T> LayoutImportacao.Compilado<T> compilar(LayoutImportacao<T> layout, String cabecalho) {
+        LayoutImportacao.Compilado<T> compilado = layout.compilar(cabecalho, chave -> nomesConfigurados(layout, chave));
+        if (compilado.isPorCabecalho()) {
+            log.info("Layout {} pelo cabeçalho: {}", layout.getNome(), compilado.getOrdem());
+        } else if (!compilado.getNaoReconhecidas().isEmpty()) {
+            log.warn("Layout {}: cabeçalho sem as colunas {}. Usando as posições padrão.",
+                    layout.getNome(), compilado.getNaoReconhecidas());
+        }
+        return compilado;
+    }
+
+    private Collection<String> nomesConfigurados(LayoutImportacao<?> layout, String chave) {
+        String valor = environment.getProperty(PREFIXO + layout.getNome() + "." + chave);
+        if (valor == null || valor.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(valor.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+}
@@ -0,0 +1,350 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Estágio de leitura das importações CSV: divide o arquivo em blocos
+ * alinhados em fim de linha, converte os blocos em paralelo num ForkJoinPool
+ * e entrega os registros, na ordem do arquivo, ao destino (COPY, batch JDBC).
+ * <p>
+ * Arquivos em disco (o upload já copiado pelo job) são lidos por mapeamento
+ * de memória, um bloco por vez; os demais são lidos em fluxo. O destino roda
+ * sempre na thread que chamou {@link #processar}, que é a dona da transação.
+ * A linha 1 é a primeira linha de dados, depois do cabeçalho, que é lido
+ * antes dos blocos e entregue ao {@link ParserPorCabecalho} (ex.: para
+ * resolver um {@link LayoutImportacao} pelos nomes das colunas).
+ * <p>
+ * Na retomada de um job ({@link ContextoImportacao#getLinhaInicial()}) as
+ * linhas até o checkpoint são puladas sem conversão, e a numeração continua
+ * sendo a do arquivo.
+ * <p>
+ * No modo tolerante ({@link ContextoImportacao#isTolerante()}) a linha que o
+ * parser recusa não interrompe o bloco: ela vai para os rejeitos do contexto,
+ * com o número absoluto, e a leitura continua.
+ */
+@Slf4j
+@Component
+public class LeitorCsvParalelo {
+
+    /** Converte uma linha de dados; devolve null para ignorar a linha. Erros viram "Erro na linha N" (ou rejeitos). */
+    @FunctionalInterface
+    public interface ParserLinha<T> {
+        T analisar(String linha);
+    }
+
+    /** Monta o parser da importação a partir da primeira linha do arquivo (null se o arquivo estiver vazio). */
+    @FunctionalInterface
+    public interface ParserPorCabecalho<T> {
+        ParserLinha<T> paraCabecalho(String cabecalho);
+    }
+
+    @FunctionalInterface
+    public interface Destino<T> {
+        void gravar(T item) throws SQLException;
+    }
+
+    /** Ajuste de um bloco já convertido antes da gravação, na thread do destino (ex.: resolver chaves no banco). */
+    @FunctionalInterface
+    public interface PreparoBloco<T> {
+        void preparar(List<T> itens) throws SQLException;
+    }
+
+    /** Avisado depois que cada bloco chega ao destino, com o total de linhas do arquivo já entregues. */
+    @FunctionalInterface
+    public interface Checkpoint {
+        void blocoGravado(long linhasLidas) throws SQLException;
+    }
+
+    private static final int BYTES_POR_BLOCO = 4 * 1024 * 1024;
+    private static final int LINHAS_POR_BLOCO = 20_000; // leitura em fluxo
+
+    @Value("${portal.importacao.paralelismo:0}")
+    private int paralelismo;
+
+    private ForkJoinPool pool;
+    private int janela;
+
+    @PostConstruct
+    void iniciar() {
+        int nucleos = paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(nucleos);
+        // Blocos convertidos à frente do destino: limita a memória retida quando a gravação é o gargalo
+        janela = nucleos * 2;
+    }
+
+    @PreDestroy
+    void encerrar() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Lê o arquivo inteiro, pulando o cabeçalho.
+     *
+     * @return quantidade de linhas de dados lidas (inclusive as ignoradas)
+     */
+    public <T> long processar(InputStreamSource arquivo, ParserLinha<T> parser, Destino<T> destino,
+                              ContextoImportacao contexto) throws IOException, SQLException {
+        return processar(arquivo, parser, itens -> { }, destino, contexto);
+    }
+
+    public <T> long processar(InputStreamSource arquivo, ParserLinha<T> parser, PreparoBloco<T> preparo,
+                              Destino<T> destino, ContextoImportacao contexto) throws IOException, SQLException {
+        return processar(arquivo, cabecalho -> parser, preparo, destino, linhas -> { }, contexto);
+    }
+
+    public <T> long processar(InputStreamSource arquivo, ParserPorCabecalho<T> parser, PreparoBloco<T> preparo,
+                              Destino<T> destino, Checkpoint checkpoint, ContextoImportacao contexto)
+            throws IOException, SQLException {
+        long pular = contexto.getLinhaInicial();
+        boolean tolerante = contexto.isTolerante();
+        Ordenador<T> ordenador = new Ordenador<>(preparo, destino, checkpoint, contexto, pular);
+        try {
+            if (arquivo instanceof Resource recurso && recurso.isFile()) {
+                lerMapeado(recurso.getFile().toPath(), pular, parser, tolerante, ordenador);
+            } else {
+                lerEmFluxo(arquivo, pular, parser, tolerante, ordenador);
+            }
+            return ordenador.concluir();
+        } finally {
+            ordenador.descartar();
+        }
+    }
+
+    private <T> void lerMapeado(Path caminho, long pular, ParserPorCabecalho<T> parserPorCabecalho,
+                                boolean tolerante, Ordenador<T> ordenador)
+            throws IOException, SQLException {
+        try (FileChannel canal = FileChannel.open(caminho, StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            long fimCabecalho = fimDeLinha(canal, 0, tamanho);
+            String cabecalho = null;
+            if (fimCabecalho > 0) {
+                // Arquivo sem quebra de linha não tem dados: basta o começo para o parser
+                ByteBuffer primeira = ByteBuffer.allocate((int) Math.min(fimCabecalho, 64 * 1024));
+                canal.read(primeira, 0);
+                cabecalho = semQuebra(new String(primeira.array(), 0, primeira.position(), StandardCharsets.UTF_8));
+            }
+            ParserLinha<T> parser = parserPorCabecalho.paraCabecalho(cabecalho);
+
+            // Linhas já gravadas: o primeiro bloco começa na linha do checkpoint
+            long inicio = pular > 0 ? aposLinhas(canal, pular + 1, tamanho) : fimCabecalho;
+            while (inicio < tamanho) {
+                long fim = fimDeLinha(canal, Math.min(inicio + BYTES_POR_BLOCO, tamanho), tamanho);
+                MappedByteBuffer bloco = canal.map(FileChannel.MapMode.READ_ONLY, inicio, fim - inicio);
+                // Decodificação UTF-8 e quebra em linhas também ficam no worker
+                ordenador.enviar(pool.submit(() -> analisar(
+                        StandardCharsets.UTF_8.decode(bloco).toString(), parser, tolerante)));
+                inicio = fim;
+            }
+        }
+    }
+
+    private static String semQuebra(String linha) {
+        int fim = linha.length();
+        while (fim > 0 && (linha.charAt(fim - 1) == '\n' || linha.charAt(fim - 1) == '\r')) fim--;
+        return linha.substring(0, fim);
+    }
+
+    // Avança até o byte seguinte ao próximo '\n' (o UTF-8 nunca usa 0x0A dentro de um caractere multibyte)
+    private long fimDeLinha(FileChannel canal, long posicao, long tamanho) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (posicao < tamanho) {
+            buffer.clear();
+            int lidos = canal.read(buffer, posicao);
+            if (lidos <= 0) break;
+            for (int i = 0; i < lidos; i++) {
+                if (buffer.get(i) == '\n') {
+                    return posicao + i + 1;
+                }
+            }
+            posicao += lidos;
+        }
+        return tamanho;
+    }
+
+    // Posição logo depois da n-ésima quebra de linha
+    private long aposLinhas(FileChannel canal, long n, long tamanho) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long posicao = 0;
+        long encontradas = 0;
+        while (posicao < tamanho) {
+            buffer.clear();
+            int lidos = canal.read(buffer, posicao);
+            if (lidos <= 0) break;
+            for (int i = 0; i < lidos; i++) {
+                if (buffer.get(i) == '\n' && ++encontradas == n) {
+                    return posicao + i + 1;
+                }
+            }
+            posicao += lidos;
+        }
+        return tamanho;
+    }
+
+    private <T> void lerEmFluxo(InputStreamSource arquivo, long pular, ParserPorCabecalho<T> parserPorCabecalho,
+                                boolean tolerante, Ordenador<T> ordenador)
+            throws IOException, SQLException {
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(arquivo.getInputStream(), StandardCharsets.UTF_8))) {
+            ParserLinha<T> parser = parserPorCabecalho.paraCabecalho(br.readLine());
+            // Linhas já gravadas numa execução anterior do job
+            long puladas = 0;
+            while (puladas < pular && br.readLine() != null) puladas++;
+            List<String> linhas = new ArrayList<>(LINHAS_POR_BLOCO);
+            String linha;
+            while ((linha = br.readLine()) != null) {
+                linhas.add(linha);
+                if (linhas.size() == LINHAS_POR_BLOCO) {
+                    List<String> bloco = linhas;
+                    ordenador.enviar(pool.submit(() -> analisar(bloco, parser, tolerante)));
+                    linhas = new ArrayList<>(LINHAS_POR_BLOCO);
+                }
+            }
+            if (!linhas.isEmpty()) {
+                List<String> bloco = linhas;
+                ordenador.enviar(pool.submit(() -> analisar(bloco, parser, tolerante)));
+            }
+        }
+    }
+
+    private static <T> Bloco<T> analisar(String texto, ParserLinha<T> parser, boolean tolerante) {
+        List<String> linhas = new ArrayList<>();
+        int inicio = 0;
+        int tamanho = texto.length();
+        while (inicio < tamanho) {
+            int fim = texto.indexOf('\n', inicio);
+            if (fim < 0) fim = tamanho;
+            int corte = fim > inicio && texto.charAt(fim - 1) == '\r' ? fim - 1 : fim;
+            linhas.add(texto.substring(inicio, corte));
+            inicio = fim + 1;
+        }
+        return analisar(linhas, parser, tolerante);
+    }
+
+    private static <T> Bloco<T> analisar(List<String> linhas, ParserLinha<T> parser, boolean tolerante) {
+        Bloco<T> bloco = new Bloco<>(linhas.size());
+        for (int i = 0; i < linhas.size(); i++) {
+            String linha = linhas.get(i);
+            if (linha.isBlank()) continue;
+            try {
+                T item = parser.analisar(linha);
+                if (item != null) bloco.itens.add(item);
+            } catch (Exception e) {
+                // O número absoluto da linha só é conhecido na ordenação
+                if (tolerante) {
+                    bloco.rejeitos.add(new Rejeito(i + 1, linha, e.getMessage()));
+                    continue;
+                }
+                bloco.linhaComErro = i + 1;
+                bloco.erro = e.getMessage();
+                break;
+            }
+        }
+        return bloco;
+    }
+
+    private record Rejeito(int linha, String conteudo, String motivo) {
+    }
+
+    private static final class Bloco<T> {
+        final int linhas;
+        final List<T> itens;
+        final List<Rejeito> rejeitos = new ArrayList<>();
+        int linhaComErro;
+        String erro;
+
+        Bloco(int linhas) {
+            this.linhas = linhas;
+            this.itens = new ArrayList<>(linhas);
+        }
+    }
+
+    /** Recebe os blocos na ordem de envio e os entrega ao destino na mesma ordem. */
+    private final class Ordenador<T> {
+
+        private final Deque<Future<Bloco<T>>> emAndamento = new ArrayDeque<>();
+        private final PreparoBloco<T> preparo;
+        private final Destino<T> destino;
+        private final Checkpoint checkpoint;
+        private final ContextoImportacao contexto;
+        private long linhasAnteriores;
+
+        Ordenador(PreparoBloco<T> preparo, Destino<T> destino, Checkpoint checkpoint, ContextoImportacao contexto,
+                  long linhaInicial) {
+            this.preparo = preparo;
+            this.destino = destino;
+            this.checkpoint = checkpoint;
+            this.contexto = contexto;
+            this.linhasAnteriores = linhaInicial;
+        }
+
+        void enviar(Future<Bloco<T>> bloco) throws SQLException {
+            emAndamento.add(bloco);
+            if (emAndamento.size() >= janela) {
+                entregar(emAndamento.poll());
+            }
+        }
+
+        long concluir() throws SQLException {
+            while (!emAndamento.isEmpty()) {
+                entregar(emAndamento.poll());
+            }
+            return linhasAnteriores;
+        }
+
+        void descartar() {
+            emAndamento.forEach(f -> f.cancel(true));
+            emAndamento.clear();
+        }
+
+        private void entregar(Future<Bloco<T>> futuro) throws SQLException {
+            Bloco<T> bloco = aguardar(futuro);
+            if (bloco.erro != null) {
+                throw new IllegalArgumentException("Erro na linha " + (linhasAnteriores + bloco.linhaComErro) + ": " + bloco.erro);
+            }
+            for (Rejeito rejeito : bloco.rejeitos) {
+                contexto.rejeitar(linhasAnteriores + rejeito.linha(), rejeito.conteudo(), rejeito.motivo());
+            }
+            preparo.preparar(bloco.itens);
+            for (T item : bloco.itens) {
+                destino.gravar(item);
+            }
+            linhasAnteriores += bloco.linhas;
+            contexto.linhasProcessadas(bloco.linhas);
+            checkpoint.blocoGravado(linhasAnteriores);
+        }
+
+        private Bloco<T> aguardar(Future<Bloco<T>> futuro) {
+            try {
+                return futuro.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Leitura do arquivo interrompida.");
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Falha na leitura paralela: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import br.com.horizon.portal.application.service.importacao.LeitorCsvParalelo.Checkpoint;
+import br.com.horizon.portal.application.service.importacao.LeitorCsvParalelo.Destino;
+import br.com.horizon.portal.application.service.importacao.LeitorCsvParalelo.PreparoBloco;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Estágio de leitura da ingestão NDJSON (um objeto JSON por linha), o
+ * equivalente do {@link LeitorCsvParalelo} para sistemas que empurram
+ * registros em vez de montar arquivos.
+ * <p>
+ * Os registros são desserializados um a um pelo parser de streaming do
+ * Jackson, à medida que o corpo chega, e entregues ao destino em blocos, com
+ * o mesmo preparo e checkpoint da importação CSV. O registro N é a linha N do
+ * corpo; na retomada de um job o corpo começa no registro seguinte ao
+ * checkpoint e a numeração continua dali.
+ * <p>
+ * Registro com campo inválido é recusado (ou vai para os rejeitos no modo
+ * tolerante) e a leitura segue no próximo; JSON malformado interrompe a carga.
+ */
+@Component
+@RequiredArgsConstructor
+public class LeitorNdjson {
+
+    private static final int REGISTROS_POR_BLOCO = 1000;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param conversor monta o item a gravar; IllegalArgumentException recusa o registro
+     * @return número do último registro lido (contando os já gravados antes de uma retomada)
+     */
+    public <R, T> long processar(InputStreamSource corpo, Class<R> tipo, Function<R, T> conversor,
+                                 PreparoBloco<T> preparo, Destino<T> destino, Checkpoint checkpoint,
+                                 ContextoImportacao contexto) throws IOException, SQLException {
+        long numero = contexto.getLinhaInicial();
+        int lidosNoBloco = 0;
+        List<T> bloco = new ArrayList<>(REGISTROS_POR_BLOCO);
+
+        try (MappingIterator<R> registros = objectMapper.readerFor(tipo).readValues(corpo.getInputStream())) {
+            while (proximo(registros, numero + 1)) {
+                numero++;
+                lidosNoBloco++;
+                try {
+                    T item = conversor.apply(registros.nextValue());
+                    if (item != null) bloco.add(item);
+                } catch (JsonParseException e) {
+                    throw new IllegalArgumentException("JSON inválido no registro " + numero + ": " + e.getOriginalMessage());
+                } catch (DatabindException e) {
+                    // O iterador se reposiciona no fim do objeto com erro
+                    contexto.rejeitar(numero, null, e.getOriginalMessage());
+                } catch (IllegalArgumentException e) {
+                    contexto.rejeitar(numero, null, e.getMessage());
+                }
+
+                if (lidosNoBloco == REGISTROS_POR_BLOCO) {
+                    entregar(bloco, lidosNoBloco, numero, preparo, destino, checkpoint, contexto);
+                    bloco = new ArrayList<>(REGISTROS_POR_BLOCO);
+                    lidosNoBloco = 0;
+                }
+            }
+        }
+        if (lidosNoBloco > 0) {
+            entregar(bloco, lidosNoBloco, numero, preparo, destino, checkpoint, contexto);
+        }
+        return numero;
+    }
+
+    /** Campo exigido no registro (mesma mensagem do CSV). */
+    @SuppressWarnings("unchecked")
+    public static <V> V obrigatorio(V valor, String nomeCampo) {
+        if (valor == null || (valor instanceof String texto && texto.isBlank())) {
+            throw new IllegalArgumentException("Campo obrigatório ausente: " + nomeCampo);
+        }
+        return valor instanceof String texto ? (V) texto.trim() : valor;
+    }
+
+    /** Texto como o CSV grava: sem espaços nas pontas e vazio em vez de nulo (o hash de conteúdo depende disso). */
+    public static String texto(String valor) {
+        return valor == null ? "" : valor.trim();
+    }
+
+    /** Valor monetário ausente vale zero, como o campo vazio do CSV. */
+    public static BigDecimal valor(BigDecimal valor) {
+        return valor == null ? BigDecimal.ZERO : valor;
+    }
+
+    private boolean proximo(MappingIterator<?> registros, long numero) throws IOException {
+        try {
+            return registros.hasNextValue();
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("JSON inválido no registro " + numero + ": " + e.getOriginalMessage());
+        }
+    }
+
+    private <T> void entregar(List<T> bloco, int lidos, long numero, PreparoBloco<T> preparo, Destino<T> destino,
+                              Checkpoint checkpoint, ContextoImportacao contexto) throws SQLException {
+        preparo.preparar(bloco);
+        for (T item : bloco) {
+            destino.gravar(item);
+        }
+        contexto.linhasProcessadas(lidos);
+        checkpoint.blocoGravado(numero);
+    }
+}
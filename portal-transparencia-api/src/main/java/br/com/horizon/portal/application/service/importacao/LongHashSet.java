@@ -0,0 +1,88 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import java.util.Arrays;
+
+/**
+ * Conjunto de {@code long} com endereçamento aberto (sondagem linear).
+ * <p>
+ * Usado nas importações para guardar chaves já existentes no banco sem
+ * criar um objeto Long por registro. Não é thread-safe.
+ */
+public final class LongHashSet {
+
+    private static final long VAZIO = Long.MIN_VALUE;
+
+    private long[] tabela;
+    private int tamanho;
+    private boolean contemVazio;
+
+    public LongHashSet() {
+        this(1024);
+    }
+
+    public LongHashSet(int capacidadeEsperada) {
+        int capacidade = Integer.highestOneBit(Math.max(16, capacidadeEsperada * 2 - 1)) << 1;
+        tabela = new long[capacidade];
+        Arrays.fill(tabela, VAZIO);
+    }
+
+    /** Adiciona o valor. Retorna false se ele já estava no conjunto. */
+    public boolean add(long valor) {
+        if (valor == VAZIO) {
+            if (contemVazio) return false;
+            contemVazio = true;
+            tamanho++;
+            return true;
+        }
+        if ((tamanho + 1) * 2 > tabela.length) {
+            redimensionar();
+        }
+        int mascara = tabela.length - 1;
+        int i = espalhar(valor) & mascara;
+        while (tabela[i] != VAZIO) {
+            if (tabela[i] == valor) return false;
+            i = (i + 1) & mascara;
+        }
+        tabela[i] = valor;
+        tamanho++;
+        return true;
+    }
+
+    public boolean contains(long valor) {
+        if (valor == VAZIO) return contemVazio;
+        int mascara = tabela.length - 1;
+        int i = espalhar(valor) & mascara;
+        while (tabela[i] != VAZIO) {
+            if (tabela[i] == valor) return true;
+            i = (i + 1) & mascara;
+        }
+        return false;
+    }
+
+    public int size() {
+        return tamanho;
+    }
+
+    private void redimensionar() {
+        long[] antiga = tabela;
+        tabela = new long[antiga.length << 1];
+        Arrays.fill(tabela, VAZIO);
+        int mascara = tabela.length - 1;
+        for (long valor : antiga) {
+            if (valor == VAZIO) continue;
+            int i = espalhar(valor) & mascara;
+            while (tabela[i] != VAZIO) {
+                i = (i + 1) & mascara;
+            }
+            tabela[i] = valor;
+        }
+    }
+
+    // Mistura de bits (finalizador do MurmurHash3) para chaves sequenciais não se agruparem
+    private static int espalhar(long valor) {
+        valor ^= valor >>> 33;
+        valor *= 0xff51afd7ed558ccdL;
+        valor ^= valor >>> 33;
+        return (int) valor;
+    }
+}
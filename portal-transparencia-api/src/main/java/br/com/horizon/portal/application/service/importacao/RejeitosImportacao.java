@@ -0,0 +1,147 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Supplier;
+
+/**
+ * Linhas recusadas no modo tolerante. Cada linha inválida é gravada, à medida
+ * que aparece, num CSV (linha;motivo;conteudo) que o operador baixa no fim
+ * do job, e a importação segue com as linhas válidas.
+ * <p>
+ * Passando do limite de erros a importação é abortada: um arquivo com problema
+ * sistemático (layout errado, separador trocado) não precisa ser lido até o fim.
+ * O arquivo só é criado na primeira recusa. Na retomada de um job
+ * ({@link #retomar}) o CSV e a contagem continuam de onde o checkpoint parou.
+ */
+public class RejeitosImportacao {
+
+    private static final String CABECALHO = "linha;motivo;conteudo\n";
+
+    private final int limite;
+    private final Supplier<Path> destino;
+
+    private Path arquivo;
+    private BufferedWriter escritor;
+    private long quantidade;
+
+    /**
+     * @param limite  recusas aceitas; a seguinte aborta a importação
+     * @param destino onde criar o CSV (chamado só se houver recusa)
+     */
+    public RejeitosImportacao(int limite, Supplier<Path> destino) {
+        this.limite = limite;
+        this.destino = destino;
+    }
+
+    /**
+     * Recusas de um job retomado. Do CSV anterior ficam só as linhas até o
+     * checkpoint, pois as seguintes serão lidas (e recusadas) de novo; a
+     * contagem, inclusive para o limite, parte delas e as novas recusas são
+     * acrescentadas ao mesmo arquivo.
+     *
+     * @param anterior CSV da execução anterior (null se ela não recusou nada)
+     * @param ateLinha última linha confirmada (linha_checkpoint do job)
+     */
+    public static RejeitosImportacao retomar(int limite, Path anterior, long ateLinha, Supplier<Path> destino) {
+        RejeitosImportacao rejeitos = new RejeitosImportacao(limite, destino);
+        if (anterior == null || !Files.exists(anterior)) {
+            return rejeitos;
+        }
+        Path filtrado = anterior.resolveSibling(anterior.getFileName() + ".tmp");
+        try {
+            try (BufferedReader in = Files.newBufferedReader(anterior, StandardCharsets.UTF_8);
+                 BufferedWriter out = Files.newBufferedWriter(filtrado, StandardCharsets.UTF_8)) {
+                in.readLine(); // cabeçalho
+                out.write(CABECALHO);
+                String registro;
+                while ((registro = in.readLine()) != null) {
+                    long linha = numeroDaLinha(registro);
+                    if (linha >= 0 && linha <= ateLinha) {
+                        out.write(registro);
+                        out.write('\n');
+                        rejeitos.quantidade++;
+                    }
+                }
+            }
+            Files.move(filtrado, anterior, StandardCopyOption.REPLACE_EXISTING);
+            rejeitos.arquivo = anterior;
+            rejeitos.escritor = Files.newBufferedWriter(anterior, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao retomar o arquivo de rejeitos.", e);
+        }
+        return rejeitos;
+    }
+
+    /** Registra a linha do arquivo (numeração de {@link LeitorCsvParalelo}) como recusada. */
+    public synchronized void rejeitar(long linha, String conteudo, String motivo) {
+        quantidade++;
+        try {
+            if (escritor == null) {
+                arquivo = destino.get();
+                escritor = Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8);
+                escritor.write(CABECALHO);
+            }
+            escritor.write(Long.toString(linha));
+            escritor.write(';');
+            escreverCampo(motivo);
+            escritor.write(';');
+            escreverCampo(conteudo);
+            escritor.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar o arquivo de rejeitos.", e);
+        }
+        if (quantidade > limite) {
+            throw new IllegalStateException("Importação abortada: mais de " + limite
+                    + " linhas recusadas (última: linha " + linha + ", " + motivo + ").");
+        }
+    }
+
+    public synchronized long getQuantidade() {
+        return quantidade;
+    }
+
+    /** CSV gerado, ou null se nenhuma linha foi recusada. */
+    public synchronized Path getArquivo() {
+        return arquivo;
+    }
+
+    public synchronized void fechar() {
+        if (escritor == null) return;
+        try {
+            escritor.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao finalizar o arquivo de rejeitos.", e);
+        }
+    }
+
+    // Entre aspas, com aspas internas dobradas: o conteúdo original tem ';' por definição.
+    // Quebras de linha (de uma mensagem de erro) viram espaço: uma recusa por linha do CSV, que a retomada relê
+    private void escreverCampo(String valor) throws IOException {
+        escritor.write('"');
+        if (valor != null) {
+            escritor.write(valor.replace("\"", "\"\"").replace('\r', ' ').replace('\n', ' '));
+        }
+        escritor.write('"');
+    }
+
+    // Número no início do registro ("123;..."), ou -1 se a linha não começa assim
+    private static long numeroDaLinha(String registro) {
+        int fim = registro.indexOf(';');
+        if (fim <= 0) return -1;
+        long numero = 0;
+        for (int i = 0; i < fim; i++) {
+            char c = registro.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            numero = numero * 10 + (c - '0');
+        }
+        return numero;
+    }
+}
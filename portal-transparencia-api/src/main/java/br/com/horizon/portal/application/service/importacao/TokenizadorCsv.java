@@ -0,0 +1,189 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import java.math.BigDecimal;
+import java.nio.CharBuffer;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Separador de campos das importações CSV (padrão ';', aspas RFC 4180).
+ * <p>
+ * Substitui o {@code split(";")} + {@code trim()} copiado em cada importador:
+ * a linha é copiada uma vez para um buffer reaproveitado e os campos ficam
+ * como intervalos desse buffer, já sem espaços nas pontas. Só vira String o
+ * campo que o importador realmente lê; números e dígitos de CPF/CNPJ são
+ * extraídos direto do buffer, sem regex.
+ * <p>
+ * Campos entre aspas aceitam o separador e {@code ""} como aspas literal.
+ * Quebra de linha dentro de aspas não é suportada, pois os arquivos são
+ * divididos por linha antes daqui. Não é thread-safe: use {@link #daThread()}
+ * quando o parser roda em várias threads.
+ */
+public final class TokenizadorCsv {
+
+    private static final ThreadLocal<TokenizadorCsv> POR_THREAD = ThreadLocal.withInitial(TokenizadorCsv::new);
+
+    private final char separador;
+
+    private char[] buffer = new char[512];
+    private int[] inicios = new int[32];
+    private int[] fins = new int[32];
+    private int quantidade;
+    private char[] digitos = new char[32];
+    private final ConversorData conversorData = new ConversorData();
+
+    public TokenizadorCsv() {
+        this(';');
+    }
+
+    public TokenizadorCsv(char separador) {
+        this.separador = separador;
+    }
+
+    /** Instância exclusiva da thread corrente. */
+    public static TokenizadorCsv daThread() {
+        return POR_THREAD.get();
+    }
+
+    /** Separa os campos da linha. Os campos anteriores deixam de valer. */
+    public TokenizadorCsv analisar(CharSequence linha) {
+        int tamanho = linha.length();
+        if (buffer.length < tamanho) {
+            buffer = new char[Math.max(tamanho, buffer.length * 2)];
+        }
+        quantidade = 0;
+        int escrita = 0;
+        int i = 0;
+
+        while (true) {
+            while (i < tamanho && linha.charAt(i) != separador && linha.charAt(i) <= ' ') i++;
+            int inicio = escrita;
+
+            if (i < tamanho && linha.charAt(i) == '"') {
+                i++;
+                boolean fechado = false;
+                while (i < tamanho) {
+                    char c = linha.charAt(i++);
+                    if (c != '"') {
+                        buffer[escrita++] = c;
+                    } else if (i < tamanho && linha.charAt(i) == '"') {
+                        buffer[escrita++] = '"';
+                        i++;
+                    } else {
+                        fechado = true;
+                        break;
+                    }
+                }
+                if (!fechado) {
+                    throw new IllegalArgumentException("Campo " + (quantidade + 1) + " abre aspas sem fechar.");
+                }
+            }
+            // Conteúdo sem aspas (ou o que sobrar depois delas) até o separador
+            while (i < tamanho && linha.charAt(i) != separador) {
+                buffer[escrita++] = linha.charAt(i++);
+            }
+
+            int fim = escrita;
+            while (fim > inicio && buffer[fim - 1] <= ' ') fim--;
+            adicionar(inicio, fim);
+
+            if (i >= tamanho) break;
+            i++; // separador
+        }
+        return this;
+    }
+
+    public int quantidade() {
+        return quantidade;
+    }
+
+    public boolean vazio(int campo) {
+        return fins[indice(campo)] == inicios[campo];
+    }
+
+    /** Campo como fatia do buffer, válida até a próxima chamada de {@link #analisar}. */
+    public CharSequence campo(int campo) {
+        int i = indice(campo);
+        return CharBuffer.wrap(buffer, inicios[i], fins[i] - inicios[i]);
+    }
+
+    /** Campo como String, sem espaços nas pontas (o equivalente a {@code dados[i].trim()}). */
+    public String texto(int campo) {
+        int i = indice(campo);
+        return new String(buffer, inicios[i], fins[i] - inicios[i]);
+    }
+
+    /** Só os dígitos do campo (o equivalente a {@code replaceAll("\\D", "")}). */
+    public String digitos(int campo) {
+        int i = indice(campo);
+        int tamanho = fins[i] - inicios[i];
+        if (digitos.length < tamanho) {
+            digitos = new char[tamanho];
+        }
+        int n = 0;
+        for (int p = inicios[i]; p < fins[i]; p++) {
+            char c = buffer[p];
+            if (c >= '0' && c <= '9') digitos[n++] = c;
+        }
+        return new String(digitos, 0, n);
+    }
+
+    /** Campo como int, sem criar String; mesmas regras (e mensagem de erro) de {@code Integer.parseInt}. */
+    public int inteiro(int campo) {
+        int i = indice(campo);
+        int p = inicios[i];
+        int fim = fins[i];
+        boolean negativo = false;
+        if (p < fim && (buffer[p] == '-' || buffer[p] == '+')) {
+            negativo = buffer[p] == '-';
+            p++;
+        }
+        if (p == fim) throw numeroInvalido(i);
+
+        long valor = 0;
+        for (; p < fim; p++) {
+            char c = buffer[p];
+            if (c < '0' || c > '9') throw numeroInvalido(i);
+            valor = valor * 10 + (c - '0');
+            if (valor > Integer.MAX_VALUE + 1L) throw numeroInvalido(i);
+        }
+        valor = negativo ? -valor : valor;
+        if (valor > Integer.MAX_VALUE) throw numeroInvalido(i);
+        return (int) valor;
+    }
+
+    /** Valor monetário "1.234,56" (ver {@link ConversorMoeda}); campo vazio vale zero. */
+    public BigDecimal moeda(int campo) {
+        int i = indice(campo);
+        if (fins[i] == inicios[i]) return BigDecimal.ZERO;
+        return ConversorMoeda.converter(buffer, inicios[i], fins[i]);
+    }
+
+    /** Data dd/MM/yyyy (ver {@link ConversorData}); campo vazio devolve null. */
+    public LocalDate data(int campo) {
+        int i = indice(campo);
+        if (fins[i] == inicios[i]) return null;
+        return conversorData.converter(buffer, inicios[i], fins[i]);
+    }
+
+    private NumberFormatException numeroInvalido(int i) {
+        return new NumberFormatException("For input string: \"" + new String(buffer, inicios[i], fins[i] - inicios[i]) + "\"");
+    }
+
+    private int indice(int campo) {
+        if (campo < 0 || campo >= quantidade) {
+            throw new IllegalArgumentException("Coluna " + (campo + 1) + " ausente: a linha tem " + quantidade + " colunas.");
+        }
+        return campo;
+    }
+
+    private void adicionar(int inicio, int fim) {
+        if (quantidade == inicios.length) {
+            inicios = Arrays.copyOf(inicios, quantidade * 2);
+            fins = Arrays.copyOf(fins, quantidade * 2);
+        }
+        inicios[quantidade] = inicio;
+        fins[quantidade] = fim;
+        quantidade++;
+    }
+}
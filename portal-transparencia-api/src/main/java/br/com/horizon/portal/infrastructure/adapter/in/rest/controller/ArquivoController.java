@@ -26,7 +26,10 @@ public class ArquivoController {
     public ResponseEntity<Map<String, String>> uploadArquivo(
             @RequestParam("file") MultipartFile file,
             @RequestParam(value = "subpasta", defaultValue = "geral") String subpasta) {
-        
+        if (!armazenamentoService.isPublica(subpasta)) {
+            return ResponseEntity.badRequest().build();
+        }
+
         String urlArquivo = armazenamentoService.salvar(file, subpasta);
         return ResponseEntity.ok(Map.of("url", urlArquivo));
     }
@@ -35,6 +38,10 @@ public class ArquivoController {
     @GetMapping("/{subPasta}/{nomeArquivo:.+}")
     @ResponseBody
     public ResponseEntity<Resource> baixarArquivoComSubpasta(@PathVariable String subPasta, @PathVariable String nomeArquivo) {
+        // Arquivos internos (auditoria, rejeitos de importação) só saem pelas rotas administrativas
+        if (!armazenamentoService.isPublica(subPasta + "/" + nomeArquivo)) {
+            return ResponseEntity.notFound().build();
+        }
         Resource file = armazenamentoService.carregar(subPasta, nomeArquivo);
         return construirRespostaDownload(file);
     }
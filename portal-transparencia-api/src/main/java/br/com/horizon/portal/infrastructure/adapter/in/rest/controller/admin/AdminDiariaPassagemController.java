@@ -4,6 +4,7 @@ import br.com.horizon.portal.application.dto.diarias.DiariaPassagemDTO;
 import br.com.horizon.portal.application.service.DiariaPassagemService;
 import br.com.horizon.portal.infrastructure.persistence.entity.DiariaPassagemEntity;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -16,6 +17,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -64,35 +66,31 @@ public class AdminDiariaPassagemController {
     // --- ENDPOINTS DE EXPORTAÇÃO ---
 
     @GetMapping("/exportar/csv")
-    public ResponseEntity<byte[]> exportarCsv(
+    public void exportarCsv(
             @RequestParam(required = false) Integer exercicio,
             @RequestParam(required = false) String nomeFavorecido,
             @RequestParam(required = false) String destinoViagem,
-            @RequestParam(required = false) String numeroProcesso) {
+            @RequestParam(required = false) String numeroProcesso,
+            HttpServletResponse response) throws IOException {
 
         Specification<DiariaPassagemEntity> spec = buildSpecification(exercicio, nomeFavorecido, destinoViagem, numeroProcesso);
-        byte[] conteudo = service.exportarCsv(spec, false); // Admin vê dado real (sem máscara)
-
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=diarias_passagens.csv")
-                .contentType(MediaType.parseMediaType("text/csv"))
-                .body(conteudo);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=diarias_passagens.csv");
+        response.setContentType("text/csv; charset=UTF-8");
+        service.exportarCsv(spec, false, response.getOutputStream()); // Admin vê dado real (sem máscara)
     }
 
     @GetMapping("/exportar/pdf")
-    public ResponseEntity<byte[]> exportarPdf(
+    public void exportarPdf(
             @RequestParam(required = false) Integer exercicio,
             @RequestParam(required = false) String nomeFavorecido,
             @RequestParam(required = false) String destinoViagem,
-            @RequestParam(required = false) String numeroProcesso) {
+            @RequestParam(required = false) String numeroProcesso,
+            HttpServletResponse response) throws IOException {
 
         Specification<DiariaPassagemEntity> spec = buildSpecification(exercicio, nomeFavorecido, destinoViagem, numeroProcesso);
-        byte[] conteudo = service.exportarPdf(spec, false); // Admin vê dado real (sem máscara)
-
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=diarias_passagens.pdf")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(conteudo);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=diarias_passagens.pdf");
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        service.exportarPdf(spec, false, response.getOutputStream()); // Admin vê dado real (sem máscara)
     }
 
     // --- MÉTODOS PRIVADOS ---
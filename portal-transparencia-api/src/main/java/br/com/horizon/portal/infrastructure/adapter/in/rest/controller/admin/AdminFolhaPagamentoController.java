@@ -2,7 +2,12 @@ package br.com.horizon.portal.infrastructure.adapter.in.rest.controller.admin;
 
 import br.com.horizon.portal.application.dto.folhapagamento.FolhaEstatisticaDTO;
 import br.com.horizon.portal.application.dto.folhapagamento.FolhaPagamentoAdminDTO;
+import br.com.horizon.portal.application.dto.importacao.ImportacaoJobDTO;
 import br.com.horizon.portal.application.service.FolhaPagamentoService;
+import br.com.horizon.portal.application.service.ImportacaoJobService;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModoImportacao;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModuloImportacao;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -13,7 +18,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.Map;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/api/v1/folha-pagamento")
@@ -21,6 +26,7 @@ import java.util.Map;
 public class AdminFolhaPagamentoController {
 
     private final FolhaPagamentoService folhaPagamentoService;
+    private final ImportacaoJobService importacaoJobService;
 
     @GetMapping
     public ResponseEntity<Page<FolhaPagamentoAdminDTO>> listar(
@@ -43,41 +49,34 @@ public class AdminFolhaPagamentoController {
     }
 
     @GetMapping("/exportar/csv")
-    public ResponseEntity<byte[]> exportarCsv(
+    public void exportarCsv(
             @RequestParam(required = false) String nomeServidor,
             @RequestParam(required = false) Integer exercicio,
-            @RequestParam(required = false) Integer mes) {
-        
-        byte[] data = folhaPagamentoService.exportarAdminCsv(nomeServidor, exercicio, mes);
+            @RequestParam(required = false) Integer mes,
+            HttpServletResponse response) throws IOException {
         
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=folha_admin_completa.csv")
-                .contentType(MediaType.parseMediaType("text/csv"))
-                .body(data);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=folha_admin_completa.csv");
+        response.setContentType("text/csv; charset=UTF-8");
+        folhaPagamentoService.exportarAdminCsv(nomeServidor, exercicio, mes, response.getOutputStream());
     }
 
     @GetMapping("/exportar/pdf")
-    public ResponseEntity<byte[]> exportarPdf(
+    public void exportarPdf(
             @RequestParam(required = false) String nomeServidor,
             @RequestParam(required = false) Integer exercicio,
-            @RequestParam(required = false) Integer mes) {
-        
-        byte[] data = folhaPagamentoService.exportarAdminPdf(nomeServidor, exercicio, mes);
+            @RequestParam(required = false) Integer mes,
+            HttpServletResponse response) throws IOException {
         
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=folha_admin_completa.pdf")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(data);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=folha_admin_completa.pdf");
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        folhaPagamentoService.exportarAdminPdf(nomeServidor, exercicio, mes, response.getOutputStream());
     }
 
     @PostMapping("/importar")
-    public ResponseEntity<Map<String, String>> importarCsv(@RequestParam("file") MultipartFile file) {
-        String idImportacao = folhaPagamentoService.importarFolhaCsv(file);
-        
-        return ResponseEntity.ok(Map.of(
-                "mensagem", "Folha de pagamento importada com sucesso",
-                "idImportacao", idImportacao
-        ));
+    public ResponseEntity<ImportacaoJobDTO> importarCsv(@RequestParam("file") MultipartFile file,
+                                         @RequestParam(required = false) Integer limiteErros) {
+        ImportacaoJobDTO job = importacaoJobService.submeter(ModuloImportacao.FOLHA_PAGAMENTO, file, ModoImportacao.COMPLETA, limiteErros);
+        return ResponseEntity.accepted().body(job);
     }
 
     @DeleteMapping("/importacao/{idImportacao}")
@@ -1,7 +1,12 @@
 package br.com.horizon.portal.infrastructure.adapter.in.rest.controller.admin;
 
+import br.com.horizon.portal.application.dto.importacao.ImportacaoJobDTO;
 import br.com.horizon.portal.application.dto.servidor.ServidorAdminDTO;
+import br.com.horizon.portal.application.service.ImportacaoJobService;
 import br.com.horizon.portal.application.service.ServidorService;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModoImportacao;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModuloImportacao;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -12,7 +17,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.Map;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/api/v1/servidores")
@@ -20,6 +25,7 @@ import java.util.Map;
 public class AdminServidorController {
 
     private final ServidorService servidorService;
+    private final ImportacaoJobService importacaoJobService;
 
     @GetMapping
     public ResponseEntity<Page<ServidorAdminDTO>> listar(
@@ -33,41 +39,35 @@ public class AdminServidorController {
     }
 
     @GetMapping("/exportar/csv")
-    public ResponseEntity<byte[]> exportarCsv(
+    public void exportarCsv(
             @RequestParam(required = false) String nome,
             @RequestParam(required = false) String cargo,
-            @RequestParam(required = false) String lotacao) {
-        
-        byte[] data = servidorService.exportarAdminCsv(nome, cargo, lotacao);
+            @RequestParam(required = false) String lotacao,
+            HttpServletResponse response) throws IOException {
         
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=servidores_admin.csv")
-                .contentType(MediaType.parseMediaType("text/csv"))
-                .body(data);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=servidores_admin.csv");
+        response.setContentType("text/csv; charset=UTF-8");
+        servidorService.exportarAdminCsv(nome, cargo, lotacao, response.getOutputStream());
     }
 
     @GetMapping("/exportar/pdf")
-    public ResponseEntity<byte[]> exportarPdf(
+    public void exportarPdf(
             @RequestParam(required = false) String nome,
             @RequestParam(required = false) String cargo,
-            @RequestParam(required = false) String lotacao) {
-        
-        byte[] data = servidorService.exportarAdminPdf(nome, cargo, lotacao);
+            @RequestParam(required = false) String lotacao,
+            HttpServletResponse response) throws IOException {
         
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=servidores_admin.pdf")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(data);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=servidores_admin.pdf");
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        servidorService.exportarAdminPdf(nome, cargo, lotacao, response.getOutputStream());
     }
 
     @PostMapping("/importar")
-    public ResponseEntity<Map<String, String>> importarCsv(@RequestParam("file") MultipartFile file) {
-        String idImportacao = servidorService.importarServidoresCsv(file);
-        
-        return ResponseEntity.ok(Map.of(
-                "mensagem", "Importação realizada com sucesso",
-                "idImportacao", idImportacao
-        ));
+    public ResponseEntity<ImportacaoJobDTO> importarCsv(@RequestParam("file") MultipartFile file,
+                                         @RequestParam(required = false) Integer limiteErros) {
+        // Inseridos/atualizados/inalterados ficam no resumo do job ao final
+        ImportacaoJobDTO job = importacaoJobService.submeter(ModuloImportacao.SERVIDOR, file, ModoImportacao.COMPLETA, limiteErros);
+        return ResponseEntity.accepted().body(job);
     }
 
     @DeleteMapping("/importacao/{idImportacao}")
@@ -1,9 +1,13 @@
 package br.com.horizon.portal.infrastructure.adapter.in.rest.controller.admin;
 
 import br.com.horizon.portal.application.dto.despesa.DespesaAdminDTO;
+import br.com.horizon.portal.application.dto.importacao.ImportacaoJobDTO;
 import br.com.horizon.portal.application.service.DespesaService;
+import br.com.horizon.portal.application.service.ImportacaoJobService;
 import br.com.horizon.portal.application.service.PortalDespesaService;
 import br.com.horizon.portal.infrastructure.persistence.entity.DespesaEntity;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModoImportacao;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModuloImportacao;
 import br.com.horizon.portal.infrastructure.persistence.repository.DespesaRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -28,6 +32,7 @@ public class DespesaController {
 
     private final DespesaRepository repository;
     private final DespesaService service;
+    private final ImportacaoJobService importacaoJobService;
     private final PortalDespesaService searchService; 
 
     // --- 1. LISTAGEM COM FILTROS COMPLETOS (AGORA COM PROCESSOS E AÇÕES) ---
@@ -74,10 +79,12 @@ public class DespesaController {
 
     // --- 4. IMPORTAÇÃO ---
     @PostMapping("/upload")
-    public ResponseEntity<String> importarCsv(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> importarCsv(@RequestParam("file") MultipartFile file,
+                                         @RequestParam(defaultValue = "COMPLETA") ModoImportacao modo,
+                                         @RequestParam(required = false) Integer limiteErros) {
         if (file.isEmpty()) return ResponseEntity.badRequest().body("Arquivo vazio!");
-        service.importarArquivoCsv(file);
-        return ResponseEntity.ok("Arquivo de Despesas processado com sucesso!");
+        ImportacaoJobDTO job = importacaoJobService.submeter(ModuloImportacao.DESPESA, file, modo, limiteErros);
+        return ResponseEntity.accepted().body(job);
     }
 
     // --- 5. ROLLBACK ---
@@ -1,9 +1,13 @@
 package br.com.horizon.portal.infrastructure.adapter.in.rest.controller.admin;
 
 import br.com.horizon.portal.application.dto.divida.DividaAtivaAdminDTO;
+import br.com.horizon.portal.application.dto.importacao.ImportacaoJobDTO;
 import br.com.horizon.portal.application.service.DividaAtivaService;
+import br.com.horizon.portal.application.service.ImportacaoJobService;
 import br.com.horizon.portal.application.service.PortalDividaAtivaService;
 import br.com.horizon.portal.infrastructure.persistence.entity.DividaAtivaEntity;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModoImportacao;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModuloImportacao;
 import br.com.horizon.portal.infrastructure.persistence.repository.DividaAtivaRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -24,6 +28,7 @@ public class DividaAtivaController {
 
     private final DividaAtivaRepository repository;
     private final DividaAtivaService service;
+    private final ImportacaoJobService importacaoJobService;
     private final PortalDividaAtivaService searchService; // Reaproveitamos a lógica de busca do Portal
 
     // --- LISTAGEM BLINDADA PELO DTO ---
@@ -48,10 +53,11 @@ public class DividaAtivaController {
     }
 
     @PostMapping("/upload")
-    public ResponseEntity<String> importarCsv(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> importarCsv(@RequestParam("file") MultipartFile file,
+                                         @RequestParam(required = false) Integer limiteErros) {
         if (file.isEmpty()) return ResponseEntity.badRequest().body("Arquivo vazio!");
-        service.importarArquivoCsv(file);
-        return ResponseEntity.ok("Arquivo de Dívida Ativa processado com sucesso!");
+        ImportacaoJobDTO job = importacaoJobService.submeter(ModuloImportacao.DIVIDA_ATIVA, file, ModoImportacao.COMPLETA, limiteErros);
+        return ResponseEntity.accepted().body(job);
     }
 
     @DeleteMapping("/lote/{loteId}")
@@ -0,0 +1,177 @@
+package br.com.horizon.portal.infrastructure.adapter.in.rest.controller.admin;
+
+import br.com.horizon.portal.application.dto.importacao.ImportacaoJobDTO;
+import br.com.horizon.portal.application.service.ImportacaoJobService;
+import br.com.horizon.portal.application.service.UploadImportacaoService;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModoImportacao;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModuloImportacao;
+import br.com.horizon.portal.infrastructure.persistence.enums.StatusImportacao;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/importacoes") // ROTA PRIVADA ADMIN
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ImportacaoJobController {
+
+    private static final String HEADER_OFFSET = "Upload-Offset";
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final ImportacaoJobService service;
+    private final UploadImportacaoService uploadService;
+    private final ObjectMapper objectMapper;
+
+    // Histórico dos jobs, mais recentes primeiro
+    @GetMapping
+    public ResponseEntity<Page<ImportacaoJobDTO>> listar(
+            @RequestParam(required = false) ModuloImportacao modulo,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(service.listar(modulo, pageable));
+    }
+
+    // Polling de progresso
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportacaoJobDTO> consultar(@PathVariable Long id) {
+        return ResponseEntity.ok(service.consultar(id));
+    }
+
+    @PostMapping("/{id}/cancelar")
+    public ResponseEntity<ImportacaoJobDTO> cancelar(@PathVariable Long id) {
+        return ResponseEntity.accepted().body(service.cancelar(id));
+    }
+
+    // Modo tolerante (parâmetro limiteErros nos uploads): linhas recusadas, com número e motivo
+    @GetMapping("/{id}/rejeitos")
+    public ResponseEntity<Resource> baixarRejeitos(@PathVariable Long id) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv; charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"rejeitos-job-" + id + ".csv\"")
+                .body(service.rejeitos(id));
+    }
+
+    // Job que falhou com parte da carga confirmada: reenvie o arquivo para continuar do checkpoint
+    @PostMapping(value = "/{id}/retomar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportacaoJobDTO> retomar(@PathVariable Long id, @RequestParam("file") MultipartFile file) {
+        return ResponseEntity.accepted().body(service.retomar(id, file));
+    }
+
+    // --- ARQUIVOS GRANDES (SEM O LIMITE DO MULTIPART) ---
+
+    // Corpo bruto (CSV ou CSV.gz) importado enquanto chega; responde ao final com o job
+    @PostMapping("/{modulo}/fluxo")
+    public ResponseEntity<ImportacaoJobDTO> importarEmFluxo(
+            @PathVariable ModuloImportacao modulo,
+            @RequestParam(required = false) String nomeArquivo,
+            @RequestParam(defaultValue = "COMPLETA") ModoImportacao modo,
+            @RequestParam(required = false) Integer limiteErros,
+            HttpServletRequest request) throws IOException {
+        ImportacaoJobDTO job = service.importarEmFluxo(modulo, nomeArquivo, request.getInputStream(), modo, limiteErros);
+        return job.getStatus() == StatusImportacao.CONCLUIDA
+                ? ResponseEntity.ok(job)
+                : ResponseEntity.badRequest().body(job);
+    }
+
+    // NDJSON (receita e despesa): responde em NDJSON com {"confirmados":N} a cada commit e o job na última linha
+    @PostMapping(value = "/{modulo}/ndjson", consumes = NDJSON, produces = NDJSON)
+    public void importarNdjson(
+            @PathVariable ModuloImportacao modulo,
+            @RequestParam(required = false) String nomeArquivo,
+            @RequestParam(defaultValue = "COMPLETA") ModoImportacao modo,
+            @RequestParam(required = false) Integer limiteErros,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        OutputStream saida = abrirNdjson(response);
+        ImportacaoJobDTO job = service.importarNdjson(modulo, nomeArquivo, request.getInputStream(), modo, limiteErros,
+                confirmados -> escreverLinha(saida, Map.of("confirmados", confirmados)));
+        escreverLinha(saida, job);
+    }
+
+    // Reenvie só os registros depois do último "confirmados" recebido
+    @PostMapping(value = "/{id}/ndjson/retomar", consumes = NDJSON, produces = NDJSON)
+    public void retomarNdjson(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        OutputStream saida = abrirNdjson(response);
+        ImportacaoJobDTO job = service.retomarNdjson(id, request.getInputStream(),
+                confirmados -> escreverLinha(saida, Map.of("confirmados", confirmados)));
+        escreverLinha(saida, job);
+    }
+
+    // Upload retomável: abre a sessão, envia trechos com o header Upload-Offset e conclui
+    @PostMapping("/uploads")
+    public ResponseEntity<Map<String, Object>> iniciarUpload() {
+        String uploadId = uploadService.iniciarSessao();
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(HEADER_OFFSET, "0")
+                .body(Map.of("uploadId", uploadId, "offset", 0L));
+    }
+
+    @RequestMapping(value = "/uploads/{uploadId}", method = {RequestMethod.HEAD, RequestMethod.GET})
+    public ResponseEntity<Void> consultarUpload(@PathVariable String uploadId) {
+        return ResponseEntity.noContent()
+                .header(HEADER_OFFSET, String.valueOf(uploadService.recebido(uploadId)))
+                .build();
+    }
+
+    @PatchMapping("/uploads/{uploadId}")
+    public ResponseEntity<Void> enviarTrecho(
+            @PathVariable String uploadId,
+            @RequestHeader(HEADER_OFFSET) long offset,
+            HttpServletRequest request) throws IOException {
+        long recebido = uploadService.recebido(uploadId);
+        if (offset != recebido) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).header(HEADER_OFFSET, String.valueOf(recebido)).build();
+        }
+        long total = uploadService.anexar(uploadId, offset, request.getInputStream());
+        return ResponseEntity.noContent().header(HEADER_OFFSET, String.valueOf(total)).build();
+    }
+
+    @PostMapping("/uploads/{uploadId}/concluir")
+    public ResponseEntity<ImportacaoJobDTO> concluirUpload(
+            @PathVariable String uploadId,
+            @RequestParam ModuloImportacao modulo,
+            @RequestParam(required = false) String nomeArquivo,
+            @RequestParam(defaultValue = "COMPLETA") ModoImportacao modo,
+            @RequestParam(required = false) Integer limiteErros) {
+        return ResponseEntity.accepted().body(uploadService.concluir(uploadId, modulo, nomeArquivo, modo, limiteErros));
+    }
+
+    private OutputStream abrirNdjson(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        return response.getOutputStream();
+    }
+
+    // Cada linha sai na hora: o cliente acompanha os commits sem esperar o fim do corpo
+    private void escreverLinha(OutputStream saida, Object valor) {
+        try {
+            saida.write(objectMapper.writeValueAsBytes(valor));
+            saida.write('\n');
+            saida.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Conexão encerrada pelo cliente: " + e.getMessage(), e);
+        }
+    }
+
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<Void> descartarUpload(@PathVariable String uploadId) {
+        uploadService.descartar(uploadId);
+        return ResponseEntity.noContent().build();
+    }
+}
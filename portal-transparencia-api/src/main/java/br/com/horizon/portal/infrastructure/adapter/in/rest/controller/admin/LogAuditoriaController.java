@@ -1,10 +1,14 @@
 package br.com.horizon.portal.infrastructure.adapter.in.rest.controller.admin;
 
+import br.com.horizon.portal.application.service.ArquivoAuditoriaService;
 import br.com.horizon.portal.infrastructure.persistence.entity.LogAuditoriaEntity;
 import br.com.horizon.portal.infrastructure.persistence.repository.LogAuditoriaRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,6 +19,7 @@ import org.springframework.web.bind.annotation.*;
 public class LogAuditoriaController {
 
     private final LogAuditoriaRepository repository;
+    private final ArquivoAuditoriaService arquivoAuditoriaService;
 
     @GetMapping
     public ResponseEntity<Page<LogAuditoriaEntity>> listarAuditoria(
@@ -36,4 +41,14 @@ public class LogAuditoriaController {
                         filtroUsuario,
                         pageable));
     }
-}
\ No newline at end of file
+
+    // Dados de auditoria grandes (ex.: desfazer de lote) ficam num NDJSON gzip; o log guarda só a referência
+    @GetMapping("/{id}/arquivo")
+    public ResponseEntity<Resource> baixarArquivo(@PathVariable Long id) {
+        Resource arquivo = arquivoAuditoriaService.carregarDoLog(id);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/gzip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"auditoria-" + id + ".ndjson.gz\"")
+                .body(arquivo);
+    }
+}
@@ -1,8 +1,12 @@
 package br.com.horizon.portal.infrastructure.adapter.in.rest.controller.admin;
 
+import br.com.horizon.portal.application.dto.importacao.ImportacaoJobDTO;
 import br.com.horizon.portal.application.dto.receita.ReceitaResponse;
+import br.com.horizon.portal.application.service.ImportacaoJobService;
 import br.com.horizon.portal.application.service.ReceitaService;
 import br.com.horizon.portal.infrastructure.persistence.entity.ReceitaEntity;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModoImportacao;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModuloImportacao;
 import br.com.horizon.portal.infrastructure.persistence.repository.ReceitaRepository;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
@@ -29,6 +33,7 @@ public class ReceitaController {
 
     private final ReceitaRepository repository;
     private final ReceitaService service;
+    private final ImportacaoJobService importacaoJobService;
 
     @GetMapping
     public ResponseEntity<Page<ReceitaResponse>> listar(
@@ -84,11 +89,14 @@ public ResponseEntity<BigDecimal> totalArrecadado(@RequestParam(required = false
 }
 
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<String> importarCsv(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> importarCsv(@RequestParam("file") MultipartFile file,
+                                         @RequestParam(defaultValue = "COMPLETA") ModoImportacao modo,
+                                         @RequestParam(required = false) Integer limiteErros) {
         if (file.isEmpty())
             return ResponseEntity.badRequest().body("Arquivo vazio!");
-        service.importarArquivoCsv(file);
-        return ResponseEntity.ok("Arquivo processado com sucesso!");
+        // Processamento em segundo plano: acompanhar por /api/v1/importacoes/{id}
+        ImportacaoJobDTO job = importacaoJobService.submeter(ModuloImportacao.RECEITA, file, modo, limiteErros);
+        return ResponseEntity.accepted().body(job);
     }
 
     @DeleteMapping("/lote/{loteId}")
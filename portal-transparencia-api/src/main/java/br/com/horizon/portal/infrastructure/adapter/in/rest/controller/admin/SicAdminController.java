@@ -4,6 +4,7 @@ import br.com.horizon.portal.application.dto.sic.SicEstatisticasDTO;
 import br.com.horizon.portal.application.dto.sic.SicSolicitacaoResponseDTO;
 import br.com.horizon.portal.application.dto.sic.SicTramiteRequestDTO;
 import br.com.horizon.portal.application.service.SicSolicitacaoService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -17,6 +18,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.LocalDate;
 
 @RestController
@@ -48,29 +50,25 @@ public class SicAdminController {
     }
 
     @GetMapping("/exportar")
-    public ResponseEntity<byte[]> exportarRelatorio(
+    public void exportarRelatorio(
             @RequestParam String tipo,
             @RequestParam(required = false) String busca,
             @RequestParam(required = false, defaultValue = "TODOS") String statusFiltro,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim,
+            HttpServletResponse response) throws IOException {
 
-        byte[] arquivo;
-        String contentType;
         String extensao = tipo.toLowerCase();
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"relatorio_esic." + extensao + "\"");
 
+        // Escrito direto na resposta, sem montar o arquivo em memória
         if ("pdf".equals(extensao)) {
-            arquivo = service.exportarPdfAdmin(busca, statusFiltro, dataInicio, dataFim);
-            contentType = "application/pdf";
+            response.setContentType("application/pdf");
+            service.exportarPdfAdmin(busca, statusFiltro, dataInicio, dataFim, response.getOutputStream());
         } else {
-            arquivo = service.exportarCsvAdmin(busca, statusFiltro, dataInicio, dataFim);
-            contentType = "text/csv";
+            response.setContentType("text/csv; charset=UTF-8");
+            service.exportarCsvAdmin(busca, statusFiltro, dataInicio, dataFim, response.getOutputStream());
         }
-
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"relatorio_esic." + extensao + "\"")
-                .header(HttpHeaders.CONTENT_TYPE, contentType)
-                .body(arquivo);
     }
 
     @PutMapping("/{id}/tramitar")
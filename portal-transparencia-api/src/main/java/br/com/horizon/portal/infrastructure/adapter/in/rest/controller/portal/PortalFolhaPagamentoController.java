@@ -3,6 +3,7 @@ package br.com.horizon.portal.infrastructure.adapter.in.rest.controller.portal;
 import br.com.horizon.portal.application.dto.folhapagamento.FolhaEstatisticaDTO;
 import br.com.horizon.portal.application.dto.folhapagamento.FolhaPagamentoPublicoDTO;
 import br.com.horizon.portal.application.service.FolhaPagamentoService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -12,6 +13,8 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+
 @RestController
 @RequestMapping("/api/v1/portal/folha-pagamento")
 @RequiredArgsConstructor
@@ -40,30 +43,26 @@ public class PortalFolhaPagamentoController {
     }
 
     @GetMapping("/exportar/csv")
-    public ResponseEntity<byte[]> exportarCsv(
+    public void exportarCsv(
             @RequestParam(required = false) String nomeServidor,
             @RequestParam(required = false) Integer exercicio,
-            @RequestParam(required = false) Integer mes) {
-        
-        byte[] data = folhaPagamentoService.exportarPublicoCsv(nomeServidor, exercicio, mes);
+            @RequestParam(required = false) Integer mes,
+            HttpServletResponse response) throws IOException {
         
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=folha_pagamento_portal.csv")
-                .contentType(MediaType.parseMediaType("text/csv"))
-                .body(data);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=folha_pagamento_portal.csv");
+        response.setContentType("text/csv; charset=UTF-8");
+        folhaPagamentoService.exportarPublicoCsv(nomeServidor, exercicio, mes, response.getOutputStream());
     }
 
     @GetMapping("/exportar/pdf")
-    public ResponseEntity<byte[]> exportarPdf(
+    public void exportarPdf(
             @RequestParam(required = false) String nomeServidor,
             @RequestParam(required = false) Integer exercicio,
-            @RequestParam(required = false) Integer mes) {
-        
-        byte[] data = folhaPagamentoService.exportarPublicoPdf(nomeServidor, exercicio, mes);
+            @RequestParam(required = false) Integer mes,
+            HttpServletResponse response) throws IOException {
         
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=folha_pagamento_portal.pdf")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(data);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=folha_pagamento_portal.pdf");
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        folhaPagamentoService.exportarPublicoPdf(nomeServidor, exercicio, mes, response.getOutputStream());
     }
 }
\ No newline at end of file
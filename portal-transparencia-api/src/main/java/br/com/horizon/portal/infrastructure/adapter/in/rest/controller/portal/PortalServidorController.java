@@ -2,6 +2,7 @@ package br.com.horizon.portal.infrastructure.adapter.in.rest.controller.portal;
 
 import br.com.horizon.portal.application.dto.servidor.ServidorPublicoDTO;
 import br.com.horizon.portal.application.service.ServidorService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -11,6 +12,8 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+
 @RestController
 @RequestMapping("/api/v1/portal/servidores")
 @RequiredArgsConstructor
@@ -30,30 +33,26 @@ public class PortalServidorController {
     }
 
     @GetMapping("/exportar/csv")
-    public ResponseEntity<byte[]> exportarCsv(
+    public void exportarCsv(
             @RequestParam(required = false) String nome,
             @RequestParam(required = false) String cargo,
-            @RequestParam(required = false) String lotacao) {
-        
-        byte[] data = servidorService.exportarPublicoCsv(nome, cargo, lotacao);
+            @RequestParam(required = false) String lotacao,
+            HttpServletResponse response) throws IOException {
         
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=servidores_portal.csv")
-                .contentType(MediaType.parseMediaType("text/csv"))
-                .body(data);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=servidores_portal.csv");
+        response.setContentType("text/csv; charset=UTF-8");
+        servidorService.exportarPublicoCsv(nome, cargo, lotacao, response.getOutputStream());
     }
 
     @GetMapping("/exportar/pdf")
-    public ResponseEntity<byte[]> exportarPdf(
+    public void exportarPdf(
             @RequestParam(required = false) String nome,
             @RequestParam(required = false) String cargo,
-            @RequestParam(required = false) String lotacao) {
-        
-        byte[] data = servidorService.exportarPublicoPdf(nome, cargo, lotacao);
+            @RequestParam(required = false) String lotacao,
+            HttpServletResponse response) throws IOException {
         
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=servidores_portal.pdf")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(data);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=servidores_portal.pdf");
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        servidorService.exportarPublicoPdf(nome, cargo, lotacao, response.getOutputStream());
     }
 }
\ No newline at end of file
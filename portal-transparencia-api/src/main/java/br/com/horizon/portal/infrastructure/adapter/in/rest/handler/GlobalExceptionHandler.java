@@ -47,7 +47,19 @@ public class GlobalExceptionHandler {
                         .build());
     }
 
-    // 3. Erro Genérico (O "Seguro de Vida" para erros 500)
+    // 3. Operação incompatível com o estado atual (Ex: cancelar job já finalizado, fila de importação cheia)
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<ErrorResponse> handleIllegalState(IllegalStateException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ErrorResponse.builder()
+                        .timestamp(LocalDateTime.now())
+                        .status(HttpStatus.CONFLICT.value())
+                        .message("Operação não permitida no estado atual")
+                        .details(List.of(ex.getMessage()))
+                        .build());
+    }
+
+    // 4. Erro Genérico (O "Seguro de Vida" para erros 500)
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleInternalError(Exception ex) {
         // Logamos o erro real no console/arquivo para nós (Tech Leads) vermos
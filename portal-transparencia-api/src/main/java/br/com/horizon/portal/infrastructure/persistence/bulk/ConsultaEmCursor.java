@@ -0,0 +1,71 @@
+package br.com.horizon.portal.infrastructure.persistence.bulk;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Leitura de consultas grandes por cursor, para as exportações de dados
+ * abertos: em vez de {@code findAll(spec)}, que monta a lista inteira antes
+ * do primeiro byte, as linhas chegam do banco em levas de
+ * {@code portal.exportacao.fetch-size} por um cursor só de avanço e cada uma
+ * é entregue e descartada do contexto de persistência em seguida.
+ * <p>
+ * No PostgreSQL o driver só usa cursor dentro de transação: o chamador
+ * precisa estar em {@code @Transactional(readOnly = true)}.
+ */
+@Repository
+public class ConsultaEmCursor {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${portal.exportacao.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * Percorre as entidades que atendem {@code spec}, na ordem do banco.
+     *
+     * @param buscar associações ManyToOne trazidas na mesma consulta (ex.: "credor"), sem N+1
+     * @return quantidade de linhas entregues
+     */
+    public <T> long percorrer(Class<T> tipo, Specification<T> spec, Consumer<T> acao, String... buscar) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(tipo);
+        Root<T> root = query.from(tipo);
+        for (String associacao : buscar) {
+            root.fetch(associacao, JoinType.LEFT);
+        }
+        Predicate filtro = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (filtro != null) {
+            query.where(filtro);
+        }
+
+        long linhas = 0;
+        try (Stream<T> resultado = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            for (T entidade : (Iterable<T>) resultado::iterator) {
+                acao.accept(entidade);
+                entityManager.detach(entidade);
+                // As associações buscadas ficam no contexto; limpa a cada leva para a memória não crescer
+                if (++linhas % fetchSize == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return linhas;
+    }
+}
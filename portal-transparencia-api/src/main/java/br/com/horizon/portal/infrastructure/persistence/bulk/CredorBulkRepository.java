@@ -0,0 +1,115 @@
+package br.com.horizon.portal.infrastructure.persistence.bulk;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolução em massa de credores para a importação de despesas: poucos
+ * statements por arquivo em vez de um SELECT + INSERT por CPF/CNPJ novo.
+ * <p>
+ * Cada bloco roda numa transação própria e curta, em outra conexão, e não na
+ * do trecho da importação: os arquivos de um ZIP são importados em paralelo e
+ * compartilham quase todos os credores. Se o INSERT ficasse na transação do
+ * trecho, um arquivo esperaria pelas linhas ainda não confirmadas do outro até
+ * o commit do trecho, e dois arquivos com ordens opostas entrariam em
+ * deadlock. Os documentos também são ordenados antes do INSERT, para que
+ * transações concorrentes travem as linhas sempre na mesma ordem.
+ */
+@Repository
+public class CredorBulkRepository {
+
+    private static final int TAMANHO_BLOCO = 1000;
+
+    private static final String SQL_BUSCA =
+            "SELECT id, cpf_cnpj FROM tb_credor WHERE cpf_cnpj = ANY (?)";
+
+    private static final String SQL_INSERE = """
+            INSERT INTO tb_credor (cpf_cnpj, razao_social, tipo_pessoa)
+            SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::varchar[])
+            ON CONFLICT (cpf_cnpj) DO NOTHING
+            RETURNING id, cpf_cnpj
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transacaoPropria;
+
+    public CredorBulkRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transacaoPropria = new TransactionTemplate(transactionManager);
+        this.transacaoPropria.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Devolve o id de cada CPF/CNPJ informado, criando os credores que ainda
+     * não existem com a razão social recebida. Os credores criados ficam
+     * confirmados mesmo que a importação seja desfeita depois (são cadastro,
+     * não dado do lote).
+     *
+     * @param razaoSocialPorDocumento CPF/CNPJ (só dígitos) -> razão social lida do arquivo
+     */
+    public Map<String, Long> resolverIds(Map<String, String> razaoSocialPorDocumento) {
+        Map<String, Long> ids = new HashMap<>(razaoSocialPorDocumento.size() * 2);
+        List<String> documentos = new ArrayList<>(razaoSocialPorDocumento.keySet());
+        documentos.sort(null);
+
+        for (int i = 0; i < documentos.size(); i += TAMANHO_BLOCO) {
+            List<String> bloco = documentos.subList(i, Math.min(i + TAMANHO_BLOCO, documentos.size()));
+            transacaoPropria.executeWithoutResult(status -> resolverBloco(bloco, razaoSocialPorDocumento, ids));
+        }
+        return ids;
+    }
+
+    private void resolverBloco(List<String> bloco, Map<String, String> razaoSocialPorDocumento, Map<String, Long> ids) {
+        buscar(bloco, ids);
+
+        List<String> faltantes = bloco.stream().filter(d -> !ids.containsKey(d)).toList();
+        if (faltantes.isEmpty()) return;
+
+        inserir(faltantes, razaoSocialPorDocumento, ids);
+
+        // DO NOTHING não retorna linhas que outra transação inseriu no meio do caminho
+        List<String> concorrentes = faltantes.stream().filter(d -> !ids.containsKey(d)).toList();
+        if (!concorrentes.isEmpty()) {
+            buscar(concorrentes, ids);
+        }
+    }
+
+    private void buscar(List<String> documentos, Map<String, Long> ids) {
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(SQL_BUSCA);
+            ps.setArray(1, con.createArrayOf("varchar", documentos.toArray()));
+            return ps;
+        }, rs -> {
+            ids.put(rs.getString("cpf_cnpj"), rs.getLong("id"));
+        });
+    }
+
+    private void inserir(List<String> documentos, Map<String, String> razaoSocialPorDocumento, Map<String, Long> ids) {
+        String[] razoes = new String[documentos.size()];
+        String[] tipos = new String[documentos.size()];
+        for (int i = 0; i < documentos.size(); i++) {
+            String doc = documentos.get(i);
+            String razao = razaoSocialPorDocumento.get(doc);
+            razoes[i] = razao == null || razao.isEmpty() ? "NÃO INFORMADO" : razao;
+            tipos[i] = doc.length() == 11 ? "FISICA" : "JURIDICA";
+        }
+
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(SQL_INSERE);
+            ps.setArray(1, con.createArrayOf("varchar", documentos.toArray()));
+            ps.setArray(2, con.createArrayOf("varchar", razoes));
+            ps.setArray(3, con.createArrayOf("varchar", tipos));
+            return ps;
+        }, rs -> {
+            ids.put(rs.getString("cpf_cnpj"), rs.getLong("id"));
+        });
+    }
+}
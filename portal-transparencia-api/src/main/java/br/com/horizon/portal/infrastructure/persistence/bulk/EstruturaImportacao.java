@@ -0,0 +1,62 @@
+package br.com.horizon.portal.infrastructure.persistence.bulk;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Índices e ajustes de banco de que as importações dependem e que o
+ * {@code ddl-auto=update} não cria (índice parcial, índices de tabelas sem
+ * {@code @Index} na entidade, incremento das sequences). O init.sql só roda
+ * num banco novo; aqui o mesmo DDL é aplicado a cada inicialização, de forma
+ * idempotente, para que os bancos já implantados também o tenham.
+ * <p>
+ * Roda depois do Hibernate criar/atualizar as tabelas e antes de o servidor
+ * web aceitar requisições: nenhum upload chega sem o índice de duplicidade.
+ * Cada comando é independente; uma falha (ex.: jobs duplicados impedindo o
+ * índice único) é registrada e não impede a subida da aplicação.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EstruturaImportacao implements SmartInitializingSingleton {
+
+    // Mesmo DDL do init.sql; manter os dois em sincronia
+    private static final List<String> COMANDOS = List.of(
+            // Desfazer do lote (DELETE em blocos por id_importacao)
+            "CREATE INDEX IF NOT EXISTS idx_despesa_id_importacao ON tb_despesa(id_importacao)",
+            "CREATE INDEX IF NOT EXISTS idx_divida_id_importacao ON tb_divida_ativa(id_importacao)",
+            // Importação incremental
+            "CREATE INDEX IF NOT EXISTS idx_despesa_chave_natural ON tb_despesa(exercicio, numero_empenho)",
+            // Jobs: histórico, lote e recusa de arquivo repetido entre envios simultâneos
+            "CREATE INDEX IF NOT EXISTS idx_importacao_job_criado_em ON tb_importacao_job(criado_em DESC)",
+            "CREATE INDEX IF NOT EXISTS idx_importacao_job_id_importacao ON tb_importacao_job(id_importacao)",
+            "CREATE UNIQUE INDEX IF NOT EXISTS uk_importacao_job_arquivo ON tb_importacao_job(modulo, sha256)"
+                    + " WHERE status IN ('PENDENTE', 'EM_EXECUCAO', 'CONCLUIDA')",
+            // Otimizador pooled do Hibernate (allocationSize = 50 nas entidades)
+            "ALTER SEQUENCE IF EXISTS servidor_id_seq INCREMENT BY 50",
+            "ALTER SEQUENCE IF EXISTS folha_pagamento_id_seq INCREMENT BY 50");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int falhas = 0;
+        for (String comando : COMANDOS) {
+            try {
+                jdbcTemplate.execute(comando);
+            } catch (DataAccessException e) {
+                falhas++;
+                log.error("Estrutura de importação: falha ao aplicar [{}]: {}", comando, e.getMostSpecificCause().getMessage());
+            }
+        }
+        if (falhas == 0) {
+            log.info("Estrutura de importação conferida ({} comandos).", COMANDOS.size());
+        }
+    }
+}
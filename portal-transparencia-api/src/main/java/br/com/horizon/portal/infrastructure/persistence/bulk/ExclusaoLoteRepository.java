@@ -0,0 +1,66 @@
+package br.com.horizon.portal.infrastructure.persistence.bulk;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Desfazer de importação (rollback de lote) direto no banco: DELETE em blocos
+ * pelo índice de id_importacao, com RETURNING das colunas que vão para a
+ * auditoria. Nenhuma entidade é carregada; a memória fica limitada a um bloco.
+ * <p>
+ * O job que gerou o lote passa a DESFEITA, o que libera o mesmo arquivo para
+ * uma nova importação.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ExclusaoLoteRepository {
+
+    private static final int TAMANHO_BLOCO = 5000;
+
+    // Chaves do JSON auditado em camelCase, como quando a entidade era serializada inteira
+    static final ColumnMapRowMapper MAPEADOR = new ColumnMapRowMapper() {
+        @Override
+        protected String getColumnKey(String coluna) {
+            return JdbcUtils.convertUnderscoreNameToPropertyName(coluna);
+        }
+    };
+
+    private static final String SQL_JOB_DESFEITO =
+            "UPDATE tb_importacao_job SET status = 'DESFEITA' WHERE id_importacao = ? AND status = 'CONCLUIDA'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Remove todas as linhas do lote e entrega cada bloco removido ao consumidor.
+     *
+     * @param retorno expressão do RETURNING; o alias da tabela é {@code t}
+     *                (ex.: {@code "t.*"} ou colunas e subconsultas escolhidas)
+     * @return total de linhas removidas
+     */
+    public long excluir(String tabela, String retorno, String loteId, Consumer<List<Map<String, Object>>> porBloco) {
+        String sql = "DELETE FROM " + tabela + " t WHERE t.id IN (SELECT id FROM " + tabela
+                + " WHERE id_importacao = ? LIMIT " + TAMANHO_BLOCO + ") RETURNING " + retorno;
+        long total = 0;
+        while (true) {
+            List<Map<String, Object>> removidos = jdbcTemplate.query(sql, MAPEADOR, loteId);
+            total += removidos.size();
+            if (!removidos.isEmpty()) {
+                porBloco.accept(removidos);
+            }
+            if (removidos.size() < TAMANHO_BLOCO) {
+                break;
+            }
+        }
+        if (total > 0) {
+            jdbcTemplate.update(SQL_JOB_DESFEITO, loteId);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.horizon.portal.infrastructure.persistence.bulk;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caminho de escrita das importações que ainda passam pelo Hibernate.
+ * <p>
+ * Persiste as entidades uma a uma e, a cada {@code tamanhoLote} registros,
+ * executa flush (que vira um batch JDBC graças aos ids por sequence) e clear,
+ * para que o contexto de persistência não cresça junto com o arquivo.
+ * Deve ser usado dentro de uma transação.
+ */
+@Slf4j
+@Component
+public class GravadorEmLotes {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Mantido igual ao hibernate.jdbc.batch_size para cada flush gerar batches cheios
+    @Value("${portal.importacao.tamanho-lote:1000}")
+    private int tamanhoLote;
+
+    public Sessao abrir() {
+        return new Sessao();
+    }
+
+    public final class Sessao {
+
+        private final long inicio = System.currentTimeMillis();
+        private long gravados;
+
+        public void persistir(Object entidade) {
+            entityManager.persist(entidade);
+            gravados++;
+
+            if (gravados % tamanhoLote == 0) {
+                descarregar();
+            }
+        }
+
+        /** Descarrega o último lote parcial e devolve o total persistido. */
+        public long concluir() {
+            descarregar();
+            return gravados;
+        }
+
+        private void descarregar() {
+            entityManager.flush();
+            entityManager.clear();
+
+            if (log.isDebugEnabled()) {
+                Runtime rt = Runtime.getRuntime();
+                long duracao = Math.max(1, System.currentTimeMillis() - inicio);
+                log.debug("Importação: {} registros gravados ({} registros/s, heap em uso {} MB).",
+                        gravados, gravados * 1000 / duracao, (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024));
+            }
+        }
+    }
+}
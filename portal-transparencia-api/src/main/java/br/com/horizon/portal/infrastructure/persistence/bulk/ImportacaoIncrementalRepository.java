@@ -0,0 +1,134 @@
+package br.com.horizon.portal.infrastructure.persistence.bulk;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Importação incremental (delta): o arquivo é carregado via COPY na tabela de
+ * staging do lote ({@link StagingImportacaoRepository}) e comparado, em SQL, com o que já está gravado nos mesmos
+ * exercícios. Cada linha tem uma chave natural e o hash do conteúdo
+ * ({@value #COLUNA_HASH}); só as linhas novas, alteradas ou que sumiram do
+ * arquivo são escritas na tabela definitiva.
+ * <p>
+ * As linhas removidas e a versão anterior das alteradas (que podem ser de
+ * lotes anteriores e passam ao lote novo) saem com RETURNING, em blocos, para
+ * a auditoria do lote: o desfazer do lote incremental apaga essas linhas, e a
+ * auditoria é o que permite restaurá-las. Cada linha auditada leva
+ * {@value #CAMPO_OPERACAO} = REMOVIDA ou ALTERADA.
+ * <p>
+ * A aplicação roda na transação de publicação do lote.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class ImportacaoIncrementalRepository {
+
+    public static final String COLUNA_HASH = "hash_conteudo";
+    public static final String CAMPO_OPERACAO = "operacaoDelta";
+
+    private static final int TAMANHO_BLOCO = 5000;
+
+    /** Contagens da comparação entre o arquivo e a tabela definitiva. */
+    public record Diferencas(long inseridos, long alterados, long removidos, long inalterados) {
+
+        public long gravados() {
+            return inseridos + alterados;
+        }
+
+        public String resumo() {
+            return "Inseridos: " + inseridos + ", alterados: " + alterados
+                    + ", removidos: " + removidos + ", inalterados: " + inalterados;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Aplica na tabela definitiva a diferença carregada em {@code staging}.
+     *
+     * @param chave       colunas da chave natural (únicas dentro do arquivo)
+     * @param escopo      coluna que delimita o que o arquivo substitui (ex.: exercicio):
+     *                    linhas gravadas nesses valores e ausentes do arquivo são removidas
+     * @param lidos       linhas carregadas na staging
+     * @param anteriores  recebe, por bloco, as linhas removidas e a versão anterior das alteradas
+     */
+    public Diferencas aplicar(MapeamentoCopy<?> definitivo, MapeamentoCopy<?> staging,
+                              List<String> chave, String escopo, long lidos,
+                              Consumer<List<Map<String, Object>>> anteriores) {
+        String tabela = definitivo.getTabela();
+        String tmp = staging.getTabela();
+        Function<String, String> juncao = alias -> chave.stream()
+                .map(c -> alias + "." + c + " = t." + c)
+                .collect(Collectors.joining(" AND "));
+
+        rejeitarChavesRepetidas(tmp, chave);
+        // Staging recém-carregada ainda não foi analisada pelo autovacuum: sem estatísticas o planner erra o join
+        jdbcTemplate.execute("ANALYZE " + tmp);
+
+        // Em blocos: cada rodada só encontra as linhas que a anterior ainda não removeu
+        long removidos = emBlocos("DELETE FROM " + tabela + " d WHERE d.id IN (SELECT o.id FROM " + tabela + " o"
+                + " WHERE o." + escopo + " IN (SELECT DISTINCT " + escopo + " FROM " + tmp + ")"
+                + " AND NOT EXISTS (SELECT 1 FROM " + tmp + " t WHERE " + juncao.apply("o") + ")"
+                + " LIMIT " + TAMANHO_BLOCO + ") RETURNING d.*", "REMOVIDA", anteriores);
+
+        // A versão anterior vem do CTE (lido antes do UPDATE); depois do UPDATE o hash bate e a linha não volta
+        String atribuicoes = definitivo.getColunas().stream()
+                .filter(c -> !chave.contains(c))
+                .map(c -> c + " = t." + c)
+                .collect(Collectors.joining(", "));
+        long alterados = emBlocos("WITH antes AS (SELECT o.* FROM " + tabela + " o JOIN " + tmp + " t ON " + juncao.apply("o")
+                + " WHERE o." + COLUNA_HASH + " IS DISTINCT FROM t." + COLUNA_HASH + " LIMIT " + TAMANHO_BLOCO + ")"
+                + " UPDATE " + tabela + " d SET " + atribuicoes
+                + " FROM antes a, " + tmp + " t WHERE d.id = a.id AND " + juncao.apply("d")
+                + " RETURNING a.*", "ALTERADA", anteriores);
+
+        String colunas = String.join(", ", definitivo.getColunas());
+        int inseridos = jdbcTemplate.update("INSERT INTO " + tabela + " (" + colunas + ")"
+                + " SELECT " + colunas + " FROM " + tmp + " t"
+                + " WHERE NOT EXISTS (SELECT 1 FROM " + tabela + " d WHERE " + juncao.apply("d") + ")");
+
+        Diferencas diferencas = new Diferencas(inseridos, alterados, removidos, lidos - inseridos - alterados);
+        log.info("Delta aplicado em {}: {}", tabela, diferencas);
+        return diferencas;
+    }
+
+    private long emBlocos(String sql, String operacao, Consumer<List<Map<String, Object>>> anteriores) {
+        long total = 0;
+        while (true) {
+            List<Map<String, Object>> bloco = jdbcTemplate.query(sql, ExclusaoLoteRepository.MAPEADOR);
+            total += bloco.size();
+            if (!bloco.isEmpty()) {
+                bloco.forEach(linha -> linha.put(CAMPO_OPERACAO, operacao));
+                anteriores.accept(bloco);
+            }
+            if (bloco.size() < TAMANHO_BLOCO) {
+                return total;
+            }
+        }
+    }
+
+    private void rejeitarChavesRepetidas(String tmp, List<String> chave) {
+        String colunas = String.join(", ", chave);
+        List<String> repetidas = jdbcTemplate.query("SELECT " + colunas + " FROM " + tmp
+                + " GROUP BY " + colunas + " HAVING count(*) > 1 LIMIT 1", (rs, i) -> {
+            StringBuilder descricao = new StringBuilder();
+            for (int c = 0; c < chave.size(); c++) {
+                if (c > 0) descricao.append(", ");
+                descricao.append(chave.get(c)).append('=').append(rs.getString(c + 1));
+            }
+            return descricao.toString();
+        });
+        if (!repetidas.isEmpty()) {
+            throw new IllegalArgumentException("Importação incremental exige chave única por linha. Chave repetida no arquivo: "
+                    + repetidas.get(0));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package br.com.horizon.portal.infrastructure.persistence.bulk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Descreve como um objeto é convertido em uma linha do COPY do PostgreSQL:
+ * a tabela de destino e, na ordem, cada coluna com o extrator do seu valor.
+ */
+public final class MapeamentoCopy<T> {
+
+    private final String tabela;
+    private final List<String> colunas = new ArrayList<>();
+    private final List<Function<T, Object>> extratores = new ArrayList<>();
+
+    private MapeamentoCopy(String tabela) {
+        this.tabela = tabela;
+    }
+
+    public static <T> MapeamentoCopy<T> para(String tabela) {
+        return new MapeamentoCopy<>(tabela);
+    }
+
+    public MapeamentoCopy<T> coluna(String nome, Function<T, Object> extrator) {
+        colunas.add(nome);
+        extratores.add(extrator);
+        return this;
+    }
+
+    /** Mesmas colunas e extratores gravando em outra tabela (ex.: a staging do lote). */
+    public MapeamentoCopy<T> naTabela(String outraTabela) {
+        MapeamentoCopy<T> copia = new MapeamentoCopy<>(outraTabela);
+        copia.colunas.addAll(colunas);
+        copia.extratores.addAll(extratores);
+        return copia;
+    }
+
+    public String getTabela() {
+        return tabela;
+    }
+
+    public List<String> getColunas() {
+        return Collections.unmodifiableList(colunas);
+    }
+
+    List<Function<T, Object>> getExtratores() {
+        return extratores;
+    }
+
+    String comandoCopy() {
+        return "COPY " + tabela + " (" + String.join(", ", colunas) + ") FROM STDIN";
+    }
+}
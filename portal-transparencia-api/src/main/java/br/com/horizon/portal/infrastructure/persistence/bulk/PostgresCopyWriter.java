@@ -0,0 +1,151 @@
+package br.com.horizon.portal.infrastructure.persistence.bulk;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Ingestão em massa via protocolo COPY do PostgreSQL.
+ * <p>
+ * Usa a conexão da transação corrente (DataSourceUtils), então as linhas
+ * gravadas participam do mesmo commit/rollback do @Transactional do serviço.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PostgresCopyWriter {
+
+    // Tamanho do buffer enviado ao driver a cada escrita (64 KB)
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    private final DataSource dataSource;
+
+    public <T> Sessao<T> abrir(MapeamentoCopy<T> mapeamento) throws SQLException {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            return new Sessao<>(mapeamento, copyManager, connection, dataSource);
+        } catch (SQLException e) {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+            throw e;
+        }
+    }
+
+    /**
+     * Uma operação COPY aberta. Se for fechada sem {@link #concluir()}, o COPY em
+     * andamento é cancelado (trechos já finalizados saem no rollback da transação).
+     * <p>
+     * Enquanto o COPY está ativo a conexão não aceita outros comandos; use
+     * {@link #pausar()} antes de consultar o banco no meio da carga.
+     */
+    public static final class Sessao<T> implements AutoCloseable {
+
+        private final MapeamentoCopy<T> mapeamento;
+        private final CopyManager copyManager;
+        private final Connection connection;
+        private final DataSource dataSource;
+        private final StringBuilder buffer = new StringBuilder(TAMANHO_BUFFER + 1024);
+        private CopyIn copyIn;
+        private long linhas;
+        private long gravadas;
+        private boolean concluida;
+
+        private Sessao(MapeamentoCopy<T> mapeamento, CopyManager copyManager, Connection connection, DataSource dataSource) {
+            this.mapeamento = mapeamento;
+            this.copyManager = copyManager;
+            this.connection = connection;
+            this.dataSource = dataSource;
+        }
+
+        public void escrever(T item) throws SQLException {
+            List<Function<T, Object>> extratores = mapeamento.getExtratores();
+            for (int i = 0; i < extratores.size(); i++) {
+                if (i > 0) buffer.append('\t');
+                anexarValor(extratores.get(i).apply(item));
+            }
+            buffer.append('\n');
+            linhas++;
+
+            if (buffer.length() >= TAMANHO_BUFFER) {
+                descarregar();
+            }
+        }
+
+        public long getLinhas() {
+            return linhas;
+        }
+
+        /**
+         * Finaliza o COPY corrente para liberar a conexão (ainda na mesma transação).
+         * A próxima escrita abre um novo COPY na mesma tabela.
+         */
+        public void pausar() throws SQLException {
+            descarregar();
+            if (copyIn == null) return;
+            gravadas += copyIn.endCopy();
+            copyIn = null;
+        }
+
+        /** Envia o restante do buffer e finaliza o COPY. Retorna o total de linhas gravadas. */
+        public long concluir() throws SQLException {
+            pausar();
+            concluida = true;
+            return gravadas;
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (!concluida && copyIn != null && copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            } catch (SQLException e) {
+                log.warn("Falha ao cancelar COPY em {}: {}", mapeamento.getTabela(), e.getMessage());
+            } finally {
+                DataSourceUtils.releaseConnection(connection, dataSource);
+            }
+        }
+
+        // O COPY só é (re)aberto quando há dados a enviar
+        private void descarregar() throws SQLException {
+            if (buffer.isEmpty()) return;
+            if (copyIn == null) {
+                copyIn = copyManager.copyIn(mapeamento.comandoCopy());
+            }
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+
+        // Formato texto do COPY: nulo é \N e \, TAB, LF e CR precisam de escape
+        private void anexarValor(Object valor) {
+            if (valor == null) {
+                buffer.append("\\N");
+                return;
+            }
+            String texto = valor instanceof BigDecimal decimal ? decimal.toPlainString() : valor.toString();
+            for (int i = 0; i < texto.length(); i++) {
+                char c = texto.charAt(i);
+                switch (c) {
+                    case '\\' -> buffer.append("\\\\");
+                    case '\t' -> buffer.append("\\t");
+                    case '\n' -> buffer.append("\\n");
+                    case '\r' -> buffer.append("\\r");
+                    default -> buffer.append(c);
+                }
+            }
+        }
+    }
+}
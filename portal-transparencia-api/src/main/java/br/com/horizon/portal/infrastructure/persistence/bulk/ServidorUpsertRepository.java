@@ -0,0 +1,89 @@
+package br.com.horizon.portal.infrastructure.persistence.bulk;
+
+import br.com.horizon.portal.infrastructure.persistence.entity.ServidorEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operações set-based da importação de servidores, fora do Hibernate:
+ * busca por lote de CPFs e INSERT ... ON CONFLICT (cpf) em batch JDBC.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ServidorUpsertRepository {
+
+    private static final String SQL_BUSCA = """
+            SELECT id, nome, cpf, matricula, cargo, lotacao, tipo_vinculo, data_admissao, id_importacao
+            FROM servidor WHERE cpf IN (:cpfs)
+            """;
+
+    // id_importacao e criado_* só valem para a inserção: um UPDATE não pode
+    // fazer o servidor antigo entrar no rollback do lote novo
+    private static final String SQL_UPSERT = """
+            INSERT INTO servidor (id, nome, cpf, matricula, cargo, lotacao, tipo_vinculo, data_admissao,
+                                  id_importacao, criado_por, atualizado_por, criado_em, atualizado_em)
+            VALUES (nextval('servidor_id_seq'), :nome, :cpf, :matricula, :cargo, :lotacao, :tipoVinculo, :dataAdmissao,
+                    :idImportacao, :usuario, :usuario, now(), now())
+            ON CONFLICT (cpf) DO UPDATE SET
+                nome = EXCLUDED.nome, matricula = EXCLUDED.matricula, cargo = EXCLUDED.cargo,
+                lotacao = EXCLUDED.lotacao, tipo_vinculo = EXCLUDED.tipo_vinculo,
+                data_admissao = EXCLUDED.data_admissao,
+                atualizado_por = EXCLUDED.atualizado_por, atualizado_em = now()
+            WHERE (servidor.nome, servidor.matricula, servidor.cargo, servidor.lotacao,
+                   servidor.tipo_vinculo, servidor.data_admissao)
+                  IS DISTINCT FROM (EXCLUDED.nome, EXCLUDED.matricula, EXCLUDED.cargo, EXCLUDED.lotacao,
+                   EXCLUDED.tipo_vinculo, EXCLUDED.data_admissao)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /** Servidores já cadastrados, indexados pelo CPF. Chamar com no máximo alguns milhares de CPFs. */
+    public Map<String, ServidorEntity> buscarPorCpfs(Collection<String> cpfs) {
+        Map<String, ServidorEntity> existentes = new HashMap<>();
+        if (cpfs.isEmpty()) return existentes;
+
+        jdbcTemplate.query(SQL_BUSCA, Map.of("cpfs", cpfs), rs -> {
+            Date admissao = rs.getDate("data_admissao");
+            ServidorEntity s = ServidorEntity.builder()
+                    .id(rs.getLong("id"))
+                    .nome(rs.getString("nome"))
+                    .cpf(rs.getString("cpf"))
+                    .matricula(rs.getString("matricula"))
+                    .cargo(rs.getString("cargo"))
+                    .lotacao(rs.getString("lotacao"))
+                    .tipoVinculo(rs.getString("tipo_vinculo"))
+                    .dataAdmissao(admissao != null ? admissao.toLocalDate() : null)
+                    .idImportacao(rs.getString("id_importacao"))
+                    .build();
+            existentes.put(s.getCpf(), s);
+        });
+        return existentes;
+    }
+
+    public void upsert(List<ServidorEntity> servidores, String usuario) {
+        if (servidores.isEmpty()) return;
+
+        MapSqlParameterSource[] parametros = servidores.stream()
+                .map(s -> new MapSqlParameterSource()
+                        .addValue("nome", s.getNome())
+                        .addValue("cpf", s.getCpf())
+                        .addValue("matricula", s.getMatricula())
+                        .addValue("cargo", s.getCargo())
+                        .addValue("lotacao", s.getLotacao())
+                        .addValue("tipoVinculo", s.getTipoVinculo())
+                        .addValue("dataAdmissao", s.getDataAdmissao())
+                        .addValue("idImportacao", s.getIdImportacao())
+                        .addValue("usuario", usuario))
+                .toArray(MapSqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate(SQL_UPSERT, parametros);
+    }
+}
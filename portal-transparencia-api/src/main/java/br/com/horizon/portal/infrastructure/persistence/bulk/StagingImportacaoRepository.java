@@ -0,0 +1,305 @@
+package br.com.horizon.portal.infrastructure.persistence.bulk;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongConsumer;
+
+/**
+ * Importação em etapas, para que o portal nunca veja um lote pela metade:
+ * <ol>
+ *   <li>o arquivo é carregado via COPY numa tabela de staging UNLOGGED, só do
+ *       lote, numa transação que não toca as tabelas do portal;</li>
+ *   <li>a staging é validada com consultas SQL sobre o conjunto;</li>
+ *   <li>o lote é publicado num único INSERT ... SELECT, numa transação curta.</li>
+ * </ol>
+ * Os bloqueios nas tabelas definitivas duram só a publicação.
+ * <p>
+ * A carga é confirmada em trechos ({@link Trechos}): a cada commit a última
+ * linha do arquivo já gravada na staging vai para linha_checkpoint do job, e
+ * o total de registros na staging para registros_checkpoint, na mesma
+ * transação. Uma carga que falha deixa a staging e o checkpoint para que o
+ * job seja retomado dali; staging sem job retomável é removida na
+ * inicialização.
+ * <p>
+ * A staging é UNLOGGED e o job não: depois de um crash do PostgreSQL a
+ * staging volta vazia e o checkpoint continua lá. Por isso a retomada confere
+ * a contagem antes de pular as linhas já confirmadas.
+ */
+@Slf4j
+@Repository
+public class StagingImportacaoRepository {
+
+    private static final String PREFIXO = "stg_";
+
+    private static final String SQL_CHECKPOINT =
+            "UPDATE tb_importacao_job SET linha_checkpoint = ?, registros_checkpoint = ? WHERE id_importacao = ?";
+    private static final String SQL_SEM_CHECKPOINT =
+            "UPDATE tb_importacao_job SET linha_checkpoint = NULL, registros_checkpoint = NULL WHERE id_importacao = ?";
+    private static final String SQL_REGISTROS_CHECKPOINT =
+            "SELECT registros_checkpoint FROM tb_importacao_job WHERE id_importacao = ?";
+
+    /** Etapa executada na sua própria transação. */
+    @FunctionalInterface
+    public interface Etapa<R> {
+        R executar() throws Exception;
+    }
+
+    /**
+     * Regra aplicada à staging inteira.
+     *
+     * @param descricao        o que está errado, para a mensagem de erro
+     * @param condicaoInvalida WHERE que seleciona as linhas que violam a regra
+     */
+    public record Validacao(String descricao, String condicaoInvalida) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PostgresCopyWriter copyWriter;
+    private final PlatformTransactionManager transactionManager;
+    private final TransactionTemplate transacao;
+
+    @Value("${portal.importacao.linhas-por-commit:50000}")
+    private long linhasPorCommit;
+
+    @Value("${portal.importacao.checkpoint-validade-horas:72}")
+    private long validadeCheckpointHoras;
+
+    public StagingImportacaoRepository(JdbcTemplate jdbcTemplate, PostgresCopyWriter copyWriter,
+                                       PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.copyWriter = copyWriter;
+        this.transactionManager = transactionManager;
+        this.transacao = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Staging do lote (ou da parte dele, ver {@code ContextoImportacao#getChaveStaging()})
+     * com as colunas do mapeamento (sem índices nem WAL). Na
+     * retomada reaproveita a staging que a execução anterior deixou, desde que
+     * ela tenha os registros do checkpoint; senão cria uma vazia.
+     */
+    public <T> MapeamentoCopy<T> preparar(MapeamentoCopy<T> definitivo, String chave, boolean retomar) {
+        String staging = PREFIXO + definitivo.getTabela() + "_" + sufixo(chave);
+        if (retomar) {
+            if (!existe(staging)) {
+                throw new IllegalStateException("A carga parcial do lote " + chave + " não existe mais. Importe o arquivo de novo.");
+            }
+            conferirCarga(staging, chave);
+            return definitivo.naTabela(staging);
+        }
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + staging);
+        jdbcTemplate.execute("CREATE UNLOGGED TABLE " + staging + " AS SELECT "
+                + String.join(", ", definitivo.getColunas()) + " FROM " + definitivo.getTabela() + " WITH NO DATA");
+        return definitivo.naTabela(staging);
+    }
+
+    /** Carga em trechos na staging, a partir da linha {@code linhaInicial} do arquivo. */
+    public <T> Trechos<T> trechos(MapeamentoCopy<T> staging, String loteId, long linhaInicial) {
+        return trechos(staging, loteId, linhaInicial, true);
+    }
+
+    /** @param checkpoint false para cargas que não são retomadas (ex.: um dos arquivos de um ZIP) */
+    public <T> Trechos<T> trechos(MapeamentoCopy<T> staging, String loteId, long linhaInicial, boolean checkpoint) {
+        return new Trechos<>(staging, loteId, linhaInicial, checkpoint);
+    }
+
+    /** Executa a etapa numa transação própria, que é confirmada ao final dela. */
+    public <R> R emTransacao(Etapa<R> etapa) {
+        return transacao.execute(status -> {
+            try {
+                return etapa.executar();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        });
+    }
+
+    /** Recusa o lote se alguma regra encontrar linhas inválidas; a mensagem traz todas as regras violadas. */
+    public void validar(MapeamentoCopy<?> staging, List<Validacao> regras) {
+        List<String> violacoes = new ArrayList<>();
+        for (Validacao regra : regras) {
+            Long invalidas = jdbcTemplate.queryForObject("SELECT count(*) FROM " + staging.getTabela()
+                    + " WHERE " + regra.condicaoInvalida(), Long.class);
+            if (invalidas != null && invalidas > 0) {
+                violacoes.add(invalidas + " registro(s) com " + regra.descricao());
+            }
+        }
+        if (!violacoes.isEmpty()) {
+            throw new IllegalArgumentException("Lote recusado na validação: " + String.join("; ", violacoes) + ".");
+        }
+    }
+
+    /** Copia a staging para a tabela definitiva. Deve rodar dentro da transação de publicação. */
+    public long publicar(MapeamentoCopy<?> definitivo, MapeamentoCopy<?> staging) {
+        String colunas = String.join(", ", definitivo.getColunas());
+        int publicados = jdbcTemplate.update("INSERT INTO " + definitivo.getTabela() + " (" + colunas + ")"
+                + " SELECT " + colunas + " FROM " + staging.getTabela());
+        log.info("{} registros publicados de {} em {}.", publicados, staging.getTabela(), definitivo.getTabela());
+        return publicados;
+    }
+
+    /** Apaga a staging e o checkpoint do lote: uma nova execução começa do zero. */
+    public void descartar(MapeamentoCopy<?> staging, String loteId) {
+        try {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + staging.getTabela());
+            jdbcTemplate.update(SQL_SEM_CHECKPOINT, loteId);
+        } catch (DataAccessException e) {
+            log.warn("Não foi possível apagar a staging {}: {}", staging.getTabela(), e.getMessage());
+        }
+    }
+
+    // Staging sem job retomável (ou com checkpoint vencido) não tem mais quem a publique
+    @EventListener(ApplicationReadyEvent.class)
+    public void descartarOrfas() {
+        jdbcTemplate.update("UPDATE tb_importacao_job SET linha_checkpoint = NULL, registros_checkpoint = NULL"
+                + " WHERE linha_checkpoint IS NOT NULL"
+                + " AND finalizado_em < now() - make_interval(hours => ?)", (int) validadeCheckpointHoras);
+        List<String> retomaveis = jdbcTemplate.queryForList("SELECT id_importacao FROM tb_importacao_job"
+                + " WHERE linha_checkpoint IS NOT NULL", String.class).stream().map(this::sufixo).toList();
+
+        List<String> stagings = jdbcTemplate.queryForList("SELECT tablename FROM pg_tables"
+                + " WHERE schemaname = current_schema() AND tablename LIKE 'stg\\_%'", String.class);
+        int removidas = 0;
+        for (String tabela : stagings) {
+            if (retomaveis.stream().noneMatch(lote -> tabela.endsWith("_" + lote))) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + tabela);
+                removidas++;
+            }
+        }
+        if (removidas > 0) {
+            log.warn("{} tabela(s) de staging órfãs removidas.", removidas);
+        }
+    }
+
+    // Staging esvaziada (crash recovery) ou checkpoint sem contagem: pular as linhas publicaria um lote incompleto
+    private void conferirCarga(String staging, String loteId) {
+        Long esperados = jdbcTemplate.queryForObject(SQL_REGISTROS_CHECKPOINT, Long.class, loteId);
+        Long naStaging = jdbcTemplate.queryForObject("SELECT count(*) FROM " + staging, Long.class);
+        if (esperados != null && esperados.equals(naStaging)) {
+            return;
+        }
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + staging);
+        jdbcTemplate.update(SQL_SEM_CHECKPOINT, loteId);
+        log.warn("Staging {} com {} registros, checkpoint com {}. Carga parcial descartada.", staging, naStaging, esperados);
+        throw new IllegalStateException("A carga parcial do lote " + loteId + " foi perdida (" + naStaging + " de "
+                + esperados + " registros confirmados). Importe o arquivo de novo.");
+    }
+
+    private boolean existe(String tabela) {
+        Boolean existe = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, tabela);
+        return Boolean.TRUE.equals(existe);
+    }
+
+    private String sufixo(String loteId) {
+        return loteId.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "_");
+    }
+
+    /**
+     * COPY na staging confirmado a cada {@code portal.importacao.linhas-por-commit}
+     * linhas do arquivo. Sempre há uma transação aberta enquanto a carga roda,
+     * então consultas feitas no meio dela (ex.: resolver credores) entram no
+     * mesmo trecho. Fechar sem {@link #concluir} desfaz só o trecho corrente.
+     */
+    public final class Trechos<T> implements AutoCloseable {
+
+        private final MapeamentoCopy<T> staging;
+        private final String loteId;
+        private final boolean checkpoint;
+        private LongConsumer aoConfirmar = linhas -> { };
+        private long ultimoCheckpoint;
+        private long registros;
+        private TransactionStatus transacaoAtual;
+        private PostgresCopyWriter.Sessao<T> copia;
+
+        private Trechos(MapeamentoCopy<T> staging, String loteId, long linhaInicial, boolean checkpoint) {
+            this.staging = staging;
+            this.loteId = loteId;
+            this.checkpoint = checkpoint;
+            this.ultimoCheckpoint = linhaInicial;
+            if (checkpoint && linhaInicial > 0) {
+                // Já conferido contra a staging em preparar
+                Long confirmados = jdbcTemplate.queryForObject(SQL_REGISTROS_CHECKPOINT, Long.class, loteId);
+                this.registros = confirmados != null ? confirmados : 0;
+            }
+            this.transacaoAtual = transactionManager.getTransaction(new DefaultTransactionDefinition());
+        }
+
+        /** Avisado depois de cada commit com as linhas do arquivo já confirmadas (ex.: para responder ao cliente). */
+        public void aoConfirmar(LongConsumer ouvinte) {
+            this.aoConfirmar = ouvinte;
+        }
+
+        public void gravar(T item) throws SQLException {
+            if (copia == null) {
+                copia = copyWriter.abrir(staging);
+            }
+            copia.escrever(item);
+            registros++;
+        }
+
+        /** Libera a conexão para outros comandos no meio do trecho (ver {@link PostgresCopyWriter.Sessao#pausar()}). */
+        public void pausar() throws SQLException {
+            if (copia != null) copia.pausar();
+        }
+
+        /** Chamado ao fim de cada bloco do arquivo; confirma o trecho quando ele atinge o tamanho configurado. */
+        public void blocoGravado(long linhasLidas) throws SQLException {
+            if (linhasLidas - ultimoCheckpoint >= linhasPorCommit) {
+                confirmar(linhasLidas);
+                transacaoAtual = transactionManager.getTransaction(new DefaultTransactionDefinition());
+            }
+        }
+
+        /** Confirma o último trecho e devolve o total de linhas na staging (inclusive as de execuções anteriores). */
+        public long concluir(long linhasLidas) throws SQLException {
+            confirmar(linhasLidas);
+            Long total = jdbcTemplate.queryForObject("SELECT count(*) FROM " + staging.getTabela(), Long.class);
+            return total != null ? total : 0;
+        }
+
+        private void confirmar(long linhasLidas) throws SQLException {
+            if (copia != null) {
+                copia.concluir();
+                copia.close();
+                copia = null;
+            }
+            if (checkpoint) {
+                jdbcTemplate.update(SQL_CHECKPOINT, linhasLidas, registros, loteId);
+            }
+            TransactionStatus trecho = transacaoAtual;
+            transacaoAtual = null;
+            transactionManager.commit(trecho);
+            ultimoCheckpoint = linhasLidas;
+            log.debug("Lote {}: checkpoint na linha {}.", loteId, linhasLidas);
+            aoConfirmar.accept(linhasLidas);
+        }
+
+        @Override
+        public void close() {
+            if (copia != null) {
+                copia.close();
+                copia = null;
+            }
+            if (transacaoAtual != null && !transacaoAtual.isCompleted()) {
+                transactionManager.rollback(transacaoAtual);
+            }
+            transacaoAtual = null;
+        }
+    }
+}
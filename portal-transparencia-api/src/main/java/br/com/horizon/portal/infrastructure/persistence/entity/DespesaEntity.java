@@ -94,6 +94,10 @@ public class DespesaEntity {
 
     @Column(name = "id_importacao")
     private String idImportacao;
+
+    // Hash do conteúdo da linha importada (importação incremental)
+    @Column(name = "hash_conteudo", length = 32)
+    private String hashConteudo;
     
     @PrePersist
     protected void onCreate() {
@@ -7,15 +7,18 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "folha_pagamento")
+@Table(name = "folha_pagamento", uniqueConstraints = @UniqueConstraint(
+        name = "uk_folha_servidor_competencia", columnNames = { "servidor_id", "exercicio", "mes" }))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class FolhaPagamentoEntity {
 
+    // Sequence com allocationSize > 1 (otimizador pooled) permite batch de INSERT na importação
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "folha_pagamento_seq")
+    @SequenceGenerator(name = "folha_pagamento_seq", sequenceName = "folha_pagamento_id_seq", allocationSize = 50)
     private Long id;
 
     // Relação 1:N com Servidor - Lazy loading para performance
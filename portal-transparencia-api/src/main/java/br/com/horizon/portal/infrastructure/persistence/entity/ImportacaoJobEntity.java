@@ -0,0 +1,110 @@
+package br.com.horizon.portal.infrastructure.persistence.entity;
+
+import br.com.horizon.portal.infrastructure.persistence.enums.ModoImportacao;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModuloImportacao;
+import br.com.horizon.portal.infrastructure.persistence.enums.StatusImportacao;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "tb_importacao_job")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportacaoJobEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private ModuloImportacao modulo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StatusImportacao status;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private ModoImportacao modo;
+
+    @Column(name = "nome_arquivo")
+    private String nomeArquivo;
+
+    // SHA-256 do arquivo como foi enviado: recusa o reenvio de um arquivo idêntico
+    @Column(length = 64)
+    private String sha256;
+
+    // Lote gravado em id_importacao das tabelas de dados e usado na auditoria
+    @Column(name = "id_importacao", nullable = false, length = 50)
+    private String idImportacao;
+
+    @Column(name = "linhas_processadas")
+    private Long linhasProcessadas;
+
+    @Column(name = "registros_gravados")
+    private Long registrosGravados;
+
+    @Column(name = "registros_por_segundo")
+    private Long registrosPorSegundo;
+
+    @Column(name = "duracao_ms")
+    private Long duracaoMs;
+
+    // Modo tolerante: linhas recusadas aceitas antes de abortar (nulo = modo estrito)
+    @Column(name = "limite_erros")
+    private Integer limiteErros;
+
+    @Column(name = "registros_rejeitados")
+    private Long registrosRejeitados;
+
+    // CSV das linhas recusadas, na subpasta restrita "rejeitos" do armazenamento
+    @Column(name = "arquivo_rejeitos", length = 100)
+    private String arquivoRejeitos;
+
+    // Última linha do arquivo confirmada na staging; gravada pela carga em trechos, via SQL, na mesma transação
+    @Column(name = "linha_checkpoint", insertable = false, updatable = false)
+    private Long linhaCheckpoint;
+
+    // Registros na staging naquele checkpoint; a retomada confere com a staging (UNLOGGED some num crash)
+    @Column(name = "registros_checkpoint", insertable = false, updatable = false)
+    private Long registrosCheckpoint;
+
+    // Diferenças da importação incremental (nulas na completa)
+    @Column(name = "registros_inseridos")
+    private Long registrosInseridos;
+
+    @Column(name = "registros_alterados")
+    private Long registrosAlterados;
+
+    @Column(name = "registros_removidos")
+    private Long registrosRemovidos;
+
+    @Column(name = "registros_inalterados")
+    private Long registrosInalterados;
+
+    @Column(columnDefinition = "TEXT")
+    private String resumo;
+
+    @Column(name = "mensagem_erro", columnDefinition = "TEXT")
+    private String mensagemErro;
+
+    @Column(length = 150)
+    private String usuario;
+
+    @CreationTimestamp
+    @Column(name = "criado_em", updatable = false)
+    private LocalDateTime criadoEm;
+
+    @Column(name = "iniciado_em")
+    private LocalDateTime iniciadoEm;
+
+    @Column(name = "finalizado_em")
+    private LocalDateTime finalizadoEm;
+}
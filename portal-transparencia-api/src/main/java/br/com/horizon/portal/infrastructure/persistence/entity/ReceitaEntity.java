@@ -12,7 +12,12 @@ import java.time.LocalDate;
 import java.time.LocalDateTime; // IMPORTANTE ADICIONAR
 
 @Entity
-@Table(name = "tb_receita")
+@Table(name = "tb_receita", indexes = {
+        // Chave natural da importação incremental
+        @Index(name = "idx_receita_chave_natural", columnList = "exercicio, mes, data_lancamento, codigo_natureza"),
+        // Desfazer do lote
+        @Index(name = "idx_receita_id_importacao", columnList = "id_importacao")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -82,4 +87,8 @@ public class ReceitaEntity {
     // --- Classificação Orçamentária ---
     @Column(name = "codigo_natureza", length = 50)
     private String codigoNatureza;
+
+    // Hash do conteúdo da linha importada (importação incremental)
+    @Column(name = "hash_conteudo", length = 32)
+    private String hashConteudo;
 }
\ No newline at end of file
@@ -7,15 +7,17 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "servidor")
+@Table(name = "servidor", uniqueConstraints = @UniqueConstraint(name = "uk_servidor_cpf", columnNames = "cpf"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class ServidorEntity {
 
+    // Sequence com allocationSize > 1 (otimizador pooled) permite batch de INSERT na importação
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "servidor_seq")
+    @SequenceGenerator(name = "servidor_seq", sequenceName = "servidor_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -0,0 +1,6 @@
+package br.com.horizon.portal.infrastructure.persistence.enums;
+
+public enum ModoImportacao {
+    COMPLETA,     // Todas as linhas entram como um lote novo
+    INCREMENTAL   // Só o que mudou em relação ao que já está gravado nos exercícios do arquivo
+}
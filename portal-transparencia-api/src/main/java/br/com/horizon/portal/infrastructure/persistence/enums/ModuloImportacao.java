@@ -0,0 +1,27 @@
+package br.com.horizon.portal.infrastructure.persistence.enums;
+
+public enum ModuloImportacao {
+    RECEITA("LOTE-", true),
+    DESPESA("LOTE-DESPESA-", true),
+    DIVIDA_ATIVA("LOTE-DIVIDA-", false),
+    FOLHA_PAGAMENTO("LOTE-FOLHA-", false),
+    SERVIDOR("LOTE-", false);
+
+    private final String prefixoLote;
+    private final boolean incremental;
+
+    ModuloImportacao(String prefixoLote, boolean incremental) {
+        this.prefixoLote = prefixoLote;
+        this.incremental = incremental;
+    }
+
+    /** Se o módulo tem chave natural para a importação {@link ModoImportacao#INCREMENTAL}. */
+    public boolean aceita(ModoImportacao modo) {
+        return modo == ModoImportacao.COMPLETA || incremental;
+    }
+
+    // Mantém o formato de id de lote que cada módulo já gravava em id_importacao
+    public String novoLoteId() {
+        return prefixoLote + System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,10 @@
+package br.com.horizon.portal.infrastructure.persistence.enums;
+
+public enum StatusImportacao {
+    PENDENTE,      // Na fila do executor
+    EM_EXECUCAO,
+    CONCLUIDA,
+    FALHOU,
+    CANCELADA,
+    DESFEITA       // Lote revertido depois de concluído: o mesmo arquivo pode ser importado de novo
+}
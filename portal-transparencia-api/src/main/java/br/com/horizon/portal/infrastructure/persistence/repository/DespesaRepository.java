@@ -29,6 +29,4 @@ public interface DespesaRepository extends JpaRepository<DespesaEntity, Long>, J
     @Query("SELECT SUM(d.valorPago) FROM DespesaEntity d WHERE (:ano IS NULL OR d.exercicio = :ano)")
     BigDecimal sumTotalPagoPorAno(@Param("ano") Integer ano);
 
-    List<DespesaEntity> findByIdImportacao(String idImportacao);
-
 }
\ No newline at end of file
@@ -13,11 +13,12 @@ import java.util.List;
 @Repository
 public interface FolhaPagamentoRepository extends JpaRepository<FolhaPagamentoEntity, Long>, JpaSpecificationExecutor<FolhaPagamentoEntity> {
 
-    void deleteByIdImportacao(String idImportacao);
-    
-    List<FolhaPagamentoEntity> findAllByIdImportacao(String idImportacao);
     boolean existsByServidorIdAndExercicioAndMes(Long servidorId, Integer exercicio, Integer mes);
 
+    // Servidores que já possuem contracheque na competência (pré-carga da importação)
+    @Query("SELECT f.servidor.id FROM FolhaPagamentoEntity f WHERE f.exercicio = :exercicio AND f.mes = :mes")
+    List<Long> findServidorIdsByCompetencia(@Param("exercicio") Integer exercicio, @Param("mes") Integer mes);
+
     // --- QUERIES PARA DASHBOARD E ESTATÍSTICAS ---
 
     @Query("SELECT SUM(f.remuneracaoBruta) FROM FolhaPagamentoEntity f WHERE f.exercicio = :exercicio AND f.mes = :mes")
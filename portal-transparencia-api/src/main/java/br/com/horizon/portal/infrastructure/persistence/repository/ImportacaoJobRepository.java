@@ -0,0 +1,28 @@
+package br.com.horizon.portal.infrastructure.persistence.repository;
+
+import br.com.horizon.portal.infrastructure.persistence.entity.ImportacaoJobEntity;
+import br.com.horizon.portal.infrastructure.persistence.enums.ModuloImportacao;
+import br.com.horizon.portal.infrastructure.persistence.enums.StatusImportacao;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImportacaoJobRepository extends JpaRepository<ImportacaoJobEntity, Long> {
+
+    Page<ImportacaoJobEntity> findAllByOrderByCriadoEmDesc(Pageable pageable);
+
+    Page<ImportacaoJobEntity> findByModuloOrderByCriadoEmDesc(ModuloImportacao modulo, Pageable pageable);
+
+    // Importação anterior do mesmo arquivo (mesmo SHA-256) que ainda vale
+    Optional<ImportacaoJobEntity> findFirstByModuloAndSha256AndStatusIn(ModuloImportacao modulo, String sha256,
+                                                                        Collection<StatusImportacao> status);
+
+    // Jobs que ficaram órfãos quando a aplicação parou no meio da execução
+    List<ImportacaoJobEntity> findByStatusIn(Collection<StatusImportacao> status);
+}
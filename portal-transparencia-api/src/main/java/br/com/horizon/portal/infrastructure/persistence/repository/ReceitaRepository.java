@@ -5,11 +5,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -34,11 +32,4 @@ public interface ReceitaRepository extends JpaRepository<ReceitaEntity, Long>, J
     // --- MÉTODOS PARA O DESFAZER (ROLLBACK) ---
 
     long countByIdImportacao(String idImportacao);
-
-    @Modifying
-    @Transactional
-    @Query("DELETE FROM ReceitaEntity r WHERE r.idImportacao = :idImportacao")
-    void deleteByIdImportacao(@Param("idImportacao") String idImportacao);
-
-    List<ReceitaEntity> findByIdImportacao(String idImportacao);
 }
\ No newline at end of file
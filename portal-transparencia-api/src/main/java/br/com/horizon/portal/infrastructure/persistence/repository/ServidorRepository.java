@@ -3,21 +3,24 @@ package br.com.horizon.portal.infrastructure.persistence.repository;
 import br.com.horizon.portal.infrastructure.persistence.entity.ServidorEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 @Repository
 public interface ServidorRepository extends JpaRepository<ServidorEntity, Long>, JpaSpecificationExecutor<ServidorEntity> {
 
-    
-    // Método essencial para o Rollback da Importação em lote
-    void deleteByIdImportacao(String idImportacao);
-
     // Validação de duplicidade e unicidade
     boolean existsByCpf(String cpf);
     
     boolean existsByMatricula(String matricula);
 
-    // Adicione esta linha:
-    List<ServidorEntity> findAllByIdImportacao(String idImportacao);
+    // Projeção leve para montar o índice CPF -> id das importações de folha
+    @Query("SELECT s.id AS id, s.cpf AS cpf FROM ServidorEntity s")
+    List<ServidorCpf> findAllCpfs();
+
+    interface ServidorCpf {
+        Long getId();
+        String getCpf();
+    }
 
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+package br.com.horizon.portal.application.service.exportacao;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EscritorCsvTest {
+
+    private final StringWriter saida = new StringWriter();
+    private final EscritorCsv csv = new EscritorCsv(saida);
+
+    @Test
+    void textoSimplesSaiSemAspas() {
+        csv.texto("Secretaria de Saúde").texto("").texto(null).texto("fim").fimLinha();
+        csv.flush();
+
+        assertEquals("Secretaria de Saúde;;;fim\n", saida.toString());
+    }
+
+    @Test
+    void separadorAspasEQuebraDeLinhaSaemEntreAspas() {
+        csv.texto("Rua A; nº 10").texto("Escola \"Maria José\"").texto("linha 1\nlinha 2").texto("a\rb").fimLinha();
+        csv.flush();
+
+        assertEquals("\"Rua A; nº 10\";\"Escola \"\"Maria José\"\"\";\"linha 1\nlinha 2\";\"a\rb\"\n",
+                saida.toString());
+    }
+
+    @Test
+    void aspasSozinhasSaoDobradas() {
+        csv.texto("\"").texto("\"\"").fimLinha();
+        csv.flush();
+
+        assertEquals("\"\"\"\";\"\"\"\"\"\"\n", saida.toString());
+    }
+
+    @Test
+    void virgulaSoPrecisaDeAspasQuandoEOSeparador() {
+        EscritorCsv virgula = new EscritorCsv(saida, ',');
+        virgula.texto("a,b").texto("c;d").fimLinha();
+        virgula.flush();
+
+        assertEquals("\"a,b\",c;d\n", saida.toString());
+    }
+
+    @Test
+    void moedaComDuasCasasEVirgulaDecimal() {
+        csv.moeda(new BigDecimal("1234.5"))
+                .moeda(new BigDecimal("0.005"))
+                .moeda(new BigDecimal("-0.05"))
+                .moeda(new BigDecimal("-1234567.891"))
+                .moeda(BigDecimal.ZERO)
+                .moeda(null)
+                .moeda(new BigDecimal("123456789012345678901.23"))
+                .fimLinha();
+        csv.flush();
+
+        assertEquals("1234,50;0,01;-0,05;-1234567,89;0,00;;123456789012345678901,23\n", saida.toString());
+    }
+
+    @Test
+    void inteirosIncluindoOsExtremos() {
+        csv.inteiro(0).inteiro(-17).inteiro(2024L).inteiro(Long.MAX_VALUE).inteiro(Long.MIN_VALUE).inteiro(null).fimLinha();
+        csv.flush();
+
+        assertEquals("0;-17;2024;" + Long.MAX_VALUE + ";" + Long.MIN_VALUE + ";\n", saida.toString());
+    }
+
+    @Test
+    void datasNosDoisFormatos() {
+        LocalDate data = LocalDate.of(2024, 3, 5);
+        csv.data(data, EscritorCsv.FormatoData.BR).data(data, EscritorCsv.FormatoData.ISO)
+                .data(null, EscritorCsv.FormatoData.BR).fimLinha();
+        csv.flush();
+
+        assertEquals("05/03/2024;2024-03-05;\n", saida.toString());
+    }
+
+    @Test
+    void bomAntesDoPrimeiroCampo() {
+        csv.bom().texto("a").texto("b").fimLinha();
+        csv.flush();
+
+        assertEquals("\uFEFFa;b\n", saida.toString());
+    }
+
+    @Test
+    void camposMaioresQueOBuffer() {
+        String longo = "x".repeat(40_000);
+        String comAspas = "\"".repeat(20_000);
+        csv.texto(longo).texto(new StringBuilder(longo)).fimLinha();
+        csv.texto(comAspas).fimLinha();
+        for (int i = 0; i < 5_000; i++) {
+            csv.inteiro(i).moeda(new BigDecimal("9999.99")).fimLinha();
+        }
+        csv.flush();
+
+        String[] linhas = saida.toString().split("\n", -1);
+        assertEquals(longo + ";" + longo, linhas[0]);
+        assertEquals("\"" + "\"".repeat(40_000) + "\"", linhas[1]);
+        assertEquals("4999;9999,99", linhas[5_001]);
+        assertEquals("", linhas[5_002]);
+    }
+
+    @Test
+    void falhaDeEscritaSobeComoUnchecked() {
+        Writer quebrado = new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                throw new IOException("conexão encerrada");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        EscritorCsv escritor = new EscritorCsv(quebrado);
+        escritor.texto("a").fimLinha();
+
+        assertThrows(UncheckedIOException.class, escritor::flush);
+    }
+}
@@ -0,0 +1,86 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConversorDataTest {
+
+    private final ConversorData conversor = new ConversorData();
+
+    @Test
+    void converteDiaMesAno() {
+        assertEquals(LocalDate.of(2024, 3, 1), converter("01/03/2024"));
+        assertEquals(LocalDate.of(1999, 12, 31), converter("31/12/1999"));
+        assertEquals(LocalDate.of(2024, 2, 29), converter("29/02/2024"));
+    }
+
+    @Test
+    void converteSoOIntervaloInformado() {
+        char[] linha = "a;15/08/2023;b".toCharArray();
+        assertEquals(LocalDate.of(2023, 8, 15), conversor.converter(linha, 2, 12));
+    }
+
+    @Test
+    void dataRepetidaVemDoCache() {
+        LocalDate primeira = converter("10/05/2024");
+        assertSame(primeira, converter("10/05/2024"));
+    }
+
+    @Test
+    void colisoesNoCacheNaoTrocamDatas() {
+        // ~3 anos de datas para 512 posições: toda posição do cache é disputada
+        List<LocalDate> datas = new ArrayList<>();
+        for (LocalDate d = LocalDate.of(2022, 1, 1); d.isBefore(LocalDate.of(2025, 1, 1)); d = d.plusDays(1)) {
+            datas.add(d);
+        }
+        for (int volta = 0; volta < 2; volta++) {
+            for (LocalDate esperada : datas) {
+                String texto = String.format("%02d/%02d/%04d",
+                        esperada.getDayOfMonth(), esperada.getMonthValue(), esperada.getYear());
+                assertEquals(esperada, converter(texto));
+            }
+        }
+    }
+
+    @Test
+    void dataInvalidaNaoEntraNoCache() {
+        assertThrows(IllegalArgumentException.class, () -> converter("29/02/2023"));
+        assertThrows(IllegalArgumentException.class, () -> converter("29/02/2023"));
+        assertEquals(LocalDate.of(2024, 2, 29), converter("29/02/2024"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "31/02/2024",  // não existe no calendário (não vira 29/02)
+            "29/02/2023",
+            "31/04/2024",
+            "00/01/2024",
+            "01/13/2024",
+            "1/3/2024",
+            "01/03/24",
+            "2024-03-01",
+            "01-03-2024",
+            "ab/03/2024",
+            "01/03/2024 ",
+            "01/03/20244",
+            ""
+    })
+    void recusaDatasInvalidas(String valor) {
+        IllegalArgumentException erro = assertThrows(IllegalArgumentException.class, () -> converter(valor));
+        assertEquals("Data inválida: " + valor + ". Formato esperado: dd/MM/yyyy", erro.getMessage());
+    }
+
+    private LocalDate converter(String valor) {
+        char[] c = valor.toCharArray();
+        return conversor.converter(c, 0, c.length);
+    }
+}
@@ -0,0 +1,72 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConversorMoedaTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "0|0",
+            "0,00|0.00",
+            "7|7",
+            "1234,56|1234.56",
+            "1.234,56|1234.56",
+            "1.234.567,89|1234567.89",
+            "12.345|12345",
+            "999.999.999.999,99|999999999999.99",
+            "0,5|0.5",
+            "-1.234,56|-1234.56",
+            "-0,01|-0.01",
+            "+10,00|10.00"
+    })
+    void converteFormatoBrasileiro(String valor, String esperado) {
+        assertEquals(new BigDecimal(esperado), ConversorMoeda.converter(valor));
+    }
+
+    @Test
+    void preservaAEscalaDoArquivo() {
+        assertEquals(2, ConversorMoeda.converter("10,00").scale());
+        assertEquals(3, ConversorMoeda.converter("1,234").scale());
+        assertEquals(0, ConversorMoeda.converter("10").scale());
+    }
+
+    @Test
+    void converteSoOIntervaloInformado() {
+        char[] linha = "x;1.000,50;y".toCharArray();
+        assertEquals(new BigDecimal("1000.50"), ConversorMoeda.converter(linha, 2, 10));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "1234.56",      // ponto decimal no lugar da vírgula
+            "1.23,45",      // grupo de milhar incompleto
+            "1.2345,00",    // grupo de milhar longo demais
+            "1234.567,00",  // primeiro grupo com mais de 3 dígitos
+            ".123,00",
+            "1.,00",
+            "1.234.",
+            "1,2,3",
+            "1,234.567",
+            ",50",
+            "10,",
+            "-",
+            "",
+            "R$ 10,00",
+            "1 000,00",
+            "--1",
+            "1234567890123456789" // 19 dígitos: não cabe sem estouro
+    })
+    void recusaFormatosInvalidos(String valor) {
+        IllegalArgumentException erro = assertThrows(IllegalArgumentException.class,
+                () -> ConversorMoeda.converter(valor));
+        assertEquals("Valor monetário inválido: " + valor, erro.getMessage());
+    }
+}
@@ -0,0 +1,28 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DigitosTest {
+
+    @Test
+    void removeMascaraDeCpfECnpj() {
+        assertEquals("12345678901", Digitos.de("123.456.789-01"));
+        assertEquals("12345678000199", Digitos.de(" 12.345.678/0001-99 "));
+    }
+
+    @Test
+    void valorSoComDigitosVoltaSemCopia() {
+        String cpf = "12345678901";
+        assertSame(cpf, Digitos.de(cpf));
+    }
+
+    @Test
+    void nuloEVazioViramVazio() {
+        assertEquals("", Digitos.de(null));
+        assertEquals("", Digitos.de(""));
+        assertEquals("", Digitos.de("sem número"));
+    }
+}
@@ -0,0 +1,97 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LayoutImportacaoTest {
+
+    static class Registro {
+        String codigo;
+        String nome;
+        Integer ano;
+    }
+
+    private static final LayoutImportacao<Registro> LAYOUT = LayoutImportacao.<Registro>para("teste", Registro::new)
+            .coluna("codigo", 0, "Código", LayoutImportacao.TEXTO, (r, v) -> r.codigo = v)
+            .coluna("nome", 1, "Nome", LayoutImportacao.TEXTO, (r, v) -> r.nome = v)
+            .apelidos("razao_social")
+            .coluna("ano", 2, "Ano", LayoutImportacao.INTEIRO, (r, v) -> r.ano = v);
+
+    private static LayoutImportacao.Compilado<Registro> compilar(String cabecalho) {
+        return LAYOUT.compilar(cabecalho, chave -> List.of());
+    }
+
+    private static Registro mapear(LayoutImportacao.Compilado<Registro> compilado, String linha) {
+        return compilado.mapear(new TokenizadorCsv().analisar(linha));
+    }
+
+    @Test
+    void resolvePeloCabecalhoSemAcentoNemCaixa() {
+        LayoutImportacao.Compilado<Registro> compilado = compilar("ANO;extra;CODIGO;Nome");
+
+        assertTrue(compilado.isPorCabecalho());
+        assertEquals(List.of("ano", "-", "codigo", "nome"), compilado.getOrdem());
+        Registro r = mapear(compilado, "2024;x;A1;Fulano");
+        assertEquals("A1", r.codigo);
+        assertEquals("Fulano", r.nome);
+        assertEquals(2024, r.ano);
+    }
+
+    @Test
+    void apelidoEhAceitoNoCabecalho() {
+        LayoutImportacao.Compilado<Registro> compilado = compilar("codigo;razao_social;ano");
+
+        assertTrue(compilado.isPorCabecalho());
+        assertEquals("Empresa", mapear(compilado, "A1;Empresa;2024").nome);
+    }
+
+    @Test
+    void semNenhumNomeUsaAsPosicoes() {
+        LayoutImportacao.Compilado<Registro> compilado = compilar("a;b;c");
+
+        assertFalse(compilado.isPorCabecalho());
+        assertTrue(compilado.getNaoReconhecidas().isEmpty());
+        assertEquals("B", mapear(compilado, "A;B;2024").nome);
+    }
+
+    @Test
+    void nomesEmParteComAsColunasDoLayoutUsaAsPosicoes() {
+        LayoutImportacao.Compilado<Registro> compilado = compilar("codigo;credor;ano");
+
+        assertFalse(compilado.isPorCabecalho());
+        assertEquals(List.of("Nome"), compilado.getNaoReconhecidas());
+        assertEquals("Empresa", mapear(compilado, "A1;Empresa;2024").nome);
+    }
+
+    @Test
+    void nomesEmParteComColunasDeMenosSaoRecusados() {
+        IllegalArgumentException erro = assertThrows(IllegalArgumentException.class, () -> compilar("codigo;credor"));
+
+        assertTrue(erro.getMessage().contains("Faltam: [Nome, Ano]"), erro.getMessage());
+        assertTrue(erro.getMessage().contains("Sem correspondência no layout: [credor]"), erro.getMessage());
+    }
+
+    @Test
+    void duasColunasNaMesmaPosicaoSaoRecusadas() {
+        Map<String, List<String>> extras = Map.of("nome", List.of("codigo"));
+
+        IllegalArgumentException erro = assertThrows(IllegalArgumentException.class,
+                () -> LAYOUT.compilar("codigo;ano", chave -> extras.getOrDefault(chave, List.of())));
+        assertTrue(erro.getMessage().contains("as colunas codigo e nome apontam para a mesma coluna (1)"), erro.getMessage());
+    }
+
+    @Test
+    void linhaCurtaNaoEhMapeada() {
+        LayoutImportacao.Compilado<Registro> compilado = compilar("codigo;nome;ano");
+
+        assertEquals(3, compilado.getMinimoColunas());
+        assertThrows(IllegalArgumentException.class, () -> mapear(compilado, "A1;Fulano"));
+    }
+}
@@ -0,0 +1,90 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongHashSetTest {
+
+    @Test
+    void adicionaEConsulta() {
+        LongHashSet conjunto = new LongHashSet();
+
+        assertTrue(conjunto.add(42));
+        assertFalse(conjunto.add(42));
+        assertTrue(conjunto.add(0));
+        assertTrue(conjunto.add(-1));
+
+        assertTrue(conjunto.contains(42));
+        assertTrue(conjunto.contains(0));
+        assertTrue(conjunto.contains(-1));
+        assertFalse(conjunto.contains(43));
+        assertEquals(3, conjunto.size());
+    }
+
+    @Test
+    void sentinelaLongMinValueEUmValorComum() {
+        LongHashSet conjunto = new LongHashSet();
+
+        assertFalse(conjunto.contains(Long.MIN_VALUE));
+        assertTrue(conjunto.add(Long.MIN_VALUE));
+        assertFalse(conjunto.add(Long.MIN_VALUE));
+        assertTrue(conjunto.contains(Long.MIN_VALUE));
+        assertEquals(1, conjunto.size());
+
+        // A posição "vazia" da tabela continua vazia para os demais valores
+        assertFalse(conjunto.contains(0));
+        assertTrue(conjunto.add(Long.MAX_VALUE));
+        assertTrue(conjunto.contains(Long.MAX_VALUE));
+        assertEquals(2, conjunto.size());
+    }
+
+    @Test
+    void sentinelaSobreviveAoRedimensionamento() {
+        LongHashSet conjunto = new LongHashSet(16);
+        conjunto.add(Long.MIN_VALUE);
+        for (long i = 1; i <= 10_000; i++) {
+            conjunto.add(i);
+        }
+
+        assertTrue(conjunto.contains(Long.MIN_VALUE));
+        assertEquals(10_001, conjunto.size());
+    }
+
+    @Test
+    void chavesSequenciaisAlemDaCapacidadeInicial() {
+        LongHashSet conjunto = new LongHashSet(16);
+        for (long i = 0; i < 100_000; i++) {
+            assertTrue(conjunto.add(i * 1_000));
+        }
+
+        assertEquals(100_000, conjunto.size());
+        for (long i = 0; i < 100_000; i++) {
+            assertTrue(conjunto.contains(i * 1_000));
+            assertFalse(conjunto.contains(i * 1_000 + 1));
+        }
+    }
+
+    @Test
+    void mesmoResultadoQueHashSet() {
+        Random aleatorio = new Random(20240331L);
+        LongHashSet conjunto = new LongHashSet(8);
+        Set<Long> referencia = new HashSet<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            // Faixa estreita para forçar repetições
+            long valor = aleatorio.nextInt(20_000) - 10_000L;
+            assertEquals(referencia.add(valor), conjunto.add(valor));
+        }
+        assertEquals(referencia.size(), conjunto.size());
+        for (long valor = -11_000; valor <= 11_000; valor++) {
+            assertEquals(referencia.contains(valor), conjunto.contains(valor));
+        }
+    }
+}
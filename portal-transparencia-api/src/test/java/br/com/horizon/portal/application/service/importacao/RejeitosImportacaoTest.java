@@ -0,0 +1,105 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RejeitosImportacaoTest {
+
+    @TempDir
+    Path pasta;
+
+    @Test
+    void arquivoSoECriadoNaPrimeiraRecusa() {
+        RejeitosImportacao rejeitos = new RejeitosImportacao(10, () -> pasta.resolve("r.csv"));
+        assertNull(rejeitos.getArquivo());
+
+        rejeitos.rejeitar(3, "a;b", "Valor \"x\" inválido");
+        rejeitos.fechar();
+
+        assertEquals(List.of("linha;motivo;conteudo", "3;\"Valor \"\"x\"\" inválido\";\"a;b\""), linhas(rejeitos.getArquivo()));
+    }
+
+    @Test
+    void quebraDeLinhaNoMotivoNaoQuebraORegistro() {
+        RejeitosImportacao rejeitos = new RejeitosImportacao(10, () -> pasta.resolve("r.csv"));
+        rejeitos.rejeitar(1, "x", "linha 1\nlinha 2");
+        rejeitos.fechar();
+
+        assertEquals("1;\"linha 1 linha 2\";\"x\"", linhas(rejeitos.getArquivo()).get(1));
+    }
+
+    @Test
+    void acimaDoLimiteAbortaAImportacao() {
+        RejeitosImportacao rejeitos = new RejeitosImportacao(1, () -> pasta.resolve("r.csv"));
+        rejeitos.rejeitar(1, "x", "erro");
+
+        assertThrows(IllegalStateException.class, () -> rejeitos.rejeitar(2, "y", "erro"));
+        assertEquals(2, rejeitos.getQuantidade());
+    }
+
+    @Test
+    void retomadaMantemSoAsRecusasAteOCheckpointEAcrescenta() {
+        RejeitosImportacao primeira = new RejeitosImportacao(10, () -> pasta.resolve("r.csv"));
+        // Ordem fora de sequência, como na leitura paralela
+        primeira.rejeitar(120, "c", "erro c");
+        primeira.rejeitar(40, "a", "erro a");
+        primeira.rejeitar(100, "b", "erro b");
+        primeira.fechar();
+        Path anterior = primeira.getArquivo();
+
+        RejeitosImportacao retomada = RejeitosImportacao.retomar(10, anterior, 100, () -> pasta.resolve("outro.csv"));
+        assertEquals(2, retomada.getQuantidade());
+        retomada.rejeitar(150, "d", "erro d");
+        retomada.fechar();
+
+        assertEquals(anterior, retomada.getArquivo());
+        assertEquals(3, retomada.getQuantidade());
+        assertEquals(List.of("linha;motivo;conteudo",
+                "40;\"erro a\";\"a\"",
+                "100;\"erro b\";\"b\"",
+                "150;\"erro d\";\"d\""), linhas(anterior));
+        assertTrue(Files.notExists(pasta.resolve("outro.csv")));
+    }
+
+    @Test
+    void retomadaContinuaALimiteDeErros() {
+        RejeitosImportacao primeira = new RejeitosImportacao(2, () -> pasta.resolve("r.csv"));
+        primeira.rejeitar(1, "a", "erro");
+        primeira.rejeitar(2, "b", "erro");
+        primeira.fechar();
+
+        RejeitosImportacao retomada = RejeitosImportacao.retomar(2, primeira.getArquivo(), 10, () -> pasta.resolve("n.csv"));
+
+        assertThrows(IllegalStateException.class, () -> retomada.rejeitar(11, "c", "erro"));
+    }
+
+    @Test
+    void retomadaSemArquivoAnteriorComecaDoZero() {
+        RejeitosImportacao retomada = RejeitosImportacao.retomar(5, null, 100, () -> pasta.resolve("n.csv"));
+        assertEquals(0, retomada.getQuantidade());
+        assertNull(retomada.getArquivo());
+
+        retomada.rejeitar(101, "x", "erro");
+        retomada.fechar();
+        assertEquals(pasta.resolve("n.csv"), retomada.getArquivo());
+    }
+
+    private static List<String> linhas(Path arquivo) {
+        try {
+            return Files.readAllLines(arquivo, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
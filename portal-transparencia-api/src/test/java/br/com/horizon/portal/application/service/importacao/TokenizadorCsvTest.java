@@ -0,0 +1,127 @@
+package br.com.horizon.portal.application.service.importacao;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenizadorCsvTest {
+
+    private final TokenizadorCsv tokenizador = new TokenizadorCsv();
+
+    @Test
+    void separaCamposSemEspacosNasPontas() {
+        tokenizador.analisar("  João da Silva ; 123.456.789-00;\tAtivo\t");
+
+        assertEquals(3, tokenizador.quantidade());
+        assertEquals("João da Silva", tokenizador.texto(0));
+        assertEquals("123.456.789-00", tokenizador.texto(1));
+        assertEquals("Ativo", tokenizador.texto(2));
+        assertEquals("12345678900", tokenizador.digitos(1));
+    }
+
+    @Test
+    void camposVaziosContamComoColunas() {
+        tokenizador.analisar(";a;;");
+
+        assertEquals(4, tokenizador.quantidade());
+        assertTrue(tokenizador.vazio(0));
+        assertEquals("a", tokenizador.texto(1));
+        assertTrue(tokenizador.vazio(2));
+        assertTrue(tokenizador.vazio(3));
+    }
+
+    @Test
+    void campoEntreAspasAceitaOSeparador() {
+        tokenizador.analisar("1;\"Rua A; nº 10\";fim");
+
+        assertEquals(3, tokenizador.quantidade());
+        assertEquals("Rua A; nº 10", tokenizador.texto(1));
+        assertEquals("fim", tokenizador.texto(2));
+    }
+
+    @Test
+    void aspasDobradasViramAspasLiterais() {
+        tokenizador.analisar("\"Escola \"\"Maria José\"\"\";\"\"\"\"");
+
+        assertEquals("Escola \"Maria José\"", tokenizador.texto(0));
+        assertEquals("\"", tokenizador.texto(1));
+    }
+
+    @Test
+    void aspasVaziasSaoCampoVazio() {
+        tokenizador.analisar("\"\";x");
+
+        assertTrue(tokenizador.vazio(0));
+        assertEquals("x", tokenizador.texto(1));
+    }
+
+    @Test
+    void aspasSemFecharSaoRecusadas() {
+        IllegalArgumentException erro = assertThrows(IllegalArgumentException.class,
+                () -> tokenizador.analisar("a;\"sem fim;b"));
+        assertEquals("Campo 2 abre aspas sem fechar.", erro.getMessage());
+    }
+
+    @Test
+    void novaAnaliseDescartaCamposAnteriores() {
+        tokenizador.analisar("um;dois;tres");
+        tokenizador.analisar("quatro");
+
+        assertEquals(1, tokenizador.quantidade());
+        assertEquals("quatro", tokenizador.texto(0));
+        assertThrows(IllegalArgumentException.class, () -> tokenizador.texto(1));
+    }
+
+    @Test
+    void linhaMaiorQueOBufferInicial() {
+        String longo = "x".repeat(2000);
+        tokenizador.analisar(longo + ";" + longo);
+
+        assertEquals(longo, tokenizador.texto(0));
+        assertEquals(longo, tokenizador.texto(1));
+    }
+
+    @Test
+    void converteInteiros() {
+        tokenizador.analisar("-42; +7 ;2147483647;-2147483648");
+
+        assertEquals(-42, tokenizador.inteiro(0));
+        assertEquals(7, tokenizador.inteiro(1));
+        assertEquals(Integer.MAX_VALUE, tokenizador.inteiro(2));
+        assertEquals(Integer.MIN_VALUE, tokenizador.inteiro(3));
+    }
+
+    @Test
+    void converteValoresEDatas() {
+        tokenizador.analisar("1.234,56;;31/12/2024;");
+
+        assertEquals(new BigDecimal("1234.56"), tokenizador.moeda(0));
+        assertEquals(BigDecimal.ZERO, tokenizador.moeda(1));
+        assertEquals(LocalDate.of(2024, 12, 31), tokenizador.data(2));
+        assertNull(tokenizador.data(3));
+    }
+
+    @Test
+    void inteiroInvalidoTemAMensagemDoParseInt() {
+        tokenizador.analisar("12a;2147483648");
+
+        assertEquals("For input string: \"12a\"",
+                assertThrows(NumberFormatException.class, () -> tokenizador.inteiro(0)).getMessage());
+        assertThrows(NumberFormatException.class, () -> tokenizador.inteiro(1));
+    }
+
+    @Test
+    void separadorConfiguravel() {
+        TokenizadorCsv virgula = new TokenizadorCsv(',');
+        virgula.analisar("a,\"b,c\",d");
+
+        assertEquals(3, virgula.quantidade());
+        assertEquals("b,c", virgula.texto(1));
+    }
+}
@@ -0,0 +1,89 @@
+package br.com.horizon.portal.benchmark;
+
+import br.com.horizon.portal.application.service.importacao.ConversorData;
+import br.com.horizon.portal.application.service.importacao.ConversorMoeda;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversão de valores "1.234,56" e datas dd/MM/yyyy: o caminho anterior
+ * ({@code trim} + {@code replace} + {@code new BigDecimal}, e
+ * {@code LocalDate.parse} com DateTimeFormatter) contra {@link ConversorMoeda}
+ * e {@link ConversorData}. As datas percorrem um ano inteiro, para que o cache
+ * do ConversorData não seja medido só com acertos.
+ * <p>
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.filtro=Conversores}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversoresBenchmark {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final String[] VALORES = { "1.250.000,00", "98.765,43", "0,01", "-1.234,5", "15", "7.000.000.000,99" };
+
+    private final String[] datas = new String[366];
+    private final char[][] datasChars = new char[366][];
+    private final char[][] valoresChars = new char[VALORES.length][];
+    private final ConversorData conversorData = new ConversorData();
+    private int proxima;
+
+    public ConversoresBenchmark() {
+        LocalDate data = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < datas.length; i++, data = data.plusDays(1)) {
+            datas[i] = data.format(DATE_FORMATTER);
+            datasChars[i] = datas[i].toCharArray();
+        }
+        for (int i = 0; i < VALORES.length; i++) {
+            valoresChars[i] = VALORES[i].toCharArray();
+        }
+    }
+
+    @Benchmark
+    public void moedaReplace(Blackhole bh) {
+        for (String valor : VALORES) {
+            bh.consume(new BigDecimal(valor.trim().replace(".", "").replace(",", ".")));
+        }
+    }
+
+    @Benchmark
+    public void moedaConversor(Blackhole bh) {
+        for (char[] valor : valoresChars) {
+            bh.consume(ConversorMoeda.converter(valor, 0, valor.length));
+        }
+    }
+
+    @Benchmark
+    public void dataFormatter(Blackhole bh) {
+        bh.consume(LocalDate.parse(datas[proximaData()].trim(), DATE_FORMATTER));
+    }
+
+    @Benchmark
+    public void dataConversor(Blackhole bh) {
+        char[] data = datasChars[proximaData()];
+        bh.consume(conversorData.converter(data, 0, data.length));
+    }
+
+    private int proximaData() {
+        int i = proxima;
+        proxima = i + 1 == datas.length ? 0 : i + 1;
+        return i;
+    }
+}
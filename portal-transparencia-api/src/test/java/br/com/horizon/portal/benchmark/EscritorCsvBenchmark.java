@@ -0,0 +1,72 @@
+package br.com.horizon.portal.benchmark;
+
+import br.com.horizon.portal.application.service.exportacao.EscritorCsv;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uma linha do CSV de despesas (texto, inteiro, três valores e duas datas):
+ * {@code printf} com um "%s" por coluna e {@code String.format("%.2f")} nos
+ * valores, como as exportações faziam, contra {@link EscritorCsv}. Os dois
+ * escrevem num Writer que descarta a saída, para medir só a formatação.
+ * <p>
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.filtro=EscritorCsv}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EscritorCsvBenchmark {
+
+    private final Integer exercicio = 2024;
+    private final String empenho = "2024NE000123";
+    private final String orgao = "Secretaria Municipal de Saúde";
+    private final String credor = "Construtora Exemplo; Filial Centro";
+    private final String historico = "Pagamento referente à medição nº 3 da obra da UBS";
+    private final BigDecimal empenhado = new BigDecimal("1250000.00");
+    private final BigDecimal liquidado = new BigDecimal("98765.43");
+    private final BigDecimal pago = new BigDecimal("98765.4");
+    private final LocalDate liquidacao = LocalDate.of(2024, 3, 15);
+    private final LocalDate pagamento = LocalDate.of(2024, 3, 28);
+
+    private final PrintWriter writer = new PrintWriter(Writer.nullWriter());
+    private final EscritorCsv csv = new EscritorCsv(Writer.nullWriter());
+
+    @Benchmark
+    public void printf() {
+        writer.printf("%s;%s;%s;%s;%s;%s;%s;%s;%s;%s%n",
+                exercicio, campo(empenho), campo(orgao), campo(credor),
+                moeda(empenhado), moeda(liquidado), liquidacao, moeda(pago), pagamento, campo(historico));
+    }
+
+    @Benchmark
+    public void escritorCsv() {
+        csv.inteiro(exercicio).texto(empenho).texto(orgao).texto(credor)
+                .moeda(empenhado).moeda(liquidado).data(liquidacao, EscritorCsv.FormatoData.ISO)
+                .moeda(pago).data(pagamento, EscritorCsv.FormatoData.ISO).texto(historico)
+                .fimLinha();
+    }
+
+    private static String campo(String valor) {
+        return valor == null ? "" : valor.replace("\n", " ").replace("\r", " ").replace(";", ",");
+    }
+
+    private static String moeda(BigDecimal valor) {
+        return valor == null ? "0,00" : String.format("%.2f", valor).replace(".", ",");
+    }
+}
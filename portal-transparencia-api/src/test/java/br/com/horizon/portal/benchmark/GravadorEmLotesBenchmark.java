@@ -0,0 +1,134 @@
+package br.com.horizon.portal.benchmark;
+
+import br.com.horizon.portal.infrastructure.persistence.bulk.GravadorEmLotes;
+import br.com.horizon.portal.infrastructure.persistence.entity.FolhaPagamentoEntity;
+import br.com.horizon.portal.infrastructure.persistence.entity.ServidorEntity;
+import br.com.horizon.portal.infrastructure.persistence.repository.FolhaPagamentoRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Heap e vazão da gravação de um arquivo de folha de 500 mil linhas pelo
+ * Hibernate: {@link GravadorEmLotes} (flush/clear a cada lote) contra o
+ * caminho anterior, que acumulava a lista inteira e chamava {@code saveAll}.
+ * <p>
+ * Precisa de um PostgreSQL (as mesmas variáveis DB_* da aplicação). Cada
+ * cenário roda numa transação desfeita no fim, então o banco não muda.
+ * O pico de heap é a soma dos picos dos pools de heap durante o cenário.
+ */
+@SpringBootTest
+class GravadorEmLotesBenchmark {
+
+    private static final int LINHAS = 500_000;
+
+    @TempDir
+    static Path pasta;
+
+    private static Path arquivo;
+
+    @Autowired
+    private GravadorEmLotes gravadorEmLotes;
+
+    @Autowired
+    private FolhaPagamentoRepository folhaPagamentoRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    static void gerarArquivo() throws IOException {
+        arquivo = pasta.resolve("folha.csv");
+        try (BufferedWriter out = Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8)) {
+            out.write("exercicio;mes;bruto;indenizatorias;descontos;liquido\n");
+            for (int i = 0; i < LINHAS; i++) {
+                // Um só servidor: exercício/mês distintos por linha respeitam uk_folha_servidor_competencia
+                out.write((1000 + i / 12) + ";" + (i % 12 + 1) + ";5432.10;320.00;987.65;4764.45\n");
+            }
+        }
+    }
+
+    @Test
+    void gravadorEmLotes() {
+        medir("GravadorEmLotes", servidor -> {
+            GravadorEmLotes.Sessao lote = gravadorEmLotes.abrir();
+            ler(servidor, lote::persistir);
+            lote.concluir();
+        });
+    }
+
+    @Test
+    void listaInteiraComSaveAll() {
+        medir("lista + saveAll", servidor -> {
+            List<FolhaPagamentoEntity> lote = new ArrayList<>();
+            ler(servidor, lote::add);
+            folhaPagamentoRepository.saveAll(lote);
+            entityManager.flush();
+        });
+    }
+
+    private void medir(String cenario, Consumer<ServidorEntity> gravar) {
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        transacao.executeWithoutResult(status -> {
+            ServidorEntity servidor = ServidorEntity.builder()
+                    .nome("Benchmark").cpf("00000000000").cargo("Analista").lotacao("Benchmark")
+                    .tipoVinculo("EFETIVO").dataAdmissao(LocalDate.of(2020, 1, 1)).build();
+            entityManager.persist(servidor);
+            entityManager.flush();
+
+            System.gc();
+            List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                    .filter(p -> p.getType() == MemoryType.HEAP).toList();
+            pools.forEach(MemoryPoolMXBean::resetPeakUsage);
+            long inicio = System.nanoTime();
+
+            gravar.accept(servidor);
+
+            long duracao = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+            long picoMb = pools.stream().mapToLong(p -> p.getPeakUsage().getUsed()).sum() / (1024 * 1024);
+            System.out.printf("%s: %d linhas em %d ms (%d linhas/s), pico de heap %d MB%n",
+                    cenario, LINHAS, duracao, LINHAS * 1000L / duracao, picoMb);
+            status.setRollbackOnly();
+        });
+    }
+
+    private static void ler(ServidorEntity servidor, Consumer<FolhaPagamentoEntity> destino) {
+        try (BufferedReader in = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            in.readLine();
+            String linha;
+            while ((linha = in.readLine()) != null) {
+                String[] c = linha.split(";");
+                destino.accept(FolhaPagamentoEntity.builder()
+                        .servidor(servidor).exercicio(Integer.parseInt(c[0])).mes(Integer.parseInt(c[1]))
+                        .remuneracaoBruta(new BigDecimal(c[2])).verbasIndenizatorias(new BigDecimal(c[3]))
+                        .descontosLegais(new BigDecimal(c[4])).salarioLiquido(new BigDecimal(c[5]))
+                        .idImportacao("benchmark").build());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
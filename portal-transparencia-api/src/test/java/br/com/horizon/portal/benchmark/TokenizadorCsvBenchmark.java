@@ -0,0 +1,59 @@
+package br.com.horizon.portal.benchmark;
+
+import br.com.horizon.portal.application.service.importacao.TokenizadorCsv;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Separação de uma linha de receita (14 colunas): {@code split(";", -1)} +
+ * {@code trim()} por campo, como os importadores faziam, contra
+ * {@link TokenizadorCsv}. Os dois leem os mesmos campos: exercício e mês como
+ * inteiros e as colunas de texto como String; valores e datas ficam de fora.
+ * <p>
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.filtro=TokenizadorCsv}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenizadorCsvBenchmark {
+
+    private static final int[] TEXTOS = { 3, 4, 5, 6, 7, 8, 9, 13 };
+
+    private final String linha = "2024; 3 ;15/03/2024;1112.50.01;Receitas Correntes;Impostos, Taxas e Contribuições;"
+            + "Impostos;IPTU;Principal;1500 ;1.250.000,00;1.300.000,00;  98.765,43;Arrecadação do mês de março";
+
+    private final TokenizadorCsv tokenizador = new TokenizadorCsv();
+
+    @Benchmark
+    public void split(Blackhole bh) {
+        String[] dados = linha.split(";", -1);
+        bh.consume(Integer.parseInt(dados[0].trim()));
+        bh.consume(Integer.parseInt(dados[1].trim()));
+        for (int campo : TEXTOS) {
+            bh.consume(dados[campo].trim());
+        }
+    }
+
+    @Benchmark
+    public void tokenizador(Blackhole bh) {
+        TokenizadorCsv dados = tokenizador.analisar(linha);
+        bh.consume(dados.inteiro(0));
+        bh.consume(dados.inteiro(1));
+        for (int campo : TEXTOS) {
+            bh.consume(dados.texto(campo));
+        }
+    }
+}
@@ -18,7 +18,8 @@ CREATE TABLE IF NOT EXISTS tb_receita (
     valor_arrecadado DECIMAL(19,2) NOT NULL,
     historico TEXT,
     data_importacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    id_importacao VARCHAR(255)
+    id_importacao VARCHAR(255),
+    hash_conteudo VARCHAR(32) -- Importação incremental: detecta linha alterada
 );
 
 */
@@ -71,11 +72,14 @@ CREATE TABLE tb_despesa (
 
     -- Trilha de Auditoria e Ingestão
     data_importacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    id_importacao VARCHAR(255)
+    id_importacao VARCHAR(255),
+    hash_conteudo VARCHAR(32) -- Importação incremental: detecta linha alterada
 );
 
 CREATE INDEX idx_despesa_exercicio ON tb_despesa(exercicio);
 CREATE INDEX idx_despesa_empenho ON tb_despesa(numero_empenho);
+CREATE INDEX idx_despesa_chave_natural ON tb_despesa(exercicio, numero_empenho); -- Importação incremental
+CREATE INDEX idx_despesa_id_importacao ON tb_despesa(id_importacao); -- Desfazer do lote
 CREATE INDEX idx_despesa_credor ON tb_despesa(credor_id);
 
 
@@ -248,6 +252,7 @@ CREATE TABLE IF NOT EXISTS tb_divida_ativa (
 -- Índices de performance para os filtros exigidos pelo PNTP
 CREATE INDEX IF NOT EXISTS idx_divida_ano ON tb_divida_ativa(ano_inscricao);
 CREATE INDEX IF NOT EXISTS idx_divida_nome ON tb_divida_ativa(nome_devedor);
+CREATE INDEX IF NOT EXISTS idx_divida_id_importacao ON tb_divida_ativa(id_importacao); -- Desfazer do lote
 
 -- =========================================================================
 -- INSERÇÃO DE DADOS DE TESTE (SÉRIE HISTÓRICA: 2023, 2024, 2025)
@@ -420,7 +425,10 @@ CREATE TABLE IF NOT EXISTS servidor (
     criado_por VARCHAR(100),
     atualizado_por VARCHAR(100),
     criado_em TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    atualizado_em TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    atualizado_em TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    -- Alvo do INSERT ... ON CONFLICT (cpf) da importação
+    CONSTRAINT uk_servidor_cpf UNIQUE (cpf)
 );
 
 -- Tabela de Contracheque / Folha de Pagamento (Histórico Mensal)
@@ -443,7 +451,9 @@ CREATE TABLE IF NOT EXISTS folha_pagamento (
     criado_em TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     atualizado_em TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
 
-    CONSTRAINT fk_folha_servidor FOREIGN KEY (servidor_id) REFERENCES servidor (id) ON DELETE CASCADE
+    CONSTRAINT fk_folha_servidor FOREIGN KEY (servidor_id) REFERENCES servidor (id) ON DELETE CASCADE,
+    -- Um contracheque por servidor/competência (sustenta a deduplicação da importação)
+    CONSTRAINT uk_folha_servidor_competencia UNIQUE (servidor_id, exercicio, mes)
 );
 
 -- Índices para garantir alta performance nos filtros da API Pública e do Retaguarda
@@ -455,4 +465,46 @@ CREATE INDEX IF NOT EXISTS idx_folha_servidor_id ON folha_pagamento(servidor_id)
 
 -- Índices para garantir rapidez no "Rollback/Desfazer" da Importação
 CREATE INDEX IF NOT EXISTS idx_servidor_id_importacao ON servidor(id_importacao);
-CREATE INDEX IF NOT EXISTS idx_folha_id_importacao ON folha_pagamento(id_importacao);
\ No newline at end of file
+CREATE INDEX IF NOT EXISTS idx_folha_id_importacao ON folha_pagamento(id_importacao);
+
+-- Sequences com incremento 50 para o otimizador pooled do Hibernate (batch de INSERT na importação)
+ALTER SEQUENCE IF EXISTS servidor_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS folha_pagamento_id_seq INCREMENT BY 50;
+
+-- Jobs de importação CSV executados em segundo plano (progresso, cancelamento e histórico)
+CREATE TABLE IF NOT EXISTS tb_importacao_job (
+    id BIGSERIAL PRIMARY KEY,
+    modulo VARCHAR(30) NOT NULL,      -- RECEITA, DESPESA, DIVIDA_ATIVA, FOLHA_PAGAMENTO, SERVIDOR
+    status VARCHAR(20) NOT NULL,      -- PENDENTE, EM_EXECUCAO, CONCLUIDA, FALHOU, CANCELADA, DESFEITA
+    nome_arquivo VARCHAR(255),
+    sha256 VARCHAR(64),               -- Arquivo como foi enviado (recusa reenvio idêntico)
+    id_importacao VARCHAR(50) NOT NULL, -- Lote gravado nas tabelas de dados e na auditoria
+    linhas_processadas BIGINT,
+    registros_gravados BIGINT,
+    registros_por_segundo BIGINT,
+    duracao_ms BIGINT,
+    limite_erros INT,                 -- Modo tolerante (nulo = estrito)
+    registros_rejeitados BIGINT,
+    arquivo_rejeitos VARCHAR(100),    -- CSV das linhas recusadas (Arquivos/rejeitos)
+    linha_checkpoint BIGINT,          -- Última linha confirmada na staging (retomada do job)
+    registros_checkpoint BIGINT,      -- Registros na staging nesse checkpoint (conferidos na retomada)
+    modo VARCHAR(20) DEFAULT 'COMPLETA', -- COMPLETA ou INCREMENTAL
+    registros_inseridos BIGINT,       -- Diferenças da importação incremental
+    registros_alterados BIGINT,
+    registros_removidos BIGINT,
+    registros_inalterados BIGINT,
+    resumo TEXT,
+    mensagem_erro TEXT,
+    usuario VARCHAR(150),
+    criado_em TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    iniciado_em TIMESTAMP,
+    finalizado_em TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_importacao_job_criado_em ON tb_importacao_job(criado_em DESC);
+CREATE INDEX IF NOT EXISTS idx_importacao_job_id_importacao ON tb_importacao_job(id_importacao);
+-- Estes índices (e os de id_importacao/chave natural de despesa e dívida) também são aplicados pela API
+-- na inicialização (EstruturaImportacao), pois bancos já existentes não rodam este script.
+-- Um mesmo arquivo só pode estar na fila, rodando ou importado uma vez por módulo (falha/cancelamento/desfazer liberam)
+CREATE UNIQUE INDEX IF NOT EXISTS uk_importacao_job_arquivo ON tb_importacao_job(modulo, sha256)
+    WHERE status IN ('PENDENTE', 'EM_EXECUCAO', 'CONCLUIDA');
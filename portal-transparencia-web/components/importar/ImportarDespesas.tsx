@@ -1,7 +1,7 @@
 'use client';
 
 import { useState } from 'react';
-import api from '@/services/api';
+import { importacaoService } from '@/services/importacaoService';
 import { 
   UploadCloud, 
   FileSpreadsheet, 
@@ -20,6 +20,7 @@ import {
 export function ImportarDespesas() {
   const [file, setFile] = useState<File | null>(null);
   const [loading, setLoading] = useState(false);
+  const [progresso, setProgresso] = useState('');
   const [status, setStatus] = useState<{ type: 'success' | 'error' | null; message: string }>({ type: null, message: '' });
   const [inputKey, setInputKey] = useState(0);
   const [isDragging, setIsDragging] = useState(false);
@@ -71,20 +72,20 @@ export function ImportarDespesas() {
     setLoading(true);
     setStatus({ type: null, message: '' });
 
-    const formData = new FormData();
-    formData.append('file', file);
-
     try {
-      await api.post('/despesas/upload', formData, {
-        headers: { 'Content-Type': 'multipart/form-data' },
-      });
-      setStatus({ type: 'success', message: 'Importação processada com sucesso! Os novos campos de Processo e Ação já estão visíveis no Portal.' });
-      setFile(null); 
+      // A API só enfileira o arquivo (202): o resultado vem do job
+      const job = await importacaoService.enviar('/despesas/upload', file, (j) => setProgresso(importacaoService.progresso(j)));
+      if (job.status === 'CONCLUIDA') {
+        setStatus({ type: 'success', message: `Importação concluída! Os novos campos de Processo e Ação já estão visíveis no Portal. ${importacaoService.totais(job)}` });
+        setFile(null);
+      } else {
+        setStatus({ type: 'error', message: importacaoService.falha(job) });
+      }
     } catch (error: any) {
-      // ATUALIZADO: Mensagem reflete as 23 colunas
-      setStatus({ type: 'error', message: 'Falha na importação. Certifique-se de usar as 23 colunas do novo layout e o separador (;) correto.' });
+      setStatus({ type: 'error', message: importacaoService.erroRequisicao(error, 'Falha na importação. Certifique-se de usar as 23 colunas do novo layout e o separador (;) correto.') });
     } finally {
       setLoading(false);
+      setProgresso('');
       setInputKey(prev => prev + 1);
     }
   };
@@ -195,7 +196,7 @@ export function ImportarDespesas() {
                   className="w-full py-3 bg-black hover:bg-slate-800 text-white font-bold rounded-xl shadow-lg transition-all flex items-center justify-center gap-2 uppercase tracking-widest text-xs"
                 >
                   {loading ? <Loader2 size={16} className="animate-spin" /> : <UploadCloud size={16} />}
-                  {loading ? "Processando Lote..." : "Iniciar Carga Massiva"}
+                  {loading ? (progresso || "Processando Lote...") : "Iniciar Carga Massiva"}
                 </button>
                 
                 <button 
@@ -1,7 +1,7 @@
 'use client';
 
 import { useState } from 'react';
-import api from '@/services/api';
+import { importacaoService } from '@/services/importacaoService';
 import { 
   UploadCloud, FileSpreadsheet, Download, CheckCircle, AlertTriangle, 
   Info, FileType, Loader2, Scale, FileCheck, X
@@ -10,6 +10,7 @@ import {
 export function ImportarDividaAtiva() {
   const [file, setFile] = useState<File | null>(null);
   const [loading, setLoading] = useState(false);
+  const [progresso, setProgresso] = useState('');
   const [status, setStatus] = useState<{ type: 'success' | 'error' | null; message: string }>({ type: null, message: '' });
   const [inputKey, setInputKey] = useState(0);
 
@@ -33,19 +34,20 @@ export function ImportarDividaAtiva() {
     setLoading(true);
     setStatus({ type: null, message: '' });
 
-    const formData = new FormData();
-    formData.append('file', file);
-
     try {
-      await api.post('/divida-ativa/upload', formData, {
-        headers: { 'Content-Type': 'multipart/form-data' },
-      });
-      setStatus({ type: 'success', message: 'Dívida Ativa processada com sucesso!' });
-      setFile(null); 
+      // A API só enfileira o arquivo (202): o resultado vem do job
+      const job = await importacaoService.enviar('/divida-ativa/upload', file, (j) => setProgresso(importacaoService.progresso(j)));
+      if (job.status === 'CONCLUIDA') {
+        setStatus({ type: 'success', message: `Dívida Ativa processada com sucesso! ${importacaoService.totais(job)}` });
+        setFile(null);
+      } else {
+        setStatus({ type: 'error', message: importacaoService.falha(job) });
+      }
     } catch (error: any) {
-      setStatus({ type: 'error', message: 'Falha na importação. Verifique o padrão de 5 colunas e o separador (;).' });
+      setStatus({ type: 'error', message: importacaoService.erroRequisicao(error, 'Falha na importação. Verifique o padrão de 5 colunas e o separador (;).') });
     } finally {
       setLoading(false);
+      setProgresso('');
       setInputKey(prev => prev + 1);
     }
   };
@@ -93,7 +95,7 @@ export function ImportarDividaAtiva() {
             {file && (
               <div className="mt-6 space-y-3">
                 <button onClick={handleUpload} disabled={loading} className="w-full py-3 bg-black hover:bg-slate-800 text-white font-bold rounded-xl shadow-lg transition-all flex items-center justify-center gap-2 uppercase tracking-widest text-xs">
-                  {loading ? <Loader2 size={16} className="animate-spin" /> : <UploadCloud size={16} />} {loading ? "Processando..." : "Iniciar Importação"}
+                  {loading ? <Loader2 size={16} className="animate-spin" /> : <UploadCloud size={16} />} {loading ? (progresso || "Processando...") : "Iniciar Importação"}
                 </button>
                 <button onClick={() => {setFile(null); setInputKey(p=>p+1); setStatus({type:null, message:''})}} className="w-full py-2 text-slate-400 hover:text-red-600 text-[10px] font-bold uppercase flex items-center justify-center gap-1">
                   <X size={12} /> Cancelar seleção
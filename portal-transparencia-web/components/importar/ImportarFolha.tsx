@@ -1,7 +1,7 @@
 'use client';
 
 import { useState } from 'react';
-import api from '@/services/api';
+import { importacaoService } from '@/services/importacaoService';
 import { 
   UploadCloud, FileSpreadsheet, Download, CheckCircle, 
   AlertTriangle, Info, FileType, Loader2, Landmark, FileCheck, X 
@@ -10,6 +10,7 @@ import {
 export function ImportarFolha() {
   const [file, setFile] = useState<File | null>(null);
   const [loading, setLoading] = useState(false);
+  const [progresso, setProgresso] = useState('');
   const [status, setStatus] = useState<{ type: 'success' | 'error' | null; message: string }>({ type: null, message: '' });
   const [inputKey, setInputKey] = useState(0);
 
@@ -32,19 +33,20 @@ export function ImportarFolha() {
     setLoading(true);
     setStatus({ type: null, message: '' });
 
-    const formData = new FormData();
-    formData.append('file', file);
-
     try {
-      await api.post('/folha-pagamento/importar', formData, {
-        headers: { 'Content-Type': 'multipart/form-data' },
-      });
-      setStatus({ type: 'success', message: 'Folha de pagamento importada com sucesso!' });
-      setFile(null); 
+      // A API só enfileira o arquivo (202): o resultado vem do job
+      const job = await importacaoService.enviar('/folha-pagamento/importar', file, (j) => setProgresso(importacaoService.progresso(j)));
+      if (job.status === 'CONCLUIDA') {
+        setStatus({ type: 'success', message: `Folha de pagamento importada com sucesso! ${importacaoService.totais(job)}` });
+        setFile(null);
+      } else {
+        setStatus({ type: 'error', message: importacaoService.falha(job) });
+      }
     } catch (error: any) {
-      setStatus({ type: 'error', message: 'Erro na importação. Certifique-se que o CPF do servidor já esteja cadastrado no sistema.' });
+      setStatus({ type: 'error', message: importacaoService.erroRequisicao(error, 'Erro na importação. Certifique-se que o CPF do servidor já esteja cadastrado no sistema.') });
     } finally {
       setLoading(false);
+      setProgresso('');
       setInputKey(prev => prev + 1);
     }
   };
@@ -88,7 +90,7 @@ export function ImportarFolha() {
             {file && (
               <button onClick={handleUpload} disabled={loading} className="w-full mt-4 py-3 bg-blue-600 hover:bg-blue-700 text-white font-bold rounded-xl shadow-lg flex items-center justify-center gap-2 uppercase text-xs">
                 {loading ? <Loader2 size={16} className="animate-spin" /> : <UploadCloud size={16} />}
-                {loading ? "Processando..." : "Importar Folha"}
+                {loading ? (progresso || "Processando...") : "Importar Folha"}
               </button>
             )}
 
@@ -1,7 +1,7 @@
 'use client';
 
 import { useState } from 'react';
-import api from '@/services/api';
+import { importacaoService } from '@/services/importacaoService';
 import { 
   UploadCloud, 
   FileSpreadsheet, 
@@ -19,6 +19,7 @@ import {
 export function ImportarReceitas() {
   const [file, setFile] = useState<File | null>(null);
   const [loading, setLoading] = useState(false);
+  const [progresso, setProgresso] = useState('');
   const [status, setStatus] = useState<{ type: 'success' | 'error' | null; message: string }>({ type: null, message: '' });
   const [inputKey, setInputKey] = useState(0);
   const [isDragging, setIsDragging] = useState(false);
@@ -71,19 +72,20 @@ export function ImportarReceitas() {
     setLoading(true);
     setStatus({ type: null, message: '' });
 
-    const formData = new FormData();
-    formData.append('file', file);
-
     try {
-      await api.post('/receitas/upload', formData, {
-        headers: { 'Content-Type': 'multipart/form-data' },
-      });
-      setStatus({ type: 'success', message: 'Importação processada com sucesso! Os dados já estão disponíveis.' });
-      setFile(null); 
+      // A API só enfileira o arquivo (202): o resultado vem do job
+      const job = await importacaoService.enviar('/receitas/upload', file, (j) => setProgresso(importacaoService.progresso(j)));
+      if (job.status === 'CONCLUIDA') {
+        setStatus({ type: 'success', message: `Importação concluída! Os dados já estão disponíveis. ${importacaoService.totais(job)}` });
+        setFile(null);
+      } else {
+        setStatus({ type: 'error', message: importacaoService.falha(job) });
+      }
     } catch (error: any) {
-      setStatus({ type: 'error', message: 'Falha na importação. Verifique se as colunas (agora são 14) e o separador (;) estão corretos.' });
+      setStatus({ type: 'error', message: importacaoService.erroRequisicao(error, 'Falha na importação. Verifique se as colunas (agora são 14) e o separador (;) estão corretos.') });
     } finally {
       setLoading(false);
+      setProgresso('');
       setInputKey(prev => prev + 1);
     }
   };
@@ -183,7 +185,7 @@ export function ImportarReceitas() {
                   className="w-full py-3 bg-black hover:bg-slate-800 text-white font-bold rounded-xl shadow-lg transition-all flex items-center justify-center gap-2 uppercase tracking-widest text-xs"
                 >
                   {loading ? <Loader2 size={16} className="animate-spin" /> : <UploadCloud size={16} />}
-                  {loading ? "Processando..." : "Iniciar Importação"}
+                  {loading ? (progresso || "Processando...") : "Iniciar Importação"}
                 </button>
                 
                 <button 
@@ -1,7 +1,7 @@
 'use client';
 
 import { useState } from 'react';
-import api from '@/services/api';
+import { importacaoService } from '@/services/importacaoService';
 import { 
   UploadCloud, FileSpreadsheet, Download, CheckCircle, 
   AlertTriangle, Info, FileType, Loader2, Users, FileCheck, X 
@@ -10,6 +10,7 @@ import {
 export function ImportarServidores() {
   const [file, setFile] = useState<File | null>(null);
   const [loading, setLoading] = useState(false);
+  const [progresso, setProgresso] = useState('');
   const [status, setStatus] = useState<{ type: 'success' | 'error' | null; message: string }>({ type: null, message: '' });
   const [inputKey, setInputKey] = useState(0);
 
@@ -32,19 +33,20 @@ export function ImportarServidores() {
     setLoading(true);
     setStatus({ type: null, message: '' });
 
-    const formData = new FormData();
-    formData.append('file', file);
-
     try {
-      await api.post('/servidores/importar', formData, {
-        headers: { 'Content-Type': 'multipart/form-data' },
-      });
-      setStatus({ type: 'success', message: 'Base de servidores atualizada com sucesso!' });
-      setFile(null); 
+      // A API só enfileira o arquivo (202): o resultado vem do job
+      const job = await importacaoService.enviar('/servidores/importar', file, (j) => setProgresso(importacaoService.progresso(j)));
+      if (job.status === 'CONCLUIDA') {
+        setStatus({ type: 'success', message: `Base de servidores atualizada com sucesso! ${importacaoService.totais(job)}` });
+        setFile(null);
+      } else {
+        setStatus({ type: 'error', message: importacaoService.falha(job) });
+      }
     } catch (error: any) {
-      setStatus({ type: 'error', message: 'Falha ao processar CSV. Verifique se as datas estão no formato DD/MM/AAAA e se o CPF possui 11 dígitos.' });
+      setStatus({ type: 'error', message: importacaoService.erroRequisicao(error, 'Falha ao processar CSV. Verifique se as datas estão no formato DD/MM/AAAA e se o CPF possui 11 dígitos.') });
     } finally {
       setLoading(false);
+      setProgresso('');
       setInputKey(prev => prev + 1);
     }
   };
@@ -91,7 +93,7 @@ export function ImportarServidores() {
             {file && (
               <button onClick={handleUpload} disabled={loading} className="w-full mt-4 py-3 bg-black text-white font-bold rounded-xl shadow-lg flex items-center justify-center gap-2 uppercase text-xs">
                 {loading ? <Loader2 size={16} className="animate-spin" /> : <UploadCloud size={16} />}
-                {loading ? "Processando..." : "Enviar Cadastro"}
+                {loading ? (progresso || "Processando...") : "Enviar Cadastro"}
               </button>
             )}
 
@@ -0,0 +1,62 @@
+import api from '@/services/api';
+
+export type StatusImportacao = 'PENDENTE' | 'EM_EXECUCAO' | 'CONCLUIDA' | 'FALHOU' | 'CANCELADA' | 'DESFEITA';
+
+export interface ImportacaoJob {
+  id: number;
+  modulo: string;
+  status: StatusImportacao;
+  nomeArquivo?: string;
+  idImportacao?: string;
+  linhasProcessadas: number;
+  registrosGravados: number;
+  registrosRejeitados?: number;
+  resumo?: string;
+  mensagemErro?: string;
+}
+
+const INTERVALO_CONSULTA_MS = 2000;
+
+const emAndamento = (job: ImportacaoJob) => job.status === 'PENDENTE' || job.status === 'EM_EXECUCAO';
+
+export const importacaoService = {
+  // Os uploads respondem 202 com o job na fila: o resultado só sai quando o job termina
+  enviar: async (url: string, file: File, aoAtualizar?: (job: ImportacaoJob) => void): Promise<ImportacaoJob> => {
+    const formData = new FormData();
+    formData.append('file', file);
+    const response = await api.post<ImportacaoJob>(url, formData, {
+      headers: { 'Content-Type': 'multipart/form-data' },
+    });
+    return importacaoService.aguardar(response.data, aoAtualizar);
+  },
+
+  aguardar: async (job: ImportacaoJob, aoAtualizar?: (job: ImportacaoJob) => void): Promise<ImportacaoJob> => {
+    let atual = job;
+    while (emAndamento(atual)) {
+      aoAtualizar?.(atual);
+      await new Promise((resolve) => setTimeout(resolve, INTERVALO_CONSULTA_MS));
+      const response = await api.get<ImportacaoJob>(`/importacoes/${atual.id}`);
+      atual = response.data;
+    }
+    return atual;
+  },
+
+  progresso: (job: ImportacaoJob) =>
+    job.status === 'PENDENTE' ? 'Na fila...' : `${job.linhasProcessadas.toLocaleString('pt-BR')} linhas lidas...`,
+
+  totais: (job: ImportacaoJob) => {
+    const gravados = `${job.registrosGravados.toLocaleString('pt-BR')} registros gravados.`;
+    return job.registrosRejeitados
+      ? `${gravados} ${job.registrosRejeitados.toLocaleString('pt-BR')} linhas recusadas (ver rejeitos do job ${job.id}).`
+      : gravados;
+  },
+
+  // Texto do resultado de um job que terminou sem sucesso
+  falha: (job: ImportacaoJob) => {
+    if (job.status === 'CANCELADA') return 'Importação cancelada.';
+    return job.mensagemErro || job.resumo || `Importação terminou com status ${job.status}.`;
+  },
+
+  // Recusa da própria requisição (ex.: 409 com a fila cheia): usa o detalhe da API se houver
+  erroRequisicao: (error: any, padrao: string): string => error?.response?.data?.details?.[0] || padrao,
+};